@@ -0,0 +1,283 @@
+package at.ngmpps.fjsstt.factory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Loads all problems of a folder at once. The folder is listed a single time;
+ * .fjs, .properties and .transport files are matched by name prefix (the same
+ * rules as {@link ProblemParser#findFiles(File, String)}: WT1a.properties and
+ * WT1b.properties both belong to WT1.fjs) and every instance is parsed on a
+ * bounded thread pool. A file that cannot be parsed is reported in its
+ * {@link ProblemCatalog.Entry} and does not stop the other ones.
+ *
+ * Every .properties file is one instance; a .fjs file without .properties file
+ * is an instance of its own. The transport file is the one configured with
+ * {@link ProblemParser#TRANSPORT_FILE_KEY}, else the one with the most similar
+ * name. Extensions and names are compared case insensitive.
+ */
+public class BulkProblemLoader {
+
+	static final Logger logger = LoggerFactory.getLogger(BulkProblemLoader.class);
+
+	final int parallelism;
+
+	boolean useTokenizer = true;
+
+	public BulkProblemLoader() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param parallelism
+	 *           the max number of files parsed at the same time
+	 */
+	public BulkProblemLoader(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * @param useTokenizer
+	 *           parse with the {@link IntLineTokenizer} (default) or the regex
+	 *           parser
+	 */
+	public void setUseTokenizer(boolean useTokenizer) {
+		this.useTokenizer = useTokenizer;
+	}
+
+	/**
+	 * The lists of files in a folder by extension; key is the lower case name
+	 * w/o extension.
+	 */
+	static class FolderIndex {
+		final File folder;
+		final TreeMap<String, File> problems = new TreeMap<String, File>();
+		final TreeMap<String, File> configs = new TreeMap<String, File>();
+		final TreeMap<String, File> transports = new TreeMap<String, File>();
+
+		FolderIndex(File folder) throws IOException {
+			this.folder = folder;
+			File[] files = folder.listFiles();
+			if (files == null)
+				throw new IOException("Cannot list folder " + folder);
+			for (File file : files) {
+				if (file.isDirectory())
+					continue;
+				String name = file.getName().toLowerCase(Locale.ROOT);
+				int dot = name.lastIndexOf('.');
+				if (dot <= 0)
+					continue;
+				String ext = name.substring(dot + 1);
+				String base = name.substring(0, dot);
+				if (ext.equals(ProblemParser.PROBLEM_FILE_EXTENSION.toLowerCase(Locale.ROOT)))
+					problems.put(base, file);
+				else if (ext.equals(ProblemParser.CONFIG_FILE_EXTENSION.toLowerCase(Locale.ROOT)))
+					configs.put(base, file);
+				else if (ext.equals(ProblemParser.TRANSPORT_FILE_EXTENSION.toLowerCase(Locale.ROOT)))
+					transports.put(base, file);
+			}
+		}
+
+		/**
+		 * @return the transport file named in a config (TRANSPORT_FILE_KEY) or
+		 *         null
+		 */
+		File configuredTransport(String tpfile) {
+			String name = ProblemParser.trimm(tpfile).trim();
+			if (name.isEmpty())
+				return null;
+			String key = name.toLowerCase(Locale.ROOT);
+			int dot = key.lastIndexOf('.');
+			File found = transports.get(dot > 0 ? key.substring(0, dot) : key);
+			if (found != null)
+				return found;
+			File relative = new File(folder, name);
+			return relative.canRead() ? relative : null;
+		}
+	}
+
+	/**
+	 * Finds the problem instances in a folder without parsing them.
+	 *
+	 * @param folder
+	 * @return the not yet loaded entries, ordered by name
+	 * @throws IOException
+	 *            if folder is no readable directory
+	 */
+	public static List<ProblemCatalog.Entry> index(File folder) throws IOException {
+		return index(new FolderIndex(folder));
+	}
+
+	static List<ProblemCatalog.Entry> index(FolderIndex index) {
+		TreeMap<String, ProblemCatalog.Entry> entries = new TreeMap<String, ProblemCatalog.Entry>();
+		Set<File> problemsWithConfig = new HashSet<File>();
+		for (Map.Entry<String, File> config : index.configs.entrySet()) {
+			File problem = match(index.problems, config.getKey());
+			if (problem == null) {
+				logger.warn("No problem file found for {}", config.getValue());
+				continue;
+			}
+			problemsWithConfig.add(problem);
+			// a transport file configured in the config replaces this one when
+			// the config is parsed
+			entries.put(config.getKey(),
+					new ProblemCatalog.Entry(baseName(config.getValue()), problem, config.getValue(), match(index.transports, config.getKey())));
+		}
+		for (Map.Entry<String, File> problem : index.problems.entrySet()) {
+			if (!problemsWithConfig.contains(problem.getValue()) && !entries.containsKey(problem.getKey()))
+				entries.put(problem.getKey(), new ProblemCatalog.Entry(baseName(problem.getValue()), problem.getValue(), null,
+						match(index.transports, problem.getKey())));
+		}
+		return new ArrayList<ProblemCatalog.Entry>(entries.values());
+	}
+
+	/**
+	 * Indexes and parses all problems of a folder.
+	 *
+	 * @param folder
+	 * @return all found instances in name order
+	 * @throws IOException
+	 *            if folder is no readable directory
+	 */
+	public ProblemCatalog load(File folder) throws IOException {
+		FolderIndex index = new FolderIndex(folder);
+		return load(index(index), index);
+	}
+
+	/**
+	 * Parses the given entries in parallel; the entries get their problem or
+	 * their error. A transport file configured in a .properties file is looked
+	 * up in the folder of that file.
+	 *
+	 * @param entries
+	 * @return the catalog of the entries in the given order
+	 */
+	public ProblemCatalog load(final List<ProblemCatalog.Entry> entries) {
+		return load(entries, null);
+	}
+
+	/**
+	 * @param index
+	 *           the index of the folder of the entries if known, else null
+	 */
+	ProblemCatalog load(final List<ProblemCatalog.Entry> entries, final FolderIndex index) {
+		final Map<File, FolderIndex> indexes = configFolders(entries, index);
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, entries.size())));
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>(entries.size());
+			for (final ProblemCatalog.Entry entry : entries) {
+				futures.add(pool.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						parse(entry, entry.getConfigFile() != null ? indexes.get(folderOf(entry.getConfigFile())) : null);
+						return null;
+					}
+				}));
+			}
+			for (int i = 0; i < futures.size(); ++i) {
+				try {
+					futures.get(i).get();
+				} catch (ExecutionException e) {
+					entries.get(i).error = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			pool.shutdownNow();
+		}
+		return new ProblemCatalog(entries);
+	}
+
+	/**
+	 * @return the index of every folder with a config file of the entries; a
+	 *         folder that cannot be listed has no index
+	 */
+	static Map<File, FolderIndex> configFolders(final List<ProblemCatalog.Entry> entries, final FolderIndex index) {
+		Map<File, FolderIndex> indexes = new HashMap<File, FolderIndex>();
+		if (index != null)
+			indexes.put(index.folder.getAbsoluteFile(), index);
+		for (ProblemCatalog.Entry entry : entries) {
+			if (entry.getConfigFile() == null)
+				continue;
+			File folder = folderOf(entry.getConfigFile());
+			if (indexes.containsKey(folder))
+				continue;
+			try {
+				indexes.put(folder, new FolderIndex(folder));
+			} catch (IOException e) {
+				logger.warn("Cannot list folder of {}: {}", entry.getConfigFile(), e.toString());
+				indexes.put(folder, null);
+			}
+		}
+		return indexes;
+	}
+
+	static File folderOf(File file) {
+		return file.getAbsoluteFile().getParentFile();
+	}
+
+	void parse(ProblemCatalog.Entry entry, FolderIndex index) {
+		try {
+			ProblemParser parser = new ProblemParser();
+			parser.setUseTokenizer(useTokenizer);
+			parser.problemFile = entry.getProblemFile();
+			parser.parseProblemFile();
+			if (entry.getConfigFile() != null) {
+				parser.parseConfigurationFile(entry.getConfigFile());
+				String tpfile = parser.configuration != null ? parser.configuration.getProperty(ProblemParser.TRANSPORT_FILE_KEY) : null;
+				if (index != null && tpfile != null) {
+					File configured = index.configuredTransport(tpfile);
+					if (configured != null)
+						entry.transportFile = configured;
+				}
+			}
+			if (entry.getTransportFile() != null)
+				parser.parseTransportTimes(entry.getTransportFile());
+			else
+				parser.parseTransportTimesString("");
+			entry.problem = parser.getProblem();
+		} catch (Exception e) {
+			logger.warn("Cannot parse {}: {}", entry.getName(), e.toString());
+			entry.error = e;
+		}
+	}
+
+	/**
+	 * @return the file whose name is the longest prefix of name, else the first
+	 *         file whose name starts with name, else null
+	 */
+	static File match(TreeMap<String, File> index, String name) {
+		for (int len = name.length(); len > 0; --len) {
+			File found = index.get(name.substring(0, len));
+			if (found != null)
+				return found;
+		}
+		Map.Entry<String, File> next = index.ceilingEntry(name);
+		if (next != null && next.getKey().startsWith(name))
+			return next.getValue();
+		return null;
+	}
+
+	static String baseName(File file) {
+		String name = file.getName();
+		int dot = name.lastIndexOf('.');
+		return dot > 0 ? name.substring(0, dot) : name;
+	}
+}
@@ -0,0 +1,161 @@
+package at.ngmpps.fjsstt.factory;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Regex free tokenizer for the line based integer formats (.fjs, .transport).
+ * It works directly on the bytes of a {@link ByteBuffer} (e.g. a memory mapped
+ * file) or of a {@link ReadableByteChannel} and decodes the numbers of one line
+ * at a time into a reused int array. Every byte that is not a digit separates
+ * two numbers, just as the \W and \d+ patterns of the regex parser do. No
+ * Strings, Matchers or boxed Integers are created per line or token.
+ *
+ * Line ends are \n, \r or \r\n (the same as {@link java.io.BufferedReader}).
+ * Channels must be blocking.
+ */
+public class IntLineTokenizer {
+
+	static final int CHANNEL_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * the bytes to decode; if a channel is given this is refilled from it
+	 */
+	final ByteBuffer buffer;
+
+	final ReadableByteChannel channel;
+
+	/**
+	 * the numbers of the current line; only the first {@link #count} are valid
+	 */
+	int[] values = new int[64];
+
+	int count;
+
+	/**
+	 * number of chars of the current line (w/o line break)
+	 */
+	int lineLength;
+
+	// last line ended with \r; skip a following \n
+	boolean skipLineFeed;
+
+	public IntLineTokenizer(final ByteBuffer buffer) {
+		this.buffer = buffer;
+		this.channel = null;
+	}
+
+	public IntLineTokenizer(final ReadableByteChannel channel) {
+		this.buffer = ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE);
+		// through Buffer: the ByteBuffer overrides of Java 9+ are missing on Java 8
+		((Buffer) this.buffer).flip();
+		this.channel = channel;
+	}
+
+	/**
+	 * Decodes the next line.
+	 *
+	 * @return false if there is no further line (end of input)
+	 * @throws IOException
+	 *            if the channel cannot be read or a number does not fit into an
+	 *            int
+	 */
+	public boolean nextLine() throws IOException {
+		count = 0;
+		lineLength = 0;
+		boolean lineStarted = false;
+		boolean inNumber = false;
+		int value = 0;
+		while (true) {
+			if (!buffer.hasRemaining() && !fill()) {
+				if (inNumber)
+					add(value);
+				return lineStarted;
+			}
+			final byte b = buffer.get();
+			if (skipLineFeed) {
+				skipLineFeed = false;
+				if (b == '\n')
+					continue;
+			}
+			lineStarted = true;
+			if (b == '\n' || b == '\r') {
+				skipLineFeed = b == '\r';
+				if (inNumber)
+					add(value);
+				return true;
+			}
+			lineLength++;
+			if (b >= '0' && b <= '9') {
+				final int digit = b - '0';
+				if (!inNumber) {
+					value = digit;
+					inNumber = true;
+				} else {
+					if (value > (Integer.MAX_VALUE - digit) / 10)
+						throw new IOException("Number too large in line with " + count + " numbers read");
+					value = value * 10 + digit;
+				}
+			} else if (inNumber) {
+				add(value);
+				inNumber = false;
+			}
+		}
+	}
+
+	/**
+	 * @return the number of integers decoded from the current line
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * @return the length of the current line in chars, without line break
+	 */
+	public int lineLength() {
+		return lineLength;
+	}
+
+	/**
+	 * @return the decoded numbers of the current line; the array is reused for
+	 *         the next line and only the first {@link #count()} entries are valid
+	 */
+	public int[] values() {
+		return values;
+	}
+
+	/**
+	 * @return the idx-th number of the current line
+	 */
+	public int get(final int idx) {
+		return values[idx];
+	}
+
+	void add(final int value) {
+		if (count == values.length) {
+			final int[] grown = new int[values.length * 2];
+			System.arraycopy(values, 0, grown, 0, count);
+			values = grown;
+		}
+		values[count++] = value;
+	}
+
+	/**
+	 * Reads the next bytes from the channel. A blocking channel returns at
+	 * least one byte or -1; a read of 0 bytes (only possible for non-blocking
+	 * channels, which are not supported) is taken as end of input instead of
+	 * spinning.
+	 */
+	boolean fill() throws IOException {
+		if (channel == null)
+			return false;
+		((Buffer) buffer).clear();
+		final int read = channel.read(buffer);
+		((Buffer) buffer).flip();
+		return read > 0;
+	}
+
+}
@@ -0,0 +1,199 @@
+package at.ngmpps.fjsstt.factory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+
+/**
+ * Incremental parser for .fjs problems: the header is read on construction and
+ * every further job is decoded only when requested, so consumers can work with
+ * the first jobs (e.g. create and solve their subproblems) while the rest of
+ * the file is still read.
+ *
+ * <pre>
+ * JobStreamParser jobs = JobStreamParser.open(file);
+ * FJSSTTproblem problem = jobs.createProblem();
+ * jobs.forEachRemaining(job -&gt; job.addTo(problem));
+ * </pre>
+ *
+ * As a {@link Spliterator} it can be used with parallel streams: jobs are read
+ * in order by one thread and handed out in batches. IO errors are thrown as
+ * {@link UncheckedIOException}.
+ */
+public class JobStreamParser extends Spliterators.AbstractSpliterator<ParsedJob> {
+
+	final IntLineTokenizer tokens;
+
+	final int jobs;
+
+	final int machines;
+
+	int nextJob = 0;
+
+	boolean finished = false;
+
+	/**
+	 * Reads the header line.
+	 *
+	 * @param tokens
+	 * @throws IOException
+	 *            if there is no valid header
+	 */
+	public JobStreamParser(final IntLineTokenizer tokens) throws IOException {
+		super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+		this.tokens = tokens;
+		// first line has 2 numbers: mJobs mMachines
+		if (!tokens.nextLine() || tokens.count() < 2)
+			throw new IOException("First line of problem needs the number of jobs and machines");
+		jobs = tokens.get(0);
+		machines = tokens.get(1);
+	}
+
+	/**
+	 * Memory maps the file (files larger than 2 GB are read through a channel).
+	 */
+	public static JobStreamParser open(final File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() <= Integer.MAX_VALUE)
+				return new JobStreamParser(new IntLineTokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+		}
+		// too large to map at once: read through the channel, which stays open
+		// until the stream is read to the end
+		final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		return new JobStreamParser(new IntLineTokenizer(channel)) {
+			@Override
+			protected void finish() {
+				super.finish();
+				try {
+					channel.close();
+				} catch (IOException e) {
+					ProblemParser.logger.warn("Cannot close {}: {}", file, e.toString());
+				}
+			}
+		};
+	}
+
+	public static JobStreamParser of(final String problem) throws IOException {
+		return new JobStreamParser(new IntLineTokenizer(ByteBuffer.wrap(problem.getBytes(StandardCharsets.ISO_8859_1))));
+	}
+
+	/**
+	 * @return the number of jobs given in the header
+	 */
+	public int getJobs() {
+		return jobs;
+	}
+
+	public int getMachines() {
+		return machines;
+	}
+
+	/**
+	 * @return an empty problem (no jobs, no travel times, time slots 0) for the
+	 *         machines of this file; add the jobs with
+	 *         {@link ParsedJob#addTo(FJSSTTproblem)}
+	 */
+	public FJSSTTproblem createProblem() {
+		return createProblem(null);
+	}
+
+	public FJSSTTproblem createProblem(final Properties configuration) {
+		return new FJSSTTproblem(new TreeMap<Integer, Integer>(), 0, machines, 0, new HashMap<String, List<Integer>>(),
+				new TreeMap<Integer, int[][]>(), null, new TreeMap<Integer, Integer>(), Objective.TARDINESS,
+				new TreeMap<Integer, Integer>(), configuration, new TreeMap<Integer, Integer>());
+	}
+
+	/**
+	 * Decodes the next job.
+	 *
+	 * @return the job or null at the end of the problem
+	 * @throws IOException
+	 *            if the line is no valid job
+	 */
+	public ParsedJob next() throws IOException {
+		// same end criterion as the reader based parser: end of input or a
+		// trailing line with a few chars
+		if (finished || !tokens.nextLine() || tokens.lineLength() <= 5) {
+			if (!finished)
+				finish();
+			return null;
+		}
+		final int j = nextJob++;
+		final int[] t = tokens.values();
+		// last three numbers are release time, due date and weight
+		final int end = tokens.count() - 3;
+		if (end < 1)
+			throw new IOException("Line of job " + j + " is too short");
+		final int ops = t[0];
+
+		final int[][] processTimes = new int[ops][];
+		final List<List<Integer>> altMachines = new ArrayList<List<Integer>>(ops);
+		int pos = 1;
+		for (int o = 0; o < ops; ++o) {
+			processTimes[o] = new int[machines];
+			final int altMachinesForOpCount = pos < end ? t[pos++] : -1;
+			if (altMachinesForOpCount < 0 || pos + 2 * altMachinesForOpCount > end)
+				throw new IOException("Operation " + o + " of job " + j + " is incomplete");
+			final List<Integer> altMachinesForOp = new ArrayList<Integer>(altMachinesForOpCount);
+			for (int machineIdx = 0; machineIdx < altMachinesForOpCount; machineIdx++) {
+				// machine 1 in file is machine 0 here!
+				final int machine = t[pos++] - 1;
+				final int time = t[pos++];
+				altMachinesForOp.add(machine);
+				// we do not allow 0 as process time, see ProblemParser
+				processTimes[o][machine] = time > 0 ? time : 1;
+			}
+			altMachines.add(altMachinesForOp);
+		}
+		// see ProblemParser: our first time-slot is 0, so due dates are reduced
+		// by 1
+		return new ParsedJob(j, ops, processTimes, altMachines, t[end], t[end + 1] - 1, t[end + 2]);
+	}
+
+	/**
+	 * called once, when the last job has been read
+	 */
+	protected void finish() {
+		finished = true;
+	}
+
+	@Override
+	public boolean tryAdvance(final Consumer<? super ParsedJob> action) {
+		final ParsedJob job;
+		try {
+			job = next();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (job == null)
+			return false;
+		action.accept(job);
+		return true;
+	}
+
+	@Override
+	public long estimateSize() {
+		return finished ? 0 : Math.max(0, jobs - nextJob);
+	}
+
+	public Stream<ParsedJob> stream() {
+		return StreamSupport.stream(this, false);
+	}
+}
@@ -0,0 +1,394 @@
+package at.ngmpps.fjsstt.factory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+import at.ngmpps.fjsstt.model.problem.ProblemView;
+
+/**
+ * A {@link ProblemSnapshot} used in place: every access reads the int columns
+ * of the (memory mapped) buffer at their offsets, nothing is copied to the
+ * heap. Opening checks the header and the ends of the offset columns only, so
+ * it costs O(1) (O(jobs) for version 1 snapshots, which have no operation
+ * offsets), and several processes mapping the same file share one copy in the
+ * page cache.
+ *
+ * Jobs are looked up by binary search in the sorted job ids, or directly if
+ * the ids are 0 .. jobs-1. {@link #validate()} checks all columns;
+ * {@link #toProblem()} validates and creates the map based problem.
+ */
+public class MappedProblem implements ProblemView {
+
+	final ByteBuffer bytes;
+
+	final IntBuffer ints;
+
+	final int version;
+
+	final int machines;
+
+	final int timeSlots;
+
+	final int maxOperations;
+
+	final Objective objective;
+
+	final int jobs;
+
+	final int totalOps;
+
+	final int totalAlt;
+
+	final int problemId;
+
+	final int configBytes;
+
+	final boolean dense;
+
+	/**
+	 * job ids are 0 .. jobs-1, so the job index is the id
+	 */
+	final boolean contiguousIds;
+
+	// positions of the columns in ints
+	final int jobIdsAt, operationsAt, dueDatesAt, releaseTimesAt, weightsAt, opOffsetsAt, altOffsetsAt, altMachinesAt,
+			altProcessTimesAt, denseAt, travelTimesAt;
+
+	/**
+	 * position of the configuration in bytes
+	 */
+	final int configAt;
+
+	/**
+	 * operation offsets of version 1 snapshots, null if they are mapped
+	 */
+	final int[] opOffsets;
+
+	int[] jobIds;
+
+	Properties configurations;
+
+	/**
+	 * @param buffer
+	 *           the snapshot starts at its position
+	 * @throws IOException
+	 *            if the bytes are no snapshot of a supported version, or the
+	 *            header does not fit the size
+	 */
+	MappedProblem(final ByteBuffer buffer) throws IOException {
+		bytes = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		ints = bytes.asIntBuffer();
+		if (ints.limit() < ProblemSnapshot.HEADER_INTS)
+			throw new IOException("Not a problem snapshot: " + bytes.limit() + " bytes are too short for the header");
+		if (ints.get(ProblemSnapshot.H_MAGIC) != ProblemSnapshot.MAGIC)
+			throw new IOException("Not a problem snapshot: wrong magic number 0x" + Integer.toHexString(ints.get(ProblemSnapshot.H_MAGIC)));
+		version = ints.get(ProblemSnapshot.H_VERSION);
+		if (version < 1 || version > ProblemSnapshot.VERSION)
+			throw new IOException("Unsupported snapshot version " + version + ", supported are 1 to " + ProblemSnapshot.VERSION);
+
+		final int objectiveIdx = ints.get(ProblemSnapshot.H_OBJECTIVE);
+		if (objectiveIdx < -1 || objectiveIdx >= Objective.values().length)
+			throw new IOException("Corrupt snapshot: unknown objective " + objectiveIdx);
+		objective = objectiveIdx >= 0 ? Objective.values()[objectiveIdx] : null;
+		machines = ints.get(ProblemSnapshot.H_MACHINES);
+		timeSlots = ints.get(ProblemSnapshot.H_TIMESLOTS);
+		maxOperations = ints.get(ProblemSnapshot.H_MAX_OPERATIONS);
+		jobs = ints.get(ProblemSnapshot.H_JOBS);
+		totalOps = ints.get(ProblemSnapshot.H_TOTAL_OPERATIONS);
+		totalAlt = ints.get(ProblemSnapshot.H_TOTAL_ALT_MACHINES);
+		problemId = ints.get(ProblemSnapshot.H_PROBLEM_ID);
+		configBytes = ints.get(ProblemSnapshot.H_CONFIG_BYTES);
+		dense = (ints.get(ProblemSnapshot.H_FLAGS) & ProblemSnapshot.FLAG_DENSE_PROCESS_TIMES) != 0;
+		if (machines < 0 || timeSlots < 0 || maxOperations < 0 || jobs < 0 || totalOps < 0 || totalAlt < 0 || configBytes < -1)
+			throw new IOException("Corrupt snapshot: negative size in header (machines " + machines + ", time slots " + timeSlots
+					+ ", jobs " + jobs + ", operations " + totalOps + ", alternative machines " + totalAlt + ", configuration "
+					+ configBytes + ")");
+
+		long at = ProblemSnapshot.HEADER_INTS;
+		jobIdsAt = (int) at;
+		operationsAt = (int) (at += jobs);
+		dueDatesAt = (int) (at += jobs);
+		releaseTimesAt = (int) (at += jobs);
+		weightsAt = (int) (at += jobs);
+		at += jobs;
+		opOffsetsAt = version >= 2 ? (int) at : -1;
+		if (version >= 2)
+			at += jobs + 1L;
+		altOffsetsAt = (int) at;
+		altMachinesAt = (int) (at += totalOps + 1L);
+		altProcessTimesAt = (int) (at += totalAlt);
+		at += totalAlt;
+		denseAt = dense ? (int) at : -1;
+		if (dense)
+			at += (long) totalOps * machines;
+		travelTimesAt = (int) at;
+		at += (long) machines * machines;
+		final long size = at * 4 + Math.max(0, configBytes);
+		if (size > bytes.limit())
+			throw new IOException("Snapshot is truncated: header needs " + size + " bytes, there are " + bytes.limit());
+		configAt = (int) (at * 4);
+
+		if (version >= 2) {
+			opOffsets = null;
+			if (ints.get(opOffsetsAt) != 0 || ints.get(opOffsetsAt + jobs) != totalOps)
+				throw new IOException("Corrupt snapshot: operation offsets do not end at " + totalOps);
+		} else {
+			opOffsets = new int[jobs + 1];
+			for (int j = 0; j < jobs; ++j) {
+				final int ops = ints.get(operationsAt + j);
+				if (ops < 0 || opOffsets[j] + (long) ops > totalOps)
+					throw new IOException("Corrupt snapshot: job index " + j + " has " + ops + " operations");
+				opOffsets[j + 1] = opOffsets[j] + ops;
+			}
+			if (opOffsets[jobs] != totalOps)
+				throw new IOException("Corrupt snapshot: operations do not add up to " + totalOps);
+		}
+		if (ints.get(altOffsetsAt) != 0 || ints.get(altOffsetsAt + totalOps) != totalAlt)
+			throw new IOException("Corrupt snapshot: alternative machine offsets do not end at " + totalAlt);
+		contiguousIds = jobs == 0 || (ints.get(jobIdsAt) == 0 && ints.get(jobIdsAt + jobs - 1) == jobs - 1);
+	}
+
+	/**
+	 * Checks all columns: ascending job ids, consistent operation and
+	 * alternative machine offsets, machines in range. O(size of the snapshot).
+	 *
+	 * @throws IOException
+	 *            at the first inconsistency
+	 */
+	public void validate() throws IOException {
+		for (int j = 0; j < jobs; ++j) {
+			if (j > 0 && ints.get(jobIdsAt + j) <= ints.get(jobIdsAt + j - 1))
+				throw new IOException("Corrupt snapshot: job ids are not ascending at index " + j);
+			if (ints.get(jobIdsAt + j) < 0)
+				throw new IOException("Corrupt snapshot: negative job id at index " + j);
+			if (opOffset(j + 1) - opOffset(j) != ints.get(operationsAt + j) || opOffset(j + 1) < opOffset(j))
+				throw new IOException("Corrupt snapshot: operation offsets of job index " + j + " do not fit its operations");
+		}
+		for (int o = 0; o < totalOps; ++o)
+			if (ints.get(altOffsetsAt + o + 1) < ints.get(altOffsetsAt + o))
+				throw new IOException("Corrupt snapshot: alternative machine offsets are not ascending at operation " + o);
+		for (int a = 0; a < totalAlt; ++a) {
+			final int machine = ints.get(altMachinesAt + a);
+			if (machine < 0 || machine >= machines)
+				throw new IOException("Corrupt snapshot: alternative machine " + machine + " is not one of " + machines + " machines");
+		}
+	}
+
+	int opOffset(final int j) {
+		return opOffsets != null ? opOffsets[j] : ints.get(opOffsetsAt + j);
+	}
+
+	/**
+	 * @return the index of the job with the given id
+	 * @throws ArrayIndexOutOfBoundsException
+	 *            if there is no such job
+	 */
+	public int getJobIndex(final int job) {
+		if (contiguousIds) {
+			if (job < 0 || job >= jobs)
+				throw new ArrayIndexOutOfBoundsException("No job with id " + job);
+			return job;
+		}
+		int low = 0;
+		int high = jobs - 1;
+		while (low <= high) {
+			final int mid = (low + high) >>> 1;
+			final int id = ints.get(jobIdsAt + mid);
+			if (id < job)
+				low = mid + 1;
+			else if (id > job)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		throw new ArrayIndexOutOfBoundsException("No job with id " + job);
+	}
+
+	int operationIndex(final int job, final int op) {
+		return opOffset(getJobIndex(job)) + op;
+	}
+
+	public int getVersion() {
+		return version;
+	}
+
+	public int getJobCount() {
+		return jobs;
+	}
+
+	public int getTotalOperations() {
+		return totalOps;
+	}
+
+	public int getProblemId() {
+		return problemId;
+	}
+
+	@Override
+	public int getMachines() {
+		return machines;
+	}
+
+	@Override
+	public int getTimeSlots() {
+		return timeSlots;
+	}
+
+	@Override
+	public int getMaxOperations() {
+		return maxOperations;
+	}
+
+	@Override
+	public Objective getObjective() {
+		return objective;
+	}
+
+	/**
+	 * @return the job ids, copied from the buffer on first use; do not modify
+	 */
+	@Override
+	public int[] getJobIds() {
+		int[] result = jobIds;
+		if (result == null) {
+			result = new int[jobs];
+			for (int j = 0; j < jobs; ++j)
+				result[j] = ints.get(jobIdsAt + j);
+			jobIds = result;
+		}
+		return result;
+	}
+
+	@Override
+	public int getOperationCount(final int job) {
+		return ints.get(operationsAt + getJobIndex(job));
+	}
+
+	@Override
+	public int getAltMachineCount(final int job, final int op) {
+		final int o = operationIndex(job, op);
+		return ints.get(altOffsetsAt + o + 1) - ints.get(altOffsetsAt + o);
+	}
+
+	@Override
+	public int getAltMachine(final int job, final int op, final int idx) {
+		return ints.get(altMachinesAt + ints.get(altOffsetsAt + operationIndex(job, op)) + idx);
+	}
+
+	@Override
+	public int getProcessTime(final int job, final int op, final int machine) {
+		final int o = operationIndex(job, op);
+		for (int a = ints.get(altOffsetsAt + o); a < ints.get(altOffsetsAt + o + 1); ++a)
+			if (ints.get(altMachinesAt + a) == machine)
+				return ints.get(altProcessTimesAt + a);
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public int getTravelTime(final int fromMachine, final int toMachine) {
+		return ints.get(travelTimesAt + fromMachine * machines + toMachine);
+	}
+
+	@Override
+	public int getDueDate(final int job) {
+		return ints.get(dueDatesAt + getJobIndex(job));
+	}
+
+	@Override
+	public int getReleaseTime(final int job) {
+		return ints.get(releaseTimesAt + getJobIndex(job));
+	}
+
+	@Override
+	public int getJobWeight(final int job) {
+		return ints.get(weightsAt + getJobIndex(job));
+	}
+
+	/**
+	 * @return the configuration, parsed on first use; null if there is none
+	 * @throws IOException
+	 *            if it cannot be parsed
+	 */
+	public Properties getConfigurations() throws IOException {
+		if (configurations == null && configBytes >= 0) {
+			final byte[] config = new byte[configBytes];
+			final ByteBuffer source = bytes.duplicate();
+			// through Buffer: the ByteBuffer overrides of Java 9+ are missing on
+			// Java 8
+			((Buffer) source).position(configAt);
+			source.get(config);
+			final Properties result = new Properties();
+			result.load(new StringReader(new String(config, StandardCharsets.UTF_8)));
+			configurations = result;
+		}
+		return configurations;
+	}
+
+	/**
+	 * Validates the snapshot and copies it into a new map based problem.
+	 *
+	 * @throws IOException
+	 *            if the snapshot is corrupt
+	 */
+	public FJSSTTproblem toProblem() throws IOException {
+		validate();
+		final Map<Integer, Integer> operationsMap = new TreeMap<Integer, Integer>();
+		final Map<Integer, Integer> dueDatesMap = new TreeMap<Integer, Integer>();
+		final Map<Integer, Integer> releaseTimesMap = new TreeMap<Integer, Integer>();
+		final Map<Integer, Integer> weightsMap = new TreeMap<Integer, Integer>();
+		final Map<Integer, int[][]> processTimesMap = new TreeMap<Integer, int[][]>();
+		final HashMap<String, List<Integer>> altMachinesMap = new HashMap<String, List<Integer>>(totalOps * 4 / 3 + 1);
+		int op = 0;
+		for (int j = 0; j < jobs; ++j) {
+			final int job = ints.get(jobIdsAt + j);
+			final int operations = ints.get(operationsAt + j);
+			operationsMap.put(job, operations);
+			dueDatesMap.put(job, ints.get(dueDatesAt + j));
+			releaseTimesMap.put(job, ints.get(releaseTimesAt + j));
+			weightsMap.put(job, ints.get(weightsAt + j));
+			final int[][] jobProcessTimes = new int[operations][machines];
+			for (int o = 0; o < operations; ++o, ++op) {
+				if (dense) {
+					final IntBuffer row = ints.duplicate();
+					((Buffer) row).position(denseAt + op * machines);
+					row.get(jobProcessTimes[o]);
+				}
+				final int from = ints.get(altOffsetsAt + op);
+				final int to = ints.get(altOffsetsAt + op + 1);
+				final List<Integer> alt = new ArrayList<Integer>(to - from);
+				for (int a = from; a < to; ++a) {
+					final int machine = ints.get(altMachinesAt + a);
+					alt.add(machine);
+					jobProcessTimes[o][machine] = ints.get(altProcessTimesAt + a);
+				}
+				altMachinesMap.put(job + "-" + o, alt);
+			}
+			processTimesMap.put(job, jobProcessTimes);
+		}
+		final int[][] travelTimes = new int[machines][machines];
+		final IntBuffer travel = ints.duplicate();
+		((Buffer) travel).position(travelTimesAt);
+		for (int m = 0; m < machines; ++m)
+			travel.get(travelTimes[m]);
+
+		final Properties config = getConfigurations();
+		final FJSSTTproblem problem = new FJSSTTproblem(operationsMap, maxOperations, machines, timeSlots, altMachinesMap,
+				processTimesMap, travelTimes, dueDatesMap, objective, weightsMap, config != null ? (Properties) config.clone() : null,
+				releaseTimesMap);
+		problem.setProblemId(problemId);
+		return problem;
+	}
+}
@@ -0,0 +1,138 @@
+package at.ngmpps.fjsstt.factory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+
+/**
+ * One job (one line of a .fjs file) as emitted by {@link JobStreamParser}.
+ * Values are already converted like {@link ProblemParser} does: machines start
+ * at 0, due dates are reduced by 1 and process times of 0 are 1.
+ */
+public class ParsedJob {
+
+	final int jobId;
+
+	final int operations;
+
+	/**
+	 * first index is the operation, second the machine
+	 */
+	final int[][] processTimes;
+
+	/**
+	 * the alternative machines per operation
+	 */
+	final List<List<Integer>> altMachines;
+
+	final int releaseTime;
+
+	final int dueDate;
+
+	final int weight;
+
+	public ParsedJob(int jobId, int operations, int[][] processTimes, List<List<Integer>> altMachines, int releaseTime, int dueDate,
+			int weight) {
+		this.jobId = jobId;
+		this.operations = operations;
+		this.processTimes = processTimes;
+		this.altMachines = altMachines;
+		this.releaseTime = releaseTime;
+		this.dueDate = dueDate;
+		this.weight = weight;
+	}
+
+	public int getJobId() {
+		return jobId;
+	}
+
+	public int getOperations() {
+		return operations;
+	}
+
+	public int[][] getProcessTimes() {
+		return processTimes;
+	}
+
+	public List<List<Integer>> getAltMachines() {
+		return altMachines;
+	}
+
+	/**
+	 * @return the alternative machines per operation in the form used by
+	 *         {@link FJSSTTproblem#addJob(Integer, Integer, int[][], Map, Integer, Integer)}
+	 */
+	public Map<Integer, List<Integer>> getAltMachinesMap() {
+		Map<Integer, List<Integer>> result = new HashMap<Integer, List<Integer>>();
+		for (int op = 0; op < operations; ++op)
+			result.put(op, altMachines.get(op));
+		return result;
+	}
+
+	public int getReleaseTime() {
+		return releaseTime;
+	}
+
+	public int getDueDate() {
+		return dueDate;
+	}
+
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Adds this job with its id to the problem.
+	 *
+	 * @param problem
+	 * @return the job id
+	 */
+	public Integer addTo(FJSSTTproblem problem) {
+		return problem.addJob(jobId, operations, processTimes, getAltMachinesMap(), dueDate, weight, releaseTime);
+	}
+
+	/**
+	 * Creates the subproblem of this job without waiting for the whole problem,
+	 * with the default window slack.
+	 *
+	 * @see #createSubproblem(int, int, int[][], Objective, Properties)
+	 */
+	public SubproblemInstance createSubproblem(int machines, int timeslots, int[][] travelTimes, Objective objective) {
+		return createSubproblem(machines, timeslots, travelTimes, objective, null);
+	}
+
+	/**
+	 * Creates the subproblem of this job without waiting for the whole problem.
+	 * Its horizon starts at the release time and its time windows use the
+	 * window slack of the configurations, like
+	 * {@link FJSSTTproblem#createSubproblem(int)}.
+	 *
+	 * @param machines
+	 * @param timeslots
+	 * @param travelTimes
+	 * @param objective
+	 * @param configurations
+	 *           see {@link SubproblemSolverConfig#getWindowSlack(Properties)},
+	 *           may be null
+	 * @return
+	 */
+	public SubproblemInstance createSubproblem(int machines, int timeslots, int[][] travelTimes, Objective objective,
+			Properties configurations) {
+		SubproblemInstance subproblem = new SubproblemInstance(jobId, operations, machines, timeslots, getAltMachinesMap(), processTimes,
+				travelTimes, dueDate, releaseTime, weight, objective);
+		subproblem.calcTimeWindows(SubproblemSolverConfig.getWindowSlack(configurations));
+		return subproblem;
+	}
+
+	@Override
+	public String toString() {
+		return "ParsedJob{" + "jobId=" + jobId + ", operations=" + operations + ", altMachines=" + altMachines + ", releaseTime="
+				+ releaseTime + ", dueDate=" + dueDate + ", weight=" + weight + '}';
+	}
+}
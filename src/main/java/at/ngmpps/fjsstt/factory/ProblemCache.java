@@ -0,0 +1,236 @@
+package at.ngmpps.fjsstt.factory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import at.ngmpps.fjsstt.model.ProblemSet;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.SparseProcessTimesMap;
+
+/**
+ * Content addressed cache for parsed problems. The key is the SHA-256 hash of
+ * the fjs, transport and properties contents, so the same problem is parsed
+ * once, no matter if it comes as strings or files. The cache is bounded by the
+ * approximate retained bytes of the cached problems (least recently used ones
+ * are evicted first).
+ *
+ * {@link ProblemParser} uses a shared instance for its parse methods if
+ * {@link ProblemParser#USE_CACHE} is set or they are called with cached =
+ * true.
+ *
+ * Callers get a copy made with {@link FJSSTTproblem#cloneShared()} in O(1):
+ * jobs can be added and removed and the process time arrays changed, but the
+ * alternative machine lists and travel times are shared with the cached
+ * problem and must not be changed in place.
+ */
+public class ProblemCache {
+
+	final long maxBytes;
+
+	// access ordered: eldest == least recently used
+	final LinkedHashMap<String, FJSSTTproblem> problems = new LinkedHashMap<String, FJSSTTproblem>(16, 0.75f, true);
+
+	final Map<String, Long> sizes = new HashMap<String, Long>();
+
+	long retainedBytes;
+
+	final AtomicLong hits = new AtomicLong();
+
+	final AtomicLong misses = new AtomicLong();
+
+	final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param maxBytes
+	 *           the max. approximate size of all cached problems
+	 */
+	public ProblemCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Cached version of
+	 * {@link ProblemParser#parseStrings(String, String, String)}.
+	 */
+	public FJSSTTproblem parseStrings(String problemContent, String configContent, String transportContent) {
+		String key = key(problemContent, transportContent, configContent);
+		FJSSTTproblem cached = get(key);
+		if (cached != null)
+			return cached;
+		FJSSTTproblem problem = ProblemParser.parseStringsUncached(problemContent, configContent, transportContent);
+		return put(key, problem);
+	}
+
+	public FJSSTTproblem parse(ProblemSet problemSet) {
+		return parseStrings(problemSet.getFjs(), problemSet.getProperties(), problemSet.getTransport());
+	}
+
+	/**
+	 * Cached version of {@link ProblemParser#parseFiles(String, String, String)}
+	 * ; the files are read (not parsed) to compute the key, so changed files are
+	 * parsed again.
+	 */
+	public FJSSTTproblem parseFiles(String problemFile, String configFile, String transportFile) throws URISyntaxException, IOException {
+		String key = key(read(problemFile, ProblemParser.PROBLEM_FILE_EXTENSION), read(transportFile, ProblemParser.TRANSPORT_FILE_EXTENSION),
+				read(configFile, ProblemParser.CONFIG_FILE_EXTENSION));
+		FJSSTTproblem cached = get(key);
+		if (cached != null)
+			return cached;
+		FJSSTTproblem problem = ProblemParser.parseFilesUncached(problemFile, configFile, transportFile);
+		return put(key, problem);
+	}
+
+	/**
+	 * @return a copy of the cached problem, null if there is none
+	 */
+	synchronized FJSSTTproblem get(String key) {
+		FJSSTTproblem cached = problems.get(key);
+		if (cached == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		hits.incrementAndGet();
+		// under the lock: the first copy freezes the maps of the cached problem
+		return cached.cloneShared();
+	}
+
+	/**
+	 * caches the problem (if it fits) and returns a copy, or the problem itself
+	 * if it is not cached
+	 */
+	FJSSTTproblem put(String key, FJSSTTproblem problem) {
+		// a failed parse has no maps; do not cache that
+		if (problem == null || problem.getOperations() == null)
+			return problem;
+		long bytes = estimateBytes(problem);
+		synchronized (this) {
+			if (bytes <= maxBytes && !problems.containsKey(key)) {
+				problems.put(key, problem);
+				sizes.put(key, bytes);
+				retainedBytes += bytes;
+				Iterator<Map.Entry<String, FJSSTTproblem>> eldest = problems.entrySet().iterator();
+				while (retainedBytes > maxBytes && eldest.hasNext()) {
+					String evict = eldest.next().getKey();
+					eldest.remove();
+					retainedBytes -= sizes.remove(evict);
+					evictions.incrementAndGet();
+				}
+				return problem.cloneShared();
+			}
+		}
+		return problem;
+	}
+
+	public synchronized void clear() {
+		problems.clear();
+		sizes.clear();
+		retainedBytes = 0;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+
+	public synchronized int size() {
+		return problems.size();
+	}
+
+	/**
+	 * @return the approximate size of all cached problems
+	 */
+	public synchronized long getRetainedBytes() {
+		return retainedBytes;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Approximate heap size of a problem (64 bit JVM, compressed oops): map
+	 * entries, boxed values, Strings of the alternative machine keys and the
+	 * arrays.
+	 */
+	public static long estimateBytes(FJSSTTproblem problem) {
+		final long mapEntry = 40;
+		final long boxed = 16;
+		final long arrayHeader = 16;
+		long bytes = 256;
+		int jobs = problem.getOperations().size();
+		// operations, due dates, release times, weights, process times
+		bytes += jobs * 5 * (mapEntry + boxed);
+		if (problem.getProcessTimes() instanceof SparseProcessTimesMap) {
+			bytes += ((SparseProcessTimesMap) problem.getProcessTimes()).estimateBytes();
+		} else {
+			for (int[][] jobProcessTimes : problem.getProcessTimes().values()) {
+				bytes += arrayHeader + 4L * jobProcessTimes.length;
+				for (int[] row : jobProcessTimes)
+					bytes += arrayHeader + 4L * row.length;
+			}
+		}
+		for (Map.Entry<String, List<Integer>> alt : problem.getAltMachines().entrySet()) {
+			// key String + char array, ArrayList + array, boxed machines
+			bytes += mapEntry + 40 + 2L * alt.getKey().length() + 40 + alt.getValue().size() * (4 + boxed);
+		}
+		int machines = problem.getMachines();
+		bytes += arrayHeader + 4L * machines + machines * (arrayHeader + 4L * machines);
+		if (problem.getConfigurations() != null)
+			for (Map.Entry<Object, Object> e : problem.getConfigurations().entrySet())
+				bytes += mapEntry + 80 + 2L * (e.getKey().toString().length() + e.getValue().toString().length());
+		return bytes;
+	}
+
+	/**
+	 * @return the file contents or null if there is no file
+	 */
+	static String read(String path, String extension) throws IOException {
+		if (path == null || path.isEmpty())
+			return null;
+		List<File> files = ProblemParser.checkOrFindFile(new File(path), extension);
+		if (files.isEmpty())
+			return null;
+		return new String(Files.readAllBytes(files.get(0).toPath()), StandardCharsets.ISO_8859_1);
+	}
+
+	static String key(String problem, String transport, String config) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String content : new String[] { problem, transport, config }) {
+				if (content == null || content.isEmpty()) {
+					// null and empty are the same for the parser; -1 can not be a
+					// length
+					digest.update(new byte[] { -1, -1, -1, -1 });
+				} else {
+					byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+					digest.update(new byte[] { (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16), (byte) (bytes.length >>> 8),
+							(byte) bytes.length });
+					digest.update(bytes);
+				}
+			}
+			return Base64.getEncoder().encodeToString(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			// every JVM has SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package at.ngmpps.fjsstt.factory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+
+/**
+ * The result of loading a whole problem folder with {@link BulkProblemLoader}:
+ * one entry per problem instance (a .fjs file with its .properties and
+ * .transport file), ordered by name. Entries that could not be parsed keep the
+ * error instead of a problem.
+ */
+public class ProblemCatalog implements Iterable<ProblemCatalog.Entry> {
+
+	public static class Entry {
+
+		final String name;
+
+		final File problemFile;
+
+		final File configFile;
+
+		File transportFile;
+
+		FJSSTTproblem problem;
+
+		Exception error;
+
+		public Entry(String name, File problemFile, File configFile, File transportFile) {
+			this.name = name;
+			this.problemFile = problemFile;
+			this.configFile = configFile;
+			this.transportFile = transportFile;
+		}
+
+		/**
+		 * @return the name of the config file (w/o extension), or of the problem
+		 *         file if there is no config
+		 */
+		public String getName() {
+			return name;
+		}
+
+		public File getProblemFile() {
+			return problemFile;
+		}
+
+		/**
+		 * @return the .properties file or null
+		 */
+		public File getConfigFile() {
+			return configFile;
+		}
+
+		/**
+		 * @return the .transport file or null
+		 */
+		public File getTransportFile() {
+			return transportFile;
+		}
+
+		/**
+		 * @return the parsed problem or null if parsing failed
+		 */
+		public FJSSTTproblem getProblem() {
+			return problem;
+		}
+
+		/**
+		 * @return the reason why this entry could not be parsed, or null
+		 */
+		public Exception getError() {
+			return error;
+		}
+
+		public boolean isLoaded() {
+			return problem != null;
+		}
+
+		@Override
+		public String toString() {
+			return "Entry{" + "name='" + name + '\'' + ", problemFile=" + problemFile + ", configFile=" + configFile + ", transportFile="
+					+ transportFile + ", error=" + error + '}';
+		}
+	}
+
+	final List<Entry> entries;
+
+	public ProblemCatalog(List<Entry> entries) {
+		this.entries = Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * @return all entries in name order, including the failed ones
+	 */
+	public List<Entry> getEntries() {
+		return entries;
+	}
+
+	/**
+	 * @return the successfully parsed problems by entry name, in name order
+	 */
+	public Map<String, FJSSTTproblem> getProblems() {
+		Map<String, FJSSTTproblem> result = new LinkedHashMap<String, FJSSTTproblem>();
+		for (Entry entry : entries)
+			if (entry.isLoaded())
+				result.put(entry.getName(), entry.getProblem());
+		return result;
+	}
+
+	/**
+	 * @return the entries which could not be parsed
+	 */
+	public List<Entry> getErrors() {
+		List<Entry> result = new ArrayList<Entry>();
+		for (Entry entry : entries)
+			if (!entry.isLoaded())
+				result.add(entry);
+		return result;
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public Iterator<Entry> iterator() {
+		return entries.iterator();
+	}
+}
@@ -7,6 +7,11 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -37,6 +42,36 @@ public class ProblemParser {
 	public static final String SEARCH_NR_TIME_SLOTS_KEY = "SubgradientSearch.NrTimeSlots";
 	public static final String TRANSPORT_FILE_KEY = "SubgradientSearch.TransportFile";
 
+	/**
+	 * Default for new parsers: if true, problems (.fjs) are read with the regex
+	 * free {@link IntLineTokenizer} (files are memory mapped) instead of the
+	 * BufferedReader/regex based parser. Both give the same FJSSTTproblem.
+	 */
+	public static boolean USE_TOKENIZER = false;
+
+	/**
+	 * Default for new parsers: if true, parsed problems store their process
+	 * times sparse (see {@link FJSSTTproblem#setSparseProcessTimes(boolean)}).
+	 */
+	public static boolean SPARSE_PROCESS_TIMES = false;
+
+	/**
+	 * If true, {@link #parseStrings(String, String, String)} and
+	 * {@link #parseFiles(String, String, String)} go through the shared
+	 * {@link #getCache()}. Off by default, because the cache hands out copies
+	 * that share their process time arrays, alternative machine lists and
+	 * travel times, which must then not be changed in place.
+	 */
+	public static boolean USE_CACHE = false;
+
+	/**
+	 * max. approximate retained bytes of the shared cache, read when it is
+	 * created
+	 */
+	public static long CACHE_MAX_BYTES = 256L << 20;
+
+	static volatile ProblemCache cache;
+
 	// fjs file to pares
 	File problemFile;
 
@@ -79,6 +114,12 @@ public class ProblemParser {
 	// default objective function for parsed files
 	Objective objective = Objective.TARDINESS;
 
+	// parse problems with the IntLineTokenizer instead of regex
+	boolean useTokenizer = USE_TOKENIZER;
+
+	// store the process times of parsed problems sparse
+	boolean sparseProcessTimes = SPARSE_PROCESS_TIMES;
+
 	public ProblemParser() {
 	}
 
@@ -141,8 +182,41 @@ public class ProblemParser {
 		return parse.parseConfigProblem(new File(filename));
 	}
 
+	/**
+	 * @return the cache shared by the parse methods, see {@link #USE_CACHE}
+	 */
+	public static ProblemCache getCache() {
+		ProblemCache result = cache;
+		if (result == null) {
+			synchronized (ProblemParser.class) {
+				if (cache == null)
+					cache = new ProblemCache(CACHE_MAX_BYTES);
+				result = cache;
+			}
+		}
+		return result;
+	}
+
 	public static FJSSTTproblem parseFiles(String problemFile, String configFile, String transportFile)
 			throws URISyntaxException, IOException {
+		return parseFiles(problemFile, configFile, transportFile, USE_CACHE);
+	}
+
+	/**
+	 * @param cached
+	 *           use the shared {@link #getCache()}: repeated calls with the
+	 *           same file contents parse once and share the job data (see
+	 *           {@link ProblemCache})
+	 */
+	public static FJSSTTproblem parseFiles(String problemFile, String configFile, String transportFile, boolean cached)
+			throws URISyntaxException, IOException {
+		if (cached)
+			return getCache().parseFiles(problemFile, configFile, transportFile);
+		return parseFilesUncached(problemFile, configFile, transportFile);
+	}
+
+	static FJSSTTproblem parseFilesUncached(String problemFile, String configFile, String transportFile)
+			throws URISyntaxException, IOException {
 		final ProblemParser parse = new ProblemParser();
 		parse.parseProblemFileOnly(new File(problemFile));
 		if (configFile != null && !configFile.isEmpty()) {
@@ -163,6 +237,22 @@ public class ProblemParser {
 	 * @return
 	 */
 	public static FJSSTTproblem parseStrings(String problemContent, String configContent, String transportContent) {
+		return parseStrings(problemContent, configContent, transportContent, USE_CACHE);
+	}
+
+	/**
+	 * @param cached
+	 *           use the shared {@link #getCache()}: repeated calls with the
+	 *           same contents parse once and share the job data (see
+	 *           {@link ProblemCache})
+	 */
+	public static FJSSTTproblem parseStrings(String problemContent, String configContent, String transportContent, boolean cached) {
+		if (cached)
+			return getCache().parseStrings(problemContent, configContent, transportContent);
+		return parseStringsUncached(problemContent, configContent, transportContent);
+	}
+
+	static FJSSTTproblem parseStringsUncached(String problemContent, String configContent, String transportContent) {
 		final ProblemParser parse = new ProblemParser();
 		try {
 			parse.parseProblem(problemContent);
@@ -176,6 +266,30 @@ public class ProblemParser {
 		return parse.getProblem();
 	}
 
+	/**
+	 * Streams the jobs of a problem file, see {@link JobStreamParser}.
+	 * 
+	 * @param file
+	 *           the .fjs file
+	 * @return
+	 * @throws IOException
+	 */
+	public static JobStreamParser streamJobs(final File file) throws IOException {
+		return JobStreamParser.open(file);
+	}
+
+	/**
+	 * Parses all problems in a folder in parallel, see {@link BulkProblemLoader}.
+	 * 
+	 * @param folder
+	 * @return the problems (and errors) ordered by name
+	 * @throws IOException
+	 *            if the folder cannot be listed
+	 */
+	public static ProblemCatalog parseFolder(final File folder) throws IOException {
+		return new BulkProblemLoader().load(folder);
+	}
+
 	/**
 	 * Checks if the Given File is OK or if not searches for that file
 	 * 
@@ -275,8 +389,10 @@ public class ProblemParser {
 			if (folder != null) {
 				int substring = FilePathName.length();
 				int folderCharPos = Math.max(FilePathName.lastIndexOf(File.separatorChar), 0);
-				for (int s = substring; s > folderCharPos; s--) {
-					for (File file : folder.listFiles()) {
+				// list once, not once per tried prefix
+				final File[] folderFiles = folder.listFiles();
+				for (int s = substring; folderFiles != null && s > folderCharPos; s--) {
+					for (File file : folderFiles) {
 						String fn = file.toString();
 						if (fn.endsWith(someOtherFileExtension) && fn.startsWith(FilePathName))
 							resultFiles.add(file);
@@ -386,6 +502,8 @@ public class ProblemParser {
 				travelTimes, dueDates, objective, jobWeights, configuration, releaseTimes);
 		if (configuration != null && configuration.containsKey(ProblemParser.SEARCH_NR_TIME_SLOTS_KEY))
 			problem.setTimeSlots(Integer.parseInt(configuration.getProperty(ProblemParser.SEARCH_NR_TIME_SLOTS_KEY)));
+		if (sparseProcessTimes)
+			problem.setSparseProcessTimes(true);
 		return problem;
 	}
 
@@ -486,22 +604,111 @@ public class ProblemParser {
 		return null;
 	}
 
+	public boolean isUseTokenizer() {
+		return useTokenizer;
+	}
+
+	/**
+	 * @param useTokenizer
+	 *           if true, problems are parsed with the regex free
+	 *           {@link IntLineTokenizer}
+	 */
+	public void setUseTokenizer(boolean useTokenizer) {
+		this.useTokenizer = useTokenizer;
+	}
+
+	public boolean isSparseProcessTimes() {
+		return sparseProcessTimes;
+	}
+
+	/**
+	 * @param sparseProcessTimes
+	 *           if true, {@link #getProblem()} returns problems with sparse
+	 *           process times
+	 */
+	public void setSparseProcessTimes(boolean sparseProcessTimes) {
+		this.sparseProcessTimes = sparseProcessTimes;
+	}
+
 	protected File parseProblemFile() throws IOException {
 		if (problemFile != null && problemFile.canRead()) {
-			BufferedReader reader = new BufferedReader(new FileReader(problemFile));
-			parseProblem(reader);
-			reader.close();
+			if (useTokenizer) {
+				parseProblemMapped(problemFile);
+			} else {
+				BufferedReader reader = new BufferedReader(new FileReader(problemFile));
+				parseProblem(reader);
+				reader.close();
+			}
 		}
 		return problemFile;
 	}
 
 	public String parseProblem(String prob) throws IOException {
-		BufferedReader reader = new BufferedReader(new StringReader(prob));
-		parseProblem(reader);
-		reader.close();
+		if (useTokenizer) {
+			parseProblem(new IntLineTokenizer(ByteBuffer.wrap(prob.getBytes(StandardCharsets.ISO_8859_1))));
+		} else {
+			BufferedReader reader = new BufferedReader(new StringReader(prob));
+			parseProblem(reader);
+			reader.close();
+		}
 		return prob;
 	}
 
+	/**
+	 * Memory maps the problem file and parses it with the
+	 * {@link IntLineTokenizer}.
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void parseProblemMapped(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() <= Integer.MAX_VALUE)
+				parseProblem(new IntLineTokenizer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+			else
+				parseProblem(new IntLineTokenizer(channel));
+		}
+	}
+
+	public void parseProblem(ReadableByteChannel channel) throws IOException {
+		parseProblem(new IntLineTokenizer(channel));
+	}
+
+	/**
+	 * Same as {@link #parseProblem(BufferedReader)} but numbers are decoded in
+	 * place by the tokenizer: no regex, no Strings and no boxing per token.
+	 * 
+	 * @param tokens
+	 * @throws IOException
+	 *            if the input is no valid problem
+	 */
+	public void parseProblem(IntLineTokenizer tokens) throws IOException {
+		final JobStreamParser jobs = new JobStreamParser(tokens);
+		machines = jobs.getMachines();
+
+		altMachines = new HashMap<String, List<Integer>>();
+		dueDates = new TreeMap<>();
+		operations = new TreeMap<>();
+		jobWeights = new TreeMap<>();
+		timeslotsMaxDueDate = 0;
+		maxOperations = 0;
+		processTimes = new TreeMap<>();
+		releaseTimes = new TreeMap<>();
+
+		for (ParsedJob job = jobs.next(); job != null; job = jobs.next()) {
+			final int j = job.getJobId();
+			operations.put(j, job.getOperations());
+			maxOperations = maxOperations > job.getOperations() ? maxOperations : job.getOperations();
+			releaseTimes.put(j, job.getReleaseTime());
+			dueDates.put(j, job.getDueDate());
+			timeslotsMaxDueDate = timeslotsMaxDueDate > job.getDueDate() ? timeslotsMaxDueDate : job.getDueDate();
+			jobWeights.put(j, job.getWeight());
+			processTimes.put(j, job.getProcessTimes());
+			for (int o = 0; o < job.getOperations(); ++o)
+				altMachines.put(j + "-" + o, job.getAltMachines().get(o));
+		}
+	}
+
 	/**
 	 * due to conceptual difficulties we do not allow 0 as processtime duration. that will be change to 1
 	 * @param reader
@@ -616,7 +823,9 @@ public class ProblemParser {
 			properties = found.get(0);
 		if (properties != null && properties.canRead()) {
 			configuration = new Properties();
-			configuration.load(new FileReader(properties));
+			try (FileReader reader = new FileReader(properties)) {
+				configuration.load(reader);
+			}
 			return configuration;
 		} else {
 			configuration = null;
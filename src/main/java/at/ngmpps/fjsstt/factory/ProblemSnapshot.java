@@ -0,0 +1,304 @@
+package at.ngmpps.fjsstt.factory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.SparseProcessTimes;
+import at.ngmpps.fjsstt.model.problem.SparseProcessTimesMap;
+
+/**
+ * Compact binary snapshot of a {@link FJSSTTproblem}. All data is stored in
+ * flat int columns (little endian), so a snapshot is written and read with bulk
+ * copies instead of object by object as with Java serialization.
+ * {@link #open(File)} memory maps a file and serves a {@link MappedProblem}
+ * view directly from the mapping, so a snapshot opens in O(1) and several
+ * processes share one copy in the page cache; {@link #read(File)} copies it
+ * into a map based {@link FJSSTTproblem}.
+ *
+ * Layout: a header of {@link #HEADER_INTS} ints, followed by the columns
+ * <ul>
+ * <li>job ids (ascending), operations, due dates, release times, weights
+ * [jobs]</li>
+ * <li>operation offsets [jobs + 1], i.e. the operations of the j-th job have
+ * the indices opOffsets[j] .. opOffsets[j+1]-1 (since version 2)</li>
+ * <li>alternative machine offsets [total operations + 1], i.e. the alternative
+ * machines of the i-th operation (jobs in id order) are at altOffsets[i] ..
+ * altOffsets[i+1]-1</li>
+ * <li>alternative machines and their process times [total alt. machines]</li>
+ * <li>dense process times [total operations * machines], only if some process
+ * time of a not alternative machine is not 0</li>
+ * <li>travel times [machines * machines]</li>
+ * <li>the configuration in properties format (UTF-8), length -1 if there is
+ * none</li>
+ * </ul>
+ */
+public class ProblemSnapshot {
+
+	public static final String SNAPSHOT_FILE_EXTENSION = "fjsb";
+
+	/**
+	 * "FJSB"
+	 */
+	public static final int MAGIC = 0x464A5342;
+
+	/**
+	 * version 2 added the operation offsets; version 1 is still read
+	 */
+	public static final int VERSION = 2;
+
+	static final int HEADER_INTS = 16;
+
+	// header positions
+	static final int H_MAGIC = 0;
+	static final int H_VERSION = 1;
+	static final int H_FLAGS = 2;
+	static final int H_OBJECTIVE = 3;
+	static final int H_MACHINES = 4;
+	static final int H_TIMESLOTS = 5;
+	static final int H_MAX_OPERATIONS = 6;
+	static final int H_JOBS = 7;
+	static final int H_TOTAL_OPERATIONS = 8;
+	static final int H_TOTAL_ALT_MACHINES = 9;
+	static final int H_PROBLEM_ID = 10;
+	static final int H_CONFIG_BYTES = 11;
+
+	static final int FLAG_DENSE_PROCESS_TIMES = 1;
+
+	/**
+	 * Writes the problem to a snapshot file.
+	 *
+	 * @param problem
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void write(final FJSSTTproblem problem, final File file) throws IOException {
+		final ByteBuffer bytes = toBytes(problem);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (bytes.hasRemaining())
+				channel.write(bytes);
+		}
+	}
+
+	/**
+	 * Memory maps a snapshot file and creates the map based problem.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 *            if the file is no valid snapshot of a supported version
+	 */
+	public static FJSSTTproblem read(final File file) throws IOException {
+		return open(file).toProblem();
+	}
+
+	/**
+	 * Memory maps a snapshot file; the view reads from the mapping, which stays
+	 * valid after the file is closed.
+	 *
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 *            if the file is no snapshot of a supported version
+	 */
+	public static MappedProblem open(final File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Snapshot too large: " + file);
+			return new MappedProblem(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} catch (IOException e) {
+			throw new IOException(file + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @param bytes
+	 *           the snapshot starts at the position
+	 * @return a view reading from the bytes
+	 * @throws IOException
+	 *            if the bytes are no snapshot of a supported version
+	 */
+	public static MappedProblem view(final ByteBuffer bytes) throws IOException {
+		return new MappedProblem(bytes);
+	}
+
+	/**
+	 * Sparse process times (see {@link FJSSTTproblem#isSparseProcessTimes()})
+	 * are read in their sparse form, without creating dense arrays.
+	 * 
+	 * @param problem
+	 * @return the snapshot of the problem, ready to be read (position 0)
+	 * @throws IllegalArgumentException
+	 *            if the snapshot would have more than Integer.MAX_VALUE bytes
+	 */
+	public static ByteBuffer toBytes(final FJSSTTproblem problem) {
+		final int machines = problem.getMachines();
+		final TreeSet<Integer> jobs = new TreeSet<Integer>(problem.getOperations().keySet());
+		// the sparse form has the times of the alternative machines only
+		final SparseProcessTimesMap sparse = problem.isSparseProcessTimes() ? (SparseProcessTimesMap) problem.getProcessTimes() : null;
+
+		long totalOps = 0;
+		long totalAlt = 0;
+		boolean dense = false;
+		for (Integer job : jobs) {
+			final int ops = problem.getOperations().get(job);
+			final int[][] jobProcessTimes = sparse == null ? problem.getProcessTimes().get(job) : null;
+			totalOps += ops;
+			for (int op = 0; op < ops; ++op) {
+				final List<Integer> alt = problem.getAltMachines(job, op);
+				totalAlt += alt != null ? alt.size() : 0;
+				// only process times of alternative machines are in the sparse
+				// columns; keep a dense copy if any other one is set
+				if (!dense && sparse == null) {
+					int nonZero = 0;
+					for (int m = 0; m < jobProcessTimes[op].length; ++m)
+						if (jobProcessTimes[op][m] != 0)
+							nonZero++;
+					int altNonZero = 0;
+					if (alt != null)
+						for (int m : alt)
+							if (jobProcessTimes[op][m] != 0)
+								altNonZero++;
+					dense = nonZero != altNonZero || jobProcessTimes[op].length != machines;
+				}
+			}
+		}
+
+		final byte[] config = configBytes(problem.getConfigurations());
+		final long size = 4 * (HEADER_INTS + 6L * jobs.size() + 1 + totalOps + 1 + 2 * totalAlt + (dense ? totalOps * machines : 0)
+				+ (long) machines * machines) + (config != null ? config.length : 0);
+		if (size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Problem too large for a snapshot: " + size + " bytes");
+		final int ints = (int) ((size - (config != null ? config.length : 0)) / 4);
+		final ByteBuffer bytes = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+		final IntBuffer out = bytes.asIntBuffer();
+
+		final int[] header = new int[HEADER_INTS];
+		header[H_MAGIC] = MAGIC;
+		header[H_VERSION] = VERSION;
+		header[H_FLAGS] = dense ? FLAG_DENSE_PROCESS_TIMES : 0;
+		header[H_OBJECTIVE] = problem.getObjective() != null ? problem.getObjective().ordinal() : -1;
+		header[H_MACHINES] = machines;
+		header[H_TIMESLOTS] = problem.getTimeSlots();
+		header[H_MAX_OPERATIONS] = problem.getMaxOperations();
+		header[H_JOBS] = jobs.size();
+		header[H_TOTAL_OPERATIONS] = (int) totalOps;
+		header[H_TOTAL_ALT_MACHINES] = (int) totalAlt;
+		header[H_PROBLEM_ID] = problem.getProblemId();
+		header[H_CONFIG_BYTES] = config != null ? config.length : -1;
+		out.put(header);
+
+		final int[] column = new int[jobs.size()];
+		int i = 0;
+		for (Integer job : jobs)
+			column[i++] = job;
+		out.put(column);
+		putJobColumn(out, column, jobs, problem.getOperations(), 0);
+		putJobColumn(out, column, jobs, problem.getDueDates(), 0);
+		putJobColumn(out, column, jobs, problem.getReleaseTimes(), 0);
+		putJobColumn(out, column, jobs, problem.getJobWeights(), 1);
+		final int[] opOffsets = new int[jobs.size() + 1];
+		i = 0;
+		for (Integer job : jobs) {
+			opOffsets[i + 1] = opOffsets[i] + problem.getOperations().get(job);
+			i++;
+		}
+		out.put(opOffsets);
+
+		final int[] altOffsets = new int[(int) totalOps + 1];
+		final int[] altMachines = new int[(int) totalAlt];
+		final int[] altProcessTimes = new int[(int) totalAlt];
+		final int[] denseProcessTimes = dense ? new int[(int) totalOps * machines] : null;
+		int op = 0;
+		int alt = 0;
+		for (Integer job : jobs) {
+			final int[][] jobProcessTimes = sparse == null ? problem.getProcessTimes().get(job) : null;
+			final SparseProcessTimes jobSparse = sparse != null ? sparse.getSparse(job) : null;
+			for (int o = 0; o < problem.getOperations().get(job); ++o, ++op) {
+				altOffsets[op] = alt;
+				final List<Integer> machinesOfOp = problem.getAltMachines(job, o);
+				if (machinesOfOp != null) {
+					for (int m : machinesOfOp) {
+						altMachines[alt] = m;
+						altProcessTimes[alt++] = jobSparse != null ? jobSparse.get(o, m) : jobProcessTimes[o][m];
+					}
+				}
+				if (dense)
+					System.arraycopy(jobProcessTimes[o], 0, denseProcessTimes, op * machines, Math.min(machines, jobProcessTimes[o].length));
+			}
+		}
+		altOffsets[(int) totalOps] = alt;
+		out.put(altOffsets);
+		out.put(altMachines);
+		out.put(altProcessTimes);
+		if (dense)
+			out.put(denseProcessTimes);
+
+		final int[][] travelTimes = problem.getTravelTimes();
+		final int[] row = new int[machines];
+		for (int m = 0; m < machines; ++m) {
+			if (travelTimes != null && m < travelTimes.length && travelTimes[m] != null)
+				System.arraycopy(travelTimes[m], 0, row, 0, Math.min(machines, travelTimes[m].length));
+			else
+				Arrays.fill(row, 0);
+			out.put(row);
+		}
+
+		// through Buffer: the ByteBuffer overrides of Java 9+ are missing on Java 8
+		((Buffer) bytes).position(ints * 4);
+		if (config != null)
+			bytes.put(config);
+		((Buffer) bytes).flip();
+		return bytes;
+	}
+
+	/**
+	 * Creates the map based problem of a snapshot, e.g. a memory mapped file.
+	 *
+	 * @param bytes
+	 *           the snapshot starts at the position
+	 * @return
+	 * @throws IOException
+	 *            if the bytes are no valid snapshot of a supported version
+	 */
+	public static FJSSTTproblem fromBytes(final ByteBuffer bytes) throws IOException {
+		return view(bytes).toProblem();
+	}
+
+	static void putJobColumn(final IntBuffer out, final int[] column, final TreeSet<Integer> jobs, final Map<Integer, Integer> values,
+			final int defaultValue) {
+		int i = 0;
+		for (Integer job : jobs) {
+			final Integer value = values != null ? values.get(job) : null;
+			column[i++] = value != null ? value : defaultValue;
+		}
+		out.put(column);
+	}
+
+	static byte[] configBytes(final Properties config) {
+		if (config == null)
+			return null;
+		try {
+			final StringWriter writer = new StringWriter();
+			config.store(writer, null);
+			return writer.toString().getBytes(StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			// cannot happen with a StringWriter
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -75,13 +75,14 @@ public class SolutionSet {
 		if (s != null) {
 			for (Integer j : s.getOperationsBeginTimes().keySet()) {
 				List<ScheduledOperation> jobschedule = new ArrayList<>();
-				for (int o = 0; o < s.getOperationsBeginTimes().get(j).length && o < fjp.getProcessTimes().get(j).length; ++o) {
+				for (int o = 0; o < s.getOperationsBeginTimes().get(j).length && o < fjp.getOperations().get(j); ++o) {
 					int machine = s.getOperationsMachineAssignments().get(j)[o];
 					int start = s.getOperationsBeginTimes().get(j)[o];
 					// TODO ProcessTimes might be Integer.MAX_VALUE
 					int end = Integer.MAX_VALUE;
-					if(fjp.getProcessTimes().get(j)[o][machine] < Integer.MAX_VALUE)
-						end = start + fjp.getProcessTimes().get(j)[o][machine];
+					final int processTime = fjp.getProcessTime(j, o, machine);
+					if(processTime < Integer.MAX_VALUE)
+						end = start + processTime;
 					jobschedule.add(new ScheduledOperation(machine, j, o, start, end));
 				}
 				solution.put("Job" + j, jobschedule);
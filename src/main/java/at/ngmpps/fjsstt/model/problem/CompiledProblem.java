@@ -0,0 +1,360 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+
+/**
+ * Immutable, compiled form of a {@link FJSSTTproblem} in compressed sparse row
+ * (CSR) layout. All data is kept in flat int arrays, so every access is index
+ * arithmetic: no "job-op" String keys, no boxing and no allocation.
+ *
+ * Jobs have an index (0..jobs-1, in ascending id order) and every operation has
+ * a global index: the operations of job index j are opOffsets[j] ..
+ * opOffsets[j+1]-1. The alternative machines of global operation o, and their
+ * process times, are at altOffsets[o] .. altOffsets[o+1]-1 in altMachines and
+ * altProcessTimes. The process time of a machine that is no alternative
+ * machine is Integer.MAX_VALUE, see {@link ProblemView#getProcessTime(int, int, int)}.
+ *
+ * The getters of the arrays return the internal arrays for fast loops; they
+ * must not be modified.
+ */
+public class CompiledProblem implements ProblemView, Serializable {
+
+	private static final long serialVersionUID = -2311780233140553917L;
+
+	final int machines;
+
+	final int timeSlots;
+
+	final int maxOperations;
+
+	final Objective objective;
+
+	/**
+	 * job ids, indices are job indices
+	 */
+	final int[] jobIds;
+
+	/**
+	 * job index per job id, -1 if there is no job with that id
+	 */
+	final int[] jobIndices;
+
+	final int[] opOffsets;
+
+	/**
+	 * per global operation: the hash of its job id and operation, see
+	 * {@link FlatSolution#operationKey(int, int)}
+	 */
+	final long[] opKeys;
+
+	final int[] altOffsets;
+
+	final int[] altMachines;
+
+	final int[] altProcessTimes;
+
+	/**
+	 * travel times, index is fromMachine * machines + toMachine
+	 */
+	final int[] travelTimes;
+
+	// per job index
+	final int[] dueDates;
+
+	final int[] releaseTimes;
+
+	final int[] jobWeights;
+
+	public CompiledProblem(final FJSSTTproblem problem) {
+		machines = problem.getMachines();
+		timeSlots = problem.getTimeSlots();
+		maxOperations = problem.getMaxOperations();
+		objective = problem.getObjective();
+		jobIds = problem.getJobIds().clone();
+		final int jobs = jobIds.length;
+		jobIndices = new int[jobs > 0 ? jobIds[jobs - 1] + 1 : 0];
+		Arrays.fill(jobIndices, -1);
+
+		opOffsets = new int[jobs + 1];
+		dueDates = new int[jobs];
+		releaseTimes = new int[jobs];
+		jobWeights = new int[jobs];
+		int totalAlt = 0;
+		for (int j = 0; j < jobs; ++j) {
+			final int job = jobIds[j];
+			jobIndices[job] = j;
+			final int ops = problem.getOperations().get(job);
+			opOffsets[j + 1] = opOffsets[j] + ops;
+			for (int op = 0; op < ops; ++op) {
+				final List<Integer> alt = problem.getAltMachines(job, op);
+				totalAlt += alt != null ? alt.size() : 0;
+			}
+			dueDates[j] = valueOrDefault(problem.getDueDates(), job, 0);
+			releaseTimes[j] = valueOrDefault(problem.getReleaseTimes(), job, 0);
+			jobWeights[j] = valueOrDefault(problem.getJobWeights(), job, 1);
+		}
+
+		altOffsets = new int[opOffsets[jobs] + 1];
+		opKeys = new long[opOffsets[jobs]];
+		altMachines = new int[totalAlt];
+		altProcessTimes = new int[totalAlt];
+		int a = 0;
+		for (int j = 0; j < jobs; ++j) {
+			final int job = jobIds[j];
+			final int[][] jobProcessTimes = problem.readProcessTimes(job);
+			for (int op = 0; op < opOffsets[j + 1] - opOffsets[j]; ++op) {
+				altOffsets[opOffsets[j] + op] = a;
+				opKeys[opOffsets[j] + op] = FlatSolution.operationKey(job, op);
+				final List<Integer> alt = problem.getAltMachines(job, op);
+				if (alt != null) {
+					for (int machine : alt) {
+						altMachines[a] = machine;
+						altProcessTimes[a++] = jobProcessTimes[op][machine];
+					}
+				}
+			}
+		}
+		altOffsets[opOffsets[jobs]] = a;
+
+		travelTimes = new int[machines * machines];
+		final int[][] problemTravelTimes = problem.getTravelTimes();
+		for (int m = 0; problemTravelTimes != null && m < machines && m < problemTravelTimes.length; ++m)
+			System.arraycopy(problemTravelTimes[m], 0, travelTimes, m * machines, Math.min(machines, problemTravelTimes[m].length));
+	}
+
+	static int valueOrDefault(final Map<Integer, Integer> values, final int job, final int defaultValue) {
+		final Integer value = values != null ? values.get(job) : null;
+		return value != null ? value : defaultValue;
+	}
+
+	/**
+	 * @return the index of the job with the given id
+	 * @throws ArrayIndexOutOfBoundsException
+	 *            if there is no such job
+	 */
+	public int getJobIndex(final int job) {
+		final int j = job < jobIndices.length ? jobIndices[job] : -1;
+		if (j < 0)
+			throw new ArrayIndexOutOfBoundsException("No job with id " + job);
+		return j;
+	}
+
+	/**
+	 * @return the global index of operation op of the job
+	 */
+	public int getOperationIndex(final int job, final int op) {
+		return opOffsets[getJobIndex(job)] + op;
+	}
+
+	public int getJobCount() {
+		return jobIds.length;
+	}
+
+	/**
+	 * @return the total number of operations of all jobs
+	 */
+	public int getTotalOperations() {
+		return opOffsets[jobIds.length];
+	}
+
+	@Override
+	public int getMachines() {
+		return machines;
+	}
+
+	@Override
+	public int getTimeSlots() {
+		return timeSlots;
+	}
+
+	@Override
+	public int getMaxOperations() {
+		return maxOperations;
+	}
+
+	@Override
+	public Objective getObjective() {
+		return objective;
+	}
+
+	/**
+	 * @return the internal array, do not modify
+	 */
+	@Override
+	public int[] getJobIds() {
+		return jobIds;
+	}
+
+	@Override
+	public int getOperationCount(final int job) {
+		final int j = getJobIndex(job);
+		return opOffsets[j + 1] - opOffsets[j];
+	}
+
+	@Override
+	public int getAltMachineCount(final int job, final int op) {
+		final int o = getOperationIndex(job, op);
+		return altOffsets[o + 1] - altOffsets[o];
+	}
+
+	@Override
+	public int getAltMachine(final int job, final int op, final int idx) {
+		return altMachines[altOffsets[getOperationIndex(job, op)] + idx];
+	}
+
+	/**
+	 * @return the process time of the idx-th alternative machine of operation op
+	 */
+	public int getAltProcessTime(final int job, final int op, final int idx) {
+		return altProcessTimes[altOffsets[getOperationIndex(job, op)] + idx];
+	}
+
+	@Override
+	public int getProcessTime(final int job, final int op, final int machine) {
+		final int o = getOperationIndex(job, op);
+		for (int a = altOffsets[o]; a < altOffsets[o + 1]; ++a)
+			if (altMachines[a] == machine)
+				return altProcessTimes[a];
+		return Integer.MAX_VALUE;
+	}
+
+	@Override
+	public int getTravelTime(final int fromMachine, final int toMachine) {
+		return travelTimes[fromMachine * machines + toMachine];
+	}
+
+	@Override
+	public int getDueDate(final int job) {
+		return dueDates[getJobIndex(job)];
+	}
+
+	@Override
+	public int getReleaseTime(final int job) {
+		return releaseTimes[getJobIndex(job)];
+	}
+
+	@Override
+	public int getJobWeight(final int job) {
+		return jobWeights[getJobIndex(job)];
+	}
+
+	/**
+	 * @return per job index: the global index of its first operation; the last
+	 *         entry is the total number of operations
+	 */
+	public int[] getOpOffsets() {
+		return opOffsets;
+	}
+
+	/**
+	 * @return per global operation: the position of its first alternative
+	 *         machine; the last entry is the total number of alternative machines
+	 */
+	public int[] getAltOffsets() {
+		return altOffsets;
+	}
+
+	public int[] getAltMachines() {
+		return altMachines;
+	}
+
+	public int[] getAltProcessTimes() {
+		return altProcessTimes;
+	}
+
+	/**
+	 * @return travel times, index is fromMachine * machines + toMachine
+	 */
+	public int[] getTravelTimes() {
+		return travelTimes;
+	}
+
+	/**
+	 * @return due dates per job index
+	 */
+	public int[] getDueDates() {
+		return dueDates;
+	}
+
+	/**
+	 * @return release times per job index
+	 */
+	public int[] getReleaseTimes() {
+		return releaseTimes;
+	}
+
+	/**
+	 * @return weights per job index
+	 */
+	public int[] getJobWeights() {
+		return jobWeights;
+	}
+
+	/**
+	 * Same as {@link FJSSTTproblem#calcMinJobCompletionTime(int)}.
+	 *
+	 * @param job
+	 *           the job id
+	 * @return The minimum completion time of the job.
+	 */
+	public int calcMinJobCompletionTime(final int job) {
+		final int j = getJobIndex(job);
+		final int firstOp = opOffsets[j];
+		return calcMinJobCompletionTime(j, new int[altOffsets[opOffsets[j + 1]] - altOffsets[firstOp]]);
+	}
+
+	/**
+	 * Dynamic programming over the alternative machines of the job's
+	 * operations: v[a] is the minimum completion time of the operation of
+	 * alternative a when it is processed on that machine.
+	 *
+	 * @param j
+	 *           the job index
+	 * @param v
+	 *           scratch space, at least as long as the number of alternative
+	 *           machines of all operations of the job
+	 * @return The minimum completion time of the job, Integer.MAX_VALUE if no
+	 *         machine sequence is possible, -1 for a job without operations
+	 */
+	public int calcMinJobCompletionTime(final int j, final int[] v) {
+		final int firstOp = opOffsets[j];
+		final int lastOp = opOffsets[j + 1] - 1;
+		if (lastOp < firstOp)
+			return -1;
+		final int base = altOffsets[firstOp];
+
+		// first stage: operation 0
+		for (int a = altOffsets[firstOp]; a < altOffsets[firstOp + 1]; ++a)
+			v[a - base] = altProcessTimes[a] < Integer.MAX_VALUE ? altProcessTimes[a] - 1 : Integer.MAX_VALUE;
+
+		// iterative stages
+		for (int o = firstOp + 1; o <= lastOp; ++o) {
+			for (int a = altOffsets[o]; a < altOffsets[o + 1]; ++a) {
+				int best = Integer.MAX_VALUE;
+				if (altProcessTimes[a] < Integer.MAX_VALUE) {
+					final int machine = altMachines[a];
+					for (int p = altOffsets[o - 1]; p < altOffsets[o]; ++p) {
+						if (v[p - base] == Integer.MAX_VALUE)
+							continue;
+						final long newV = (long) v[p - base] + travelTimes[altMachines[p] * machines + machine] + altProcessTimes[a];
+						if (newV < best)
+							best = (int) newV;
+					}
+				}
+				v[a - base] = best;
+			}
+		}
+
+		// last stage
+		int jobCompTime = Integer.MAX_VALUE;
+		for (int a = altOffsets[lastOp]; a < altOffsets[lastOp + 1]; ++a)
+			if (v[a - base] < jobCompTime)
+				jobCompTime = v[a - base];
+		return jobCompTime;
+	}
+}
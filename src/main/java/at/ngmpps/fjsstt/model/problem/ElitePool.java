@@ -0,0 +1,279 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounded pool of the best distinct feasible solutions (smallest objective
+ * values first), and the best lower bound, for many concurrent search workers.
+ * The best solution and lower bound are what
+ * {@link at.ngmpps.fjsstt.model.SolutionSet} reports as minUpperBound and
+ * maxLowerBound.
+ * 
+ * The pool is an immutable, sorted array that is replaced with
+ * compare-and-set, so offering never locks: offers that are not better than
+ * the worst solution of a full pool are rejected by one comparison, without
+ * copying anything, and only accepted solutions pay for a copy (see
+ * {@link Solution#cloneReducedSize()}) and the O(k) array update. Solutions
+ * are deduplicated by a 64 bit fingerprint of their begin times and machines
+ * (see {@link #fingerprint(Solution)}), which is the fingerprint a
+ * {@link FlatSolution} keeps up to date, so flat solutions are only converted
+ * when they are added.
+ */
+public class ElitePool {
+
+	/**
+	 * a pooled solution, its fingerprint and objective value
+	 */
+	public static class Entry {
+
+		final Solution solution;
+
+		final long fingerprint;
+
+		final double objectiveValue;
+
+		Entry(final Solution solution, final long fingerprint) {
+			this.solution = solution;
+			this.fingerprint = fingerprint;
+			this.objectiveValue = solution.getObjectiveValue();
+		}
+
+		/**
+		 * @return the pooled copy, do not modify
+		 */
+		public Solution getSolution() {
+			return solution;
+		}
+
+		public long getFingerprint() {
+			return fingerprint;
+		}
+
+		public double getObjectiveValue() {
+			return objectiveValue;
+		}
+	}
+
+	static final Entry[] EMPTY = new Entry[0];
+
+	final int capacity;
+
+	/**
+	 * sorted by objective value, best first
+	 */
+	final AtomicReference<Entry[]> entries = new AtomicReference<Entry[]>(EMPTY);
+
+	final AtomicReference<Solution> lowerBound = new AtomicReference<Solution>();
+
+	/**
+	 * @param capacity
+	 *           the number of solutions kept, at least 1
+	 */
+	public ElitePool(final int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be at least 1");
+		this.capacity = capacity;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Adds a copy of the feasible solution (without bids, subgradients and
+	 * multipliers) if it is not in the pool yet and the pool is not full or the
+	 * solution is better than its worst one, which is then dropped.
+	 * 
+	 * @return true if the solution was added
+	 */
+	public boolean offer(final Solution solution) {
+		final double value = solution.getObjectiveValue();
+		if (Double.isNaN(value) || !isCandidate(entries.get(), value))
+			return false;
+		return offer(solution, null, fingerprint(solution), value);
+	}
+
+	/**
+	 * Like {@link #offer(Solution)} with the fingerprint the flat solution
+	 * keeps; it is only converted if it can be added or if a pooled solution
+	 * has the same fingerprint.
+	 */
+	public boolean offer(final FlatSolution solution) {
+		final double value = solution.getObjectiveValue();
+		if (Double.isNaN(value) || !isCandidate(entries.get(), value))
+			return false;
+		return offer(null, solution, solution.getFingerprint(), value);
+	}
+
+	/**
+	 * @param solution
+	 *           null to convert flat when needed
+	 */
+	boolean offer(Solution solution, final FlatSolution flat, final long fingerprint, final double value) {
+		Entry entry = null;
+		while (true) {
+			final Entry[] current = entries.get();
+			if (!isCandidate(current, value))
+				return false;
+			if (containsFingerprint(current, fingerprint)) {
+				if (solution == null)
+					solution = flat.toSolution();
+				if (contains(current, fingerprint, solution))
+					return false;
+			}
+			if (entry == null) {
+				// a converted flat solution is a copy already
+				if (flat == null)
+					entry = new Entry(solution.cloneReducedSize(), fingerprint);
+				else
+					entry = new Entry(solution != null ? solution : flat.toSolution(), fingerprint);
+			}
+			if (entries.compareAndSet(current, insert(current, entry)))
+				return true;
+		}
+	}
+
+	/**
+	 * Keeps the solution of a relaxation if its objective value is a better
+	 * (larger) lower bound than the known one. Bids, subgradients and
+	 * multipliers are kept.
+	 * 
+	 * @return true if it is the new best lower bound
+	 */
+	public boolean offerLowerBound(final Solution solution) {
+		while (true) {
+			final Solution current = lowerBound.get();
+			if (current != null && !(solution.getObjectiveValue() > current.getObjectiveValue()))
+				return false;
+			if (lowerBound.compareAndSet(current, solution))
+				return true;
+		}
+	}
+
+	boolean isCandidate(final Entry[] current, final double value) {
+		return current.length < capacity || value < current[current.length - 1].objectiveValue;
+	}
+
+	static boolean containsFingerprint(final Entry[] current, final long fingerprint) {
+		for (Entry e : current)
+			if (e.fingerprint == fingerprint)
+				return true;
+		return false;
+	}
+
+	static boolean contains(final Entry[] current, final long fingerprint, final Solution solution) {
+		for (Entry e : current)
+			if (e.fingerprint == fingerprint && e.solution.equals(solution) && solution.equals(e.solution))
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return a sorted copy with the entry, without the worst one if full
+	 */
+	Entry[] insert(final Entry[] current, final Entry entry) {
+		int pos = 0;
+		while (pos < current.length && current[pos].objectiveValue <= entry.objectiveValue)
+			pos++;
+		final Entry[] result = new Entry[Math.min(capacity, current.length + 1)];
+		System.arraycopy(current, 0, result, 0, pos);
+		result[pos] = entry;
+		System.arraycopy(current, pos, result, pos + 1, result.length - pos - 1);
+		return result;
+	}
+
+	/**
+	 * @return the best feasible solution or null
+	 */
+	public Solution getBest() {
+		final Entry[] current = entries.get();
+		return current.length > 0 ? current[0].solution : null;
+	}
+
+	/**
+	 * @return the smallest objective value of a feasible solution,
+	 *         Double.POSITIVE_INFINITY if there is none
+	 */
+	public double getUpperBound() {
+		final Entry[] current = entries.get();
+		return current.length > 0 ? current[0].objectiveValue : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return the objective value a solution must beat to be added to the full
+	 *         pool, Double.POSITIVE_INFINITY if it is not full
+	 */
+	public double getThreshold() {
+		final Entry[] current = entries.get();
+		return current.length < capacity ? Double.POSITIVE_INFINITY : current[current.length - 1].objectiveValue;
+	}
+
+	/**
+	 * @return the solution with the best lower bound or null
+	 */
+	public Solution getBestLowerBound() {
+		return lowerBound.get();
+	}
+
+	/**
+	 * @return the best lower bound, Double.NEGATIVE_INFINITY if there is none
+	 */
+	public double getLowerBound() {
+		final Solution current = lowerBound.get();
+		return current != null ? current.getObjectiveValue() : Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * @return the pooled entries, best first (a snapshot)
+	 */
+	public List<Entry> getEntries() {
+		return Arrays.asList(entries.get().clone());
+	}
+
+	/**
+	 * @return the pooled solutions, best first (a snapshot)
+	 */
+	public List<Solution> getSolutions() {
+		final Entry[] current = entries.get();
+		final List<Solution> result = new ArrayList<Solution>(current.length);
+		for (Entry e : current)
+			result.add(e.solution);
+		return result;
+	}
+
+	public int size() {
+		return entries.get().length;
+	}
+
+	public void clear() {
+		entries.set(EMPTY);
+		lowerBound.set(null);
+	}
+
+	/**
+	 * The fingerprint is the sum of a hash per (job, operation, begin,
+	 * machine), so it does not depend on the order of the map. Equal solutions
+	 * (see {@link Solution#equals(Solution)}) with the same jobs have equal
+	 * fingerprints, and it is the fingerprint of the solution as
+	 * {@link FlatSolution#getFingerprint()}. O(operations).
+	 */
+	public static long fingerprint(final Solution solution) {
+		final Map<Integer, int[]> begins = solution.getOperationsBeginTimes();
+		final Map<Integer, int[]> machines = solution.getOperationsMachineAssignments();
+		long result = 0;
+		if (begins == null || machines == null)
+			return result;
+		for (Map.Entry<Integer, int[]> job : machines.entrySet()) {
+			final int[] jobBegins = begins.get(job.getKey());
+			final int[] jobMachines = job.getValue();
+			for (int op = 0; op < jobMachines.length; op++)
+				result += FlatSolution.hash(FlatSolution.operationKey(job.getKey(), op),
+						jobBegins != null && op < jobBegins.length ? jobBegins[op] : 0, jobMachines[op]);
+		}
+		return result;
+	}
+}
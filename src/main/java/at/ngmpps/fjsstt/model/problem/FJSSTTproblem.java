@@ -9,11 +9,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierStorage;
 import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
 
 /**
  * Implements an instance of the flexible job shop scheduling problem with
@@ -24,7 +29,7 @@ import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
  * @author ahaemm
  * 
  */
-public class FJSSTTproblem implements Serializable {
+public class FJSSTTproblem implements ProblemView, Serializable {
 
 	private static final long serialVersionUID = 5108834322696705163L;
 
@@ -79,14 +84,16 @@ public class FJSSTTproblem implements Serializable {
 	 * (job,operation) in the form of "job-operation", the corresponding value is
 	 * the *set* (i.e. every value is in there once) of alternative machines.
 	 */
-	final Map<String, List<Integer>> altMachines;
+	Map<String, List<Integer>> altMachines;
 
 	/**
 	 * The process times of operations on machines. The first index is the job,
 	 * the second index is the operation, and the third index is the machine.
 	 * process times might be Integer.MAX_VALUE (to indicate bad times)
+	 * 
+	 * A {@link SparseProcessTimesMap} if the process times are stored sparse.
 	 */
-	final Map<Integer, int[][]> processTimes;
+	Map<Integer, int[][]> processTimes;
 
 	/**
 	 * The travel times between machines. Both indices denote machines.
@@ -96,7 +103,7 @@ public class FJSSTTproblem implements Serializable {
 	/**
 	 * The job's due dates, indices are jobs.
 	 */
-	final Map<Integer, Integer> dueDates;
+	Map<Integer, Integer> dueDates;
 	
 	/**
 	 * The job release times.
@@ -117,6 +124,22 @@ public class FJSSTTproblem implements Serializable {
 
 	int problemId = -1;
 
+	/**
+	 * cached lower bounds, created on first use
+	 */
+	transient volatile JobLowerBounds lowerBounds;
+
+	/**
+	 * sorted job ids, created on first use and dropped by addJob / removeJob
+	 */
+	transient int[] jobIds;
+
+	/**
+	 * sparse form of the dense process times per job, created on first use by
+	 * {@link #getSparseProcessTimes(int)} and dropped by addJob / removeJob
+	 */
+	transient volatile ConcurrentHashMap<Integer, SparseProcessTimes> denseSparse;
+
 	/**
 	 * Creates an instance of the FJSSTT problem.
 	 * 
@@ -199,13 +222,32 @@ public class FJSSTTproblem implements Serializable {
 	 * @return An integer array of average maximum slacks. Indices are jobs.
 	 */
 	public Map<Integer, Integer> calcAverageMaxSlacks() {
-		Map<Integer, Integer> averageMaxSlacks = new HashMap<Integer, Integer>();
-		for (Integer job : operations.keySet()) {
-			int jobSlack = Math.max(0, dueDates.get(job) - this.calcMinJobCompletionTime(job));
-			Double averageMaxSlack = (double) jobSlack / (operations.get(job));
-			averageMaxSlacks.put(job, averageMaxSlack.intValue());
+		return getLowerBounds().calcAverageMaxSlacks();
+	}
+
+	/**
+	 * @return the cached, in parallel computed minimum job completion times and
+	 *         slacks of this problem
+	 */
+	public JobLowerBounds getLowerBounds() {
+		JobLowerBounds result = lowerBounds;
+		if (result == null) {
+			synchronized (this) {
+				if (lowerBounds == null)
+					lowerBounds = new JobLowerBounds(this);
+				result = lowerBounds;
+			}
 		}
-		return averageMaxSlacks;
+		return result;
+	}
+
+	void invalidateLowerBounds(int job) {
+		final JobLowerBounds bounds = lowerBounds;
+		if (bounds != null)
+			bounds.invalidate(job);
+		final Map<Integer, SparseProcessTimes> sparse = denseSparse;
+		if (sparse != null)
+			sparse.remove(job);
 	}
 
 	/**
@@ -225,28 +267,49 @@ public class FJSSTTproblem implements Serializable {
 	}
 	
 	public Integer addJob(Integer newID, Integer operations, int[][] processTimes, Map<Integer,List<Integer>> altMachines, Integer dueDate, Integer jobWeight) {
+		return addJob(newID, operations, processTimes, altMachines, dueDate, jobWeight, null);
+	}
+
+	/**
+	 * @param releaseTime
+	 *           the release time of the job; if null the release times are not
+	 *           changed
+	 */
+	public Integer addJob(Integer newID, Integer operations, int[][] processTimes, Map<Integer,List<Integer>> altMachines, Integer dueDate, Integer jobWeight, Integer releaseTime) {
+		if (releaseTime != null && releaseTimes != null)
+			this.releaseTimes.put(newID, releaseTime);
 		this.operations.put(newID, operations);
 		this.dueDates.put(newID, dueDate);
 		this.jobWeights.put(newID, jobWeight);
-		this.processTimes.put(newID,  processTimes);
+		if (isSparseProcessTimes())
+			((SparseProcessTimesMap) this.processTimes).putSparse(newID, SparseProcessTimes.of(processTimes, altMachines, machines));
+		else
+			this.processTimes.put(newID,  processTimes);
 		if(operations>maxOperations)
 			maxOperations=operations;
 		for(Integer op:altMachines.keySet()) {
 			this.altMachines.put(""+newID+"-"+op, altMachines.get(op));
 		}
+		invalidateLowerBounds(newID);
+		jobIds = null;
 		return newID;
 	}
 	public Integer restoreJob(int jobId, FJSSTTproblem problem_job) {
-		return addJob(jobId, problem_job.getOperations().get(jobId), problem_job.getProcessTimes().get(jobId), problem_job.getAltMachines(jobId), problem_job.getDueDates().get(jobId),problem_job.getJobWeights().get(jobId));
-		
+		return addJob(jobId, problem_job.getOperations().get(jobId), problem_job.getProcessTimes().get(jobId), problem_job.getAltMachines(jobId), problem_job.getDueDates().get(jobId),problem_job.getJobWeights().get(jobId),
+				problem_job.getReleaseTimes() != null ? problem_job.getReleaseTimes().get(jobId) : null);
+
 	}
 
 	
 	public void removeJob(Integer jobID)  {
 		Integer nrOps = operations.remove(jobID);
+		invalidateLowerBounds(jobID);
+		jobIds = null;
 		this.dueDates.remove(jobID);
 		this.jobWeights.remove(jobID);
 		this.processTimes.remove(jobID);
+		if (releaseTimes != null)
+			releaseTimes.remove(jobID);
 		for(int i=0;i<nrOps;++i)
 			if(altMachines.containsKey(""+jobID+"-"+i))
 				altMachines.remove(""+jobID+"-"+i);
@@ -270,28 +333,16 @@ public class FJSSTTproblem implements Serializable {
 	 */
 	public int calcLBmakespanFJSS() {
 		int minMakespan = -1;
-		int[] jobMinCompletionTimes = new int[operations.size()];
-		for (int job : operations.keySet()) {
+		for (int job : getJobIds()) {
 			int jobMinProcessTime = 0;
 
-			for (int op = 0; op < operations.get(job); op++) {
-				List<Integer> opAltMachines = getAltMachines(job, op);
-				int opMinProcessTime = Integer.MAX_VALUE;
-				for (int machine : opAltMachines) {
-					if (processTimes.get(job)[op][machine] < opMinProcessTime) {
-						opMinProcessTime = processTimes.get(job)[op][machine];
-					}
-				}
-				jobMinProcessTime += opMinProcessTime;
+			final SparseProcessTimes sparse = getSparseProcessTimes(job);
+			for (int op = 0; op < sparse.getOperations(); op++) {
+				jobMinProcessTime += sparse.getMinTime(op);
 			}
-			jobMinCompletionTimes[job] = jobMinProcessTime - 1;
-		}
-
-		// identify maximum over the minimum job completion times: this is the
-		// makespan
-		for (int compTime : jobMinCompletionTimes) {
-			if (compTime > minMakespan) {
-				minMakespan = compTime;
+			// the maximum over the minimum job completion times is the makespan
+			if (jobMinProcessTime - 1 > minMakespan) {
+				minMakespan = jobMinProcessTime - 1;
 			}
 		}
 		return minMakespan;
@@ -305,51 +356,80 @@ public class FJSSTTproblem implements Serializable {
 	 * @param job
 	 *           The job under consideration.
 	 * @return The minimum completion time of the job.
+	 * @see #getLowerBounds() for cached values
 	 */
 	public int calcMinJobCompletionTime(int job) {
+		return calcMinJobCompletionTime(job, new int[2 * machines]);
+	}
+
+	/**
+	 * Same as {@link #calcMinJobCompletionTime(int)}, but does not allocate the
+	 * dynamic programming table.
+	 * 
+	 * @param job
+	 *           The job under consideration.
+	 * @param v
+	 *           scratch space of at least 2 * machines
+	 * @return The minimum completion time of the job.
+	 */
+	public int calcMinJobCompletionTime(int job, int[] v) {
 		int jobCompTime = Integer.MAX_VALUE;
+		// int indexed alternative machines and process times, see getSparseProcessTimes
+		final SparseProcessTimes sparse = getSparseProcessTimes(job);
+		final int[] offsets = sparse.offsets;
+		final int[] opMachines = sparse.altMachines;
+		final int[] opTimes = sparse.times;
+		final int ops = sparse.getOperations();
+		if (ops == 0)
+			return -1;
 
 		/*
-		 * v[j][m] is the minimum completion time of operation j assigned to
-		 * machine m.
+		 * v[current + m] is the minimum completion time of the current operation
+		 * assigned to machine m, v[previous + m] that of the operation before.
 		 */
-		int[][] v = new int[operations.get(job)][machines];
+		int current = 0;
+		int previous = machines;
 
 		// first stage: calculate v values for operation 0
-		List<Integer> opAltMachines = getAltMachines(job, 0);
-		for (int opMachine : opAltMachines) {
-			if(processTimes.get(job)[0][opMachine]<Integer.MAX_VALUE)
-				v[0][opMachine] = processTimes.get(job)[0][opMachine] - 1;
+		for (int a = offsets[0]; a < offsets[1]; a++) {
+			final int processTime = opTimes[a];
+			if(processTime<Integer.MAX_VALUE)
+				v[current + opMachines[a]] = processTime - 1;
+			else
+				v[current + opMachines[a]] = Integer.MAX_VALUE;
 		}
 
 		// iterative stages
-		for (int op = 1; op < operations.get(job); op++) {
-			int previousOp = op - 1;
-			opAltMachines = this.altMachines.get(job + "-" + op);
-			for (int opMachine : opAltMachines) {
+		for (int op = 1; op < ops; op++) {
+			previous = current;
+			current = machines - current;
+			for (int a = offsets[op]; a < offsets[op + 1]; a++) {
+				final int opMachine = opMachines[a];
 				// v[op][opMachine] is minimium over machine(op-1)
 				// {v[op-1][machine(op-1)] + travel time
 				// (machine(op-1),opMachine) + process time of op on opMachine
-				v[op][opMachine] = Integer.MAX_VALUE;
-				List<Integer> previousOpAltMachines = getAltMachines(job, previousOp);
-				for (int previousOpMachine : previousOpAltMachines) {
-					if(processTimes.get(job)[op][opMachine]<Integer.MAX_VALUE) {
-						int new_v = v[op - 1][previousOpMachine] + travelTimes[previousOpMachine][opMachine] + processTimes.get(job)[op][opMachine];
-						if (new_v < v[op][opMachine]) {
-							v[op][opMachine] = new_v;
+				int best = Integer.MAX_VALUE;
+				final int processTime = opTimes[a];
+				if (processTime < Integer.MAX_VALUE) {
+					for (int p = offsets[op - 1]; p < offsets[op]; p++) {
+						final int previousOpMachine = opMachines[p];
+						if (v[previous + previousOpMachine] == Integer.MAX_VALUE)
+							continue;
+						long new_v = (long) v[previous + previousOpMachine] + travelTimes[previousOpMachine][opMachine] + processTime;
+						if (new_v < best) {
+							best = (int) new_v;
 						}
 					}
 				}
+				v[current + opMachine] = best;
 			}
 		}
 
 		// last stage, determine minimum v value for last operation, which is the
 		// minimum job completion time
-		int lastOp = this.operations.get(job) - 1;
-		opAltMachines = this.altMachines.get(job + "-" + lastOp);
-		for (int lastOpMachine : opAltMachines) {
-			if (v[lastOp][lastOpMachine] < jobCompTime) {
-				jobCompTime = v[lastOp][lastOpMachine];
+		for (int a = offsets[ops - 1]; a < offsets[ops]; a++) {
+			if (v[current + opMachines[a]] < jobCompTime) {
+				jobCompTime = v[current + opMachines[a]];
 			}
 		}
 		return jobCompTime;
@@ -377,23 +457,43 @@ public class FJSSTTproblem implements Serializable {
 
 		// set the operations' process times on machines
 
-		final int[][] processTimes_subproblem = new int[getOperations().get(job)][getMachines()];
-		final Map<Integer, int[][]> processTimes_problem = getProcessTimes();
-		for (int j = 0; j < getOperations().get(job); j++) {
-			System.arraycopy(processTimes_problem.get(job)[j], 0, processTimes_subproblem[j], 0, getMachines());
+		final int[][] processTimes_subproblem;
+		if (isSparseProcessTimes()) {
+			// subproblems use dense process times
+			processTimes_subproblem = ((SparseProcessTimesMap) processTimes).getSparse(job).toDense();
+		} else {
+			processTimes_subproblem = new int[getOperations().get(job)][getMachines()];
+			final int[][] processTimes_problem = readProcessTimes(job);
+			for (int j = 0; j < getOperations().get(job); j++) {
+				System.arraycopy(processTimes_problem[j], 0, processTimes_subproblem[j], 0, getMachines());
+			}
 		}
 
 		final int[][] travelTimes = getTravelTimes();
 		final int dueDate = getDueDates().get(job);
 		final int jobWeight = getJobWeights().get(job);
+		final int releaseTime = getReleaseTime(job);
 
-		return new SubproblemInstance(job, operations, machines, timeslots, altMachinesMapping, processTimes_subproblem, travelTimes, dueDate,
-				jobWeight, getObjective());
+		final SubproblemInstance subproblem = new SubproblemInstance(job, operations, machines, timeslots, altMachinesMapping,
+				processTimes_subproblem, travelTimes, dueDate, releaseTime, jobWeight, getObjective());
+		// head / tail time windows, so solvers only try useful begin times
+		subproblem.calcTimeWindows(getWindowSlack());
+		return subproblem;
+	}
+
+	/**
+	 * @return the window slack of the configurations, see
+	 *         {@link SubproblemSolverConfig#getWindowSlack(Properties)}
+	 */
+	public int getWindowSlack() {
+		return SubproblemSolverConfig.getWindowSlack(configurations);
 	}
 
 	/**
 	 * 
-	 * NOTE: all subproblems share the same array of Lagrange multipliers.
+	 * NOTE: every subproblem allocates its own array of Lagrange multipliers
+	 * on first use; see {@link #createSubproblems(MultiplierStorage)} to share
+	 * them.
 	 * 
 	 */
 	public SubproblemInstance[] createSubproblems() {
@@ -410,6 +510,20 @@ public class FJSSTTproblem implements Serializable {
 		return subproblems;
 	}
 
+	/**
+	 * All subproblems use the given multipliers, none allocates its own.
+	 * 
+	 * @param multipliers
+	 *           shared by all subproblems
+	 */
+	public SubproblemInstance[] createSubproblems(final MultiplierStorage multipliers) {
+		final SubproblemInstance[] subproblems = createSubproblems();
+		for (SubproblemInstance subproblem : subproblems)
+			if (subproblem != null)
+				subproblem.setMultiplierStorage(multipliers);
+		return subproblems;
+	}
+
 	/**
 	 * Create random travel times "mTravelTimes" between machines for a
 	 * production network consisting of 3 shops. Machines are randomly assigned
@@ -427,6 +541,10 @@ public class FJSSTTproblem implements Serializable {
 	public void createTravelTimes(double lowerLimit, double upperLimit, PrintWriter pw) {
 
 		Random rng = new Random();
+		// new matrix: the current one may be shared with clones
+		final int[][] travelTimes = new int[machines][];
+		for (int i = 0; i < machines; i++)
+			travelTimes[i] = Arrays.copyOf(this.travelTimes[i], machines);
 
 		// an array entry is the assigned shop, indices are machine
 		int shopAssignments[] = new int[machines];
@@ -495,6 +613,7 @@ public class FJSSTTproblem implements Serializable {
 			sb.append(",");
 		}
 		logger.debug(sb.toString());
+		setTravelTimes(travelTimes);
 		printMatrix(travelTimesShops);
 		printMatrix(travelTimes, pw);
 	}
@@ -505,13 +624,96 @@ public class FJSSTTproblem implements Serializable {
 	
 	public Map<Integer,List<Integer>> getAltMachines(int job) {
 		Map<Integer,List<Integer>> result = new HashMap<Integer,List<Integer>>();
-		for(String key: altMachines.keySet())
-			if(key.startsWith(job+"-"))
-				result.put(Integer.parseInt(key.substring(key.indexOf('-')+1)), altMachines.get(key));
-		
+		Integer ops = operations.get(job);
+		// look up the operations' keys instead of scanning all keys
+		for (int op = 0; ops != null && op < ops; ++op) {
+			List<Integer> alt = altMachines.get(job + "-" + op);
+			if (alt != null)
+				result.put(op, alt);
+		}
 		return result; 
 	}
 
+	/**
+	 * @return the immutable, int indexed form of this problem for read only hot
+	 *         loops; changes of this problem are not reflected
+	 */
+	public CompiledProblem compile() {
+		return new CompiledProblem(this);
+	}
+
+	/**
+	 * @return the ids of all jobs in ascending order; cached until the jobs
+	 *         change, do not modify
+	 */
+	@Override
+	public int[] getJobIds() {
+		int[] result = jobIds;
+		// the size check catches changes through the map of getOperations()
+		if (result == null || result.length != operations.size()) {
+			result = new int[operations.size()];
+			int i = 0;
+			for (Integer job : operations.keySet())
+				result[i++] = job;
+			Arrays.sort(result);
+			jobIds = result;
+		}
+		return result;
+	}
+
+	@Override
+	public int getOperationCount(int job) {
+		return operations.get(job);
+	}
+
+	@Override
+	public int getAltMachineCount(int job, int op) {
+		return getAltMachines(job, op).size();
+	}
+
+	@Override
+	public int getAltMachine(int job, int op, int idx) {
+		return getAltMachines(job, op).get(idx);
+	}
+
+	/**
+	 * @return the process time, Integer.MAX_VALUE if the machine is no
+	 *         alternative machine of the operation (the dense arrays have 0
+	 *         there)
+	 */
+	@Override
+	public int getProcessTime(int job, int op, int machine) {
+		if (isSparseProcessTimes()) {
+			final SparseProcessTimes sparse = ((SparseProcessTimesMap) processTimes).getSparse(job);
+			return sparse.isAltMachine(op, machine) ? sparse.get(op, machine) : Integer.MAX_VALUE;
+		}
+		final List<Integer> alt = getAltMachines(job, op);
+		if (alt == null || !alt.contains(machine))
+			return Integer.MAX_VALUE;
+		return readProcessTimes(job)[op][machine];
+	}
+
+	@Override
+	public int getTravelTime(int fromMachine, int toMachine) {
+		return travelTimes[fromMachine][toMachine];
+	}
+
+	@Override
+	public int getDueDate(int job) {
+		return dueDates.get(job);
+	}
+
+	@Override
+	public int getReleaseTime(int job) {
+		Integer releaseTime = releaseTimes != null ? releaseTimes.get(job) : null;
+		return releaseTime != null ? releaseTime : 0;
+	}
+
+	@Override
+	public int getJobWeight(int job) {
+		return jobWeights.get(job);
+	}
+
 	public Properties getConfigurations() {
 		return configurations;
 	}
@@ -555,12 +757,80 @@ public class FJSSTTproblem implements Serializable {
 
 	/**
 	 * process times might be Integer.MAX_VALUE)
+	 * 
+	 * If the process times are stored sparse, the first read of a job creates a
+	 * dense array that is kept for the job, see {@link SparseProcessTimesMap}.
 	 * @return
 	 */
 	public Map<Integer, int[][]> getProcessTimes() {
 		return processTimes;
 	}
 
+	/**
+	 * Same as getProcessTimes().get(job), but without the copy of
+	 * {@link ProcessTimesOverlay}: the array may be shared with other problems
+	 * and must not be changed.
+	 * 
+	 * @return the dense process times of the job
+	 */
+	int[][] readProcessTimes(int job) {
+		if (processTimes instanceof ProcessTimesOverlay)
+			return ((ProcessTimesOverlay) processTimes).lookup(job);
+		return processTimes.get(job);
+	}
+
+	public boolean isSparseProcessTimes() {
+		return processTimes instanceof SparseProcessTimesMap;
+	}
+
+	/**
+	 * Switches between dense (int[operations][machines] per job) and sparse
+	 * (only the alternative machines' process times, see
+	 * {@link SparseProcessTimes}) storage of the process times.
+	 * 
+	 * @param sparse
+	 */
+	public void setSparseProcessTimes(boolean sparse) {
+		if (sparse == isSparseProcessTimes())
+			return;
+		denseSparse = null;
+		if (sparse) {
+			SparseProcessTimesMap sparseTimes = new SparseProcessTimesMap(machines);
+			for (Map.Entry<Integer, int[][]> job : processTimes.entrySet())
+				sparseTimes.putSparse(job.getKey(), SparseProcessTimes.of(job.getValue(), getAltMachines(job.getKey()), machines));
+			processTimes = sparseTimes;
+		} else {
+			processTimes = new TreeMap<Integer, int[][]>(processTimes);
+		}
+	}
+
+	/**
+	 * @return the process times of the job in sparse form; if the problem
+	 *         stores them dense, created from the dense array once and cached
+	 *         until the job is added or removed again (a changed process time in
+	 *         the dense array creates a new cached instance)
+	 */
+	public SparseProcessTimes getSparseProcessTimes(int job) {
+		if (isSparseProcessTimes())
+			return ((SparseProcessTimesMap) processTimes).getSparse(job);
+		ConcurrentHashMap<Integer, SparseProcessTimes> cache = denseSparse;
+		if (cache == null) {
+			synchronized (this) {
+				if (denseSparse == null)
+					denseSparse = new ConcurrentHashMap<Integer, SparseProcessTimes>();
+				cache = denseSparse;
+			}
+		}
+		final int[][] dense = readProcessTimes(job);
+		final SparseProcessTimes cached = cache.get(job);
+		SparseProcessTimes result = cached != null && cached.getOperations() == dense.length ? cached.withTimes(dense) : null;
+		if (result == null)
+			result = SparseProcessTimes.of(dense, getAltMachines(job), machines);
+		if (result != cached)
+			cache.put(job, result);
+		return result;
+	}
+
 	public int getTimeSlots() {
 		return timeSlots;
 	}
@@ -638,6 +908,9 @@ public class FJSSTTproblem implements Serializable {
 	 */
 	public void setTravelTimes(final int[][] mTravelTimes) {
 		this.travelTimes = mTravelTimes;
+		final JobLowerBounds bounds = lowerBounds;
+		if (bounds != null)
+			bounds.invalidateAll();
 	}
 	
 	public FJSSTTproblem clone() {
@@ -655,9 +928,12 @@ public class FJSSTTproblem implements Serializable {
 			altMachines2.put(key,altm2);
 		}
 
-		HashMap<Integer, int[][]> processTimes2 = new HashMap<Integer, int[][]>();
-		for(Integer key : processTimes.keySet()) {
-			int[][] oldval = processTimes.get(key);
+		Map<Integer, int[][]> processTimes2 = new HashMap<Integer, int[][]>();
+		if (isSparseProcessTimes())
+			// sparse process times are immutable
+			processTimes2 = ((SparseProcessTimesMap) processTimes).copy();
+		else for(Integer key : processTimes.keySet()) {
+			int[][] oldval = readProcessTimes(key);
 			int[][] val = new int[oldval.length][];
 			for(int i=0;i<val.length;++i) {
 				int oldval2[] = oldval[i];
@@ -695,6 +971,73 @@ public class FJSSTTproblem implements Serializable {
 		return result;
 	}
 
+	/**
+	 * Cheap copy: the copy has its own maps, so addJob / removeJob and the
+	 * setters do not affect this problem, but it shares the per job process
+	 * time arrays, the lists of alternative machines and the travel times with
+	 * this problem. Use {@link #clone()} if these are modified in place.
+	 * 
+	 * @return
+	 */
+	public FJSSTTproblem cloneMaps() {
+		FJSSTTproblem result = new FJSSTTproblem(new HashMap<Integer, Integer>(operations), maxOperations, machines, timeSlots,
+				new HashMap<String, List<Integer>>(altMachines), isSparseProcessTimes() ? ((SparseProcessTimesMap) processTimes).copy() : new HashMap<Integer, int[][]>(processTimes), travelTimes,
+				new HashMap<Integer, Integer>(dueDates), objective, new HashMap<Integer, Integer>(jobWeights),
+				configurations != null ? (Properties) configurations.clone() : null,
+				releaseTimes != null ? new HashMap<Integer, Integer>(releaseTimes) : null);
+		result.setProblemId(getProblemId());
+		return result;
+	}
+
+	/**
+	 * Copy-on-write copy in O(1): this problem and the copy share all job data
+	 * (see {@link OverlayMap#fork()}) and the travel times. Changes through
+	 * addJob / removeJob / restoreJob, the setters and the maps returned by
+	 * the getters are kept per problem and cost O(1) amortised, so the copy
+	 * costs O(1) plus the size of the changes.
+	 * 
+	 * The first call freezes the maps of this problem as the shared base and
+	 * replaces them with overlays, so maps and arrays obtained from this
+	 * problem before the call must not be changed any more.
+	 * 
+	 * Dense process times are copied per job on the first read after the call
+	 * (see {@link ProcessTimesOverlay}), so changes of these arrays stay in
+	 * their problem; the travel times matrix is shared and must not be changed
+	 * in place.
+	 * 
+	 * @return
+	 */
+	public FJSSTTproblem cloneShared() {
+		operations = freeze(operations);
+		altMachines = freeze(altMachines);
+		dueDates = freeze(dueDates);
+		jobWeights = freeze(jobWeights);
+		releaseTimes = freeze(releaseTimes);
+		final Map<Integer, int[][]> processTimes2;
+		if (isSparseProcessTimes()) {
+			processTimes2 = ((SparseProcessTimesMap) processTimes).cloneShared();
+		} else {
+			if (processTimes != null && !(processTimes instanceof ProcessTimesOverlay))
+				processTimes = new ProcessTimesOverlay(processTimes);
+			processTimes2 = OverlayMap.fork(processTimes);
+		}
+
+		FJSSTTproblem result = new FJSSTTproblem(OverlayMap.fork(operations), maxOperations, machines, timeSlots, null,
+				processTimes2, travelTimes, OverlayMap.fork(dueDates), objective, OverlayMap.fork(jobWeights),
+				configurations != null ? (Properties) configurations.clone() : null, OverlayMap.fork(releaseTimes));
+		result.altMachines = OverlayMap.fork(altMachines);
+		result.setProblemId(getProblemId());
+		return result;
+	}
+
+	/**
+	 * @return an overlay over the map, which then must not be changed any more;
+	 *         the map itself if it is an overlay already
+	 */
+	static <K, V> Map<K, V> freeze(final Map<K, V> map) {
+		return map instanceof OverlayMap ? map : OverlayMap.share(map);
+	}
+
 	public Map<Integer, Integer> getReleaseTimes() {
 		return releaseTimes;
 	}
@@ -0,0 +1,277 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact form of a {@link Solution}: begin times and machine assignments in
+ * two flat int arrays indexed by the global operation index of a
+ * {@link CompiledProblem} (see {@link CompiledProblem#getOpOffsets()}).
+ * Copying is two System.arraycopy calls, and a 64 bit fingerprint of all
+ * (operation, begin, machine) triples is kept up to date on every change, so
+ * duplicates are found in O(1) and {@link #equals(Object)} only compares the
+ * arrays if the fingerprints are equal.
+ * 
+ * The fingerprint is the sum of a hash per operation, so changing one
+ * operation subtracts its old and adds its new hash. The hash depends on the
+ * job id and operation, not on the global index, and unset operations add
+ * nothing, so the fingerprint of the converted Solution (see
+ * {@link ElitePool#fingerprint(Solution)}) is the same.
+ * 
+ * Operations that are not scheduled have the machine {@link #UNSET}. A job is
+ * part of the solution if at least one of its operations is set (jobs without
+ * operations always are); this makes the conversion from and to the map based
+ * Solution lossless for solutions whose arrays have one entry per operation.
+ * Bids, subgradients and multipliers are not kept.
+ */
+public class FlatSolution implements Serializable {
+
+	private static final long serialVersionUID = 3504296140126727353L;
+
+	/**
+	 * machine of operations that are not scheduled
+	 */
+	public static final int UNSET = -1;
+
+	final CompiledProblem problem;
+
+	final int[] beginTimes;
+
+	final int[] machines;
+
+	long fingerprint;
+
+	double objectiveValue = Double.NEGATIVE_INFINITY;
+
+	int iteration;
+
+	/**
+	 * all operations unset
+	 */
+	public FlatSolution(final CompiledProblem problem) {
+		this.problem = problem;
+		beginTimes = new int[problem.getTotalOperations()];
+		machines = new int[beginTimes.length];
+		Arrays.fill(machines, UNSET);
+		fingerprint = calcFingerprint();
+	}
+
+	/**
+	 * Converts a map based solution.
+	 * 
+	 * @throws IllegalArgumentException
+	 *            if the solution has a job the problem does not have, or an
+	 *            array whose length is not the job's number of operations
+	 */
+	public FlatSolution(final CompiledProblem problem, final Solution solution) {
+		this(problem);
+		final Map<Integer, int[]> begins = solution.getOperationsBeginTimes();
+		final Map<Integer, int[]> assigned = solution.getOperationsMachineAssignments();
+		if (begins != null) {
+			final int[] opOffsets = problem.getOpOffsets();
+			for (Map.Entry<Integer, int[]> entry : begins.entrySet()) {
+				final int job = entry.getKey();
+				final int j = job >= 0 && job < problem.jobIndices.length ? problem.jobIndices[job] : -1;
+				final int[] jobMachines = assigned != null ? assigned.get(job) : null;
+				final int ops = j >= 0 ? opOffsets[j + 1] - opOffsets[j] : -1;
+				if (ops < 0 || entry.getValue().length != ops || jobMachines == null || jobMachines.length != ops)
+					throw new IllegalArgumentException("Job " + job + " does not fit the problem");
+				System.arraycopy(entry.getValue(), 0, beginTimes, opOffsets[j], ops);
+				System.arraycopy(jobMachines, 0, machines, opOffsets[j], ops);
+			}
+		}
+		objectiveValue = solution.getObjectiveValue();
+		iteration = solution.getIteration();
+		fingerprint = calcFingerprint();
+	}
+
+	/**
+	 * copy constructor
+	 */
+	public FlatSolution(final FlatSolution other) {
+		problem = other.problem;
+		beginTimes = new int[other.beginTimes.length];
+		machines = new int[other.machines.length];
+		copyFrom(other);
+	}
+
+	/**
+	 * Overwrites this solution with the other one, without allocating.
+	 * 
+	 * @throws IllegalArgumentException
+	 *            if the other solution is for another problem
+	 */
+	public void copyFrom(final FlatSolution other) {
+		if (other.problem != problem)
+			throw new IllegalArgumentException("Solution of another problem");
+		System.arraycopy(other.beginTimes, 0, beginTimes, 0, beginTimes.length);
+		System.arraycopy(other.machines, 0, machines, 0, machines.length);
+		fingerprint = other.fingerprint;
+		objectiveValue = other.objectiveValue;
+		iteration = other.iteration;
+	}
+
+	public FlatSolution copy() {
+		return new FlatSolution(this);
+	}
+
+	/**
+	 * @return the map based solution with new arrays, without bids,
+	 *         subgradients and multipliers
+	 */
+	public Solution toSolution() {
+		final int[] jobIds = problem.getJobIds();
+		final int[] opOffsets = problem.getOpOffsets();
+		final Map<Integer, int[]> begins = new HashMap<Integer, int[]>();
+		final Map<Integer, int[]> assigned = new HashMap<Integer, int[]>();
+		for (int j = 0; j < jobIds.length; j++) {
+			if (!isScheduled(opOffsets[j], opOffsets[j + 1]))
+				continue;
+			begins.put(jobIds[j], Arrays.copyOfRange(beginTimes, opOffsets[j], opOffsets[j + 1]));
+			assigned.put(jobIds[j], Arrays.copyOfRange(machines, opOffsets[j], opOffsets[j + 1]));
+		}
+		return new Solution(objectiveValue, begins, assigned, iteration);
+	}
+
+	boolean isScheduled(final int from, final int to) {
+		if (from == to)
+			return true;
+		for (int o = from; o < to; o++)
+			if (machines[o] != UNSET)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Sets begin and machine of a global operation and updates the fingerprint.
+	 */
+	public void set(final int operation, final int begin, final int machine) {
+		final long key = problem.opKeys[operation];
+		fingerprint += hash(key, begin, machine) - hash(key, beginTimes[operation], machines[operation]);
+		beginTimes[operation] = begin;
+		machines[operation] = machine;
+	}
+
+	public void set(final int job, final int op, final int begin, final int machine) {
+		set(problem.getOperationIndex(job, op), begin, machine);
+	}
+
+	public void setBeginTime(final int operation, final int begin) {
+		set(operation, begin, machines[operation]);
+	}
+
+	public void setMachine(final int operation, final int machine) {
+		set(operation, beginTimes[operation], machine);
+	}
+
+	public int getBeginTime(final int operation) {
+		return beginTimes[operation];
+	}
+
+	public int getMachine(final int operation) {
+		return machines[operation];
+	}
+
+	/**
+	 * @return the internal array, indexed by global operation; do not modify
+	 */
+	public int[] getBeginTimes() {
+		return beginTimes;
+	}
+
+	/**
+	 * @return the internal array, indexed by global operation; do not modify
+	 */
+	public int[] getMachines() {
+		return machines;
+	}
+
+	public CompiledProblem getProblem() {
+		return problem;
+	}
+
+	/**
+	 * @return the 64 bit fingerprint of begin times and machines; equal
+	 *         solutions have equal fingerprints
+	 */
+	public long getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * @return the fingerprint computed from scratch, O(operations)
+	 */
+	public long calcFingerprint() {
+		long result = 0;
+		for (int o = 0; o < beginTimes.length; o++)
+			result += hash(problem.opKeys[o], beginTimes[o], machines[o]);
+		return result;
+	}
+
+	/**
+	 * @return the key of an operation for {@link #hash(long, int, int)}
+	 */
+	static long operationKey(final int job, final int op) {
+		return mix((((long) job << 32) | (op & 0xffffffffL)) * 0x9E3779B97F4A7C15L);
+	}
+
+	/**
+	 * hash of one operation, with the finalizer of SplitMix64 for good mixing;
+	 * 0 if the operation is not scheduled
+	 */
+	static long hash(final long operationKey, final int begin, final int machine) {
+		if (machine == UNSET)
+			return 0;
+		return mix(operationKey + mix(((long) begin << 32) ^ (machine & 0xffffffffL)));
+	}
+
+	static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	public double getObjectiveValue() {
+		return objectiveValue;
+	}
+
+	public void setObjectiveValue(double objectiveValue) {
+		this.objectiveValue = objectiveValue;
+	}
+
+	public int getIteration() {
+		return iteration;
+	}
+
+	public void setIteration(int iteration) {
+		this.iteration = iteration;
+	}
+
+	/**
+	 * Like {@link Solution#equals(Solution)} only begin times and machines are
+	 * compared.
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof FlatSolution))
+			return false;
+		final FlatSolution other = (FlatSolution) obj;
+		return fingerprint == other.fingerprint && Arrays.equals(machines, other.machines) && Arrays.equals(beginTimes, other.beginTimes);
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (fingerprint ^ (fingerprint >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return "FlatSolution{" + "objectiveValue=" + objectiveValue + ", iteration=" + iteration + ", fingerprint="
+				+ Long.toHexString(fingerprint) + ", beginTimes=" + Arrays.toString(beginTimes) + ", machines=" + Arrays.toString(machines)
+				+ '}';
+	}
+}
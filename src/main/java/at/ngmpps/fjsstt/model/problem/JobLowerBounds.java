@@ -0,0 +1,191 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Per job lower bounds of a {@link FJSSTTproblem}: the minimum job completion
+ * times (see {@link FJSSTTproblem#calcMinJobCompletionTime(int, int[])}) and
+ * the slacks to the due dates derived from them.
+ *
+ * Missing values are computed in parallel on a fork join pool, each thread
+ * reuses its own scratch array, and the results are cached until the problem
+ * invalidates a job ({@link FJSSTTproblem#addJob}, {@link FJSSTTproblem#removeJob}
+ * and {@link FJSSTTproblem#restoreJob} do) or all jobs (new travel times).
+ * The cache is thread safe, computing values concurrently to changing the
+ * problem is not.
+ *
+ * Get the instance of a problem with {@link FJSSTTproblem#getLowerBounds()}.
+ */
+public class JobLowerBounds {
+
+	/**
+	 * up to this number of jobs are computed by one fork join task
+	 */
+	public static int JOBS_PER_TASK = 16;
+
+	final FJSSTTproblem problem;
+
+	final ConcurrentHashMap<Integer, Integer> minCompletionTimes = new ConcurrentHashMap<Integer, Integer>();
+
+	final ThreadLocal<int[]> scratch = new ThreadLocal<int[]>();
+
+	ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	public JobLowerBounds(final FJSSTTproblem problem) {
+		this.problem = problem;
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @return the scratch array of the current thread, large enough for the
+	 *         machines of the problem
+	 */
+	int[] scratch() {
+		int[] v = scratch.get();
+		if (v == null || v.length < 2 * problem.getMachines()) {
+			v = new int[2 * problem.getMachines()];
+			scratch.set(v);
+		}
+		return v;
+	}
+
+	/**
+	 * @return the (cached) minimum completion time of the job
+	 */
+	public int getMinJobCompletionTime(final int job) {
+		Integer result = minCompletionTimes.get(job);
+		if (result == null) {
+			result = problem.calcMinJobCompletionTime(job, scratch());
+			minCompletionTimes.put(job, result);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the maximum slack of the job, i.e. the time between its minimum
+	 *         completion time and its due date, at least 0
+	 */
+	public int getSlack(final int job) {
+		return Math.max(0, problem.getDueDates().get(job) - getMinJobCompletionTime(job));
+	}
+
+	/**
+	 * Computes the missing minimum job completion times of all jobs in parallel.
+	 *
+	 * @return the minimum completion times, keys are jobs
+	 */
+	public Map<Integer, Integer> getMinJobCompletionTimes() {
+		final List<Integer> missing = new ArrayList<Integer>();
+		for (Integer job : problem.getOperations().keySet())
+			if (!minCompletionTimes.containsKey(job))
+				missing.add(job);
+		if (!missing.isEmpty()) {
+			final int[] jobs = new int[missing.size()];
+			for (int i = 0; i < jobs.length; ++i)
+				jobs[i] = missing.get(i);
+			final int[] results = new int[jobs.length];
+			if (jobs.length <= JOBS_PER_TASK)
+				new CompletionTimesTask(jobs, results, 0, jobs.length).compute();
+			else
+				pool.invoke(new CompletionTimesTask(jobs, results, 0, jobs.length));
+			for (int i = 0; i < jobs.length; ++i)
+				minCompletionTimes.put(jobs[i], results[i]);
+		}
+		final Map<Integer, Integer> result = new HashMap<Integer, Integer>();
+		for (Integer job : problem.getOperations().keySet())
+			result.put(job, minCompletionTimes.get(job));
+		return result;
+	}
+
+	/**
+	 * @return the maximum slacks of all jobs, keys are jobs
+	 */
+	public Map<Integer, Integer> getSlacks() {
+		final Map<Integer, Integer> result = getMinJobCompletionTimes();
+		for (Map.Entry<Integer, Integer> e : result.entrySet())
+			e.setValue(Math.max(0, problem.getDueDates().get(e.getKey()) - e.getValue()));
+		return result;
+	}
+
+	/**
+	 * Same as {@link FJSSTTproblem#calcAverageMaxSlacks()}.
+	 *
+	 * @return average maximum slacks per operation, keys are jobs
+	 */
+	public Map<Integer, Integer> calcAverageMaxSlacks() {
+		final Map<Integer, Integer> result = getSlacks();
+		for (Map.Entry<Integer, Integer> e : result.entrySet())
+			e.setValue((int) ((double) e.getValue() / problem.getOperations().get(e.getKey())));
+		return result;
+	}
+
+	/**
+	 * Removes the cached values of the job.
+	 */
+	public void invalidate(final int job) {
+		minCompletionTimes.remove(job);
+	}
+
+	/**
+	 * Removes all cached values.
+	 */
+	public void invalidateAll() {
+		minCompletionTimes.clear();
+	}
+
+	/**
+	 * @return the number of jobs with cached values
+	 */
+	public int size() {
+		return minCompletionTimes.size();
+	}
+
+	/**
+	 * Computes the minimum completion times of jobs[from..to-1] into results,
+	 * splits until at most {@link JobLowerBounds#JOBS_PER_TASK} jobs are left.
+	 */
+	class CompletionTimesTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 2536196208441377823L;
+
+		final int[] jobs;
+
+		final int[] results;
+
+		final int from;
+
+		final int to;
+
+		CompletionTimesTask(final int[] jobs, final int[] results, final int from, final int to) {
+			this.jobs = jobs;
+			this.results = results;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > JOBS_PER_TASK) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new CompletionTimesTask(jobs, results, from, mid), new CompletionTimesTask(jobs, results, mid, to));
+				return;
+			}
+			final int[] v = scratch();
+			for (int i = from; i < to; ++i)
+				results[i] = problem.calcMinJobCompletionTime(jobs[i], v);
+		}
+	}
+}
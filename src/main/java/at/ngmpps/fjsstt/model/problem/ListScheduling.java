@@ -0,0 +1,254 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+
+/**
+ * Feasibility repair: turns a relaxed schedule (e.g. the bids of a Lagrangian
+ * relaxation, where machines may be used by several operations at once) into a
+ * schedule that respects machine capacities, the order of operations with the
+ * travel times between their machines, and release times.
+ * 
+ * Operations are list scheduled in the order of their relaxed begin times
+ * (the next operation of each job waits in a priority queue), each one as
+ * early as possible after its predecessor has completed and travelled, in the
+ * first idle gap of its machine that is long enough (see
+ * {@link MachineTimeline}). The machine of the relaxed schedule is kept if it
+ * is an alternative machine of the operation; else, and for jobs missing in
+ * the relaxed schedule, the alternative machine with the earliest completion
+ * is taken. The result may end after the horizon of the problem.
+ */
+public class ListScheduling {
+
+	final ProblemView problem;
+
+	/**
+	 * choose the machine with the earliest completion for every operation
+	 * instead of keeping the relaxed machine
+	 */
+	boolean reassignMachines = false;
+
+	/**
+	 * @param problem
+	 *           e.g. a {@link CompiledProblem} for fast access
+	 */
+	public ListScheduling(final ProblemView problem) {
+		this.problem = problem;
+	}
+
+	public boolean isReassignMachines() {
+		return reassignMachines;
+	}
+
+	public void setReassignMachines(boolean reassignMachines) {
+		this.reassignMachines = reassignMachines;
+	}
+
+	/**
+	 * @param relaxed
+	 *           begin times and machine assignments of the relaxed schedule
+	 * @return the feasible schedule with its objective value; iteration is
+	 *         taken over
+	 */
+	public Solution repair(final Solution relaxed) {
+		final Solution result = repair(relaxed.getOperationsBeginTimes(), relaxed.getOperationsMachineAssignments());
+		result.setIteration(relaxed.getIteration());
+		return result;
+	}
+
+	/**
+	 * @param relaxedBeginTimes
+	 *           per job, jobs may be missing
+	 * @param relaxedMachines
+	 *           per job, jobs may be missing
+	 * @return the feasible schedule with its objective value
+	 */
+	public Solution repair(final Map<Integer, int[]> relaxedBeginTimes, final Map<Integer, int[]> relaxedMachines) {
+		final int[] jobs = problem.getJobIds();
+		final MachineTimeline[] timelines = new MachineTimeline[problem.getMachines()];
+		for (int m = 0; m < timelines.length; m++)
+			timelines[m] = new MachineTimeline();
+
+		final int[][] beginTimes = new int[jobs.length][];
+		final int[][] machines = new int[jobs.length][];
+		final int[][] relaxedBegins = new int[jobs.length][];
+		// per job index: the next operation and when it is ready
+		final int[] nextOp = new int[jobs.length];
+		final long[] readyTimes = new long[jobs.length];
+		final int[] previousMachine = new int[jobs.length];
+		final PriorityQueue<Long> queue = new PriorityQueue<Long>(Math.max(1, jobs.length));
+		for (int j = 0; j < jobs.length; j++) {
+			final int job = jobs[j];
+			final int ops = problem.getOperationCount(job);
+			beginTimes[j] = new int[ops];
+			machines[j] = new int[ops];
+			relaxedBegins[j] = relaxedBeginTimes != null ? relaxedBeginTimes.get(job) : null;
+			final int[] relaxedM = relaxedMachines != null ? relaxedMachines.get(job) : null;
+			for (int op = 0; op < ops; op++)
+				machines[j][op] = relaxedM != null && relaxedBegins[j] != null && op < relaxedM.length && op < relaxedBegins[j].length
+						&& isAltMachine(job, op, relaxedM[op]) ? relaxedM[op] : -1;
+			readyTimes[j] = problem.getReleaseTime(job);
+			previousMachine[j] = -1;
+			if (ops > 0)
+				queue.add(key(priority(relaxedBegins[j], 0, problem.getReleaseTime(job)), j));
+		}
+
+		while (!queue.isEmpty()) {
+			final int j = (int) (queue.poll() & 0xffffffffL);
+			final int job = jobs[j];
+			final int op = nextOp[j]++;
+			int machine = reassignMachines ? -1 : machines[j][op];
+			int begin = -1;
+			if (machine >= 0) {
+				begin = earliestBegin(timelines, job, op, machine, readyTimes[j], previousMachine[j]);
+			}
+			if (begin < 0) {
+				// the alternative machine with the earliest completion
+				long bestCompletion = Long.MAX_VALUE;
+				for (int a = 0; a < problem.getAltMachineCount(job, op); a++) {
+					final int m = problem.getAltMachine(job, op, a);
+					final int b = earliestBegin(timelines, job, op, m, readyTimes[j], previousMachine[j]);
+					if (b >= 0 && (long) b + problem.getProcessTime(job, op, m) < bestCompletion) {
+						bestCompletion = (long) b + problem.getProcessTime(job, op, m);
+						machine = m;
+						begin = b;
+					}
+				}
+				if (begin < 0)
+					throw new IllegalStateException("Operation " + op + " of job " + job + " cannot be scheduled");
+			}
+			final int processTime = problem.getProcessTime(job, op, machine);
+			timelines[machine].occupy(begin, processTime);
+			beginTimes[j][op] = begin;
+			machines[j][op] = machine;
+			readyTimes[j] = (long) begin + processTime;
+			previousMachine[j] = machine;
+			if (nextOp[j] < beginTimes[j].length)
+				queue.add(key(priority(relaxedBegins[j], nextOp[j], readyTimes[j]), j));
+		}
+
+		final Map<Integer, int[]> resultBeginTimes = new HashMap<Integer, int[]>();
+		final Map<Integer, int[]> resultMachines = new HashMap<Integer, int[]>();
+		for (int j = 0; j < jobs.length; j++) {
+			resultBeginTimes.put(jobs[j], beginTimes[j]);
+			resultMachines.put(jobs[j], machines[j]);
+		}
+		return new Solution(calcObjectiveValue(problem, resultBeginTimes, resultMachines), resultBeginTimes, resultMachines);
+	}
+
+	boolean isAltMachine(final int job, final int op, final int machine) {
+		for (int a = 0; a < problem.getAltMachineCount(job, op); a++)
+			if (problem.getAltMachine(job, op, a) == machine)
+				return problem.getProcessTime(job, op, machine) < Integer.MAX_VALUE;
+		return false;
+	}
+
+	/**
+	 * @return the earliest feasible begin on the machine or -1
+	 */
+	int earliestBegin(final MachineTimeline[] timelines, final int job, final int op, final int machine, final long ready,
+			final int previousMachine) {
+		final int processTime = problem.getProcessTime(job, op, machine);
+		if (processTime == Integer.MAX_VALUE)
+			return -1;
+		final long earliest = previousMachine >= 0 ? ready + problem.getTravelTime(previousMachine, machine) : ready;
+		if (earliest > Integer.MAX_VALUE)
+			return -1;
+		return timelines[machine].earliestStart((int) earliest, processTime);
+	}
+
+	static long priority(final int[] relaxedBegins, final int op, final long ready) {
+		return relaxedBegins != null && op < relaxedBegins.length ? relaxedBegins[op] : ready;
+	}
+
+	/**
+	 * @return priority in the high, job index in the low 32 bits
+	 */
+	static long key(final long priority, final int jobIndex) {
+		return (Math.max(0, Math.min(priority, Integer.MAX_VALUE)) << 32) | jobIndex;
+	}
+
+	/**
+	 * Same objective as the subproblems (see
+	 * {@link at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance#calcObjectiveValue(Objective, int, int)}
+	 * ), summed over the jobs.
+	 */
+	public static double calcObjectiveValue(final ProblemView problem, final Map<Integer, int[]> beginTimes,
+			final Map<Integer, int[]> machines) {
+		double value = 0;
+		for (int job : problem.getJobIds()) {
+			final int last = problem.getOperationCount(job) - 1;
+			if (last < 0)
+				continue;
+			final long completion = (long) beginTimes.get(job)[last] + problem.getProcessTime(job, last, machines.get(job)[last]) - 1;
+			value += calcJobObjectiveValue(problem, job, completion);
+		}
+		return value;
+	}
+
+	/**
+	 * @param completion
+	 *           the last time slot of the job's last operation
+	 * @return the objective value of the job
+	 */
+	public static double calcJobObjectiveValue(final ProblemView problem, final int job, final long completion) {
+		if (problem.getObjective() == Objective.COMPLETION_TIME)
+			return completion * problem.getJobWeight(job);
+		if (problem.getDueDate(job) <= 0)
+			return completion;
+		return Math.max(0, completion - problem.getDueDate(job)) * problem.getJobWeight(job);
+	}
+
+	/**
+	 * Counts the violated constraints of a schedule: pairs of operations
+	 * overlapping on a machine, operations beginning before their predecessor
+	 * has completed and travelled, first operations beginning before the
+	 * release time, and machines that are no alternative.
+	 * 
+	 * @return the number of violations, 0 for a feasible schedule
+	 */
+	public static int countViolations(final ProblemView problem, final Map<Integer, int[]> beginTimes,
+			final Map<Integer, int[]> machines) {
+		int violations = 0;
+		final List<List<long[]>> intervals = new ArrayList<List<long[]>>();
+		for (int m = 0; m < problem.getMachines(); m++)
+			intervals.add(new ArrayList<long[]>());
+		for (int job : problem.getJobIds()) {
+			final int[] begins = beginTimes.get(job);
+			final int[] assigned = machines.get(job);
+			for (int op = 0; op < problem.getOperationCount(job); op++) {
+				boolean alt = false;
+				for (int a = 0; a < problem.getAltMachineCount(job, op); a++)
+					alt |= problem.getAltMachine(job, op, a) == assigned[op];
+				if (!alt) {
+					violations++;
+					continue;
+				}
+				final long end = (long) begins[op] + problem.getProcessTime(job, op, assigned[op]);
+				intervals.get(assigned[op]).add(new long[] { begins[op], end });
+				if (op == 0 && begins[op] < problem.getReleaseTime(job))
+					violations++;
+				if (op > 0 && begins[op] < (long) begins[op - 1] + problem.getProcessTime(job, op - 1, assigned[op - 1])
+						+ problem.getTravelTime(assigned[op - 1], assigned[op]))
+					violations++;
+			}
+		}
+		for (List<long[]> machineIntervals : intervals) {
+			final long[][] sorted = machineIntervals.toArray(new long[machineIntervals.size()][]);
+			Arrays.sort(sorted, (a, b) -> Long.compare(a[0], b[0]));
+			long end = Long.MIN_VALUE;
+			for (long[] interval : sorted) {
+				if (interval[0] < end)
+					violations++;
+				end = Math.max(end, interval[1]);
+			}
+		}
+		return violations;
+	}
+}
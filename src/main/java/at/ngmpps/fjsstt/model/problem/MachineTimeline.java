@@ -0,0 +1,216 @@
+package at.ngmpps.fjsstt.model.problem;
+
+/**
+ * The idle gaps of one machine, in a balanced tree (a treap) keyed by their
+ * begin. At first the machine is idle from the given time on; every occupied
+ * interval splits a gap in at most two.
+ * 
+ * Each node also keeps the longest gap of its subtree, so
+ * {@link #earliestStart(int, int)} skips every subtree without a gap that is
+ * long enough and finds the first fitting gap in O(log n) for n gaps, however
+ * many shorter gaps lie between the ready time and that gap. Occupying is
+ * O(log n) as well.
+ */
+public class MachineTimeline {
+
+	static final class Gap {
+
+		/**
+		 * inclusive
+		 */
+		final int begin;
+
+		/**
+		 * exclusive; Integer.MAX_VALUE for the last gap
+		 */
+		final int end;
+
+		final int priority;
+
+		/**
+		 * the longest gap of the subtree
+		 */
+		long maxLength;
+
+		Gap left;
+
+		Gap right;
+
+		Gap(final int begin, final int end) {
+			this.begin = begin;
+			this.end = end;
+			this.priority = priority(begin);
+			this.maxLength = length();
+		}
+
+		long length() {
+			return (long) end - begin;
+		}
+
+		void update() {
+			long max = length();
+			if (left != null)
+				max = Math.max(max, left.maxLength);
+			if (right != null)
+				max = Math.max(max, right.maxLength);
+			maxLength = max;
+		}
+	}
+
+	/**
+	 * heap priority from the begin (SplitMix mixing), so the tree shape does
+	 * not depend on a random number generator
+	 */
+	static int priority(final int begin) {
+		long z = begin * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return (int) (z ^ (z >>> 31));
+	}
+
+	Gap root;
+
+	int size;
+
+	public MachineTimeline() {
+		this(0);
+	}
+
+	/**
+	 * @param idleFrom
+	 *           the machine is idle from this time slot on
+	 */
+	public MachineTimeline(final int idleFrom) {
+		insert(new Gap(idleFrom, Integer.MAX_VALUE));
+	}
+
+	/**
+	 * @return the earliest begin time &gt;= ready at which the machine is idle
+	 *         for length slots; -1 if there is none
+	 */
+	public int earliestStart(final int ready, final int length) {
+		final Gap containing = floor(ready);
+		if (containing != null && containing.end > ready && (long) ready + length <= containing.end)
+			return ready;
+		final Gap gap = firstFit(root, ready, length);
+		return gap != null ? gap.begin : -1;
+	}
+
+	/**
+	 * @return the first gap beginning after ready with at least length slots,
+	 *         null if there is none
+	 */
+	static Gap firstFit(final Gap node, final int ready, final long length) {
+		if (node == null || node.maxLength < length)
+			return null;
+		if (node.begin <= ready)
+			return firstFit(node.right, ready, length);
+		final Gap left = firstFit(node.left, ready, length);
+		if (left != null)
+			return left;
+		if (node.length() >= length)
+			return node;
+		return firstFit(node.right, ready, length);
+	}
+
+	/**
+	 * Occupies the slots begin .. begin + length - 1, which must be idle (see
+	 * {@link #earliestStart(int, int)}).
+	 * 
+	 * @throws IllegalArgumentException
+	 *            if they are not idle
+	 */
+	public void occupy(final int begin, final int length) {
+		final Gap gap = floor(begin);
+		final long end = (long) begin + length;
+		if (gap == null || end > gap.end)
+			throw new IllegalArgumentException("Slots " + begin + " to " + (end - 1) + " are not idle");
+		remove(gap.begin);
+		if (gap.begin < begin)
+			insert(new Gap(gap.begin, begin));
+		if (end < gap.end)
+			insert(new Gap((int) end, gap.end));
+	}
+
+	/**
+	 * @return the number of idle gaps
+	 */
+	public int getGaps() {
+		return size;
+	}
+
+	/**
+	 * @return true if all slots begin .. begin + length - 1 are idle
+	 */
+	public boolean isIdle(final int begin, final int length) {
+		final Gap gap = floor(begin);
+		return gap != null && (long) begin + length <= gap.end;
+	}
+
+	/**
+	 * @return the gap with the greatest begin &lt;= time, null if there is none
+	 */
+	Gap floor(final int time) {
+		Gap result = null;
+		for (Gap node = root; node != null;) {
+			if (node.begin <= time) {
+				result = node;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return result;
+	}
+
+	void insert(final Gap gap) {
+		final Gap[] parts = split(root, gap.begin);
+		root = merge(merge(parts[0], gap), parts[1]);
+		size++;
+	}
+
+	void remove(final int begin) {
+		final Gap[] parts = split(root, begin);
+		final Gap[] rest = split(parts[1], begin + 1);
+		root = merge(parts[0], rest[1]);
+		size--;
+	}
+
+	/**
+	 * @return the gaps with begin &lt; key and the gaps with begin &gt;= key
+	 */
+	static Gap[] split(final Gap node, final int key) {
+		if (node == null)
+			return new Gap[2];
+		if (node.begin < key) {
+			final Gap[] parts = split(node.right, key);
+			node.right = parts[0];
+			node.update();
+			parts[0] = node;
+			return parts;
+		}
+		final Gap[] parts = split(node.left, key);
+		node.left = parts[1];
+		node.update();
+		parts[1] = node;
+		return parts;
+	}
+
+	/**
+	 * @return the union of both trees, all begins of a are lower than those of b
+	 */
+	static Gap merge(final Gap a, final Gap b) {
+		if (a == null)
+			return b;
+		if (b == null)
+			return a;
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			a.update();
+			return a;
+		}
+		b.left = merge(a, b.left);
+		b.update();
+		return b;
+	}
+}
@@ -0,0 +1,307 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Copy-on-write map used by {@link FJSSTTproblem#cloneShared()}: a base map
+ * that is shared with other overlays and never changed, plus the own changes
+ * (added / replaced entries and removed keys). Creating an overlay is O(1),
+ * every change costs O(1) amortised: when the changes get large compared to
+ * the map they are merged into a new, own base.
+ *
+ * If the base is a {@link SortedMap}, the overlay iterates in the same order.
+ * Iterators and entries of the views do not support changes; use
+ * {@link #put(Object, Object)} and {@link #remove(Object)}.
+ *
+ * {@link #fork()} copies an overlay in O(1) and keeps the identity of the
+ * forked map, so references to it stay valid and do not see the changes of
+ * the copy.
+ *
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class OverlayMap<K, V> extends AbstractMap<K, V> implements Serializable {
+
+	private static final long serialVersionUID = -4517013954001786813L;
+
+	/**
+	 * overlays of overlays are merged into a plain base beyond this depth, so
+	 * look ups stay cheap after many clones of clones
+	 */
+	public static int MAX_DEPTH = 4;
+
+	Map<K, V> base;
+
+	Map<K, V> added;
+
+	Set<Object> removed;
+
+	int size;
+
+	int depth;
+
+	/**
+	 * @param base
+	 *           must not be changed any more
+	 */
+	public OverlayMap(final Map<K, V> base) {
+		if (base instanceof OverlayMap && ((OverlayMap<K, V>) base).depth >= MAX_DEPTH)
+			setBase(materialize(base));
+		else
+			setBase(base);
+	}
+
+	/**
+	 * Freezes the map: returns an overlay over it. Other overlays can be
+	 * created over the same map, as long as it is not changed any more.
+	 */
+	public static <K, V> Map<K, V> share(final Map<K, V> map) {
+		return map != null ? new OverlayMap<K, V>(map) : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	void setBase(final Map<K, V> base) {
+		this.base = base;
+		this.depth = base instanceof OverlayMap ? ((OverlayMap<K, V>) base).depth + 1 : 1;
+		this.size = base.size();
+		if (base instanceof SortedMap)
+			added = new TreeMap<K, V>(((SortedMap<K, V>) base).comparator());
+		else if (base instanceof OverlayMap && ((OverlayMap<K, V>) base).added instanceof SortedMap)
+			added = new TreeMap<K, V>(((SortedMap<K, V>) ((OverlayMap<K, V>) base).added).comparator());
+		else
+			added = new HashMap<K, V>();
+		removed = new HashSet<Object>();
+	}
+
+	/**
+	 * O(1) copy: the current content of this map becomes a new base shared by
+	 * this map and the result, each keeps its later changes. This map stays the
+	 * same object.
+	 * 
+	 * @return the copy, of the same class as this map
+	 */
+	public OverlayMap<K, V> fork() {
+		if (getChanges() > 0) {
+			// the own changes move into a new base
+			final OverlayMap<K, V> frozen = new OverlayMap<K, V>(base);
+			frozen.added = added;
+			frozen.removed = removed;
+			frozen.size = size;
+			setBase(frozen);
+		}
+		return newOverlay(base);
+	}
+
+	/**
+	 * @return a {@link #fork()} of the map if it is an overlay, else an overlay
+	 *         over it (which then must not be changed any more)
+	 */
+	public static <K, V> Map<K, V> fork(final Map<K, V> map) {
+		if (map instanceof OverlayMap)
+			return ((OverlayMap<K, V>) map).fork();
+		return share(map);
+	}
+
+	/**
+	 * @return a new, empty overlay over the base for {@link #fork()}
+	 */
+	OverlayMap<K, V> newOverlay(final Map<K, V> base) {
+		return new OverlayMap<K, V>(base);
+	}
+
+	/**
+	 * Called with the values of the base that are read through
+	 * {@link #get(Object)}.
+	 * 
+	 * @return the value to return instead, by default the value itself
+	 */
+	V ownValue(final Object key, final V value) {
+		return value;
+	}
+
+	/**
+	 * @return a plain copy of the map, sorted like the map; the values of an
+	 *         overlay are taken as they are, without
+	 *         {@link #ownValue(Object, Object)}
+	 */
+	@SuppressWarnings("unchecked")
+	static <K, V> Map<K, V> materialize(final Map<K, V> map) {
+		final Map<K, V> result;
+		if (map instanceof SortedMap)
+			result = new TreeMap<K, V>(((SortedMap<K, V>) map).comparator());
+		else if (map instanceof OverlayMap && ((OverlayMap<K, V>) map).added instanceof SortedMap)
+			result = new TreeMap<K, V>(((SortedMap<K, V>) ((OverlayMap<K, V>) map).added).comparator());
+		else
+			result = new HashMap<K, V>();
+		if (map instanceof OverlayMap) {
+			for (Iterator<Map.Entry<K, V>> entries = ((OverlayMap<K, V>) map).new EntryIterator(); entries.hasNext();) {
+				final Map.Entry<K, V> entry = entries.next();
+				result.put(entry.getKey(), entry.getValue());
+			}
+		} else {
+			result.putAll(map);
+		}
+		return result;
+	}
+
+	/**
+	 * @return the number of own changes
+	 */
+	public int getChanges() {
+		return added.size() + removed.size();
+	}
+
+	void compactIfLarge() {
+		if (getChanges() > Math.max(16, size / 4))
+			setBase(materialize(this));
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return added.containsKey(key) || (!removed.contains(key) && base.containsKey(key));
+	}
+
+	@Override
+	public V get(final Object key) {
+		final V value = added.get(key);
+		if (value != null || added.containsKey(key))
+			return value;
+		if (removed.contains(key))
+			return null;
+		return ownValue(key, base.get(key));
+	}
+
+	/**
+	 * @return the value of the key, without {@link #ownValue(Object, Object)}:
+	 *         for reading only
+	 */
+	V lookup(final Object key) {
+		final V value = added.get(key);
+		if (value != null || added.containsKey(key))
+			return value;
+		if (removed.contains(key))
+			return null;
+		return base.get(key);
+	}
+
+	@Override
+	public V put(final K key, final V value) {
+		final boolean contained = containsKey(key);
+		final V old = contained ? lookup(key) : null;
+		added.put(key, value);
+		removed.remove(key);
+		if (!contained)
+			++size;
+		compactIfLarge();
+		return old;
+	}
+
+	@Override
+	public V remove(final Object key) {
+		if (!containsKey(key))
+			return null;
+		final V old = lookup(key);
+		added.remove(key);
+		if (base.containsKey(key))
+			removed.add(key);
+		--size;
+		compactIfLarge();
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		if (added instanceof SortedMap)
+			setBase(new TreeMap<K, V>(((SortedMap<K, V>) added).comparator()));
+		else
+			setBase(new HashMap<K, V>());
+	}
+
+	@Override
+	public Set<Map.Entry<K, V>> entrySet() {
+		return new AbstractSet<Map.Entry<K, V>>() {
+			@Override
+			public Iterator<Map.Entry<K, V>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * Iterates over the entries of the base that are not changed and the added
+	 * entries; merged in key order if the base is sorted.
+	 */
+	class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+		final Iterator<Map.Entry<K, V>> baseEntries = base.entrySet().iterator();
+
+		final Iterator<Map.Entry<K, V>> addedEntries = added.entrySet().iterator();
+
+		@SuppressWarnings("unchecked")
+		final Comparator<Object> comparator = added instanceof SortedMap
+				? (((SortedMap<K, V>) added).comparator() != null ? (Comparator<Object>) ((SortedMap<K, V>) added).comparator()
+						: new Comparator<Object>() {
+							@Override
+							public int compare(Object a, Object b) {
+								return ((Comparable<Object>) a).compareTo(b);
+							}
+						})
+				: null;
+
+		Map.Entry<K, V> nextBase = advanceBase();
+
+		Map.Entry<K, V> nextAdded = addedEntries.hasNext() ? addedEntries.next() : null;
+
+		Map.Entry<K, V> advanceBase() {
+			while (baseEntries.hasNext()) {
+				final Map.Entry<K, V> e = baseEntries.next();
+				if (!removed.contains(e.getKey()) && !added.containsKey(e.getKey()))
+					return e;
+			}
+			return null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextBase != null || nextAdded != null;
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			final Map.Entry<K, V> result;
+			if (nextBase != null && (nextAdded == null || (comparator != null && comparator.compare(nextBase.getKey(), nextAdded.getKey()) < 0)
+					|| comparator == null)) {
+				result = nextBase;
+				nextBase = advanceBase();
+			} else if (nextAdded != null) {
+				result = nextAdded;
+				nextAdded = addedEntries.hasNext() ? addedEntries.next() : null;
+			} else {
+				throw new NoSuchElementException();
+			}
+			return new AbstractMap.SimpleImmutableEntry<K, V>(result);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+
+/**
+ * Read only, int indexed access to the data of a FJSSTT problem. Implemented by
+ * the map based {@link FJSSTTproblem} and by the flat {@link CompiledProblem};
+ * code that only reads a problem should use this interface, so that it can
+ * work on the compiled form, where no call allocates or hashes.
+ *
+ * Jobs are given by their ids (the keys of {@link FJSSTTproblem#getOperations()}
+ * ), operations and machines start at 0.
+ */
+public interface ProblemView {
+
+	int getMachines();
+
+	int getTimeSlots();
+
+	int getMaxOperations();
+
+	Objective getObjective();
+
+	/**
+	 * @return the ids of all jobs in ascending order; implementations may
+	 *         return an internal array, do not modify
+	 */
+	int[] getJobIds();
+
+	/**
+	 * @return the number of operations of the job
+	 */
+	int getOperationCount(int job);
+
+	/**
+	 * @return the number of alternative machines of operation op of the job
+	 */
+	int getAltMachineCount(int job, int op);
+
+	/**
+	 * @return the idx-th alternative machine of operation op of the job
+	 */
+	int getAltMachine(int job, int op, int idx);
+
+	/**
+	 * @return the process time of operation op of the job on the machine;
+	 *         Integer.MAX_VALUE if the machine is no alternative machine of the
+	 *         operation, or to indicate bad times
+	 */
+	int getProcessTime(int job, int op, int machine);
+
+	int getTravelTime(int fromMachine, int toMachine);
+
+	int getDueDate(int job);
+
+	int getReleaseTime(int job);
+
+	int getJobWeight(int job);
+}
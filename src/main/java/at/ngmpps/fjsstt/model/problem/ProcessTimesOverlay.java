@@ -0,0 +1,157 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The dense process times of a {@link FJSSTTproblem} after
+ * {@link FJSSTTproblem#cloneShared()}: an {@link OverlayMap} whose base arrays
+ * are shared with other problems. Every read of a job, through
+ * {@link #get(Object)} as well as through the entry set, the key set and the
+ * values, copies the arrays of the job once and keeps the copy, so changes to
+ * the arrays stay in their problem.
+ *
+ * Reads may change the map and are synchronized like the changes; iterators
+ * work on the keys at the time they were created.
+ */
+class ProcessTimesOverlay extends OverlayMap<Integer, int[][]> {
+
+	private static final long serialVersionUID = 2950634651707328112L;
+
+	/**
+	 * the copies made by this map since the last fork
+	 */
+	final Set<int[][]> owned = Collections.newSetFromMap(new IdentityHashMap<int[][], Boolean>());
+
+	/**
+	 * @param base
+	 *           must not be changed any more
+	 */
+	ProcessTimesOverlay(final Map<Integer, int[][]> base) {
+		super(base);
+	}
+
+	@Override
+	public synchronized OverlayMap<Integer, int[][]> fork() {
+		final OverlayMap<Integer, int[][]> copy = super.fork();
+		// the copies are in the shared base now
+		owned.clear();
+		return copy;
+	}
+
+	@Override
+	OverlayMap<Integer, int[][]> newOverlay(final Map<Integer, int[][]> base) {
+		return new ProcessTimesOverlay(base);
+	}
+
+	@Override
+	public synchronized int[][] get(final Object key) {
+		return super.get(key);
+	}
+
+	@Override
+	synchronized int[][] lookup(final Object key) {
+		return super.lookup(key);
+	}
+
+	@Override
+	public synchronized boolean containsKey(final Object key) {
+		return super.containsKey(key);
+	}
+
+	@Override
+	public synchronized int[][] put(final Integer key, final int[][] value) {
+		final int[][] old = super.put(key, value);
+		owned.remove(old);
+		return old;
+	}
+
+	@Override
+	public synchronized int[][] remove(final Object key) {
+		final int[][] old = super.remove(key);
+		owned.remove(old);
+		return old;
+	}
+
+	@Override
+	public synchronized void clear() {
+		super.clear();
+		owned.clear();
+	}
+
+	@Override
+	int[][] ownValue(final Object key, final int[][] value) {
+		if (value == null || owned.contains(value))
+			return value;
+		final int[][] copy = new int[value.length][];
+		for (int op = 0; op < copy.length; ++op)
+			copy[op] = value[op].clone();
+		owned.add(copy);
+		added.put((Integer) key, copy);
+		return copy;
+	}
+
+	/**
+	 * @return the current keys, in the order of the map
+	 */
+	synchronized List<Integer> keys() {
+		final List<Integer> keys = new ArrayList<Integer>(size());
+		for (Iterator<Map.Entry<Integer, int[][]>> entries = new EntryIterator(); entries.hasNext();)
+			keys.add(entries.next().getKey());
+		return keys;
+	}
+
+	@Override
+	public Set<Integer> keySet() {
+		return new AbstractSet<Integer>() {
+			@Override
+			public Iterator<Integer> iterator() {
+				return Collections.unmodifiableList(keys()).iterator();
+			}
+
+			@Override
+			public boolean contains(final Object key) {
+				return containsKey(key);
+			}
+
+			@Override
+			public int size() {
+				return ProcessTimesOverlay.this.size();
+			}
+		};
+	}
+
+	@Override
+	public Set<Map.Entry<Integer, int[][]>> entrySet() {
+		return new AbstractSet<Map.Entry<Integer, int[][]>>() {
+			@Override
+			public Iterator<Map.Entry<Integer, int[][]>> iterator() {
+				final Iterator<Integer> keys = keys().iterator();
+				return new Iterator<Map.Entry<Integer, int[][]>>() {
+					@Override
+					public boolean hasNext() {
+						return keys.hasNext();
+					}
+
+					@Override
+					public Map.Entry<Integer, int[][]> next() {
+						final Integer key = keys.next();
+						return new AbstractMap.SimpleImmutableEntry<Integer, int[][]>(key, get(key));
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return ProcessTimesOverlay.this.size();
+			}
+		};
+	}
+}
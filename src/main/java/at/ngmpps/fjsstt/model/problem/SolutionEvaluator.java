@@ -0,0 +1,360 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Evaluates one schedule of a problem and keeps the evaluation up to date
+ * while local search moves operations, so no move pays for a full
+ * re-evaluation:
+ * <ul>
+ * <li>the objective value (as {@link ListScheduling#calcObjectiveValue}: the
+ * weighted tardiness or completion time of the jobs), O(1) per move, as only
+ * the last operation of a job counts</li>
+ * <li>the makespan (the largest completion time of an operation), from a
+ * multiset of completion times, O(log n)</li>
+ * <li>precedence violations: operations beginning before their predecessor
+ * has completed and travelled to their machine, or first operations beginning
+ * before the release time, O(1)</li>
+ * <li>capacity violations: operations overlapping the operation that begins
+ * before them on the same machine, from a sorted set of operations per
+ * machine, O(log n). This is 0 if and only if no operations overlap, but it
+ * may be smaller than the number of overlapping pairs.</li>
+ * </ul>
+ * 
+ * Moves are applied to a {@link FlatSolution}, whose fingerprint stays up to
+ * date too, and return the change of the objective value; {@link #undo()}
+ * reverts the last move. Completion times are begin + process time - 1.
+ */
+public class SolutionEvaluator {
+
+	final CompiledProblem problem;
+
+	final FlatSolution solution;
+
+	/**
+	 * per global operation
+	 */
+	final int[] jobIndices;
+
+	final int[] processTimes;
+
+	/**
+	 * per machine: begin &lt;&lt; 32 | global operation
+	 */
+	final TreeSet<Long>[] machineOperations;
+
+	/**
+	 * completion time -&gt; number of operations
+	 */
+	final TreeMap<Integer, Integer> completionTimes = new TreeMap<Integer, Integer>();
+
+	double objectiveValue;
+
+	int precedenceViolations;
+
+	int capacityViolations;
+
+	// the operations changed by the last move and their former values
+	final int[] lastOperations = new int[2];
+
+	final int[] lastBegins = new int[2];
+
+	final int[] lastMachines = new int[2];
+
+	int lastCount = 0;
+
+	public SolutionEvaluator(final FJSSTTproblem problem, final Solution solution) {
+		this(new CompiledProblem(problem), solution);
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *            if an operation is not scheduled, on a machine that is no
+	 *            alternative, or before time slot 0
+	 */
+	public SolutionEvaluator(final CompiledProblem problem, final Solution solution) {
+		this(new FlatSolution(problem, solution));
+	}
+
+	/**
+	 * Evaluates a copy of the flat solution.
+	 * 
+	 * @throws IllegalArgumentException
+	 *            if an operation is not scheduled, on a machine that is no
+	 *            alternative, or before time slot 0
+	 */
+	@SuppressWarnings("unchecked")
+	public SolutionEvaluator(final FlatSolution solution) {
+		this.problem = solution.getProblem();
+		this.solution = solution.copy();
+		final int[] opOffsets = problem.getOpOffsets();
+		final int operations = problem.getTotalOperations();
+		jobIndices = new int[operations];
+		processTimes = new int[operations];
+		machineOperations = new TreeSet[problem.getMachines()];
+		for (int m = 0; m < machineOperations.length; m++)
+			machineOperations[m] = new TreeSet<Long>();
+		for (int j = 0; j < problem.getJobCount(); j++)
+			for (int o = opOffsets[j]; o < opOffsets[j + 1]; o++) {
+				jobIndices[o] = j;
+				processTimes[o] = processTime(o, this.solution.getMachine(o));
+				if (this.solution.getBeginTime(o) < 0)
+					throw new IllegalArgumentException("Operation " + o + " begins before 0");
+			}
+		for (int o = 0; o < operations; o++)
+			add(o);
+		// add counts the successor of an operation too, which was already set
+		precedenceViolations = 0;
+		for (int o = 0; o < operations; o++)
+			precedenceViolations += precedenceViolation(o);
+	}
+
+	/**
+	 * @return the process time of the global operation on the machine
+	 * @throws IllegalArgumentException
+	 *            if the machine is no alternative
+	 */
+	int processTime(final int operation, final int machine) {
+		final int[] altOffsets = problem.getAltOffsets();
+		final int[] altMachines = problem.getAltMachines();
+		for (int a = altOffsets[operation]; a < altOffsets[operation + 1]; a++)
+			if (altMachines[a] == machine && problem.getAltProcessTimes()[a] < Integer.MAX_VALUE)
+				return problem.getAltProcessTimes()[a];
+		throw new IllegalArgumentException("Machine " + machine + " is no alternative of operation " + operation);
+	}
+
+	/**
+	 * Moves the operation to the begin.
+	 * 
+	 * @return the change of the objective value
+	 */
+	public double shift(final int job, final int op, final int begin) {
+		final int o = problem.getOperationIndex(job, op);
+		return move(o, begin, solution.getMachine(o));
+	}
+
+	/**
+	 * Moves the operation to the machine, at the same begin.
+	 * 
+	 * @return the change of the objective value
+	 * @throws IllegalArgumentException
+	 *            if the machine is no alternative
+	 */
+	public double reassign(final int job, final int op, final int machine) {
+		final int o = problem.getOperationIndex(job, op);
+		return move(o, solution.getBeginTime(o), machine);
+	}
+
+	/**
+	 * Moves the operation to the machine and begin.
+	 * 
+	 * @return the change of the objective value
+	 * @throws IllegalArgumentException
+	 *            if the machine is no alternative
+	 */
+	public double reassign(final int job, final int op, final int machine, final int begin) {
+		return move(problem.getOperationIndex(job, op), begin, machine);
+	}
+
+	/**
+	 * Swaps the order of two operations on the same machine: the later one
+	 * begins at the begin of the earlier one, which then follows right after
+	 * it.
+	 * 
+	 * @return the change of the objective value
+	 * @throws IllegalArgumentException
+	 *            if they are not on the same machine
+	 */
+	public double swap(final int jobA, final int opA, final int jobB, final int opB) {
+		final int a = problem.getOperationIndex(jobA, opA);
+		final int b = problem.getOperationIndex(jobB, opB);
+		final int machine = solution.getMachine(a);
+		if (machine != solution.getMachine(b) || a == b)
+			throw new IllegalArgumentException("Operations " + a + " and " + b + " are not two operations on one machine");
+		final boolean aFirst = solution.getBeginTime(a) < solution.getBeginTime(b)
+				|| (solution.getBeginTime(a) == solution.getBeginTime(b) && a < b);
+		final int first = aFirst ? a : b;
+		final int second = aFirst ? b : a;
+		final int begin = solution.getBeginTime(first);
+		final double before = objectiveValue;
+		remember(first, second);
+		set(second, begin, machine);
+		set(first, begin + processTimes[second], machine);
+		return objectiveValue - before;
+	}
+
+	/**
+	 * Reverts the last move.
+	 * 
+	 * @return the change of the objective value
+	 */
+	public double undo() {
+		final double before = objectiveValue;
+		for (int i = lastCount - 1; i >= 0; i--)
+			set(lastOperations[i], lastBegins[i], lastMachines[i]);
+		lastCount = 0;
+		return objectiveValue - before;
+	}
+
+	double move(final int o, final int begin, final int machine) {
+		final double before = objectiveValue;
+		remember(o, -1);
+		set(o, begin, machine);
+		return objectiveValue - before;
+	}
+
+	void remember(final int a, final int b) {
+		lastCount = 0;
+		remember(a);
+		if (b >= 0)
+			remember(b);
+	}
+
+	void remember(final int o) {
+		lastOperations[lastCount] = o;
+		lastBegins[lastCount] = solution.getBeginTime(o);
+		lastMachines[lastCount++] = solution.getMachine(o);
+	}
+
+	void set(final int o, final int begin, final int machine) {
+		if (begin < 0)
+			throw new IllegalArgumentException("Operation " + o + " begins before 0");
+		final int processTime = machine == solution.getMachine(o) ? processTimes[o] : processTime(o, machine);
+		remove(o);
+		solution.set(o, begin, machine);
+		processTimes[o] = processTime;
+		add(o);
+	}
+
+	/**
+	 * removes the terms of the operation from the evaluation
+	 */
+	void remove(final int o) {
+		final int j = jobIndices[o];
+		final int last = problem.getOpOffsets()[j + 1] - 1;
+		if (o == last)
+			objectiveValue -= jobObjectiveValue(j);
+		precedenceViolations -= precedenceViolation(o);
+		if (o < last)
+			precedenceViolations -= precedenceViolation(o + 1);
+		final Integer completion = completion(o);
+		final int count = completionTimes.get(completion);
+		if (count == 1)
+			completionTimes.remove(completion);
+		else
+			completionTimes.put(completion, count - 1);
+
+		final TreeSet<Long> operations = machineOperations[solution.getMachine(o)];
+		final long key = key(o);
+		final Long previous = operations.lower(key);
+		final Long next = operations.higher(key);
+		capacityViolations -= overlap(previous, key) + overlap(key, next);
+		capacityViolations += overlap(previous, next);
+		operations.remove(key);
+	}
+
+	/**
+	 * adds the terms of the operation to the evaluation
+	 */
+	void add(final int o) {
+		final TreeSet<Long> operations = machineOperations[solution.getMachine(o)];
+		final long key = key(o);
+		final Long previous = operations.lower(key);
+		final Long next = operations.higher(key);
+		capacityViolations -= overlap(previous, next);
+		capacityViolations += overlap(previous, key) + overlap(key, next);
+		operations.add(key);
+
+		final Integer completion = completion(o);
+		final Integer count = completionTimes.get(completion);
+		completionTimes.put(completion, count != null ? count + 1 : 1);
+		final int j = jobIndices[o];
+		final int last = problem.getOpOffsets()[j + 1] - 1;
+		precedenceViolations += precedenceViolation(o);
+		if (o < last)
+			precedenceViolations += precedenceViolation(o + 1);
+		if (o == last)
+			objectiveValue += jobObjectiveValue(j);
+	}
+
+	long key(final int o) {
+		return ((long) solution.getBeginTime(o) << 32) | o;
+	}
+
+	/**
+	 * @return 1 if the operation of key next begins before the operation of
+	 *         key previous has completed
+	 */
+	int overlap(final Long previous, final Long next) {
+		if (previous == null || next == null)
+			return 0;
+		final int o = (int) (previous & 0xffffffffL);
+		return (next >> 32) < (previous >> 32) + processTimes[o] ? 1 : 0;
+	}
+
+	int completion(final int o) {
+		return solution.getBeginTime(o) + processTimes[o] - 1;
+	}
+
+	/**
+	 * @return 1 if the global operation begins too early for its predecessor
+	 *         or release time
+	 */
+	int precedenceViolation(final int o) {
+		final int j = jobIndices[o];
+		if (o == problem.getOpOffsets()[j])
+			return solution.getBeginTime(o) < problem.getReleaseTimes()[j] ? 1 : 0;
+		final long earliest = (long) solution.getBeginTime(o - 1) + processTimes[o - 1]
+				+ problem.getTravelTime(solution.getMachine(o - 1), solution.getMachine(o));
+		return solution.getBeginTime(o) < earliest ? 1 : 0;
+	}
+
+	double jobObjectiveValue(final int j) {
+		return ListScheduling.calcJobObjectiveValue(problem, problem.getJobIds()[j], completion(problem.getOpOffsets()[j + 1] - 1));
+	}
+
+	public double getObjectiveValue() {
+		return objectiveValue;
+	}
+
+	/**
+	 * @return the largest completion time of an operation, -1 if there are no
+	 *         operations
+	 */
+	public int getMakespan() {
+		return completionTimes.isEmpty() ? -1 : completionTimes.lastKey();
+	}
+
+	public int getPrecedenceViolations() {
+		return precedenceViolations;
+	}
+
+	public int getCapacityViolations() {
+		return capacityViolations;
+	}
+
+	public int getViolations() {
+		return precedenceViolations + capacityViolations;
+	}
+
+	public boolean isFeasible() {
+		return getViolations() == 0;
+	}
+
+	/**
+	 * @return the evaluated solution, do not modify; its objective value is
+	 *         updated on every call
+	 */
+	public FlatSolution getFlatSolution() {
+		solution.setObjectiveValue(objectiveValue);
+		return solution;
+	}
+
+	/**
+	 * @return the evaluated schedule as map based solution
+	 */
+	public Solution toSolution() {
+		return getFlatSolution().toSolution();
+	}
+}
@@ -0,0 +1,217 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The process times of the operations of one job, stored sparse: only the
+ * (machine, process time) pairs of the alternative machines of each operation
+ * are kept, plus a bit mask per operation that marks these machines. With a
+ * few alternative machines out of hundreds this needs a fraction of the memory
+ * of a dense int[operations][machines] row and {@link #get(int, int)} does not
+ * need to search for machines that are no alternative.
+ *
+ * The pairs of operation op are at offsets[op] .. offsets[op+1]-1, in the
+ * order of the alternative machines they were created from. Instances are
+ * immutable.
+ */
+public class SparseProcessTimes implements Serializable {
+
+	private static final long serialVersionUID = 4290811374125208165L;
+
+	final int machines;
+
+	final int[] offsets;
+
+	final int[] altMachines;
+
+	final int[] times;
+
+	/**
+	 * bit m % 64 of word op * words + m / 64 is set if machine m is an
+	 * alternative machine of operation op
+	 */
+	final long[] altMasks;
+
+	final int words;
+
+	public SparseProcessTimes(final int machines, final int[] offsets, final int[] altMachines, final int[] times) {
+		this.machines = machines;
+		this.offsets = offsets;
+		this.altMachines = altMachines;
+		this.times = times;
+		this.words = (machines + 63) >>> 6;
+		final int operations = offsets.length - 1;
+		this.altMasks = new long[operations * words];
+		for (int op = 0; op < operations; ++op)
+			for (int a = offsets[op]; a < offsets[op + 1]; ++a)
+				altMasks[op * words + (altMachines[a] >>> 6)] |= 1L << altMachines[a];
+	}
+
+	/**
+	 * @param dense
+	 *           the process times, first index is the operation, second the
+	 *           machine
+	 * @param altMachines
+	 *           the alternative machines per operation; if null, all machines
+	 *           with a process time other than 0 are stored
+	 * @param machines
+	 *           number of machines
+	 * @return
+	 */
+	public static SparseProcessTimes of(final int[][] dense, final Map<Integer, List<Integer>> altMachines, final int machines) {
+		final int operations = dense.length;
+		final int[] offsets = new int[operations + 1];
+		for (int op = 0; op < operations; ++op) {
+			final List<Integer> alt = altMachines != null ? altMachines.get(op) : null;
+			int count = 0;
+			if (alt != null)
+				count = alt.size();
+			else if (altMachines == null)
+				for (int time : dense[op])
+					if (time != 0)
+						++count;
+			offsets[op + 1] = offsets[op] + count;
+		}
+		final int[] alts = new int[offsets[operations]];
+		final int[] times = new int[offsets[operations]];
+		for (int op = 0; op < operations; ++op) {
+			int a = offsets[op];
+			final List<Integer> alt = altMachines != null ? altMachines.get(op) : null;
+			if (alt != null) {
+				for (int machine : alt) {
+					alts[a] = machine;
+					times[a++] = dense[op][machine];
+				}
+			} else if (altMachines == null) {
+				for (int machine = 0; machine < dense[op].length; ++machine) {
+					if (dense[op][machine] != 0) {
+						alts[a] = machine;
+						times[a++] = dense[op][machine];
+					}
+				}
+			}
+		}
+		return new SparseProcessTimes(machines, offsets, alts, times);
+	}
+
+	/**
+	 * @param dense
+	 *           process times with the operations and alternative machines of
+	 *           this job
+	 * @return this if it has the same process times on the alternative
+	 *         machines as the dense array, else a new instance with the times of
+	 *         the dense array (sharing the alternative machines with this one)
+	 */
+	public SparseProcessTimes withTimes(final int[][] dense) {
+		int[] newTimes = null;
+		for (int op = 0; op < offsets.length - 1; ++op) {
+			for (int a = offsets[op]; a < offsets[op + 1]; ++a) {
+				final int time = dense[op][altMachines[a]];
+				if (newTimes == null && time != times[a])
+					newTimes = times.clone();
+				if (newTimes != null)
+					newTimes[a] = time;
+			}
+		}
+		return newTimes != null ? new SparseProcessTimes(machines, offsets, altMachines, newTimes) : this;
+	}
+
+	public int getOperations() {
+		return offsets.length - 1;
+	}
+
+	public int getMachines() {
+		return machines;
+	}
+
+	public int getAltMachineCount(final int op) {
+		return offsets[op + 1] - offsets[op];
+	}
+
+	/**
+	 * @return the idx-th alternative machine of the operation
+	 */
+	public int getMachine(final int op, final int idx) {
+		return altMachines[offsets[op] + idx];
+	}
+
+	/**
+	 * @return the process time on the idx-th alternative machine of the
+	 *         operation
+	 */
+	public int getTime(final int op, final int idx) {
+		return times[offsets[op] + idx];
+	}
+
+	/**
+	 * @return true if the machine is an alternative machine of the operation
+	 */
+	public boolean isAltMachine(final int op, final int machine) {
+		return (altMasks[op * words + (machine >>> 6)] & (1L << machine)) != 0;
+	}
+
+	/**
+	 * @return true if the machine is an alternative machine of the operation
+	 *         and its process time is not Integer.MAX_VALUE
+	 */
+	public boolean isEligible(final int op, final int machine) {
+		return isAltMachine(op, machine) && get(op, machine) < Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Same value as the dense row: 0 for machines that are no alternative
+	 * machine.
+	 *
+	 * @return the process time of the operation on the machine
+	 */
+	public int get(final int op, final int machine) {
+		if (!isAltMachine(op, machine))
+			return 0;
+		for (int a = offsets[op]; a < offsets[op + 1]; ++a)
+			if (altMachines[a] == machine)
+				return times[a];
+		return 0;
+	}
+
+	/**
+	 * @return the minimum process time of the operation over its alternative
+	 *         machines, Integer.MAX_VALUE if it has none
+	 */
+	public int getMinTime(final int op) {
+		int min = Integer.MAX_VALUE;
+		for (int a = offsets[op]; a < offsets[op + 1]; ++a)
+			if (times[a] < min)
+				min = times[a];
+		return min;
+	}
+
+	/**
+	 * @return a new dense row of the operation, index is the machine
+	 */
+	public int[] toDense(final int op) {
+		final int[] row = new int[machines];
+		for (int a = offsets[op]; a < offsets[op + 1]; ++a)
+			row[altMachines[a]] = times[a];
+		return row;
+	}
+
+	/**
+	 * @return new dense process times, first index is the operation, second the
+	 *         machine
+	 */
+	public int[][] toDense() {
+		final int[][] dense = new int[getOperations()][];
+		for (int op = 0; op < dense.length; ++op)
+			dense[op] = toDense(op);
+		return dense;
+	}
+
+	/**
+	 * @return estimated heap size in bytes
+	 */
+	public long estimateBytes() {
+		return 48 + 4 * 16 + 4L * (offsets.length + altMachines.length + times.length) + 8L * altMasks.length;
+	}
+}
@@ -0,0 +1,195 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sparse storage of the process times of a {@link FJSSTTproblem}: keeps one
+ * {@link SparseProcessTimes} per job, but can be used like the dense
+ * Map&lt;Integer, int[][]&gt; of the problem. Reading a job through this map
+ * ({@link #get(Object)}, {@link #values()}, ...) creates a dense array for it
+ * once and keeps it: later reads return the same array, and changes of the
+ * process times of alternative machines in it are seen by {@link #getSparse(int)}
+ * (which then creates a new {@link SparseProcessTimes} per call). Such a job
+ * takes the memory of the dense array until it is stored sparse again with
+ * {@link #put(Integer, int[][])} or {@link #putSparse(int, SparseProcessTimes)}.
+ * Code that only reads single process times should use
+ * {@link #getSparse(int)} or {@link FJSSTTproblem#getProcessTime(int, int, int)}.
+ */
+public class SparseProcessTimesMap extends AbstractMap<Integer, int[][]> implements Serializable {
+
+	private static final long serialVersionUID = -6003914476383839440L;
+
+	final int machines;
+
+	Map<Integer, SparseProcessTimes> jobs;
+
+	/**
+	 * the dense arrays handed out by {@link #get(Object)}, keys are jobs
+	 */
+	final ConcurrentHashMap<Integer, int[][]> readJobs = new ConcurrentHashMap<Integer, int[][]>();
+
+	public SparseProcessTimesMap(final int machines) {
+		this(machines, new TreeMap<Integer, SparseProcessTimes>());
+	}
+
+	SparseProcessTimesMap(final int machines, final Map<Integer, SparseProcessTimes> jobs) {
+		this.machines = machines;
+		this.jobs = jobs;
+	}
+
+	/**
+	 * @return a copy with its own map, the (immutable) jobs are shared
+	 */
+	public SparseProcessTimesMap copy() {
+		return new SparseProcessTimesMap(machines, withReadJobs(new TreeMap<Integer, SparseProcessTimes>(jobs)));
+	}
+
+	/**
+	 * @return the jobs, with the current process times of the jobs read dense
+	 */
+	Map<Integer, SparseProcessTimes> withReadJobs(final Map<Integer, SparseProcessTimes> jobs) {
+		for (Integer job : readJobs.keySet())
+			jobs.put(job, getSparse(job));
+		return jobs;
+	}
+
+	/**
+	 * O(1) copy for {@link FJSSTTproblem#cloneShared()}: this map and the copy
+	 * share the current jobs (see {@link OverlayMap#fork()}) and keep their
+	 * changes. Dense arrays handed out by this map stay with this map.
+	 */
+	public SparseProcessTimesMap cloneShared() {
+		if (!(jobs instanceof OverlayMap))
+			jobs = OverlayMap.share(jobs);
+		return new SparseProcessTimesMap(machines, withReadJobs(OverlayMap.fork(jobs)));
+	}
+
+	/**
+	 * @return the process times of the job; a new instance per call if the job
+	 *         was read dense and its process times were changed there
+	 */
+	public SparseProcessTimes getSparse(final int job) {
+		final SparseProcessTimes sparse = jobs.get(job);
+		if (sparse == null || readJobs.isEmpty())
+			return sparse;
+		final int[][] dense = readJobs.get(job);
+		return dense != null ? sparse.withTimes(dense) : sparse;
+	}
+
+	public SparseProcessTimes putSparse(final int job, final SparseProcessTimes processTimes) {
+		final SparseProcessTimes old = getSparse(job);
+		readJobs.remove(job);
+		jobs.put(job, processTimes);
+		return old;
+	}
+
+	/**
+	 * @return estimated heap size in bytes
+	 */
+	public long estimateBytes() {
+		long bytes = 64;
+		for (SparseProcessTimes job : jobs.values())
+			bytes += 56 + job.estimateBytes();
+		for (int[][] dense : readJobs.values())
+			for (int[] row : dense)
+				bytes += 16 + 4L * row.length;
+		return bytes;
+	}
+
+	@Override
+	public int size() {
+		return jobs.size();
+	}
+
+	@Override
+	public boolean containsKey(final Object key) {
+		return jobs.containsKey(key);
+	}
+
+	/**
+	 * @return the dense process times of the job, the same array for every
+	 *         call until the job is put or removed
+	 */
+	@Override
+	public int[][] get(final Object key) {
+		int[][] dense = readJobs.get(key);
+		if (dense != null)
+			return dense;
+		final SparseProcessTimes job = jobs.get(key);
+		if (job == null)
+			return null;
+		dense = job.toDense();
+		final int[][] other = readJobs.putIfAbsent((Integer) key, dense);
+		return other != null ? other : dense;
+	}
+
+	/**
+	 * Stores the machines with process times other than 0.
+	 */
+	@Override
+	public int[][] put(final Integer key, final int[][] value) {
+		final int[][] old = readJobs.remove(key);
+		final SparseProcessTimes oldSparse = jobs.put(key, SparseProcessTimes.of(value, null, machines));
+		return old != null ? old : oldSparse != null ? oldSparse.toDense() : null;
+	}
+
+	@Override
+	public int[][] remove(final Object key) {
+		final int[][] old = readJobs.remove(key);
+		final SparseProcessTimes oldSparse = jobs.remove(key);
+		return old != null ? old : oldSparse != null ? oldSparse.toDense() : null;
+	}
+
+	@Override
+	public void clear() {
+		readJobs.clear();
+		jobs.clear();
+	}
+
+	@Override
+	public Set<Integer> keySet() {
+		return jobs.keySet();
+	}
+
+	@Override
+	public Set<Map.Entry<Integer, int[][]>> entrySet() {
+		return new AbstractSet<Map.Entry<Integer, int[][]>>() {
+			@Override
+			public Iterator<Map.Entry<Integer, int[][]>> iterator() {
+				final Iterator<Map.Entry<Integer, SparseProcessTimes>> it = jobs.entrySet().iterator();
+				return new Iterator<Map.Entry<Integer, int[][]>>() {
+					Integer last;
+
+					@Override
+					public boolean hasNext() {
+						return it.hasNext();
+					}
+
+					@Override
+					public Map.Entry<Integer, int[][]> next() {
+						last = it.next().getKey();
+						return new AbstractMap.SimpleImmutableEntry<Integer, int[][]>(last, get(last));
+					}
+
+					@Override
+					public void remove() {
+						it.remove();
+						readJobs.remove(last);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return jobs.size();
+			}
+		};
+	}
+}
@@ -0,0 +1,201 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+
+/**
+ * Computes the subgradients of the Lagrangian relaxation from a set of bids:
+ * for every machine and time slot the number of operations of the bids
+ * occupying it minus the capacity 1 (see {@link Solution#getSubgradients()}).
+ *
+ * Operations are added as intervals to difference arrays (+1 at the begin, -1
+ * after the end), so the cost grows with the number of operations, not with
+ * their process times. The bids are split into chunks, each chunk has its own
+ * difference array (no sharing between threads); the arrays are then reduced
+ * per machine in parallel, followed by a prefix sum.
+ *
+ * The intervals of the bids are used (see {@link Bid#getIntervals()}); for bids
+ * without intervals the process times are taken from a {@link ProblemView}.
+ * Occupancy outside the horizon 0..timeSlots-1 is cut off.
+ */
+public class SubgradientKernel {
+
+	/**
+	 * a chunk has at least this number of bids
+	 */
+	public static int MIN_BIDS_PER_CHUNK = 64;
+
+	final ProblemView problem;
+
+	final int machines;
+
+	final int timeSlots;
+
+	ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	public SubgradientKernel(final ProblemView problem) {
+		this.problem = problem;
+		this.machines = problem.getMachines();
+		this.timeSlots = problem.getTimeSlots();
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * @param bids
+	 *           the bids of all jobs, e.g. the values of {@link Solution#getBids()}
+	 * @return subgradients, first index is the machine, second the time slot
+	 */
+	public int[][] calcSubgradients(final Collection<Bid> bids) {
+		return calcSubgradients(bids.toArray(new Bid[bids.size()]));
+	}
+
+	public int[][] calcSubgradients(final Bid[] bids) {
+		final int chunks = Math.max(1, Math.min(pool.getParallelism(), bids.length / Math.max(1, MIN_BIDS_PER_CHUNK)));
+		final int[][] differences = new int[chunks][];
+		final int[][] subgradients = new int[machines][timeSlots];
+		if (chunks == 1) {
+			differences[0] = new int[machines * (timeSlots + 1)];
+			addIntervals(bids, 0, bids.length, differences[0]);
+			new ReduceTask(differences, subgradients, 0, machines).compute();
+		} else {
+			pool.invoke(new RecursiveAction() {
+				private static final long serialVersionUID = -3170433307484924137L;
+
+				@Override
+				protected void compute() {
+					final ChunkTask[] chunkTasks = new ChunkTask[chunks];
+					for (int c = 0; c < chunks; ++c)
+						chunkTasks[c] = new ChunkTask(bids, differences, c, (int) ((long) bids.length * c / chunks),
+								(int) ((long) bids.length * (c + 1) / chunks));
+					invokeAll(chunkTasks);
+					new ReduceTask(differences, subgradients, 0, machines).compute();
+				}
+			});
+		}
+		return subgradients;
+	}
+
+	/**
+	 * Adds the operations of bids[from..to-1] to the difference array (index
+	 * machine * (timeSlots + 1) + slot).
+	 */
+	void addIntervals(final Bid[] bids, final int from, final int to, final int[] difference) {
+		final int row = timeSlots + 1;
+		for (int b = from; b < to; ++b) {
+			final Bid bid = bids[b];
+			if (bid == null)
+				continue;
+			final int[] intervals = bid.getIntervals();
+			if (intervals.length > 0) {
+				for (int i = 0; i < intervals.length; i += 3)
+					addInterval(difference, row, intervals[i], intervals[i + 1], intervals[i + 2]);
+				continue;
+			}
+			// bid without intervals
+			final int job = bid.getJobID();
+			final int[] optMachines = bid.getOptimumMachines();
+			final int[] beginTimes = bid.getOptimumBeginTimes();
+			for (int op = 0; op < optMachines.length; ++op)
+				addInterval(difference, row, optMachines[op], beginTimes[op], problem.getProcessTime(job, op, optMachines[op]));
+		}
+	}
+
+	void addInterval(final int[] difference, final int row, final int machine, final int beginTime, final int length) {
+		final int begin = Math.max(0, beginTime);
+		final long end = Math.min(timeSlots, (long) beginTime + length);
+		if (begin >= end)
+			return;
+		difference[machine * row + begin]++;
+		difference[machine * row + (int) end]--;
+	}
+
+	/**
+	 * Fills the difference array of one chunk of bids.
+	 */
+	class ChunkTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 4478297418618453170L;
+
+		final Bid[] bids;
+
+		final int[][] differences;
+
+		final int chunk;
+
+		final int from;
+
+		final int to;
+
+		ChunkTask(final Bid[] bids, final int[][] differences, final int chunk, final int from, final int to) {
+			this.bids = bids;
+			this.differences = differences;
+			this.chunk = chunk;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			differences[chunk] = new int[machines * (timeSlots + 1)];
+			addIntervals(bids, from, to, differences[chunk]);
+		}
+	}
+
+	/**
+	 * Sums the difference arrays of all chunks for machines from..to-1 and
+	 * turns them into usage - 1; splits down to single machines.
+	 */
+	class ReduceTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -6524787232011316306L;
+
+		final int[][] differences;
+
+		final int[][] subgradients;
+
+		final int from;
+
+		final int to;
+
+		ReduceTask(final int[][] differences, final int[][] subgradients, final int from, final int to) {
+			this.differences = differences;
+			this.subgradients = subgradients;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1 && differences.length > 1) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new ReduceTask(differences, subgradients, from, mid), new ReduceTask(differences, subgradients, mid, to));
+				return;
+			}
+			final int row = timeSlots + 1;
+			for (int machine = from; machine < to; ++machine) {
+				final int[] subgradient = subgradients[machine];
+				final int offset = machine * row;
+				for (int c = 0; c < differences.length; ++c) {
+					final int[] difference = differences[c];
+					for (int t = 0; t < timeSlots; ++t)
+						subgradient[t] += difference[offset + t];
+				}
+				int usage = 0;
+				for (int t = 0; t < timeSlots; ++t) {
+					usage += subgradient[t];
+					subgradient[t] = usage - 1;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,627 @@
+package at.ngmpps.fjsstt.model.problem;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.DoubleMultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierUpdateKernel;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolver;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverType;
+
+/**
+ * Master loop of the Lagrangian relaxation of the machine capacities over the
+ * subproblems of {@link FJSSTTproblem#createSubproblems()}.
+ * 
+ * The surrogate subgradient search re-solves only NoSubproblems jobs per
+ * iteration and keeps the previous bids of all others; a new bid replaces the
+ * old one only if it is cheaper at the current multipliers (surrogate
+ * optimality condition). Jobs are chosen by priority (iterations since they
+ * were solved) + (overload of the slots their operations begin in), so stale
+ * and highly violating jobs come first. The usage of the slots, the norm of
+ * the subgradient (usage - 1) and the multipliers (by
+ * {@link MultiplierUpdateKernel}, active slots only) are updated
+ * incrementally. The order of the priorities only changes when a job is
+ * solved or the overload of a slot in which one of its operations begins
+ * changes, so the jobs are kept in an indexed heap that is updated then:
+ * choosing the jobs costs O(NoSubproblems log jobs), and an iteration
+ * O(re-solved jobs + changed slots + active slots) besides the solves, not
+ * O(jobs). Step sizes follow the
+ * surrogate Lagrangian relaxation rule s_k = alpha_k s_k-1 |g_k-1| / |g_k| with
+ * alpha_k = 1 - 1 / (M k^p) and p = 1 - k^-r.
+ * 
+ * The simple subgradient search re-solves all jobs with step size s_0 / k;
+ * both combines the surrogate iterations with a full iteration whenever each
+ * job could have been solved once. Full iterations with an exact solver
+ * (dynamic programming) give the dual value, a lower bound. So that it is one,
+ * the subproblems are solved without the window slack of the problem (see
+ * {@link FJSSTTproblem#getWindowSlack()}), their time windows only follow from
+ * the horizon.
+ * 
+ * Configured by {@link #NO_SUBPROBLEMS_KEY}, {@link #R_KEY}, {@link #M_KEY},
+ * {@link #INITIAL_STEPSIZE_KEY} and {@link #SEARCH_TYPE_KEY}; the subproblem
+ * solver by {@link SubproblemSolverConfig}.
+ */
+public class SurrogateSearch {
+
+	static final Logger logger = LoggerFactory.getLogger(SurrogateSearch.class);
+
+	public static final String NO_SUBPROBLEMS_KEY = "SurrogateSearch.NoSubproblems";
+	public static final String R_KEY = "SurrogateSearch.R";
+	public static final String M_KEY = "SurrogateSearch.M";
+	public static final String INITIAL_STEPSIZE_KEY = "SurrogateSearch.InitialStepsize";
+	public static final String SEARCH_TYPE_KEY = "SubgradientSearch.SearchType";
+
+	public enum SearchType {
+		SurrogateSubgradientSearch, SimpleSubgradientSearch, Both;
+
+		/**
+		 * @return the type with the name (case insensitive), default Both
+		 */
+		public static SearchType parse(String name) {
+			for (SearchType type : values())
+				if (type.name().equalsIgnoreCase(name != null ? name.trim() : null))
+					return type;
+			return Both;
+		}
+	}
+
+	final FJSSTTproblem problem;
+
+	final SubproblemInstance[] subproblems;
+
+	final SubproblemSolver solver;
+
+	final boolean exactSolver;
+
+	final SearchType searchType;
+
+	final int noSubproblems;
+
+	final double r;
+
+	final double m;
+
+	final double initialStepsize;
+
+	final int machines;
+
+	final int timeSlots;
+
+	final MultiplierTable multipliers;
+
+	final MultiplierUpdateKernel kernel;
+
+	/**
+	 * current bid per subproblem index, null if the job cannot be scheduled
+	 */
+	final Bid[] bids;
+
+	/**
+	 * iteration in which each subproblem was solved last
+	 */
+	final int[] lastSolved;
+
+	/**
+	 * operations of the current bids per [machine][time slot]
+	 */
+	final int[][] usage;
+
+	/**
+	 * overload of the begin slots of the current bid per subproblem index, see
+	 * {@link #violation(Bid)}
+	 */
+	final int[] violations;
+
+	/**
+	 * the subproblem indices by priority, see {@link #select(int)}
+	 */
+	final JobHeap queue;
+
+	/**
+	 * index of the first operation of each subproblem in the begin lists
+	 */
+	final int[] firstOperation;
+
+	/**
+	 * per [machine * timeSlots + slot] the first operation (of all subproblems)
+	 * of the current bids that begins there, -1 for none; the others follow in
+	 * nextBegin
+	 */
+	final int[] beginHead;
+
+	final int[] nextBegin;
+
+	final int[] previousBegin;
+
+	/**
+	 * the begin slot of each operation, -1 if it is in no list
+	 */
+	final int[] beginSlot;
+
+	/**
+	 * the subproblem index of each operation
+	 */
+	final int[] beginJob;
+
+	/**
+	 * the squared norm of usage - 1
+	 */
+	long normSquare;
+
+	// slots that became overloaded since the last step
+	int[] overloadedMachines = new int[64];
+	int[] overloadedSlots = new int[64];
+	int overloadedCount;
+
+	int iteration = 0;
+
+	double stepsize;
+
+	double lowerBound = Double.NEGATIVE_INFINITY;
+
+	double dualValue = Double.NaN;
+
+	long solved = 0;
+
+	public SurrogateSearch(final FJSSTTproblem problem) {
+		this(problem, problem.getConfigurations() != null ? problem.getConfigurations() : new Properties());
+	}
+
+	public SurrogateSearch(final FJSSTTproblem problem, final Properties config) {
+		this(problem, config.containsKey(SubproblemSolverConfig.TYPE_KEY) ? new SubproblemSolverConfig(config)
+				: new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming),
+				SearchType.parse(config.getProperty(SEARCH_TYPE_KEY)), intProperty(config, NO_SUBPROBLEMS_KEY, 10),
+				doubleProperty(config, R_KEY, 0.1), doubleProperty(config, M_KEY, 25), doubleProperty(config, INITIAL_STEPSIZE_KEY, 0.2));
+	}
+
+	/**
+	 * @param problem
+	 * @param solverConfig
+	 *           creates the subproblem solver
+	 * @param searchType
+	 * @param noSubproblems
+	 *           jobs re-solved per surrogate iteration
+	 * @param r
+	 *           0 &lt; r &lt; 1
+	 * @param m
+	 *           &gt; 1
+	 * @param initialStepsize
+	 */
+	public SurrogateSearch(final FJSSTTproblem problem, final SubproblemSolverConfig solverConfig, final SearchType searchType,
+			final int noSubproblems, final double r, final double m, final double initialStepsize) {
+		this.problem = problem;
+		this.searchType = searchType;
+		this.r = r;
+		if (!(m > 1))
+			throw new IllegalArgumentException("M must be > 1, alpha of the first step would be " + (1 - 1 / m) + ": " + m);
+		this.m = m;
+		this.initialStepsize = initialStepsize;
+		this.stepsize = initialStepsize;
+		this.solver = solverConfig.createSolver(300);
+		this.exactSolver = solverConfig.getType() == SubproblemSolverType.DynamicProgramming;
+		machines = problem.getMachines();
+		timeSlots = problem.getTimeSlots();
+		multipliers = new MultiplierTable(machines, timeSlots);
+		kernel = new MultiplierUpdateKernel(multipliers);
+		subproblems = compact(problem.createSubproblems(new DoubleMultiplierStorage(multipliers.getMultipliers())));
+		// windows limited by a slack would cut off solutions, the dual value
+		// would be no lower bound
+		for (SubproblemInstance subproblem : subproblems)
+			subproblem.calcTimeWindows(-1);
+		this.noSubproblems = Math.max(1, Math.min(noSubproblems, subproblems.length));
+		bids = new Bid[subproblems.length];
+		lastSolved = new int[subproblems.length];
+		usage = new int[machines][timeSlots];
+		normSquare = (long) machines * timeSlots;
+		violations = new int[subproblems.length];
+		firstOperation = new int[subproblems.length + 1];
+		for (int i = 0; i < subproblems.length; i++)
+			firstOperation[i + 1] = firstOperation[i] + subproblems[i].getOperations();
+		final int operations = firstOperation[subproblems.length];
+		beginHead = new int[machines * timeSlots];
+		Arrays.fill(beginHead, -1);
+		nextBegin = new int[operations];
+		previousBegin = new int[operations];
+		beginSlot = new int[operations];
+		Arrays.fill(beginSlot, -1);
+		beginJob = new int[operations];
+		for (int i = 0; i < subproblems.length; i++)
+			Arrays.fill(beginJob, firstOperation[i], firstOperation[i + 1], i);
+		queue = new JobHeap(subproblems.length);
+		for (int i = 0; i < subproblems.length; i++)
+			queue.update(i);
+	}
+
+	static int intProperty(Properties config, String key, int defaultValue) {
+		return config.containsKey(key) ? ProblemParser.getPropertyInt(config, key, defaultValue) : defaultValue;
+	}
+
+	static double doubleProperty(Properties config, String key, double defaultValue) {
+		return config.containsKey(key) ? ProblemParser.getPropertyDouble(config, key, defaultValue) : defaultValue;
+	}
+
+	static SubproblemInstance[] compact(final SubproblemInstance[] subproblems) {
+		int count = 0;
+		for (SubproblemInstance subproblem : subproblems)
+			if (subproblem != null)
+				count++;
+		final SubproblemInstance[] result = new SubproblemInstance[count];
+		count = 0;
+		for (SubproblemInstance subproblem : subproblems)
+			if (subproblem != null)
+				result[count++] = subproblem;
+		return result;
+	}
+
+	/**
+	 * Runs the given number of iterations (the first one solves all jobs).
+	 * 
+	 * @return the solution of the last iteration
+	 */
+	public Solution run(final int iterations) {
+		for (int i = 0; i < iterations; i++)
+			iterate();
+		return getSolution();
+	}
+
+	/**
+	 * One iteration: solve (some) subproblems, then a subgradient step.
+	 * 
+	 * @return the number of re-solved subproblems
+	 */
+	public int iterate() {
+		iteration++;
+		final boolean full = iteration == 1 || searchType == SearchType.SimpleSubgradientSearch
+				|| (searchType == SearchType.Both && (iteration - 1) % ((subproblems.length + noSubproblems - 1) / noSubproblems) == 0);
+		final long previousNormSquare = normSquare;
+		int count = 0;
+		if (full) {
+			double dual = 0;
+			boolean all = true;
+			for (int i = 0; i < subproblems.length; i++) {
+				solve(i, true);
+				if (bids[i] != null)
+					dual += bids[i].getPrice();
+				else
+					all = false;
+			}
+			count = subproblems.length;
+			if (all) {
+				// L = sum of the job costs - sum of all multipliers (capacity 1)
+				for (int machine = 0; machine < machines; machine++)
+					dual -= multipliers.sum(machine, 0, timeSlots - 1);
+				dualValue = dual;
+				if (exactSolver)
+					lowerBound = Math.max(lowerBound, dual);
+			}
+		} else {
+			for (int i : select(noSubproblems)) {
+				solve(i, false);
+				count++;
+			}
+		}
+		solved += count;
+
+		// step size
+		if (iteration > 1) {
+			if (searchType == SearchType.SimpleSubgradientSearch) {
+				stepsize = initialStepsize / iteration;
+			} else {
+				final int k = iteration - 1;
+				final double p = 1 - Math.pow(k, -r);
+				final double alpha = 1 - 1 / (m * Math.pow(k, p));
+				stepsize = alpha * stepsize * Math.sqrt((double) previousNormSquare / Math.max(1, normSquare));
+			}
+		}
+		kernel.applySubgradientStep(usage, overloadedMachines, overloadedSlots, overloadedCount, stepsize);
+		overloadedCount = 0;
+		logger.debug("iteration {}: {} subproblems solved, step size {}, |g|^2 {}", iteration, count, stepsize, normSquare);
+		return count;
+	}
+
+	/**
+	 * Takes the subproblems with the highest priority out of the queue;
+	 * {@link #solve(int, boolean)} puts them back.
+	 * 
+	 * @return the indices of the subproblems with the highest priority, highest
+	 *         first
+	 */
+	int[] select(final int count) {
+		final int[] result = new int[Math.min(count, queue.size)];
+		for (int i = 0; i < result.length; i++)
+			result[i] = queue.poll();
+		return result;
+	}
+
+	/**
+	 * iteration - priority of the subproblem, the same order for all
+	 * iterations: lower is more urgent
+	 */
+	long key(final int i) {
+		return (long) lastSolved[i] - violations[i];
+	}
+
+	/**
+	 * Binary min heap of subproblem indices by {@link SurrogateSearch#key(int)},
+	 * ties by index; knows the position of every index, so a changed key is
+	 * updated in O(log n).
+	 */
+	final class JobHeap {
+
+		final int[] heap;
+
+		/**
+		 * position of each index in heap, -1 if it is not in the heap
+		 */
+		final int[] position;
+
+		int size;
+
+		JobHeap(final int capacity) {
+			heap = new int[capacity];
+			position = new int[capacity];
+			Arrays.fill(position, -1);
+		}
+
+		boolean less(final int a, final int b) {
+			final long keyA = key(a);
+			final long keyB = key(b);
+			return keyA < keyB || (keyA == keyB && a < b);
+		}
+
+		/**
+		 * Adds the index or restores the heap order after its key changed.
+		 */
+		void update(final int i) {
+			int at = position[i];
+			if (at < 0) {
+				at = size++;
+				heap[at] = i;
+				position[i] = at;
+			}
+			siftDown(siftUp(at));
+		}
+
+		int poll() {
+			final int first = heap[0];
+			position[first] = -1;
+			if (--size > 0) {
+				heap[0] = heap[size];
+				position[heap[0]] = 0;
+				siftDown(0);
+			}
+			return first;
+		}
+
+		int siftUp(int at) {
+			final int i = heap[at];
+			while (at > 0) {
+				final int parent = (at - 1) >>> 1;
+				if (!less(i, heap[parent]))
+					break;
+				heap[at] = heap[parent];
+				position[heap[at]] = at;
+				at = parent;
+			}
+			heap[at] = i;
+			position[i] = at;
+			return at;
+		}
+
+		void siftDown(int at) {
+			final int i = heap[at];
+			while (true) {
+				int child = 2 * at + 1;
+				if (child >= size)
+					break;
+				if (child + 1 < size && less(heap[child + 1], heap[child]))
+					child++;
+				if (!less(heap[child], i))
+					break;
+				heap[at] = heap[child];
+				position[heap[at]] = at;
+				at = child;
+			}
+			heap[at] = i;
+			position[i] = at;
+		}
+	}
+
+	/**
+	 * @return the overload (usage - 1) of the slots in which the operations of
+	 *         the bid begin
+	 */
+	int violation(final Bid bid) {
+		if (bid == null)
+			return 0;
+		int violation = 0;
+		final int[] intervals = bid.getIntervals();
+		for (int i = 0; i < intervals.length; i += 3)
+			if (intervals[i + 1] >= 0 && intervals[i + 1] < timeSlots)
+				violation += Math.max(0, usage[intervals[i]][intervals[i + 1]] - 1);
+		return violation;
+	}
+
+	/**
+	 * Solves the subproblem; the new bid replaces the old one if forced or if
+	 * it is cheaper at the current multipliers.
+	 */
+	void solve(final int i, final boolean force) {
+		final SubproblemInstance subproblem = subproblems[i];
+		final Bid bid = solver.solve(subproblem, multipliers);
+		lastSolved[i] = iteration;
+		final Bid old = bids[i];
+		if (bid != null && (force || old == null || bid.getPrice() < subproblem.calcCost(subproblem.getObjective(), old, multipliers))) {
+			if (old != null) {
+				removeBegins(i);
+				changeUsage(old, -1);
+			}
+			changeUsage(bid, 1);
+			bids[i] = bid;
+			addBegins(i, bid);
+			violations[i] = violation(bid);
+		}
+		queue.update(i);
+	}
+
+	/**
+	 * Adds the operations of the bid to the lists of their begin slots, the
+	 * same begins as in {@link #violation(Bid)}.
+	 */
+	void addBegins(final int i, final Bid bid) {
+		final int[] intervals = bid.getIntervals();
+		final int operations = Math.min(subproblems[i].getOperations(), intervals.length / 3);
+		for (int op = 0; op < operations; op++) {
+			final int begin = intervals[3 * op + 1];
+			if (begin < 0 || begin >= timeSlots)
+				continue;
+			final int entry = firstOperation[i] + op;
+			final int slot = intervals[3 * op] * timeSlots + begin;
+			final int head = beginHead[slot];
+			nextBegin[entry] = head;
+			previousBegin[entry] = -1;
+			if (head >= 0)
+				previousBegin[head] = entry;
+			beginHead[slot] = entry;
+			beginSlot[entry] = slot;
+		}
+	}
+
+	void removeBegins(final int i) {
+		for (int entry = firstOperation[i]; entry < firstOperation[i + 1]; entry++) {
+			final int slot = beginSlot[entry];
+			if (slot < 0)
+				continue;
+			if (previousBegin[entry] >= 0)
+				nextBegin[previousBegin[entry]] = nextBegin[entry];
+			else
+				beginHead[slot] = nextBegin[entry];
+			if (nextBegin[entry] >= 0)
+				previousBegin[nextBegin[entry]] = previousBegin[entry];
+			beginSlot[entry] = -1;
+		}
+	}
+
+	void changeUsage(final Bid bid, final int delta) {
+		final int[] intervals = bid.getIntervals();
+		for (int i = 0; i < intervals.length; i += 3) {
+			final int machine = intervals[i];
+			final int[] machineUsage = usage[machine];
+			final int end = (int) Math.min(timeSlots, (long) intervals[i + 1] + intervals[i + 2]);
+			for (int t = Math.max(0, intervals[i + 1]); t < end; t++) {
+				final int before = machineUsage[t];
+				final int after = before + delta;
+				machineUsage[t] = after;
+				normSquare += (long) (after - 1) * (after - 1) - (long) (before - 1) * (before - 1);
+				final int overload = Math.max(0, after - 1) - Math.max(0, before - 1);
+				if (overload != 0) {
+					// the priorities of the jobs beginning an operation here
+					for (int entry = beginHead[machine * timeSlots + t]; entry >= 0; entry = nextBegin[entry]) {
+						violations[beginJob[entry]] += overload;
+						queue.update(beginJob[entry]);
+					}
+				}
+				if (after == 2 && delta > 0) {
+					if (overloadedCount == overloadedSlots.length) {
+						overloadedMachines = Arrays.copyOf(overloadedMachines, 2 * overloadedCount);
+						overloadedSlots = Arrays.copyOf(overloadedSlots, 2 * overloadedCount);
+					}
+					overloadedMachines[overloadedCount] = machine;
+					overloadedSlots[overloadedCount++] = t;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the current bids, keys are jobs
+	 */
+	public Map<Integer, Bid> getBids() {
+		final Map<Integer, Bid> result = new HashMap<Integer, Bid>();
+		for (int i = 0; i < bids.length; i++)
+			if (bids[i] != null)
+				result.put(subproblems[i].getJobID(), bids[i]);
+		return result;
+	}
+
+	/**
+	 * @return the current bids with their subgradients and a copy of the
+	 *         multipliers; the objective value is the last dual value
+	 */
+	public Solution getSolution() {
+		final int[][] subgradients = new int[machines][timeSlots];
+		for (int machine = 0; machine < machines; machine++)
+			for (int t = 0; t < timeSlots; t++)
+				subgradients[machine][t] = usage[machine][t] - 1;
+		final double[][] copy = new double[machines][];
+		for (int machine = 0; machine < machines; machine++)
+			copy[machine] = multipliers.getMultipliers()[machine].clone();
+		return new Solution(dualValue, machines, timeSlots, problem.getMaxOperations(), getBids(), iteration, subgradients, copy);
+	}
+
+	public MultiplierTable getMultipliers() {
+		return multipliers;
+	}
+
+	/**
+	 * @return usage - 1 of the slot for the current bids
+	 */
+	public int getSubgradient(final int machine, final int slot) {
+		return usage[machine][slot] - 1;
+	}
+
+	/**
+	 * @return the squared norm of the current subgradient
+	 */
+	public long getSubgradientNormSquare() {
+		return normSquare;
+	}
+
+	public int getIteration() {
+		return iteration;
+	}
+
+	public double getStepsize() {
+		return stepsize;
+	}
+
+	/**
+	 * @return the best dual value of a full iteration with an exact solver,
+	 *         -infinity if there was none
+	 */
+	public double getLowerBound() {
+		return lowerBound;
+	}
+
+	/**
+	 * @return the dual value of the last full iteration
+	 */
+	public double getDualValue() {
+		return dualValue;
+	}
+
+	/**
+	 * @return the number of subproblems solved so far
+	 */
+	public long getSolvedSubproblems() {
+		return solved;
+	}
+
+	public int getNoSubproblems() {
+		return noSubproblems;
+	}
+
+	public SearchType getSearchType() {
+		return searchType;
+	}
+}
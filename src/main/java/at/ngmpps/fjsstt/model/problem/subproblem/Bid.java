@@ -2,6 +2,7 @@ package at.ngmpps.fjsstt.model.problem.subproblem;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -9,8 +10,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * The data structure for a job's bid in an auction. A bid consists of the job
- * ID, the price and a list of tuples (assigned machine, time slot) with time
- * slots occupied by the job operations. The price is the optimal cost of a one
+ * ID, the price and the time slots occupied by the job operations, stored as
+ * one interval (machine, begin time, length) per operation. The price is the optimal cost of a one
  * job scheduling problem. Furthermore the bid holds the optimal machine
  * assignments and beginning times for the operations. So a bid is a
  * comprehensive representation of a solution for a one job scheduling problem.
@@ -21,7 +22,7 @@ import org.slf4j.LoggerFactory;
 
 public class Bid implements Serializable {
 
-	private static final long serialVersionUID = 8193409735520951959L;
+	private static final long serialVersionUID = -1733694470893010952L;
 
 	/**
 	 * Logger configuration in NgMPPS/src/logback.xml, e.g. to switch between
@@ -41,9 +42,19 @@ public class Bid implements Serializable {
 	private double price;
 
 	/**
-	 * The list of occupied time slots. An entry is a tuple (machine, time slot).
+	 * The occupied time slots: per operation the machine, the begin time and
+	 * the number of slots, at index 3 * operation. Empty if the bid was created
+	 * without process times.
 	 */
-	private final List<int[]> occupiedTimeSlots;
+	private final int[] intervals;
+
+	/**
+	 * The list of occupied time slots, created from the intervals on first
+	 * use. An entry is a tuple (machine, time slot). Volatile, so a list built
+	 * by one thread is seen complete by the others; two threads may build it
+	 * both, the lists are equal.
+	 */
+	private transient volatile List<int[]> occupiedTimeSlots;
 
 	/**
 	 * The optimum machine assignments. Indices are operations.
@@ -56,37 +67,71 @@ public class Bid implements Serializable {
 	private final int[] optimumBeginTimes;
 
 	public Bid(final int id, final double price, final int[] optimumMachines, final int[] optimumBeginTimes) {
-		this.jobID = id;
-		this.price = price;
-		this.occupiedTimeSlots = new ArrayList<int[]>();
-		this.optimumBeginTimes = optimumBeginTimes;
-		this.optimumMachines = optimumMachines;
+		this(id, price, optimumMachines, optimumBeginTimes, new int[0]);
 	}
-	
+
 	public Bid(final int id, final double price, final int[] optimumMachines, final int[] optimumBeginTimes, final int[][] processTimes, final int operations) {
-		this(id,price,optimumMachines,optimumBeginTimes);
+		this(id, price, optimumMachines, optimumBeginTimes, new int[3 * operations]);
 		// loop over operations
 		for (int j = 0; j < operations; j++) {
-
 			// the optimal machine for operation j
 			final int optMachine = optimumMachines[j];
-
-			// loop over occupied time slots
-			for (int t = optimumBeginTimes[j]; t <= optimumBeginTimes[j] + processTimes[j][optMachine]
-					- 1; t++) {
-				final int[] tuple = { optMachine, t };
-				getOccupiedTimeSlots().add(tuple);
-			}
+			intervals[3 * j] = optMachine;
+			intervals[3 * j + 1] = optimumBeginTimes[j];
+			intervals[3 * j + 2] = processTimes[j][optMachine];
 		}
+	}
 
+	Bid(final int id, final double price, final int[] optimumMachines, final int[] optimumBeginTimes, final int[] intervals) {
+		this.jobID = id;
+		this.price = price;
+		this.intervals = intervals;
+		this.optimumBeginTimes = optimumBeginTimes;
+		this.optimumMachines = optimumMachines;
 	}
 
 	public int getJobID() {
 		return jobID;
 	}
 
+	/**
+	 * Creates the list on first call; use {@link #getIntervals()} where
+	 * possible. The list cannot be changed, the slots come from the intervals
+	 * only: a bid created without process times occupies none.
+	 * 
+	 * @return the occupied time slots, tuples (machine, time slot)
+	 */
 	public List<int[]> getOccupiedTimeSlots() {
-		return occupiedTimeSlots;
+		List<int[]> result = occupiedTimeSlots;
+		if (result == null) {
+			final List<int[]> slots = new ArrayList<int[]>(getOccupiedTimeSlotCount());
+			for (int i = 0; i < intervals.length; i += 3)
+				for (int t = intervals[i + 1]; t < intervals[i + 1] + intervals[i + 2]; t++)
+					slots.add(new int[] { intervals[i], t });
+			result = Collections.unmodifiableList(slots);
+			occupiedTimeSlots = result;
+		}
+		return result;
+	}
+
+	/**
+	 * @return the internal array of occupied intervals, do not modify: per
+	 *         operation the machine, the begin time and the number of slots, at
+	 *         index 3 * operation; empty if the bid was created without process
+	 *         times
+	 */
+	public int[] getIntervals() {
+		return intervals;
+	}
+
+	/**
+	 * @return the number of occupied time slots, without creating them
+	 */
+	public int getOccupiedTimeSlotCount() {
+		int count = 0;
+		for (int i = 2; i < intervals.length; i += 3)
+			count += Math.max(0, intervals[i]);
+		return count;
 	}
 
 	/**
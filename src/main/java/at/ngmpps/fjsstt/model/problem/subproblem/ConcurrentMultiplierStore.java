@@ -0,0 +1,364 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lagrange multipliers shared by concurrently working threads, for
+ * asynchronous subgradient search without a barrier per iteration.
+ * 
+ * The multipliers are striped by machine: each machine has its own row of
+ * doubles (kept as bits in an {@link AtomicLongArray}) that is changed by CAS
+ * (projected to &gt;= 0) and a row version that counts its changes; a
+ * subgradient step increments it once, after the row is written. The store
+ * also keeps the current bid of every job and the resulting usage of each
+ * time slot, so a subgradient step (usage - 1) needs no collected bids.
+ * 
+ * A worker thread reads the multipliers through its own {@link View}: a
+ * {@link MultiplierTable} that is refreshed from the store (only rows that
+ * changed are copied). The store version counts subgradient steps; when a
+ * worker submits a bid, the steps applied since its view was refreshed are
+ * its staleness, which the view records.
+ */
+public class ConcurrentMultiplierStore {
+
+	/**
+	 * returned by {@link #addToRow(AtomicLongArray, int, double)} if the
+	 * multiplier did not change; multipliers are never negative
+	 */
+	static final double NOT_CHANGED = -1;
+
+	final int machines;
+
+	final int timeSlots;
+
+	/**
+	 * multipliers as double bits, indices are [machine][time slot]
+	 */
+	final AtomicLongArray[] rows;
+
+	final AtomicLong[] rowVersions;
+
+	/**
+	 * operations of the current bids per [machine][time slot]
+	 */
+	final AtomicIntegerArray[] usage;
+
+	final ConcurrentHashMap<Integer, Bid> bids = new ConcurrentHashMap<Integer, Bid>();
+
+	final Map<Integer, Bid> readBids = Collections.unmodifiableMap(bids);
+
+	/**
+	 * the number of applied subgradient steps
+	 */
+	final AtomicLong version = new AtomicLong();
+
+	final List<View> views = new CopyOnWriteArrayList<View>();
+
+	public ConcurrentMultiplierStore(final int machines, final int timeSlots) {
+		this.machines = machines;
+		this.timeSlots = timeSlots;
+		rows = new AtomicLongArray[machines];
+		rowVersions = new AtomicLong[machines];
+		usage = new AtomicIntegerArray[machines];
+		for (int m = 0; m < machines; m++) {
+			rows[m] = new AtomicLongArray(timeSlots);
+			rowVersions[m] = new AtomicLong();
+			usage[m] = new AtomicIntegerArray(timeSlots);
+		}
+	}
+
+	/**
+	 * @param multipliers
+	 *           copied; indices are [machine][time slot]
+	 */
+	public ConcurrentMultiplierStore(final double[][] multipliers) {
+		this(multipliers.length, multipliers.length > 0 ? multipliers[0].length : 0);
+		for (int m = 0; m < machines; m++)
+			for (int t = 0; t < timeSlots; t++)
+				rows[m].set(t, Double.doubleToRawLongBits(Math.max(0, multipliers[m][t])));
+	}
+
+	public int getMachines() {
+		return machines;
+	}
+
+	public int getTimeSlots() {
+		return timeSlots;
+	}
+
+	/**
+	 * @return the number of subgradient steps applied so far
+	 */
+	public long getVersion() {
+		return version.get();
+	}
+
+	public double get(final int machine, final int slot) {
+		return Double.longBitsToDouble(rows[machine].get(slot));
+	}
+
+	/**
+	 * @return the number of changes of the machine's row
+	 */
+	public long getRowVersion(final int machine) {
+		return rowVersions[machine].get();
+	}
+
+	/**
+	 * Atomically adds delta to the multiplier, the result is at least 0.
+	 * 
+	 * @return the new value
+	 */
+	public double add(final int machine, final int slot, final double delta) {
+		final double value = addToRow(rows[machine], slot, delta);
+		if (value != NOT_CHANGED)
+			rowVersions[machine].incrementAndGet();
+		return value != NOT_CHANGED ? value : get(machine, slot);
+	}
+
+	/**
+	 * Adds delta by CAS without changing the row version.
+	 * 
+	 * @return the new value or NOT_CHANGED
+	 */
+	static double addToRow(final AtomicLongArray row, final int slot, final double delta) {
+		long current;
+		double value;
+		do {
+			current = row.get(slot);
+			value = Math.max(0, Double.longBitsToDouble(current) + delta);
+			if (value == Double.longBitsToDouble(current))
+				return NOT_CHANGED;
+		} while (!row.compareAndSet(slot, current, Double.doubleToRawLongBits(value)));
+		return value;
+	}
+
+	/**
+	 * @return a copy of the multipliers, indices are [machine][time slot]
+	 */
+	public double[][] toArray() {
+		final double[][] result = new double[machines][timeSlots];
+		for (int m = 0; m < machines; m++)
+			for (int t = 0; t < timeSlots; t++)
+				result[m][t] = get(m, t);
+		return result;
+	}
+
+	/**
+	 * Replaces the current bid of the job (if any) and updates the usage of the
+	 * time slots; safe to call concurrently for different jobs.
+	 * 
+	 * @param bid
+	 *           must have intervals, see {@link Bid#getIntervals()}
+	 * @return the former bid of the job or null
+	 */
+	public Bid putBid(final Bid bid) {
+		final Bid old = bids.put(bid.getJobID(), bid);
+		changeUsage(bid, 1);
+		if (old != null)
+			changeUsage(old, -1);
+		return old;
+	}
+
+	void changeUsage(final Bid bid, final int delta) {
+		final int[] intervals = bid.getIntervals();
+		for (int i = 0; i < intervals.length; i += 3) {
+			final AtomicIntegerArray machineUsage = usage[intervals[i]];
+			final int end = (int) Math.min(timeSlots, (long) intervals[i + 1] + intervals[i + 2]);
+			for (int t = Math.max(0, intervals[i + 1]); t < end; t++)
+				machineUsage.addAndGet(t, delta);
+		}
+	}
+
+	/**
+	 * @return the current bids, keys are jobs; an unmodifiable view, change
+	 *         them with {@link #putBid(Bid)}
+	 */
+	public Map<Integer, Bid> getBids() {
+		return readBids;
+	}
+
+	/**
+	 * @return usage - 1 of the time slot for the current bids
+	 */
+	public int getSubgradient(final int machine, final int slot) {
+		return usage[machine].get(slot) - 1;
+	}
+
+	/**
+	 * Subgradient step with the usage of the current bids: multiplier = max(0,
+	 * multiplier + stepSize * (usage - 1)) for every slot, by CAS, row by row.
+	 * Other threads may read and write at the same time, they see each row
+	 * partly updated at worst. The version of a changed row is incremented once,
+	 * after the row is written, so views copy the row again afterwards.
+	 * 
+	 * @return the new version
+	 */
+	public long applySubgradientStep(final double stepSize) {
+		for (int m = 0; m < machines; m++) {
+			final AtomicLongArray row = rows[m];
+			final AtomicIntegerArray machineUsage = usage[m];
+			boolean changed = false;
+			for (int t = 0; t < timeSlots; t++) {
+				final int g = machineUsage.get(t) - 1;
+				// slots at 0 stay 0 for g < 0
+				if (g != 0 && (g > 0 || row.get(t) != 0L))
+					changed |= addToRow(row, t, stepSize * g) != NOT_CHANGED;
+			}
+			if (changed)
+				rowVersions[m].incrementAndGet();
+		}
+		return version.incrementAndGet();
+	}
+
+	/**
+	 * Subgradient step with given subgradients, see
+	 * {@link #applySubgradientStep(double)}.
+	 * 
+	 * @param subgradients
+	 *           indices are [machine][time slot]
+	 * @return the new version
+	 */
+	public long applySubgradientStep(final int[][] subgradients, final double stepSize) {
+		for (int m = 0; m < machines; m++) {
+			boolean changed = false;
+			for (int t = 0; t < timeSlots && t < subgradients[m].length; t++)
+				if (subgradients[m][t] != 0)
+					changed |= addToRow(rows[m], t, stepSize * subgradients[m][t]) != NOT_CHANGED;
+			if (changed)
+				rowVersions[m].incrementAndGet();
+		}
+		return version.incrementAndGet();
+	}
+
+	/**
+	 * @return a new view for one worker thread
+	 */
+	public View newView() {
+		final View view = new View();
+		views.add(view);
+		return view;
+	}
+
+	public List<View> getViews() {
+		return views;
+	}
+
+	/**
+	 * @return the maximum staleness of all views
+	 */
+	public long getMaxStaleness() {
+		long max = 0;
+		for (View view : views)
+			max = Math.max(max, view.maxStaleness);
+		return max;
+	}
+
+	/**
+	 * @return the mean staleness of all submits of all views
+	 */
+	public double getMeanStaleness() {
+		long total = 0;
+		long submits = 0;
+		for (View view : views) {
+			total += view.totalStaleness;
+			submits += view.submits;
+		}
+		return submits > 0 ? (double) total / submits : 0;
+	}
+
+	/**
+	 * The multipliers as seen by one worker thread; not thread safe.
+	 */
+	public class View {
+
+		final MultiplierTable table = new MultiplierTable(machines, timeSlots);
+
+		final long[] readRowVersions = new long[machines];
+
+		long readVersion;
+
+		long submits;
+
+		long totalStaleness;
+
+		long maxStaleness;
+
+		View() {
+			for (int m = 0; m < machines; m++)
+				readRowVersions[m] = -1;
+		}
+
+		/**
+		 * Copies the rows that changed since the last refresh.
+		 * 
+		 * @return the table with the current multipliers
+		 */
+		public MultiplierTable refresh() {
+			readVersion = version.get();
+			for (int m = 0; m < machines; m++) {
+				final long rowVersion = rowVersions[m].get();
+				if (rowVersion == readRowVersions[m])
+					continue;
+				final double[] values = table.multipliers[m];
+				for (int t = 0; t < timeSlots; t++)
+					values[t] = Double.longBitsToDouble(rows[m].get(t));
+				table.refresh(m, 0);
+				readRowVersions[m] = rowVersion;
+			}
+			return table;
+		}
+
+		public MultiplierTable getTable() {
+			return table;
+		}
+
+		/**
+		 * @return the version of the store at the last refresh
+		 */
+		public long getReadVersion() {
+			return readVersion;
+		}
+
+		/**
+		 * @return the number of subgradient steps applied since the last
+		 *         refresh
+		 */
+		public long getStaleness() {
+			return version.get() - readVersion;
+		}
+
+		/**
+		 * Puts the bid into the store and records the staleness of the view.
+		 * 
+		 * @return the staleness
+		 */
+		public long submit(final Bid bid) {
+			final long staleness = getStaleness();
+			putBid(bid);
+			submits++;
+			totalStaleness += staleness;
+			maxStaleness = Math.max(maxStaleness, staleness);
+			return staleness;
+		}
+
+		public long getSubmits() {
+			return submits;
+		}
+
+		public long getMaxStaleness() {
+			return maxStaleness;
+		}
+
+		public double getMeanStaleness() {
+			return submits > 0 ? (double) totalStaleness / submits : 0;
+		}
+	}
+}
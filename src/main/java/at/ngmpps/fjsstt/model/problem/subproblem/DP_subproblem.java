@@ -0,0 +1,183 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Exact dynamic programming solver for a {@link SubproblemInstance}, the
+ * solver of {@link SubproblemSolverType#DynamicProgramming}.
+ * 
+ * The states are (operation, alternative machine, begin time). f(op, a, t) is
+ * the minimum price of operations 0..op when op begins at t on its a-th
+ * alternative machine; it is the price of that interval plus the minimum of
+ * f(op-1, p, t') over the predecessor's machines p and all begin times t' that
+ * let the predecessor complete and travel to the machine before t. Keeping the
+ * prefix minimum over t' per machine makes this O(operations * alternative
+ * machines^2 * time slots). The last operation adds the job's objective
+ * (tardiness or completion time).
+ * 
+ * Begin times are restricted to the subproblem's time windows (see
+ * {@link SubproblemInstance#calcTimeWindows(int)}) and the horizon. Prices come
+ * from a {@link MultiplierTable} (O(1) per interval); the tables are kept
+ * between calls and only grow, so solving allocates nothing but the bid.
+ */
+public class DP_subproblem implements SubproblemSolver {
+
+	/**
+	 * f(op, a, t) at index (altOffset(op) + a) * timeSlots + t
+	 */
+	double[] f = new double[0];
+
+	/**
+	 * prefix minimum of f over begin times
+	 */
+	double[] g = new double[0];
+
+	/**
+	 * begin time of the prefix minimum
+	 */
+	int[] gArg = new int[0];
+
+	/**
+	 * the predecessor's alternative (global index) of the minimum of f
+	 */
+	int[] pred = new int[0];
+
+	int[] altOffsets = new int[1];
+
+	int[] altMachines = new int[0];
+
+	int[] altProcessTimes = new int[0];
+
+	/**
+	 * Builds the price table from the subproblem's multipliers.
+	 * 
+	 * @param subproblem
+	 * @return
+	 */
+	public Bid solve(final SubproblemInstance subproblem) {
+		return solve(subproblem, new MultiplierTable(subproblem.readMultipliers()));
+	}
+
+	@Override
+	public Bid solve(final SubproblemInstance subproblem, final MultiplierTable multipliers) {
+		final int ops = subproblem.getOperations();
+		final int slots = subproblem.getTimeSlots();
+		final int[][] processTimes = subproblem.getProcessTimes();
+		final int[][] travelTimes = subproblem.getTravelTimes();
+
+		// flatten the alternative machines
+		if (altOffsets.length < ops + 1)
+			altOffsets = new int[ops + 1];
+		int totalAlt = 0;
+		for (int op = 0; op < ops; op++)
+			totalAlt += subproblem.getAltMachines().get(op).size();
+		if (altMachines.length < totalAlt) {
+			altMachines = new int[totalAlt];
+			altProcessTimes = new int[totalAlt];
+		}
+		int a = 0;
+		for (int op = 0; op < ops; op++) {
+			altOffsets[op] = a;
+			final List<Integer> alt = subproblem.getAltMachines().get(op);
+			for (int i = 0; i < alt.size(); i++, a++) {
+				altMachines[a] = alt.get(i);
+				altProcessTimes[a] = processTimes[op][altMachines[a]];
+			}
+		}
+		altOffsets[ops] = a;
+
+		final int cells = totalAlt * slots;
+		if (f.length < cells) {
+			f = new double[cells];
+			g = new double[cells];
+			gArg = new int[cells];
+			pred = new int[cells];
+		}
+
+		for (int op = 0; op < ops; op++) {
+			final int lo = Math.max(subproblem.getHorizonStart(), subproblem.getEarliestStart(op));
+			final int hi = Math.min(slots - 1, subproblem.getLatestStart(op));
+			for (a = altOffsets[op]; a < altOffsets[op + 1]; a++) {
+				final int machine = altMachines[a];
+				final int processTime = altProcessTimes[a];
+				final int row = a * slots;
+				Arrays.fill(f, row, row + slots, Double.POSITIVE_INFINITY);
+				if (processTime != Integer.MAX_VALUE) {
+					for (int t = lo; t <= hi; t++) {
+						double best;
+						if (op == 0) {
+							best = 0;
+						} else {
+							best = Double.POSITIVE_INFINITY;
+							for (int p = altOffsets[op - 1]; p < altOffsets[op]; p++) {
+								if (altProcessTimes[p] == Integer.MAX_VALUE)
+									continue;
+								// latest begin of the predecessor on machine p
+								final long latest = (long) t - altProcessTimes[p] - travelTimes[altMachines[p]][machine];
+								if (latest < 0)
+									continue;
+								final double candidate = g[p * slots + (int) Math.min(latest, slots - 1)];
+								if (candidate < best) {
+									best = candidate;
+									pred[row + t] = p;
+								}
+							}
+							if (best == Double.POSITIVE_INFINITY)
+								continue;
+						}
+						f[row + t] = best + multipliers.price(machine, t, processTime);
+					}
+				}
+				// prefix minimum over begin times
+				double min = Double.POSITIVE_INFINITY;
+				int arg = -1;
+				for (int t = 0; t < slots; t++) {
+					if (f[row + t] < min) {
+						min = f[row + t];
+						arg = t;
+					}
+					g[row + t] = min;
+					gArg[row + t] = arg;
+				}
+			}
+		}
+
+		// last operation: add the objective
+		double bestCost = Double.POSITIVE_INFINITY;
+		int bestAlt = -1;
+		int bestBegin = -1;
+		for (a = altOffsets[ops - 1]; a < altOffsets[ops]; a++) {
+			final int row = a * slots;
+			for (int t = 0; t < slots; t++) {
+				if (f[row + t] == Double.POSITIVE_INFINITY)
+					continue;
+				final double cost = f[row + t] + subproblem.calcObjectiveValue(subproblem.getObjective(), t, altMachines[a]);
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestAlt = a;
+					bestBegin = t;
+				}
+			}
+		}
+		if (bestAlt < 0)
+			return null;
+
+		// backtrack
+		final int[] machines = new int[ops];
+		final int[] beginTimes = new int[ops];
+		a = bestAlt;
+		int t = bestBegin;
+		for (int op = ops - 1; op >= 0; op--) {
+			machines[op] = altMachines[a];
+			beginTimes[op] = t;
+			if (op > 0) {
+				final int p = pred[a * slots + t];
+				final long latest = (long) t - altProcessTimes[p] - travelTimes[altMachines[p]][altMachines[a]];
+				t = gArg[p * slots + (int) Math.min(latest, slots - 1)];
+				a = p;
+			}
+		}
+		return new Bid(subproblem.getJobID(), bestCost, machines, beginTimes, processTimes, ops);
+	}
+}
@@ -0,0 +1,80 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+import java.io.Serializable;
+
+/**
+ * Dense multipliers in a double[machines][timeSlots] array.
+ */
+public class DoubleMultiplierStorage implements MultiplierStorage, Serializable {
+
+	private static final long serialVersionUID = -4583913046727367094L;
+
+	final double[][] multipliers;
+
+	public DoubleMultiplierStorage(final int machines, final int timeSlots) {
+		this(new double[machines][timeSlots]);
+	}
+
+	/**
+	 * @param multipliers
+	 *           used, not copied; indices are [machine][time slot]
+	 */
+	public DoubleMultiplierStorage(final double[][] multipliers) {
+		this.multipliers = multipliers;
+	}
+
+	/**
+	 * @return the internal array, indices are [machine][time slot]
+	 */
+	public double[][] getMultipliers() {
+		return multipliers;
+	}
+
+	@Override
+	public int getMachines() {
+		return multipliers.length;
+	}
+
+	@Override
+	public int getTimeSlots() {
+		return multipliers.length > 0 ? multipliers[0].length : 0;
+	}
+
+	@Override
+	public double get(final int machine, final int slot) {
+		return multipliers[machine][slot];
+	}
+
+	@Override
+	public void set(final int machine, final int slot, final double value) {
+		multipliers[machine][slot] = value;
+	}
+
+	@Override
+	public double sum(final int machine, final int from, final int to) {
+		final double[] row = multipliers[machine];
+		final int last = Math.min(to, row.length - 1);
+		double sum = 0;
+		for (int k = Math.max(0, from); k <= last; k++)
+			sum += row[k];
+		return sum;
+	}
+
+	@Override
+	public double price(final int machine, final int beginTime, final int processTime) {
+		return sum(machine, beginTime, (int) Math.min((long) beginTime + processTime - 1, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public double[][] toArray() {
+		final double[][] result = new double[multipliers.length][];
+		for (int m = 0; m < multipliers.length; m++)
+			result[m] = multipliers[m].clone();
+		return result;
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 16L + multipliers.length * (16L + 8L * getTimeSlots() + 8L);
+	}
+}
@@ -0,0 +1,79 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+import java.io.Serializable;
+
+/**
+ * Dense multipliers in a float[machines][timeSlots] array: half the memory of
+ * {@link DoubleMultiplierStorage}, values are rounded to float precision. Sums
+ * are calculated in double.
+ */
+public class FloatMultiplierStorage implements MultiplierStorage, Serializable {
+
+	private static final long serialVersionUID = 2793405468812430531L;
+
+	final float[][] multipliers;
+
+	public FloatMultiplierStorage(final int machines, final int timeSlots) {
+		multipliers = new float[machines][timeSlots];
+	}
+
+	/**
+	 * @param multipliers
+	 *           copied, rounded to float; indices are [machine][time slot]
+	 */
+	public FloatMultiplierStorage(final double[][] multipliers) {
+		this(multipliers.length, multipliers.length > 0 ? multipliers[0].length : 0);
+		for (int m = 0; m < multipliers.length; m++)
+			for (int t = 0; t < multipliers[m].length; t++)
+				this.multipliers[m][t] = (float) multipliers[m][t];
+	}
+
+	@Override
+	public int getMachines() {
+		return multipliers.length;
+	}
+
+	@Override
+	public int getTimeSlots() {
+		return multipliers.length > 0 ? multipliers[0].length : 0;
+	}
+
+	@Override
+	public double get(final int machine, final int slot) {
+		return multipliers[machine][slot];
+	}
+
+	@Override
+	public void set(final int machine, final int slot, final double value) {
+		multipliers[machine][slot] = (float) value;
+	}
+
+	@Override
+	public double sum(final int machine, final int from, final int to) {
+		final float[] row = multipliers[machine];
+		final int last = Math.min(to, row.length - 1);
+		double sum = 0;
+		for (int k = Math.max(0, from); k <= last; k++)
+			sum += row[k];
+		return sum;
+	}
+
+	@Override
+	public double price(final int machine, final int beginTime, final int processTime) {
+		return sum(machine, beginTime, (int) Math.min((long) beginTime + processTime - 1, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public double[][] toArray() {
+		final double[][] result = new double[multipliers.length][getTimeSlots()];
+		for (int m = 0; m < multipliers.length; m++)
+			for (int t = 0; t < multipliers[m].length; t++)
+				result[m][t] = multipliers[m][t];
+		return result;
+	}
+
+	@Override
+	public long estimateBytes() {
+		return 16L + multipliers.length * (16L + 4L * getTimeSlots() + 8L);
+	}
+}
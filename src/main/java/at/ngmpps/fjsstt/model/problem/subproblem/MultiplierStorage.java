@@ -0,0 +1,45 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+/**
+ * Storage of Lagrange multipliers (prices of time slots on machines), indices
+ * are machine and time slot. Variants: {@link DoubleMultiplierStorage} (dense
+ * doubles, the array used so far), {@link FloatMultiplierStorage} (dense, half
+ * the memory, float precision) and {@link SparseMultiplierStorage} (only
+ * non-zero values, for mostly zero rows).
+ * 
+ * Subproblems can share one storage, see
+ * {@link SubproblemInstance#setMultiplierStorage(MultiplierStorage)}.
+ * Implementations are not thread safe for writes.
+ */
+public interface MultiplierStorage {
+
+	int getMachines();
+
+	int getTimeSlots();
+
+	double get(int machine, int slot);
+
+	void set(int machine, int slot, double value);
+
+	/**
+	 * @return the sum of the multipliers of the machine in the time slots from
+	 *         .. to (both inclusive); slots outside the horizon are ignored
+	 */
+	double sum(int machine, int from, int to);
+
+	/**
+	 * @return the price of an operation beginning at beginTime with the process
+	 *         time on the machine, see {@link MultiplierTable#price(int, int, int)}
+	 */
+	double price(int machine, int beginTime, int processTime);
+
+	/**
+	 * @return a copy as dense array, indices are [machine][time slot]
+	 */
+	double[][] toArray();
+
+	/**
+	 * @return the approximate memory use in bytes
+	 */
+	long estimateBytes();
+}
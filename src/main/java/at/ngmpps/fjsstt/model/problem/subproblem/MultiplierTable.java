@@ -0,0 +1,157 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+import java.io.Serializable;
+
+/**
+ * Lagrange multipliers (the prices of time slots on machines) together with
+ * their cumulative sums per machine, so the price of any interval of time
+ * slots is O(1), see {@link #sum(int, int, int)}. Used by
+ * {@link SubproblemInstance#calcCost(at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective, Bid, MultiplierTable)}
+ * and
+ * {@link SubproblemInstance#calcAugmentedCost(at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective, Bid, MultiplierTable)}.
+ *
+ * Change multipliers through this table (e.g. {@link #applySubgradientStep(int[][], double)}),
+ * which updates the sums from the first changed slot on; after changing the
+ * multiplier array directly, call {@link #refresh()}.
+ */
+public class MultiplierTable implements Serializable {
+
+	private static final long serialVersionUID = 6215893301774236640L;
+
+	/**
+	 * Indices are [machine][time slot].
+	 */
+	final double[][] multipliers;
+
+	/**
+	 * prefixSums[m][k] is the sum of multipliers[m][0..k-1]
+	 */
+	final double[][] prefixSums;
+
+	/**
+	 * @param multipliers
+	 *           used, not copied; indices are [machine][time slot]
+	 */
+	public MultiplierTable(final double[][] multipliers) {
+		this.multipliers = multipliers;
+		this.prefixSums = new double[multipliers.length][];
+		for (int m = 0; m < multipliers.length; m++)
+			prefixSums[m] = new double[multipliers[m].length + 1];
+		refresh();
+	}
+
+	public MultiplierTable(final int machines, final int timeSlots) {
+		this(new double[machines][timeSlots]);
+	}
+
+	/**
+	 * Recalculates all sums.
+	 */
+	public void refresh() {
+		for (int m = 0; m < multipliers.length; m++)
+			refresh(m, 0);
+	}
+
+	/**
+	 * Recalculates the sums of the machine from the time slot on.
+	 */
+	void refresh(final int machine, final int fromSlot) {
+		final double[] values = multipliers[machine];
+		final double[] sums = prefixSums[machine];
+		for (int k = fromSlot; k < values.length; k++)
+			sums[k + 1] = sums[k] + values[k];
+	}
+
+	/**
+	 * @return the multipliers, indices are [machine][time slot]
+	 */
+	public double[][] getMultipliers() {
+		return multipliers;
+	}
+
+	public int getMachines() {
+		return multipliers.length;
+	}
+
+	public int getTimeSlots() {
+		return multipliers.length > 0 ? multipliers[0].length : 0;
+	}
+
+	public double get(final int machine, final int slot) {
+		return multipliers[machine][slot];
+	}
+
+	/**
+	 * @return the sum of the multipliers of the machine in the time slots from
+	 *         .. to (both inclusive); slots outside the horizon are ignored
+	 */
+	public double sum(final int machine, final int from, final int to) {
+		final double[] sums = prefixSums[machine];
+		final int first = Math.max(0, from);
+		final int last = Math.min(to, sums.length - 2);
+		if (last < first)
+			return 0;
+		return sums[last + 1] - sums[first];
+	}
+
+	/**
+	 * @return the price of an operation beginning at beginTime with the process
+	 *         time on the machine; up to the end of the horizon for process
+	 *         times of Integer.MAX_VALUE
+	 */
+	public double price(final int machine, final int beginTime, final int processTime) {
+		return sum(machine, beginTime, (int) Math.min((long) beginTime + processTime - 1, Integer.MAX_VALUE));
+	}
+
+	public void set(final int machine, final int slot, final double value) {
+		multipliers[machine][slot] = value;
+		refresh(machine, slot);
+	}
+
+	/**
+	 * Sets several slots of a machine, the sums are updated once from the first
+	 * of them.
+	 *
+	 * @param machine
+	 * @param fromSlot
+	 *           the first slot to set
+	 * @param values
+	 */
+	public void set(final int machine, final int fromSlot, final double[] values) {
+		System.arraycopy(values, 0, multipliers[machine], fromSlot, values.length);
+		refresh(machine, fromSlot);
+	}
+
+	/**
+	 * Subgradient step: multipliers[m][k] = max(0, multipliers[m][k] + stepSize
+	 * * subgradients[m][k]). Per machine only the sums from the first changed
+	 * slot on are updated.
+	 *
+	 * @param subgradients
+	 *           indices are [machine][time slot]
+	 * @param stepSize
+	 * @return the number of changed multipliers
+	 */
+	public int applySubgradientStep(final int[][] subgradients, final double stepSize) {
+		int changed = 0;
+		for (int m = 0; m < multipliers.length; m++) {
+			final double[] values = multipliers[m];
+			final int[] g = subgradients[m];
+			int first = -1;
+			for (int k = 0; k < values.length && k < g.length; k++) {
+				if (g[k] == 0)
+					continue;
+				final double value = Math.max(0, values[k] + stepSize * g[k]);
+				if (value != values[k]) {
+					values[k] = value;
+					if (first < 0)
+						first = k;
+					changed++;
+				}
+			}
+			if (first >= 0)
+				refresh(m, first);
+		}
+		return changed;
+	}
+}
@@ -0,0 +1,355 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Subgradient step on the Lagrange multipliers in place:
+ * multiplier = max(0, multiplier + stepSize * (usage - 1)).
+ * 
+ * Most slots are idle (usage 0) and have multiplier 0, so they stay 0; slots
+ * with usage 1 do not change. The kernel keeps per machine the list of active
+ * slots (multiplier &gt; 0) and touches only these and the slots occupied by
+ * the bids, so a step costs O(active + occupied slots) instead of O(machines x
+ * time slots), and nothing is allocated once the lists and scratch arrays have
+ * grown. Machines are updated in parallel on a fork join pool.
+ * 
+ * If the kernel works on a {@link MultiplierTable}, the sums of changed
+ * machines are updated from the first changed slot on. The multipliers must
+ * not be changed elsewhere while the kernel is used (else call
+ * {@link #rebuildActiveSlots()}).
+ */
+public class MultiplierUpdateKernel {
+
+	/**
+	 * up to this number of machines are updated by one fork join task
+	 */
+	public static int MACHINES_PER_TASK = 8;
+
+	final double[][] multipliers;
+
+	/**
+	 * null if the kernel works on a bare array
+	 */
+	final MultiplierTable table;
+
+	final int machines;
+
+	final int timeSlots;
+
+	/**
+	 * per machine the slots with multiplier &gt; 0, the first activeCounts[m]
+	 * entries are valid
+	 */
+	final int[][] activeSlots;
+
+	final int[] activeCounts;
+
+	/**
+	 * changed multipliers per machine in the last step
+	 */
+	final int[] changed;
+
+	/**
+	 * first changed slot per machine in the last incremental step, time slots
+	 * if none
+	 */
+	final int[] firstChanged;
+
+	// the intervals of the current step grouped by machine: begin and end
+	// (exclusive) of interval i of machine m at intervalOffsets[m] + i
+	int[] intervalOffsets;
+	int[] intervalBegins = new int[0];
+	int[] intervalEnds = new int[0];
+
+	final ThreadLocal<int[]> usage = new ThreadLocal<int[]>();
+
+	ForkJoinPool pool = ForkJoinPool.commonPool();
+
+	/**
+	 * @param multipliers
+	 *           updated in place; indices are [machine][time slot]
+	 */
+	public MultiplierUpdateKernel(final double[][] multipliers) {
+		this(multipliers, null);
+	}
+
+	/**
+	 * @param table
+	 *           its multipliers are updated in place
+	 */
+	public MultiplierUpdateKernel(final MultiplierTable table) {
+		this(table.getMultipliers(), table);
+	}
+
+	MultiplierUpdateKernel(final double[][] multipliers, final MultiplierTable table) {
+		this.multipliers = multipliers;
+		this.table = table;
+		this.machines = multipliers.length;
+		this.timeSlots = machines > 0 ? multipliers[0].length : 0;
+		activeSlots = new int[machines][];
+		activeCounts = new int[machines];
+		changed = new int[machines];
+		firstChanged = new int[machines];
+		intervalOffsets = new int[machines + 1];
+		rebuildActiveSlots();
+	}
+
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Finds the active slots by scanning all multipliers.
+	 */
+	public void rebuildActiveSlots() {
+		for (int m = 0; m < machines; m++) {
+			int count = 0;
+			for (int t = 0; t < timeSlots; t++)
+				if (multipliers[m][t] > 0)
+					count++;
+			activeSlots[m] = new int[Math.max(16, count)];
+			count = 0;
+			for (int t = 0; t < timeSlots; t++)
+				if (multipliers[m][t] > 0)
+					activeSlots[m][count++] = t;
+			activeCounts[m] = count;
+		}
+	}
+
+	/**
+	 * @return the number of slots with multiplier &gt; 0
+	 */
+	public int getActiveSlotCount() {
+		int count = 0;
+		for (int m = 0; m < machines; m++)
+			count += activeCounts[m];
+		return count;
+	}
+
+	public int getActiveSlotCount(final int machine) {
+		return activeCounts[machine];
+	}
+
+	/**
+	 * Subgradient step for the usage of the bids.
+	 * 
+	 * @param bids
+	 *           with intervals, see {@link Bid#getIntervals()}
+	 * @param stepSize
+	 * @return the number of changed multipliers
+	 * @throws IllegalArgumentException
+	 *            for a bid without intervals
+	 */
+	public int applySubgradientStep(final Collection<Bid> bids, final double stepSize) {
+		groupIntervals(bids);
+		if (machines <= MACHINES_PER_TASK)
+			new StepTask(stepSize, 0, machines).compute();
+		else
+			pool.invoke(new StepTask(stepSize, 0, machines));
+		int total = 0;
+		for (int c : changed)
+			total += c;
+		return total;
+	}
+
+	/**
+	 * Subgradient step for a usage that the caller maintains incrementally
+	 * (e.g. when only some bids change per iteration); serial. Touches the
+	 * active slots and the given slots, which must include every slot whose
+	 * usage became 2 or more since the last step (slots listed more than once
+	 * or with usage &lt; 2 are skipped).
+	 * 
+	 * @param usage
+	 *           operations per [machine][time slot]
+	 * @param machines
+	 *           the machines of the slots that became overloaded
+	 * @param slots
+	 *           the slots that became overloaded
+	 * @param count
+	 *           the number of valid entries of machines and slots
+	 * @param stepSize
+	 * @return the number of changed multipliers
+	 */
+	public int applySubgradientStep(final int[][] usage, final int[] machines, final int[] slots, final int count,
+			final double stepSize) {
+		Arrays.fill(firstChanged, timeSlots);
+		Arrays.fill(changed, 0);
+		int changedCount = 0;
+		for (int m = 0; m < this.machines; m++) {
+			final double[] values = multipliers[m];
+			final int[] use = usage[m];
+			final int[] active = activeSlots[m];
+			int kept = 0;
+			for (int a = 0; a < activeCounts[m]; a++) {
+				final int t = active[a];
+				final double value = Math.max(0, values[t] + stepSize * (use[t] - 1));
+				if (value != values[t]) {
+					values[t] = value;
+					changed[m]++;
+					changedCount++;
+					firstChanged[m] = Math.min(firstChanged[m], t);
+				}
+				if (value > 0)
+					active[kept++] = t;
+			}
+			activeCounts[m] = kept;
+		}
+		for (int i = 0; i < count; i++) {
+			final int m = machines[i];
+			final int t = slots[i];
+			if (multipliers[m][t] > 0 || usage[m][t] < 2)
+				continue;
+			final double value = stepSize * (usage[m][t] - 1);
+			if (value <= 0)
+				continue;
+			multipliers[m][t] = value;
+			if (activeCounts[m] == activeSlots[m].length)
+				activeSlots[m] = Arrays.copyOf(activeSlots[m], 2 * activeSlots[m].length);
+			activeSlots[m][activeCounts[m]++] = t;
+			changed[m]++;
+			changedCount++;
+			firstChanged[m] = Math.min(firstChanged[m], t);
+		}
+		if (table != null)
+			for (int m = 0; m < this.machines; m++)
+				if (firstChanged[m] < timeSlots)
+					table.refresh(m, firstChanged[m]);
+		return changedCount;
+	}
+
+	/**
+	 * Sorts the intervals of the bids by machine (counting sort); the arrays
+	 * only grow.
+	 */
+	void groupIntervals(final Collection<Bid> bids) {
+		final int[] offsets = intervalOffsets;
+		Arrays.fill(offsets, 0);
+		int total = 0;
+		for (Bid bid : bids) {
+			final int[] intervals = bid.getIntervals();
+			if (intervals.length == 0 && bid.getOptimumMachines().length > 0)
+				throw new IllegalArgumentException("Bid of job " + bid.getJobID() + " has no intervals");
+			for (int i = 0; i < intervals.length; i += 3)
+				offsets[intervals[i] + 1]++;
+			total += intervals.length / 3;
+		}
+		for (int m = 0; m < machines; m++)
+			offsets[m + 1] += offsets[m];
+		if (intervalBegins.length < total) {
+			intervalBegins = new int[total];
+			intervalEnds = new int[total];
+		}
+		// offsets[m] is the next free position of machine m, afterwards the
+		// start of machine m + 1
+		for (Bid bid : bids) {
+			final int[] intervals = bid.getIntervals();
+			for (int i = 0; i < intervals.length; i += 3) {
+				final int pos = offsets[intervals[i]]++;
+				intervalBegins[pos] = Math.max(0, intervals[i + 1]);
+				intervalEnds[pos] = (int) Math.min(timeSlots, (long) intervals[i + 1] + intervals[i + 2]);
+			}
+		}
+		for (int m = machines; m > 0; m--)
+			offsets[m] = offsets[m - 1];
+		offsets[0] = 0;
+	}
+
+	/**
+	 * @return the number of changed multipliers of the machine
+	 */
+	int step(final int m, final double stepSize) {
+		int[] use = usage.get();
+		if (use == null || use.length < timeSlots) {
+			use = new int[timeSlots];
+			usage.set(use);
+		}
+		final double[] values = multipliers[m];
+		final int from = intervalOffsets[m];
+		final int to = intervalOffsets[m + 1];
+		for (int i = from; i < to; i++)
+			for (int t = intervalBegins[i]; t < intervalEnds[i]; t++)
+				use[t]++;
+
+		int changed = 0;
+		int firstChanged = timeSlots;
+		// active slots, usage is cleared so they are not taken again below
+		int[] active = activeSlots[m];
+		int count = 0;
+		for (int a = 0; a < activeCounts[m]; a++) {
+			final int t = active[a];
+			final int g = use[t] - 1;
+			use[t] = 0;
+			if (g == 0) {
+				active[count++] = t;
+				continue;
+			}
+			final double value = Math.max(0, values[t] + stepSize * g);
+			if (value != values[t]) {
+				values[t] = value;
+				changed++;
+				firstChanged = Math.min(firstChanged, t);
+			}
+			if (value > 0)
+				active[count++] = t;
+		}
+		// overloaded slots that were not active
+		for (int i = from; i < to; i++) {
+			for (int t = intervalBegins[i]; t < intervalEnds[i]; t++) {
+				final int g = use[t] - 1;
+				if (g > 0) {
+					final double value = stepSize * g;
+					if (value > 0) {
+						values[t] = value;
+						if (count == active.length) {
+							active = Arrays.copyOf(active, 2 * active.length);
+							activeSlots[m] = active;
+						}
+						active[count++] = t;
+						changed++;
+						firstChanged = Math.min(firstChanged, t);
+					}
+				}
+				use[t] = 0;
+			}
+		}
+		activeCounts[m] = count;
+		if (table != null && firstChanged < timeSlots)
+			table.refresh(m, firstChanged);
+		return changed;
+	}
+
+	class StepTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -8316474938563287417L;
+
+		final double stepSize;
+
+		final int from;
+
+		final int to;
+
+		StepTask(final double stepSize, final int from, final int to) {
+			this.stepSize = stepSize;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > MACHINES_PER_TASK) {
+				final int mid = (from + to) >>> 1;
+				invokeAll(new StepTask(stepSize, from, mid), new StepTask(stepSize, mid, to));
+				return;
+			}
+			for (int m = from; m < to; m++)
+				changed[m] = step(m, stepSize);
+		}
+	}
+}
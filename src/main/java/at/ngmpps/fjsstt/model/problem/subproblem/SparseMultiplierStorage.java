@@ -0,0 +1,146 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Multipliers of mostly zero rows: per machine the sorted slots with a
+ * non-zero value and the values. get and the start of a sum are a binary
+ * search, a sum then iterates the non-zero slots only; setting a new non-zero
+ * value shifts the rest of the row. Setting 0 removes the slot.
+ */
+public class SparseMultiplierStorage implements MultiplierStorage, Serializable {
+
+	private static final long serialVersionUID = -2196640227981807633L;
+
+	final int timeSlots;
+
+	/**
+	 * per machine the slots with non-zero values, ascending; the first
+	 * counts[m] entries are valid
+	 */
+	final int[][] slots;
+
+	final double[][] values;
+
+	final int[] counts;
+
+	public SparseMultiplierStorage(final int machines, final int timeSlots) {
+		this.timeSlots = timeSlots;
+		slots = new int[machines][0];
+		values = new double[machines][0];
+		counts = new int[machines];
+	}
+
+	/**
+	 * @param multipliers
+	 *           copied; indices are [machine][time slot]
+	 */
+	public SparseMultiplierStorage(final double[][] multipliers) {
+		this(multipliers.length, multipliers.length > 0 ? multipliers[0].length : 0);
+		for (int m = 0; m < multipliers.length; m++) {
+			int count = 0;
+			for (double value : multipliers[m])
+				if (value != 0)
+					count++;
+			slots[m] = new int[count];
+			values[m] = new double[count];
+			for (int t = 0; t < multipliers[m].length; t++)
+				if (multipliers[m][t] != 0) {
+					slots[m][counts[m]] = t;
+					values[m][counts[m]++] = multipliers[m][t];
+				}
+		}
+	}
+
+	@Override
+	public int getMachines() {
+		return slots.length;
+	}
+
+	@Override
+	public int getTimeSlots() {
+		return timeSlots;
+	}
+
+	/**
+	 * @return the number of non-zero values
+	 */
+	public int getNonZeros() {
+		int count = 0;
+		for (int c : counts)
+			count += c;
+		return count;
+	}
+
+	@Override
+	public double get(final int machine, final int slot) {
+		final int i = Arrays.binarySearch(slots[machine], 0, counts[machine], slot);
+		return i >= 0 ? values[machine][i] : 0;
+	}
+
+	@Override
+	public void set(final int machine, final int slot, final double value) {
+		final int count = counts[machine];
+		final int i = Arrays.binarySearch(slots[machine], 0, count, slot);
+		if (i >= 0) {
+			if (value != 0) {
+				values[machine][i] = value;
+			} else {
+				System.arraycopy(slots[machine], i + 1, slots[machine], i, count - i - 1);
+				System.arraycopy(values[machine], i + 1, values[machine], i, count - i - 1);
+				counts[machine]--;
+			}
+			return;
+		}
+		if (value == 0)
+			return;
+		final int insert = -i - 1;
+		if (count == slots[machine].length) {
+			final int capacity = Math.max(4, 2 * count);
+			slots[machine] = Arrays.copyOf(slots[machine], capacity);
+			values[machine] = Arrays.copyOf(values[machine], capacity);
+		}
+		System.arraycopy(slots[machine], insert, slots[machine], insert + 1, count - insert);
+		System.arraycopy(values[machine], insert, values[machine], insert + 1, count - insert);
+		slots[machine][insert] = slot;
+		values[machine][insert] = value;
+		counts[machine]++;
+	}
+
+	@Override
+	public double sum(final int machine, final int from, final int to) {
+		final int[] rowSlots = slots[machine];
+		final double[] rowValues = values[machine];
+		final int count = counts[machine];
+		int i = Arrays.binarySearch(rowSlots, 0, count, Math.max(0, from));
+		if (i < 0)
+			i = -i - 1;
+		double sum = 0;
+		for (; i < count && rowSlots[i] <= to; i++)
+			sum += rowValues[i];
+		return sum;
+	}
+
+	@Override
+	public double price(final int machine, final int beginTime, final int processTime) {
+		return sum(machine, beginTime, (int) Math.min((long) beginTime + processTime - 1, Integer.MAX_VALUE));
+	}
+
+	@Override
+	public double[][] toArray() {
+		final double[][] result = new double[slots.length][timeSlots];
+		for (int m = 0; m < slots.length; m++)
+			for (int i = 0; i < counts[m]; i++)
+				result[m][slots[m][i]] = values[m][i];
+		return result;
+	}
+
+	@Override
+	public long estimateBytes() {
+		long bytes = 16L + 3 * 16L + 4L * slots.length;
+		for (int m = 0; m < slots.length; m++)
+			bytes += 2 * 16L + 12L * slots[m].length + 16L;
+		return bytes;
+	}
+}
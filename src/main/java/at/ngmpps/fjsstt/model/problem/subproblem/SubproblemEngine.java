@@ -0,0 +1,362 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+
+/**
+ * Solves all subproblems of a problem (see
+ * {@link FJSSTTproblem#createSubproblems()}) concurrently and returns the bids
+ * keyed by job, as needed by the constructors of the Solution.
+ * 
+ * Subproblems are ordered by size (operations x eligible machines, the work of
+ * the solvers grows with both) and handed out largest first, so no big job is
+ * started last and delays the end of the round. Up to parallelism workers run
+ * on a work-stealing {@link ForkJoinPool}, each with its own
+ * {@link SubproblemSolver} created by the {@link SubproblemSolverConfig}. On
+ * JVMs with virtual threads (Java 21+) the workers can run on virtual threads
+ * instead; this is looked up by reflection, older JVMs fall back to the pool.
+ * 
+ * {@link #solveAsync(SubproblemInstance[], ConcurrentMultiplierStore, int, double)}
+ * runs a subgradient search on the same workers without a barrier per
+ * iteration.
+ * 
+ * The pool is kept between calls of solve; close the engine when done.
+ */
+public class SubproblemEngine implements AutoCloseable {
+
+	static final Logger logger = LoggerFactory.getLogger(SubproblemEngine.class);
+
+	final SubproblemSolverConfig config;
+
+	final int parallelism;
+
+	final boolean virtualThreads;
+
+	long seed = 300;
+
+	ExecutorService executor;
+
+	public SubproblemEngine(final SubproblemSolverConfig config) {
+		this(config, Runtime.getRuntime().availableProcessors(), false);
+	}
+
+	/**
+	 * Configured by {@link SubproblemSolverConfig#PARALLELISM_KEY} (default:
+	 * available processors) and {@link SubproblemSolverConfig#VIRTUAL_THREADS_KEY}
+	 * (default false).
+	 * 
+	 * @param config
+	 * @param properties
+	 */
+	public SubproblemEngine(final SubproblemSolverConfig config, final Properties properties) {
+		this(config,
+				properties != null && properties.containsKey(SubproblemSolverConfig.PARALLELISM_KEY)
+						? ProblemParser.getPropertyInt(properties, SubproblemSolverConfig.PARALLELISM_KEY, -1)
+						: Runtime.getRuntime().availableProcessors(),
+				properties != null && properties.containsKey(SubproblemSolverConfig.VIRTUAL_THREADS_KEY)
+						&& ProblemParser.getPropertyBool(properties, SubproblemSolverConfig.VIRTUAL_THREADS_KEY, false));
+	}
+
+	/**
+	 * @param config
+	 *           creates the solvers
+	 * @param parallelism
+	 *           the max number of subproblems solved at the same time; &lt;= 0
+	 *           for the available processors
+	 * @param virtualThreads
+	 *           solve on virtual threads, if the JVM has them
+	 */
+	public SubproblemEngine(final SubproblemSolverConfig config, final int parallelism, final boolean virtualThreads) {
+		this.config = config;
+		this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		this.virtualThreads = virtualThreads;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @param seed
+	 *           passed to {@link SubproblemSolverConfig#createSolver(long)}
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * @return true if the JVM has virtual threads
+	 */
+	public static boolean isVirtualThreadsAvailable() {
+		return virtualThreadMethod() != null;
+	}
+
+	static Method virtualThreadMethod() {
+		try {
+			return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return true if this engine solves on virtual threads
+	 */
+	public synchronized boolean usesVirtualThreads() {
+		return executor() != null && !(executor instanceof ForkJoinPool);
+	}
+
+	synchronized ExecutorService executor() {
+		if (executor == null) {
+			if (virtualThreads) {
+				final Method method = virtualThreadMethod();
+				if (method != null) {
+					try {
+						executor = (ExecutorService) method.invoke(null);
+					} catch (ReflectiveOperationException e) {
+						logger.warn("Cannot create virtual threads: {}", e.toString());
+					}
+				} else {
+					logger.info("No virtual threads in Java {}, using a fork join pool", System.getProperty("java.version"));
+				}
+			}
+			if (executor == null)
+				executor = new ForkJoinPool(parallelism);
+		}
+		return executor;
+	}
+
+	/**
+	 * @return the size of the subproblem used for scheduling: operations x
+	 *         eligible (operation, machine) pairs
+	 */
+	public static long size(final SubproblemInstance subproblem) {
+		long eligible = 0;
+		for (int op = 0; op < subproblem.getOperations(); ++op) {
+			final List<Integer> alt = subproblem.getAltMachines().get(op);
+			eligible += alt != null ? alt.size() : 0;
+		}
+		return subproblem.getOperations() * eligible;
+	}
+
+	/**
+	 * @return the subproblems (without null entries) ordered by size, largest
+	 *         first
+	 */
+	public static SubproblemInstance[] largestFirst(final SubproblemInstance[] subproblems) {
+		final List<SubproblemInstance> list = new ArrayList<SubproblemInstance>(subproblems.length);
+		for (SubproblemInstance subproblem : subproblems)
+			if (subproblem != null)
+				list.add(subproblem);
+		final SubproblemInstance[] sorted = list.toArray(new SubproblemInstance[list.size()]);
+		final long[] sizes = new long[sorted.length];
+		final Integer[] order = new Integer[sorted.length];
+		for (int i = 0; i < sorted.length; ++i) {
+			sizes[i] = size(sorted[i]);
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Long.compare(sizes[b], sizes[a]);
+			}
+		});
+		final SubproblemInstance[] result = new SubproblemInstance[sorted.length];
+		for (int i = 0; i < sorted.length; ++i)
+			result[i] = sorted[order[i]];
+		return result;
+	}
+
+	/**
+	 * Builds the multiplier tables of the subproblems (see
+	 * {@link SubproblemInstance#getMultipliers()}), one per multiplier storage
+	 * or multiplier array, so subproblems that share their multipliers share
+	 * the table.
+	 * 
+	 * @return the tables, same indices as subproblems
+	 */
+	public static MultiplierTable[] multiplierTables(final SubproblemInstance[] subproblems) {
+		final Map<Object, MultiplierTable> tables = new IdentityHashMap<Object, MultiplierTable>();
+		final MultiplierTable[] result = new MultiplierTable[subproblems.length];
+		for (int i = 0; i < subproblems.length; ++i) {
+			final SubproblemInstance subproblem = subproblems[i];
+			if (subproblem == null)
+				continue;
+			final Object key = subproblem.multiplierStorage != null ? subproblem.multiplierStorage : subproblem.getMultipliers();
+			MultiplierTable table = tables.get(key);
+			if (table == null) {
+				// a copy for storages other than DoubleMultiplierStorage
+				table = new MultiplierTable(key instanceof double[][] ? (double[][]) key : subproblem.readMultipliers());
+				tables.put(key, table);
+			}
+			result[i] = table;
+		}
+		return result;
+	}
+
+	/**
+	 * Creates and solves all subproblems of the problem; they share one array
+	 * of Lagrange multipliers (all zero) and one table of it.
+	 */
+	public Map<Integer, Bid> solve(final FJSSTTproblem problem) {
+		final double[][] multipliers = new double[problem.getMachines()][problem.getTimeSlots()];
+		return solve(problem.createSubproblems(new DoubleMultiplierStorage(multipliers)), new MultiplierTable(multipliers));
+	}
+
+	/**
+	 * @param subproblems
+	 *           null entries are skipped
+	 * @param multipliers
+	 *           the prices of all subproblems; null to use the multipliers of
+	 *           each subproblem, see {@link #multiplierTables(SubproblemInstance[])}
+	 * @return the bids, keys are job ids; jobs that cannot be scheduled in the
+	 *         horizon have no bid
+	 */
+	public Map<Integer, Bid> solve(final SubproblemInstance[] subproblems, final MultiplierTable multipliers) {
+		final SubproblemInstance[] sorted = largestFirst(subproblems);
+		final MultiplierTable[] tables = multipliers == null ? multiplierTables(sorted) : null;
+		final Bid[] bids = new Bid[sorted.length];
+		final AtomicInteger next = new AtomicInteger();
+		final int workers = Math.min(parallelism, sorted.length);
+		final List<Future<?>> futures = new ArrayList<Future<?>>(workers);
+		final ExecutorService executor = executor();
+		for (int w = 0; w < workers; ++w) {
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					final SubproblemSolver solver = config.createSolver(seed);
+					for (int i = next.getAndIncrement(); i < sorted.length; i = next.getAndIncrement()) {
+						bids[i] = solver.solve(sorted[i], multipliers != null ? multipliers : tables[i]);
+					}
+					return null;
+				}
+			}));
+		}
+		waitFor(futures, new Runnable() {
+			@Override
+			public void run() {
+				next.set(sorted.length);
+			}
+		});
+
+		final Map<Integer, Bid> result = new HashMap<Integer, Bid>();
+		for (int i = 0; i < sorted.length; ++i) {
+			if (bids[i] != null)
+				result.put(sorted[i].getJobID(), bids[i]);
+			else
+				logger.debug("No bid for job {}", sorted[i].getJobID());
+		}
+		return result;
+	}
+
+	/**
+	 * Asynchronous subgradient search: the workers solve the subproblems in
+	 * rounds (largest first in each round) against their own view of the
+	 * store and submit the bids without waiting for each other. Whenever
+	 * another subproblems.length bids have been submitted, the submitting
+	 * worker applies a subgradient step with step size stepSize / k (k-th step)
+	 * while the others continue with their stale views; see
+	 * {@link ConcurrentMultiplierStore#getMeanStaleness()}.
+	 * 
+	 * @param subproblems
+	 *           null entries are skipped
+	 * @param store
+	 *           the multipliers, updated
+	 * @param rounds
+	 *           how often every subproblem is solved
+	 * @param stepSize
+	 *           the size of the first step
+	 * @return the last bids, keys are job ids
+	 */
+	public Map<Integer, Bid> solveAsync(final SubproblemInstance[] subproblems, final ConcurrentMultiplierStore store, final int rounds,
+			final double stepSize) {
+		final SubproblemInstance[] sorted = largestFirst(subproblems);
+		final long tasks = (long) sorted.length * rounds;
+		final AtomicLong next = new AtomicLong();
+		final AtomicLong submitted = new AtomicLong();
+		final int workers = (int) Math.min(parallelism, tasks);
+		final List<Future<?>> futures = new ArrayList<Future<?>>(workers);
+		final ExecutorService executor = executor();
+		for (int w = 0; w < workers; ++w) {
+			futures.add(executor.submit(new Callable<Void>() {
+				@Override
+				public Void call() {
+					final SubproblemSolver solver = config.createSolver(seed);
+					final ConcurrentMultiplierStore.View view = store.newView();
+					for (long i = next.getAndIncrement(); i < tasks; i = next.getAndIncrement()) {
+						final Bid bid = solver.solve(sorted[(int) (i % sorted.length)], view.refresh());
+						if (bid != null)
+							view.submit(bid);
+						final long count = submitted.incrementAndGet();
+						if (count % sorted.length == 0)
+							store.applySubgradientStep(stepSize / (count / sorted.length));
+					}
+					return null;
+				}
+			}));
+		}
+		waitFor(futures, new Runnable() {
+			@Override
+			public void run() {
+				next.set(tasks);
+			}
+		});
+		return new HashMap<Integer, Bid>(store.getBids());
+	}
+
+	/**
+	 * Waits for all futures; on failure or interrupt calls stop and throws the
+	 * cause as unchecked exception.
+	 */
+	static void waitFor(final List<Future<?>> futures, final Runnable stop) {
+		try {
+			for (Future<?> future : futures)
+				future.get();
+		} catch (InterruptedException e) {
+			// let the workers stop early
+			stop.run();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while solving subproblems", e);
+		} catch (ExecutionException e) {
+			stop.run();
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+}
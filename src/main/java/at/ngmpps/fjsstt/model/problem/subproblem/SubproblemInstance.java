@@ -74,10 +74,17 @@ public class SubproblemInstance implements Serializable {
 	/**
 	 * The Lagrange multipliers, i.e. the marginal cost for time units on
 	 * machines. The first index is the machine, the second index is the time
-	 * unit.
+	 * unit. Allocated on first use if there is no multiplier storage, see
+	 * {@link #getMultipliers()}.
 	 */
 	double[][] multipliers;
 
+	/**
+	 * The multipliers, if given as (shared) storage; else they are wrapped on
+	 * first use, see {@link #getMultiplierStorage()}.
+	 */
+	MultiplierStorage multiplierStorage;
+
 	/**
 	 * The job's due date.
 	 */
@@ -89,6 +96,20 @@ public class SubproblemInstance implements Serializable {
    int horizonStart = 0;
 
 
+	/**
+	 * The earliest begin time per operation: the horizon start plus the minimum
+	 * process and travel times of the operations before. Null if no time
+	 * windows are calculated.
+	 */
+	int[] earliestStarts;
+
+	/**
+	 * The latest useful begin time per operation: the latest completion time of
+	 * the job minus the minimum process and travel times of this and the
+	 * following operations. Null if no time windows are calculated.
+	 */
+	int[] latestStarts;
+
 	int timezoneLength = 0;
 
 	double timezoneFactor = 0;
@@ -128,7 +149,17 @@ public class SubproblemInstance implements Serializable {
 		this.horizonStart = horizonStart;
 		this.jobWeight = jobWeight;
 		this.objective = objective;
-		this.multipliers = new double[machines][timeSlots];
+	}
+
+	/**
+	 * @param multiplierStorage
+	 *           the (shared) multipliers, no array is allocated
+	 */
+	public SubproblemInstance(final int id, final int operations, final int machines, final int timeslots,
+			final Map<Integer, List<Integer>> altMachines, final int[][] processTimes, final int[][] travelTimes, final int dueDate, final int horizonStart,
+			final int jobWeight, final Objective objective, final MultiplierStorage multiplierStorage) {
+		this(id, operations, machines, timeslots, altMachines, processTimes, travelTimes, dueDate, horizonStart, jobWeight, objective);
+		this.multiplierStorage = multiplierStorage;
 	}
 	
 	public SubproblemInstance(final int id, final int operations, final int machines, final int timeslots,
@@ -162,6 +193,8 @@ public class SubproblemInstance implements Serializable {
 	 *           The given solution.
 	 * @param multipliers
 	 *           The given multiplier values. Indices are [machine][time slot].
+	 *           They become the multipliers of this subproblem, replacing a
+	 *           (shared) multiplier storage.
 	 * @param factor
 	 *           The scaling factor for the augmented price update
 	 * @param timezone
@@ -170,31 +203,17 @@ public class SubproblemInstance implements Serializable {
 	 */
 	public double calcAugmentedCost(final Objective objective, final Bid bid, final double[][] multipliers) {
 		double cost = 0;
-		this.multipliers = multipliers;
+		setMultipliers(multipliers);
 
 		// calculate machine utilisation costs, sum over all operations
 		for (int op = 0; op < operations; op++) {
 			// operation begin time
 			final int op_beginTime = bid.getOptimumBeginTimes()[op];
 			final int op_machine = bid.getOptimumMachines()[op];
-			int op_completionTime = Integer.MAX_VALUE ;
-			if(processTimes[op][op_machine] < Integer.MAX_VALUE)
-				op_completionTime = op_beginTime + processTimes[op][op_machine] - 1;
+			final int op_processTime = processTimes[op][op_machine];
 
-			for (int k = op_beginTime; k <= op_completionTime; k++) {
-				cost += multipliers[op_machine][k];
-			}
-
-			final int zones = processTimes[op][op_machine] / timezoneLength + 1;
-			final int lastZone = processTimes[op][op_machine] % timezoneLength;
-
-			for (int k = 1; k <= zones; k++) {
-				if (k < zones) {
-					cost += timezoneLength * timezoneLength * timezoneFactor;
-				} else {
-					cost += lastZone * lastZone * timezoneFactor;
-				}
-			}
+			cost += calcUtilisationCost(multipliers, op_machine, op_beginTime, op_processTime);
+			cost += calcTimezoneCost(op_processTime);
 		}
 
 		// add job objective value
@@ -215,25 +234,20 @@ public class SubproblemInstance implements Serializable {
 	 *           The given solution.
 	 * @param multipliers
 	 *           The given multiplier values. Indices are [machine][time slot].
+	 *           They become the multipliers of this subproblem, replacing a
+	 *           (shared) multiplier storage.
 	 * @return The total cost.
 	 */
 	public double calcCost(final Objective objective, final Bid bid, final double[][] multipliers) {
 		double cost = 0;
-		this.multipliers = multipliers;
+		setMultipliers(multipliers);
 
 		// calculate machine utilisation costs, sum over all operations
 		for (int op = 0; op < operations; op++) {
 			// operation begin time
 			final int op_beginTime = bid.getOptimumBeginTimes()[op];
 			final int op_machine = bid.getOptimumMachines()[op];
-			// Process Times might be Integer.MAX_VALUE
-			int op_completionTime = Integer.MAX_VALUE;
-			if(processTimes[op][op_machine]<Integer.MAX_VALUE)
-				op_completionTime = op_beginTime + processTimes[op][op_machine] - 1;
-
-			for (int k = op_beginTime; k <= op_completionTime; k++) {
-				cost += multipliers[op_machine][k];
-			}
+			cost += calcUtilisationCost(multipliers, op_machine, op_beginTime, processTimes[op][op_machine]);
 		}
 
 		// add job objective value
@@ -245,6 +259,323 @@ public class SubproblemInstance implements Serializable {
 		return cost;
 	}
 
+	/**
+	 * Same as {@link #calcAugmentedCost(Objective, Bid, double[][])}, but the
+	 * price of an operation is O(1) and this instance keeps its multipliers.
+	 * 
+	 * @param objective
+	 * @param bid
+	 * @param multipliers
+	 * @return
+	 */
+	public double calcAugmentedCost(final Objective objective, final Bid bid, final MultiplierTable multipliers) {
+		double cost = 0;
+		for (int op = 0; op < operations; op++) {
+			final int op_machine = bid.getOptimumMachines()[op];
+			final int op_processTime = processTimes[op][op_machine];
+			cost += multipliers.price(op_machine, bid.getOptimumBeginTimes()[op], op_processTime);
+			cost += calcTimezoneCost(op_processTime);
+		}
+		cost += this.calcObjectiveValue(objective, bid.getOptimumBeginTimes()[operations - 1], bid.getOptimumMachines()[operations - 1]);
+		return cost;
+	}
+
+	/**
+	 * Same as {@link #calcCost(Objective, Bid, double[][])}, but the price of an
+	 * operation is O(1) and this instance keeps its multipliers.
+	 * 
+	 * @param objective
+	 * @param bid
+	 * @param multipliers
+	 * @return
+	 */
+	public double calcCost(final Objective objective, final Bid bid, final MultiplierTable multipliers) {
+		double cost = 0;
+		for (int op = 0; op < operations; op++) {
+			final int op_machine = bid.getOptimumMachines()[op];
+			cost += multipliers.price(op_machine, bid.getOptimumBeginTimes()[op], processTimes[op][op_machine]);
+		}
+		cost += this.calcObjectiveValue(objective, bid.getOptimumBeginTimes()[operations - 1], bid.getOptimumMachines()[operations - 1]);
+		return cost;
+	}
+
+	/**
+	 * Same as {@link #calcCost(Objective, Bid, double[][])} with the prices of
+	 * any multiplier storage; does not change this instance.
+	 * 
+	 * @param objective
+	 * @param bid
+	 * @param multipliers
+	 * @return
+	 */
+	public double calcCost(final Objective objective, final Bid bid, final MultiplierStorage multipliers) {
+		double cost = 0;
+		for (int op = 0; op < operations; op++) {
+			final int op_machine = bid.getOptimumMachines()[op];
+			cost += multipliers.price(op_machine, bid.getOptimumBeginTimes()[op], processTimes[op][op_machine]);
+		}
+		cost += this.calcObjectiveValue(objective, bid.getOptimumBeginTimes()[operations - 1], bid.getOptimumMachines()[operations - 1]);
+		return cost;
+	}
+
+	/**
+	 * Scores candidate solutions of this subproblem in one pass, like
+	 * {@link #calcCost(Objective, Bid, MultiplierTable)} without changing this
+	 * instance: it neither sets the multipliers nor allocates, so one instance
+	 * can score candidates from several threads (e.g. whole VNS
+	 * neighbourhoods).
+	 * 
+	 * The candidates are stored one after the other: the machine and begin time
+	 * of operation op of candidate c are at index c * operations + op.
+	 * Candidates with an operation outside its time window (see
+	 * {@link #calcTimeWindows(int)}) cost Double.POSITIVE_INFINITY and are not
+	 * priced.
+	 * 
+	 * @param objective
+	 * @param count
+	 *           the number of candidates
+	 * @param machines
+	 *           the machines of the candidates' operations
+	 * @param beginTimes
+	 *           the begin times of the candidates' operations
+	 * @param multipliers
+	 *           not changed
+	 * @param costs
+	 *           gets the cost of candidate c at index c
+	 */
+	public void calcCosts(final Objective objective, final int count, final int[] machines, final int[] beginTimes,
+			final MultiplierTable multipliers, final double[] costs) {
+		calcCosts(objective, count, machines, beginTimes, multipliers, false, costs);
+	}
+
+	/**
+	 * Same as {@link #calcCosts(Objective, int, int[], int[], MultiplierTable, double[])}
+	 * with the cost of {@link #calcAugmentedCost(Objective, Bid, MultiplierTable)}.
+	 */
+	public void calcAugmentedCosts(final Objective objective, final int count, final int[] machines, final int[] beginTimes,
+			final MultiplierTable multipliers, final double[] costs) {
+		calcCosts(objective, count, machines, beginTimes, multipliers, true, costs);
+	}
+
+	/**
+	 * Same as {@link #calcCosts(Objective, int, int[], int[], MultiplierTable, double[])}
+	 * for bids.
+	 */
+	public void calcCosts(final Objective objective, final Bid[] bids, final MultiplierTable multipliers, final double[] costs) {
+		for (int c = 0; c < bids.length; c++) {
+			final int[] machines = bids[c].getOptimumMachines();
+			final int[] beginTimes = bids[c].getOptimumBeginTimes();
+			if (!isInTimeWindows(beginTimes, 0)) {
+				costs[c] = Double.POSITIVE_INFINITY;
+				continue;
+			}
+			double cost = 0;
+			for (int op = 0; op < operations; op++)
+				cost += multipliers.price(machines[op], beginTimes[op], processTimes[op][machines[op]]);
+			costs[c] = cost + calcObjectiveValue(objective, beginTimes[operations - 1], machines[operations - 1]);
+		}
+	}
+
+	void calcCosts(final Objective objective, final int count, final int[] machines, final int[] beginTimes,
+			final MultiplierTable multipliers, final boolean augmented, final double[] costs) {
+		for (int c = 0, i = 0; c < count; c++) {
+			if (!isInTimeWindows(beginTimes, i)) {
+				costs[c] = Double.POSITIVE_INFINITY;
+				i += operations;
+				continue;
+			}
+			double cost = 0;
+			for (int op = 0; op < operations; op++, i++) {
+				final int processTime = processTimes[op][machines[i]];
+				cost += multipliers.price(machines[i], beginTimes[i], processTime);
+				if (augmented)
+					cost += calcTimezoneCost(processTime);
+			}
+			costs[c] = cost + calcObjectiveValue(objective, beginTimes[i - 1], machines[i - 1]);
+		}
+	}
+
+	/**
+	 * The augmented price term of an operation: the squared length of each time
+	 * zone it covers times the scaling factor; 0 without time zones.
+	 */
+	double calcTimezoneCost(final int processTime) {
+		if (timezoneLength <= 0)
+			return 0;
+		// (zones - 1) full time zones and the last one
+		final int fullZones = processTime / timezoneLength;
+		final int lastZone = processTime % timezoneLength;
+		return (double) fullZones * timezoneLength * timezoneLength * timezoneFactor + lastZone * lastZone * timezoneFactor;
+	}
+
+	/**
+	 * Calculates the time windows of the operations ({@link #getEarliestStart(int)}
+	 * .. {@link #getLatestStart(int)}), so solvers only need to try begin times
+	 * inside them. Earliest begin times follow from the horizon start (the
+	 * release time) and the minimum process and travel times of the operations
+	 * before (head); latest begin times from the latest completion time of the
+	 * job and the minimum process and travel times of the remaining operations
+	 * (tail). The latest completion time is max(due date, earliest completion
+	 * time) + slack, at most the end of the horizon.
+	 * 
+	 * @param slack
+	 *           time slots the job may end after its due date (or its earliest
+	 *           completion time if that is later); negative for the end of the
+	 *           horizon
+	 * @return the earliest completion time of the job, Integer.MAX_VALUE if it
+	 *         cannot be processed
+	 */
+	public int calcTimeWindows(final int slack) {
+		final int[] earliest = new int[operations];
+		final int[] latest = new int[operations];
+		long[] previous = new long[machines];
+		long[] current = new long[machines];
+
+		// head: earliest completion times per machine, operation by operation
+		long earliestCompletion = Long.MAX_VALUE;
+		for (int op = 0; op < operations; op++) {
+			long opEarliest = Long.MAX_VALUE;
+			final List<Integer> opMachines = altMachines.get(op);
+			for (int i = 0; i < opMachines.size(); i++) {
+				final int m = opMachines.get(i);
+				current[m] = Long.MAX_VALUE;
+				if (processTimes[op][m] == Integer.MAX_VALUE)
+					continue;
+				long begin = Long.MAX_VALUE;
+				if (op == 0) {
+					begin = horizonStart;
+				} else {
+					final List<Integer> previousMachines = altMachines.get(op - 1);
+					for (int p = 0; p < previousMachines.size(); p++) {
+						final int pm = previousMachines.get(p);
+						if (previous[pm] != Long.MAX_VALUE)
+							begin = Math.min(begin, previous[pm] + travelTimes[pm][m] + 1);
+					}
+				}
+				if (begin == Long.MAX_VALUE)
+					continue;
+				opEarliest = Math.min(opEarliest, begin);
+				current[m] = begin + processTimes[op][m] - 1;
+				if (op == operations - 1)
+					earliestCompletion = Math.min(earliestCompletion, current[m]);
+			}
+			earliest[op] = (int) Math.min(opEarliest, Integer.MAX_VALUE);
+			final long[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		long latestCompletion = timeSlots - 1;
+		if (slack >= 0 && earliestCompletion != Long.MAX_VALUE)
+			latestCompletion = Math.min(latestCompletion, Math.max(dueDate, earliestCompletion) + slack);
+
+		// tail: minimum time from the begin of an operation on a machine to the
+		// completion of the job
+		for (int op = operations - 1; op >= 0; op--) {
+			long opLatest = Long.MIN_VALUE;
+			final List<Integer> opMachines = altMachines.get(op);
+			for (int i = 0; i < opMachines.size(); i++) {
+				final int m = opMachines.get(i);
+				current[m] = Long.MAX_VALUE;
+				if (processTimes[op][m] == Integer.MAX_VALUE)
+					continue;
+				long rest = 0;
+				if (op < operations - 1) {
+					rest = Long.MAX_VALUE;
+					final List<Integer> nextMachines = altMachines.get(op + 1);
+					for (int q = 0; q < nextMachines.size(); q++) {
+						final int nm = nextMachines.get(q);
+						if (previous[nm] != Long.MAX_VALUE)
+							rest = Math.min(rest, travelTimes[m][nm] + previous[nm]);
+					}
+				}
+				if (rest == Long.MAX_VALUE)
+					continue;
+				current[m] = processTimes[op][m] + rest;
+				opLatest = Math.max(opLatest, latestCompletion - current[m] + 1);
+			}
+			// at least the earliest begin time, so the window is never empty
+			latest[op] = (int) Math.max(earliest[op], Math.min(opLatest, timeSlots - 1));
+			final long[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		earliestStarts = earliest;
+		latestStarts = latest;
+		return (int) Math.min(earliestCompletion, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @return the earliest begin time of the operation; the horizon start
+	 *         without time windows
+	 */
+	public int getEarliestStart(final int op) {
+		return earliestStarts != null ? earliestStarts[op] : horizonStart;
+	}
+
+	/**
+	 * @return the latest useful begin time of the operation; the last time slot
+	 *         without time windows
+	 */
+	public int getLatestStart(final int op) {
+		return latestStarts != null ? latestStarts[op] : timeSlots - 1;
+	}
+
+	/**
+	 * @return true if every operation of the bid begins inside its time window
+	 */
+	public boolean isInTimeWindows(final Bid bid) {
+		return isInTimeWindows(bid.getOptimumBeginTimes(), 0);
+	}
+
+	/**
+	 * @return true if the operations with begin times at offset .. offset +
+	 *         operations - 1 begin inside their time windows
+	 */
+	boolean isInTimeWindows(final int[] beginTimes, final int offset) {
+		if (earliestStarts == null)
+			return true;
+		for (int op = 0; op < operations; op++) {
+			final int begin = beginTimes[offset + op];
+			if (begin < earliestStarts[op] || begin > latestStarts[op])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of (operation, begin time) pairs inside the time
+	 *         windows, i.e. the size of the search space without machines
+	 */
+	public long getTimeWindowSlots() {
+		long slots = 0;
+		for (int op = 0; op < operations; op++)
+			slots += Math.max(0, getLatestStart(op) - getEarliestStart(op) + 1);
+		return slots;
+	}
+
+	/**
+	 * Sums the multipliers of the time slots an operation occupies on a machine.
+	 * The sum ends with the planning horizon, so process times of
+	 * Integer.MAX_VALUE (bad times) do not loop up to Integer.MAX_VALUE.
+	 * 
+	 * @param multipliers
+	 *           Indices are [machine][time slot].
+	 * @param machine
+	 * @param beginTime
+	 * @param processTime
+	 * @return
+	 */
+	static double calcUtilisationCost(final double[][] multipliers, final int machine, final int beginTime, final int processTime) {
+		final double[] machineMultipliers = multipliers[machine];
+		final int completionTime = (int) Math.min((long) beginTime + processTime - 1, machineMultipliers.length - 1);
+		double cost = 0;
+		for (int k = beginTime; k <= completionTime; k++) {
+			cost += machineMultipliers[k];
+		}
+		return cost;
+	}
+
 	/**
 	 * Calculate the objective value as function of the last operation's
 	 * completion time.
@@ -325,6 +656,22 @@ public class SubproblemInstance implements Serializable {
 		return dueDate;
 	}
 
+	public int[] getEarliestStarts() {
+		return earliestStarts;
+	}
+
+	public int[] getLatestStarts() {
+		return latestStarts;
+	}
+
+	public void setEarliestStarts(int[] earliestStarts) {
+		this.earliestStarts = earliestStarts;
+	}
+
+	public void setLatestStarts(int[] latestStarts) {
+		this.latestStarts = latestStarts;
+	}
+
 	public int getHorizonStart() {
 		return horizonStart;
 	}
@@ -342,10 +689,58 @@ public class SubproblemInstance implements Serializable {
 		return machines;
 	}
 
+	/**
+	 * Allocates the multipliers on first call if there is no multiplier
+	 * storage. Changes of the array are changes of the multipliers.
+	 * 
+	 * @return the multipliers, indices are [machine][time slot]
+	 * @throws UnsupportedOperationException
+	 *            if the multipliers are in a storage other than
+	 *            {@link DoubleMultiplierStorage}, which has no such array; use
+	 *            {@link #getMultiplierStorage()} there
+	 */
 	public double[][] getMultipliers() {
+		if (multipliers == null) {
+			if (multiplierStorage instanceof DoubleMultiplierStorage)
+				multipliers = ((DoubleMultiplierStorage) multiplierStorage).getMultipliers();
+			else if (multiplierStorage != null)
+				throw new UnsupportedOperationException("The multipliers are in a " + multiplierStorage.getClass().getSimpleName()
+						+ ", use getMultiplierStorage()");
+			else
+				multipliers = new double[machines][timeSlots];
+		}
 		return multipliers;
 	}
 
+	/**
+	 * @return the array of {@link #getMultipliers()}, for a storage other than
+	 *         {@link DoubleMultiplierStorage} a copy (see
+	 *         {@link MultiplierStorage#toArray()}); for reading only
+	 */
+	double[][] readMultipliers() {
+		if (multipliers == null && multiplierStorage != null && !(multiplierStorage instanceof DoubleMultiplierStorage))
+			return multiplierStorage.toArray();
+		return getMultipliers();
+	}
+
+	/**
+	 * @return the multipliers as storage, the array of {@link #getMultipliers()}
+	 *         is wrapped if no storage was set
+	 */
+	public MultiplierStorage getMultiplierStorage() {
+		if (multiplierStorage == null)
+			multiplierStorage = new DoubleMultiplierStorage(getMultipliers());
+		return multiplierStorage;
+	}
+
+	/**
+	 * Uses the given (e.g. shared) storage instead of an own array.
+	 */
+	public void setMultiplierStorage(MultiplierStorage multiplierStorage) {
+		this.multiplierStorage = multiplierStorage;
+		this.multipliers = null;
+	}
+
 	public Objective getObjective() {
 		return objective;
 	}
@@ -378,7 +773,7 @@ public class SubproblemInstance implements Serializable {
 		for (int m = 0; m < machines; m++) {
 			String row = new String();
 			for (int k = 0; k < timeSlots; k++) {
-				row = row + "[ " + multipliers[m][k] + " ]";
+				row = row + "[ " + getMultiplierStorage().get(m, k) + " ]";
 			}
 			logger.debug(row);
 		}
@@ -408,8 +803,12 @@ public class SubproblemInstance implements Serializable {
 		this.machines = machines;
 	}
 
+	/**
+	 * Uses the given array instead of an own array or a (shared) storage.
+	 */
 	public void setMultipliers(double[][] multipliers) {
 		this.multipliers = multipliers;
+		this.multiplierStorage = null;
 	}
 
 	public void setObjective(Objective objective) {
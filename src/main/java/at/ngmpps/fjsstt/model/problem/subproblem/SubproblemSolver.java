@@ -0,0 +1,21 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+/**
+ * Solves the one job subproblem: find machines and begin times for the job's
+ * operations that minimise the job's objective plus the prices (Lagrange
+ * multipliers) of the occupied time slots.
+ * 
+ * Solvers keep scratch space between calls and are not thread safe; use one
+ * solver per thread.
+ */
+public interface SubproblemSolver {
+
+	/**
+	 * @param subproblem
+	 * @param multipliers
+	 *           the prices of time slots on machines, not changed
+	 * @return the best found solution, its price is its cost; null if the job
+	 *         cannot be scheduled in the horizon
+	 */
+	Bid solve(SubproblemInstance subproblem, MultiplierTable multipliers);
+}
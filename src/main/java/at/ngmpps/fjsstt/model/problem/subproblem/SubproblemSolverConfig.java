@@ -28,6 +28,20 @@ public class SubproblemSolverConfig implements Serializable {
 	public static final String LS_ALT_MACHINE_TRIES_KEY = "SubproblemSolver.LS_altMachine_tries";
 	public static final String MIN_MAX_SLACK_KEY = "SubproblemSolver.MinMaxSlack";
 	public static final String MIN_MAX_SHIFT_DISTANCE = "SubproblemSolver.MinMaxShiftDistance";
+	/** time slots a job may end after max(due date, earliest completion), see {@link SubproblemInstance#calcTimeWindows(int)} */
+	public static final String WINDOW_SLACK_KEY = "SubproblemSolver.WindowSlack";
+	/**
+	 * {@link #WINDOW_SLACK_KEY} if not configured: no limit but the horizon, so
+	 * the subproblem solvers stay exact. A slack cuts off begin times that can
+	 * be feasible or optimal; with 50 the windows of the bundled WT1 instance
+	 * cover 23% of the (operation, begin time) pairs of the horizon instead of
+	 * 88%, see TimeWindowBenchmark.
+	 */
+	public static final int DEFAULT_WINDOW_SLACK = -1;
+	/** threads solving subproblems concurrently, see {@link SubproblemEngine} */
+	public static final String PARALLELISM_KEY = "SubproblemSolver.Parallelism";
+	/** solve subproblems on virtual threads if the JVM has them, see {@link SubproblemEngine} */
+	public static final String VIRTUAL_THREADS_KEY = "SubproblemSolver.VirtualThreads";
 
 	/**
 	 * available subproblem solver types are dynamic programming and variable
@@ -217,4 +231,28 @@ public class SubproblemSolverConfig implements Serializable {
 		return confString;
 	}
 
+	/**
+	 * @param config
+	 *           may be null
+	 * @return the configured {@link #WINDOW_SLACK_KEY},
+	 *         {@link #DEFAULT_WINDOW_SLACK} if not configured; negative means no
+	 *         limit but the horizon
+	 */
+	public static int getWindowSlack(Properties config) {
+		if (config != null && config.containsKey(WINDOW_SLACK_KEY))
+			return ProblemParser.getPropertyInt(config, WINDOW_SLACK_KEY, DEFAULT_WINDOW_SLACK);
+		return DEFAULT_WINDOW_SLACK;
+	}
+
+	/**
+	 * @param seed
+	 *           seed of the random number generator (VNS only)
+	 * @return a new solver of the configured type; solvers are not thread safe
+	 */
+	public SubproblemSolver createSolver(long seed) {
+		if (type == SubproblemSolverType.DynamicProgramming)
+			return new DP_subproblem();
+		return new VNS_subproblem(this, seed);
+	}
+
 }
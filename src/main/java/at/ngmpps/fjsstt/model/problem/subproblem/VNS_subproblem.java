@@ -0,0 +1,390 @@
+package at.ngmpps.fjsstt.model.problem.subproblem;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Variable neighbourhood search for a {@link SubproblemInstance}, the solver of
+ * {@link SubproblemSolverType#VariableNeighbourhoodSearch}, configured by a
+ * {@link SubproblemSolverConfig}.
+ * 
+ * A solution is a machine and a begin time per operation. Starting from a
+ * random solution, every VNS iteration shakes the current solution with k
+ * random moves (k = 1..maxShakingDistance), improves it by local search and
+ * accepts it if it is cheaper (then k starts at 1 again). Moves shift an
+ * operation by at most maxShiftDistance slots or change its machine; both keep
+ * the solution feasible (precedence and travel times, time windows, horizon)
+ * and their cost change is calculated in O(1) from a {@link MultiplierTable}.
+ * 
+ * The search ends after executionIterations VNS iterations or, if
+ * executionTime is set, after executionTime milliseconds wall clock, checked
+ * in every local search step. The random number generator is owned by the
+ * solver (use one solver per thread) and seeded per job, so results do not
+ * depend on the thread or the order in which jobs are solved.
+ */
+public class VNS_subproblem implements SubproblemSolver {
+
+	/**
+	 * The number of VNS iterations; only used if executionTime is not set.
+	 */
+	final int executionIterations;
+
+	/**
+	 * The wall clock time for one subproblem in milliseconds; not set if &lt;= 0.
+	 */
+	final int executionTime;
+
+	/**
+	 * The maximum number of random moves when shaking a solution.
+	 */
+	final int maxShakingDistance;
+
+	/**
+	 * The number of local search steps after shaking.
+	 */
+	final int ls_iterations;
+
+	/**
+	 * Job specific maximum distance of a shift move, indices are jobs.
+	 */
+	final int[] maxShiftDistances;
+
+	/**
+	 * Job specific maximum slack between operations of the initial solution,
+	 * indices are jobs.
+	 */
+	final int[] maxSlacks;
+
+	/**
+	 * The number of alternative machines tried per local search step.
+	 */
+	final int ls_altMachine_tries;
+
+	final long seed;
+
+	final Random rng = new Random();
+
+	// scratch: current, best and trial solutions
+	int[] machines = new int[0];
+	int[] beginTimes = new int[0];
+	int[] bestMachines = new int[0];
+	int[] bestBeginTimes = new int[0];
+	int[] trialMachines = new int[0];
+	int[] trialBeginTimes = new int[0];
+
+	// the subproblem being solved
+	SubproblemInstance sub;
+	MultiplierTable prices;
+	int operations;
+	int maxShift;
+	long deadline;
+
+	/**
+	 * true if the last solve ended because executionTime was up
+	 */
+	boolean timedOut;
+
+	public VNS_subproblem(final SubproblemSolverConfig config) {
+		this(config, 300);
+	}
+
+	/**
+	 * @param config
+	 * @param seed
+	 *           combined with the job id to seed the random number generator of
+	 *           each solve
+	 */
+	public VNS_subproblem(final SubproblemSolverConfig config, final long seed) {
+		this.executionIterations = config.getExecutionIterations();
+		this.executionTime = config.getExecutionTime();
+		this.maxShakingDistance = Math.max(1, config.getMaxShakingDistance());
+		this.ls_iterations = config.getLS_iterations();
+		this.maxShiftDistances = config.getMaxShiftDistances();
+		this.maxSlacks = config.getMaxSlacks();
+		this.ls_altMachine_tries = config.getLS_altMachine_tries();
+		this.seed = seed;
+	}
+
+	static int valueForJob(final int[] values, final int job, final int defaultValue) {
+		if (values == null || values.length == 0)
+			return defaultValue;
+		return values[Math.min(job, values.length - 1)];
+	}
+
+	@Override
+	public Bid solve(final SubproblemInstance subproblem, final MultiplierTable multipliers) {
+		sub = subproblem;
+		prices = multipliers;
+		operations = subproblem.getOperations();
+		maxShift = Math.max(1, valueForJob(maxShiftDistances, subproblem.getJobID(), 10));
+		rng.setSeed(seed * 31 + subproblem.getJobID());
+		if (machines.length < operations) {
+			machines = new int[operations];
+			beginTimes = new int[operations];
+			bestMachines = new int[operations];
+			bestBeginTimes = new int[operations];
+			trialMachines = new int[operations];
+			trialBeginTimes = new int[operations];
+		}
+		final long start = System.nanoTime();
+		deadline = executionTime > 0 ? start + executionTime * 1000000L : Long.MAX_VALUE;
+
+		double cost = initialSolution(valueForJob(maxSlacks, subproblem.getJobID(), 10));
+		if (cost == Double.POSITIVE_INFINITY)
+			return null;
+		copy(machines, beginTimes, bestMachines, bestBeginTimes);
+
+		for (int iteration = 0; executionTime > 0 || iteration < Math.max(1, executionIterations); iteration++) {
+			if (timeIsUp())
+				break;
+			int k = 1;
+			while (k <= maxShakingDistance && !timeIsUp()) {
+				copy(bestMachines, bestBeginTimes, trialMachines, trialBeginTimes);
+				double trialCost = cost;
+				for (int move = 0; move < k; move++)
+					trialCost += randomMove(trialMachines, trialBeginTimes);
+				trialCost += localSearch(trialMachines, trialBeginTimes);
+				if (trialCost < cost - 1e-9) {
+					cost = trialCost;
+					copy(trialMachines, trialBeginTimes, bestMachines, bestBeginTimes);
+					k = 1;
+				} else {
+					k++;
+				}
+			}
+		}
+
+		timedOut = timeIsUp();
+		final int[] resultMachines = new int[operations];
+		final int[] resultBeginTimes = new int[operations];
+		copy(bestMachines, bestBeginTimes, resultMachines, resultBeginTimes);
+		final Bid bid = new Bid(subproblem.getJobID(), 0, resultMachines, resultBeginTimes, subproblem.getProcessTimes(), operations);
+		// exact cost, without summed up rounding of the deltas
+		bid.setPrice(cost(resultMachines, resultBeginTimes));
+		sub = null;
+		prices = null;
+		return bid;
+	}
+
+	/**
+	 * @return true if the last {@link #solve(SubproblemInstance, MultiplierTable)}
+	 *         stopped because its execution time was up
+	 */
+	public boolean isTimedOut() {
+		return timedOut;
+	}
+
+	boolean timeIsUp() {
+		return deadline != Long.MAX_VALUE && System.nanoTime() >= deadline;
+	}
+
+	void copy(final int[] fromMachines, final int[] fromBeginTimes, final int[] toMachines, final int[] toBeginTimes) {
+		System.arraycopy(fromMachines, 0, toMachines, 0, operations);
+		System.arraycopy(fromBeginTimes, 0, toBeginTimes, 0, operations);
+	}
+
+	int processTime(final int op, final int machine) {
+		return sub.getProcessTimes()[op][machine];
+	}
+
+	double cost(final int[] machines, final int[] beginTimes) {
+		double cost = 0;
+		for (int op = 0; op < operations; op++)
+			cost += prices.price(machines[op], beginTimes[op], processTime(op, machines[op]));
+		return cost + sub.calcObjectiveValue(sub.getObjective(), beginTimes[operations - 1], machines[operations - 1]);
+	}
+
+	/**
+	 * price of the operation and, for the last operation, the objective
+	 */
+	double operationCost(final int op, final int machine, final int beginTime) {
+		double cost = prices.price(machine, beginTime, processTime(op, machine));
+		if (op == operations - 1)
+			cost += sub.calcObjectiveValue(sub.getObjective(), beginTime, machine);
+		return cost;
+	}
+
+	/**
+	 * @return the earliest feasible begin time of the operation on the machine,
+	 *         given the operation before
+	 */
+	int earliestBegin(final int[] machines, final int[] beginTimes, final int op, final int machine) {
+		int earliest = Math.max(sub.getHorizonStart(), sub.getEarliestStart(op));
+		if (op > 0) {
+			final int previous = machines[op - 1];
+			earliest = Math.max(earliest, beginTimes[op - 1] + processTime(op - 1, previous) + sub.getTravelTimes()[previous][machine]);
+		}
+		return earliest;
+	}
+
+	/**
+	 * @return the latest feasible begin time of the operation on the machine,
+	 *         given the operation after
+	 */
+	int latestBegin(final int[] machines, final int[] beginTimes, final int op, final int machine) {
+		long latest = Math.min(sub.getTimeSlots() - 1, sub.getLatestStart(op));
+		if (op < operations - 1) {
+			final int next = machines[op + 1];
+			latest = Math.min(latest, (long) beginTimes[op + 1] - processTime(op, machine) - sub.getTravelTimes()[machine][next]);
+		}
+		return (int) latest;
+	}
+
+	/**
+	 * Random machines, each operation begins up to maxSlack slots after the
+	 * earliest possible time, but not after the end of its time window. If an
+	 * operation cannot begin inside its window on the random machines, the
+	 * earliest schedule of the job ({@link #earliestSolution()}) is used.
+	 * 
+	 * @return the cost, infinite if there is no solution in the horizon
+	 */
+	double initialSolution(final int maxSlack) {
+		for (int op = 0; op < operations; op++) {
+			final List<Integer> alt = sub.getAltMachines().get(op);
+			int machine = alt.get(rng.nextInt(alt.size()));
+			for (int i = 0; i < alt.size() && processTime(op, machine) == Integer.MAX_VALUE; i++)
+				machine = alt.get(i);
+			if (processTime(op, machine) == Integer.MAX_VALUE)
+				return Double.POSITIVE_INFINITY;
+			machines[op] = machine;
+			final int earliest = earliestBegin(machines, beginTimes, op, machine);
+			final int latest = Math.min(sub.getTimeSlots() - 1, sub.getLatestStart(op));
+			if (earliest > latest)
+				return earliestSolution() ? cost(machines, beginTimes) : Double.POSITIVE_INFINITY;
+			beginTimes[op] = (int) Math.min(latest, (long) earliest + rng.nextInt(Math.max(0, maxSlack) + 1));
+		}
+		return cost(machines, beginTimes);
+	}
+
+	/**
+	 * The schedule with the earliest completion time of the job: the earliest
+	 * begin time per operation and machine, operation by operation, then back
+	 * from the last operation. It begins every operation inside its time window,
+	 * as the windows follow from the same head and the minimum tail.
+	 * 
+	 * @return false if the job does not fit into the horizon
+	 */
+	boolean earliestSolution() {
+		final int machineCount = sub.getMachines();
+		final long[][] begins = new long[operations][machineCount];
+		final int[][] before = new int[operations][machineCount];
+		for (int op = 0; op < operations; op++) {
+			Arrays.fill(begins[op], Long.MAX_VALUE);
+			for (final int m : sub.getAltMachines().get(op)) {
+				if (processTime(op, m) == Integer.MAX_VALUE)
+					continue;
+				long earliest = Math.max(sub.getHorizonStart(), sub.getEarliestStart(op));
+				if (op > 0) {
+					long ready = Long.MAX_VALUE;
+					for (final int previous : sub.getAltMachines().get(op - 1)) {
+						if (begins[op - 1][previous] == Long.MAX_VALUE)
+							continue;
+						final long end = begins[op - 1][previous] + processTime(op - 1, previous) + sub.getTravelTimes()[previous][m];
+						if (end < ready) {
+							ready = end;
+							before[op][m] = previous;
+						}
+					}
+					if (ready == Long.MAX_VALUE)
+						continue;
+					earliest = Math.max(earliest, ready);
+				}
+				if (earliest <= sub.getTimeSlots() - 1)
+					begins[op][m] = earliest;
+			}
+		}
+		long completion = Long.MAX_VALUE;
+		int machine = -1;
+		for (final int m : sub.getAltMachines().get(operations - 1))
+			if (begins[operations - 1][m] != Long.MAX_VALUE && begins[operations - 1][m] + processTime(operations - 1, m) < completion) {
+				completion = begins[operations - 1][m] + processTime(operations - 1, m);
+				machine = m;
+			}
+		if (machine < 0)
+			return false;
+		for (int op = operations - 1; op >= 0; op--) {
+			machines[op] = machine;
+			beginTimes[op] = (int) begins[op][machine];
+			machine = before[op][machine];
+		}
+		return true;
+	}
+
+	/**
+	 * A random shift or change of machine (keeping the begin time if possible).
+	 * 
+	 * @return the cost difference, 0 if no feasible move was found
+	 */
+	double randomMove(final int[] machines, final int[] beginTimes) {
+		final int op = rng.nextInt(operations);
+		final int machine = machines[op];
+		final int begin = beginTimes[op];
+		final List<Integer> alt = sub.getAltMachines().get(op);
+		if (alt.size() > 1 && rng.nextBoolean()) {
+			final int newMachine = alt.get(rng.nextInt(alt.size()));
+			if (newMachine == machine || processTime(op, newMachine) == Integer.MAX_VALUE)
+				return 0;
+			final int earliest = earliestBegin(machines, beginTimes, op, newMachine);
+			final int latest = latestBegin(machines, beginTimes, op, newMachine);
+			if (earliest > latest)
+				return 0;
+			final int newBegin = Math.min(Math.max(begin, earliest), latest);
+			final double delta = operationCost(op, newMachine, newBegin) - operationCost(op, machine, begin);
+			machines[op] = newMachine;
+			beginTimes[op] = newBegin;
+			return delta;
+		}
+		final int earliest = Math.max(begin - maxShift, earliestBegin(machines, beginTimes, op, machine));
+		final int latest = Math.min(begin + maxShift, latestBegin(machines, beginTimes, op, machine));
+		if (earliest > latest)
+			return 0;
+		final int newBegin = earliest + rng.nextInt(latest - earliest + 1);
+		final double delta = operationCost(op, machine, newBegin) - operationCost(op, machine, begin);
+		beginTimes[op] = newBegin;
+		return delta;
+	}
+
+	/**
+	 * Per step one random operation: the best shift within maxShiftDistance and
+	 * the best begin time on ls_altMachine_tries random alternative machines.
+	 * 
+	 * @return the cost difference (&lt;= 0)
+	 */
+	double localSearch(final int[] machines, final int[] beginTimes) {
+		double total = 0;
+		for (int step = 0; step < ls_iterations && !timeIsUp(); step++) {
+			final int op = rng.nextInt(operations);
+			final int machine = machines[op];
+			final int begin = beginTimes[op];
+			final double current = operationCost(op, machine, begin);
+			double bestDelta = 0;
+			int bestMachine = machine;
+			int bestBegin = begin;
+
+			final List<Integer> alt = sub.getAltMachines().get(op);
+			for (int tries = -1; tries < ls_altMachine_tries; tries++) {
+				// first the current machine, then random alternatives
+				final int m = tries < 0 ? machine : alt.get(rng.nextInt(alt.size()));
+				if ((tries >= 0 && m == machine) || processTime(op, m) == Integer.MAX_VALUE)
+					continue;
+				final int earliest = Math.max(begin - maxShift, earliestBegin(machines, beginTimes, op, m));
+				final int latest = Math.min(begin + maxShift, latestBegin(machines, beginTimes, op, m));
+				for (int t = earliest; t <= latest; t++) {
+					final double delta = operationCost(op, m, t) - current;
+					if (delta < bestDelta - 1e-12) {
+						bestDelta = delta;
+						bestMachine = m;
+						bestBegin = t;
+					}
+				}
+			}
+			if (bestDelta < 0) {
+				machines[op] = bestMachine;
+				beginTimes[op] = bestBegin;
+				total += bestDelta;
+			}
+		}
+		return total;
+	}
+}
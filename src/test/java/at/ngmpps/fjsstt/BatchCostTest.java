@@ -0,0 +1,87 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+
+public class BatchCostTest {
+
+	@Test
+	public void batchEqualsSingleCosts() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		Random rng = new Random(5);
+		double[][] multipliers = new double[problem.getMachines()][problem.getTimeSlots()];
+		for (double[] row : multipliers)
+			for (int k = 0; k < row.length; k++)
+				row[k] = rng.nextDouble();
+		MultiplierTable table = new MultiplierTable(multipliers);
+
+		SubproblemInstance sub = problem.createSubproblem(2);
+		sub.setTimezoneLength(4);
+		sub.setTimezoneFactor(0.25);
+		int ops = sub.getOperations();
+		int count = 500;
+		int[] machines = new int[count * ops];
+		int[] begins = new int[count * ops];
+		Bid[] bids = new Bid[count];
+		for (int c = 0; c < count; c++) {
+			for (int op = 0; op < ops; op++) {
+				List<Integer> alt = sub.getAltMachines().get(op);
+				machines[c * ops + op] = alt.get(rng.nextInt(alt.size()));
+				// every 10th candidate anywhere in the horizon, the others in the
+				// time windows
+				begins[c * ops + op] = c % 10 == 0 ? rng.nextInt(problem.getTimeSlots())
+						: sub.getEarliestStart(op) + rng.nextInt(sub.getLatestStart(op) - sub.getEarliestStart(op) + 1);
+			}
+			bids[c] = new Bid(2, 0, Arrays.copyOfRange(machines, c * ops, (c + 1) * ops),
+					Arrays.copyOfRange(begins, c * ops, (c + 1) * ops));
+		}
+
+		final double[][] before = sub.getMultipliers();
+		double[] costs = new double[count];
+		double[] augmented = new double[count];
+		double[] bidCosts = new double[count];
+		sub.calcCosts(problem.getObjective(), count, machines, begins, table, costs);
+		sub.calcAugmentedCosts(problem.getObjective(), count, machines, begins, table, augmented);
+		sub.calcCosts(problem.getObjective(), bids, table, bidCosts);
+		// side effect free
+		assertNotSame(multipliers, sub.getMultipliers());
+		assertEquals(before, sub.getMultipliers());
+
+		int outside = 0;
+		for (int c = 0; c < count; c++) {
+			if (!sub.isInTimeWindows(bids[c])) {
+				assertEquals(Double.POSITIVE_INFINITY, costs[c], 0);
+				assertEquals(Double.POSITIVE_INFINITY, augmented[c], 0);
+				++outside;
+				continue;
+			}
+			assertEquals(sub.calcCost(problem.getObjective(), bids[c], multipliers), costs[c], 1e-9);
+			assertEquals(sub.calcAugmentedCost(problem.getObjective(), bids[c], multipliers), augmented[c], 1e-9);
+		}
+		assertTrue(outside > 0);
+		assertArrayEquals(costs, bidCosts, 0);
+
+		// concurrent scoring of the same subproblem
+		double[][] parallel = new double[8][count];
+		IntStream.range(0, 8).parallel()
+				.forEach(t -> sub.calcCosts(problem.getObjective(), count, machines, begins, table, parallel[t]));
+		for (double[] result : parallel)
+			assertArrayEquals(costs, result, 0);
+	}
+}
@@ -0,0 +1,59 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+
+public class BidTest {
+
+	private final int[][] processTimes = { { 2, 0, 1 }, { 0, 3, 0 }, { 1, 1, 1 } };
+
+	private final Bid bid = new Bid(4, 1.5, new int[] { 0, 1, 2 }, new int[] { 1, 4, 9 }, processTimes, 3);
+
+	@Test
+	public void intervalsPerOperation() {
+		assertArrayEquals(new int[] { 0, 1, 2, 1, 4, 3, 2, 9, 1 }, bid.getIntervals());
+		assertEquals(6, bid.getOccupiedTimeSlotCount());
+		assertEquals(0, new Bid(4, 1.5, new int[] { 0 }, new int[] { 1 }).getIntervals().length);
+	}
+
+	@Test
+	public void occupiedTimeSlotsFromIntervals() {
+		List<int[]> slots = bid.getOccupiedTimeSlots();
+		int[][] expected = { { 0, 1 }, { 0, 2 }, { 1, 4 }, { 1, 5 }, { 1, 6 }, { 2, 9 } };
+		assertEquals(expected.length, slots.size());
+		for (int i = 0; i < expected.length; i++)
+			assertArrayEquals(expected[i], slots.get(i));
+		// created once
+		assertSame(slots, bid.getOccupiedTimeSlots());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void occupiedTimeSlotsCannotBeChanged() {
+		// slots added here would be missing in the intervals
+		new Bid(4, 1.5, new int[] { 0 }, new int[] { 1 }).getOccupiedTimeSlots().add(new int[] { 0, 1 });
+	}
+
+	@Test
+	public void serializesIntervals() throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			bid.getOccupiedTimeSlots();
+			out.writeObject(bid);
+		}
+		Bid copy = (Bid) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+		assertArrayEquals(bid.getIntervals(), copy.getIntervals());
+		assertEquals(6, copy.getOccupiedTimeSlots().size());
+	}
+}
@@ -0,0 +1,102 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import at.ngmpps.fjsstt.factory.BulkProblemLoader;
+import at.ngmpps.fjsstt.factory.ProblemCatalog;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+
+public class BulkProblemLoaderTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File resource(String name) throws URISyntaxException {
+		return new File(this.getClass().getResource(name).toURI());
+	}
+
+	@Test
+	public void loadTestFolder() throws IOException, URISyntaxException {
+		ProblemCatalog catalog = ProblemParser.parseFolder(resource("/problems/p1"));
+		assertEquals(1, catalog.size());
+		ProblemCatalog.Entry entry = catalog.getEntries().get(0);
+		assertEquals("WT1A", entry.getName());
+		assertEquals("WT1.fjs", entry.getProblemFile().getName());
+		assertEquals("WT1A.PROPERTIES", entry.getConfigFile().getName());
+		assertEquals("WT1A.TRANSPORT", entry.getTransportFile().getName());
+		assertNull(entry.getError());
+
+		FJSSTTproblem expected = ProblemParser.parseFiles(resource("/problems/p1/WT1.fjs").getPath(),
+				resource("/problems/p1/WT1A.PROPERTIES").getPath(), resource("/problems/p1/WT1A.TRANSPORT").getPath());
+		ProblemParserTest.assertSameProblem(expected, entry.getProblem());
+	}
+
+	@Test
+	public void errorsDoNotStopBatch() throws IOException, URISyntaxException {
+		File fjs = resource("/problems/p1/WT1.fjs");
+		for (String name : new String[] { "A1.fjs", "B1.fjs", "C1.fjs" })
+			Files.copy(fjs.toPath(), new File(folder.getRoot(), name).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.copy(resource("/problems/p1/WT1A.TRANSPORT").toPath(), new File(folder.getRoot(), "A1x.transport").toPath());
+		Files.write(new File(folder.getRoot(), "B10.fjs").toPath(), "no problem here\n".getBytes(StandardCharsets.US_ASCII));
+		Files.write(new File(folder.getRoot(), "C1a.properties").toPath(),
+				"SubgradientSearch.NrTimeSlots = 120\n".getBytes(StandardCharsets.US_ASCII));
+		Files.write(new File(folder.getRoot(), "C1b.properties").toPath(),
+				"SubgradientSearch.NrTimeSlots = 240\n".getBytes(StandardCharsets.US_ASCII));
+
+		List<ProblemCatalog.Entry> index = BulkProblemLoader.index(folder.getRoot());
+		assertEquals(5, index.size());
+
+		ProblemCatalog catalog = new BulkProblemLoader(2).load(folder.getRoot());
+		assertEquals(5, catalog.size());
+		assertEquals(4, catalog.getProblems().size());
+		assertEquals(1, catalog.getErrors().size());
+		assertEquals("B10", catalog.getErrors().get(0).getName());
+		assertNotNull(catalog.getErrors().get(0).getError());
+
+		String[] names = catalog.getProblems().keySet().toArray(new String[0]);
+		assertEquals("A1", names[0]);
+		assertEquals("B1", names[1]);
+		assertEquals("C1a", names[2]);
+		assertEquals("C1b", names[3]);
+		assertEquals("A1x.transport", catalog.getEntries().get(0).getTransportFile().getName());
+		assertEquals(3, catalog.getProblems().get("A1").getTravelTimes()[0][1]);
+		assertEquals(120, catalog.getProblems().get("C1a").getTimeSlots());
+		assertEquals(240, catalog.getProblems().get("C1b").getTimeSlots());
+		assertFalse(catalog.getEntries().get(2).isLoaded());
+		assertTrue(catalog.getEntries().get(3).isLoaded());
+	}
+
+	@Test
+	public void loadEntriesWithConfiguredTransport() throws IOException, URISyntaxException {
+		Files.copy(resource("/problems/p1/WT1.fjs").toPath(), new File(folder.getRoot(), "A1.fjs").toPath());
+		Files.copy(resource("/problems/p1/WT1A.TRANSPORT").toPath(), new File(folder.getRoot(), "other.transport").toPath());
+		Files.write(new File(folder.getRoot(), "A1.properties").toPath(),
+				(ProblemParser.TRANSPORT_FILE_KEY + " = other.transport\n").getBytes(StandardCharsets.US_ASCII));
+
+		List<ProblemCatalog.Entry> entries = BulkProblemLoader.index(folder.getRoot());
+		assertEquals(1, entries.size());
+		// the name does not match, only the config names the transport file
+		assertNull(entries.get(0).getTransportFile());
+		ProblemCatalog catalog = new BulkProblemLoader(1).load(entries);
+		assertTrue(catalog.getErrors().isEmpty());
+		assertEquals("other.transport", entries.get(0).getTransportFile().getName());
+		assertEquals(3, catalog.getProblems().get("A1").getTravelTimes()[0][1]);
+	}
+}
@@ -0,0 +1,176 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+import at.ngmpps.fjsstt.model.problem.OverlayMap;
+
+public class CloneSharedTest {
+
+	@Test
+	public void changesStayInTheirProblem() throws URISyntaxException, IOException {
+		FJSSTTproblem original = ProblemFixtures.parseWT1();
+		FJSSTTproblem parent = ProblemFixtures.parseWT1();
+		FJSSTTproblem child = parent.cloneShared();
+		ProblemParserTest.assertSameProblem(original, parent);
+		ProblemParserTest.assertSameProblem(original, child);
+		assertSame(parent.getTravelTimes(), child.getTravelTimes());
+
+		child.removeJob(3);
+		child.getDueDates().put(5, 1000);
+		assertFalse(child.getOperations().containsKey(3));
+		assertNull(child.getAltMachines(3, 0));
+		ProblemParserTest.assertSameProblem(original, parent);
+
+		parent.removeJob(7);
+		parent.restoreJob(3, original);
+		assertTrue(child.getOperations().containsKey(7));
+		assertFalse(child.getOperations().containsKey(3));
+		assertEquals(1000, (int) child.getDueDates().get(5));
+		assertEquals(original.getDueDates().get(5), parent.getDueDates().get(5));
+
+		child.restoreJob(3, original);
+		child.getDueDates().put(5, original.getDueDates().get(5));
+		ProblemParserTest.assertSameProblem(original, child);
+	}
+
+	@Test
+	public void sparseProcessTimes() throws URISyntaxException, IOException {
+		FJSSTTproblem original = ProblemFixtures.parseWT1();
+		FJSSTTproblem parent = ProblemFixtures.parseWT1();
+		parent.setSparseProcessTimes(true);
+		FJSSTTproblem child = parent.cloneShared();
+		assertTrue(child.isSparseProcessTimes());
+		child.removeJob(2);
+		assertFalse(child.getProcessTimes().containsKey(2));
+		ProblemParserTest.assertSameProblem(original, parent);
+	}
+
+	@Test
+	public void clonesOfClones() throws URISyntaxException, IOException {
+		FJSSTTproblem original = ProblemFixtures.parseWT1();
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		List<FJSSTTproblem> clones = new ArrayList<FJSSTTproblem>();
+		for (int i = 0; i < 10; ++i) {
+			problem = problem.cloneShared();
+			problem.removeJob(i);
+			clones.add(problem);
+		}
+		for (int i = 0; i < 10; ++i) {
+			assertEquals(9 - i, clones.get(i).getOperations().size());
+			for (int job = 0; job < 10; ++job)
+				assertEquals(job > i, clones.get(i).getOperations().containsKey(job));
+		}
+		problem = clones.get(4);
+		for (int i = 0; i < 5; ++i)
+			problem.restoreJob(i, original);
+		// iterates in job order like the parsed TreeMap
+		assertEquals(new ArrayList<Integer>(original.getOperations().keySet()), new ArrayList<Integer>(problem.getOperations().keySet()));
+		ProblemParserTest.assertSameProblem(original, problem);
+	}
+
+	@Test
+	public void overlayMap() {
+		TreeMap<Integer, String> base = new TreeMap<Integer, String>();
+		for (int i = 0; i < 100; i += 2)
+			base.put(i, "b" + i);
+		OverlayMap<Integer, String> map = new OverlayMap<Integer, String>(base);
+		TreeMap<Integer, String> expected = new TreeMap<Integer, String>(base);
+		for (int i = 0; i < 100; i += 3) {
+			assertEquals(expected.put(i, "a" + i), map.put(i, "a" + i));
+			assertEquals(expected.remove(i + 1), map.remove(i + 1));
+			assertEquals(expected, map);
+			assertEquals(new ArrayList<Integer>(expected.keySet()), new ArrayList<Integer>(map.keySet()));
+		}
+		assertEquals(50, base.size());
+		map.clear();
+		assertEquals(0, map.size());
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void writesStayInTheirProblem() throws URISyntaxException, IOException {
+		FJSSTTproblem original = ProblemFixtures.parseWT1();
+		FJSSTTproblem parent = ProblemFixtures.parseWT1();
+		FJSSTTproblem child = parent.cloneShared();
+		FJSSTTproblem sibling = parent.cloneShared();
+
+		int machine = parent.getAltMachines(2, 0).get(0);
+		parent.getProcessTimes().get(2)[0][machine] = 99;
+		parent.getDueDates().put(5, 1000);
+		assertEquals(99, parent.getProcessTimes().get(2)[0][machine]);
+		assertEquals(99, parent.getProcessTime(2, 0, machine));
+		assertEquals(1000, (int) parent.getDueDates().get(5));
+		ProblemParserTest.assertSameProblem(original, child);
+		ProblemParserTest.assertSameProblem(original, sibling);
+
+		// arrays read through the views are copies as well
+		machine = parent.getAltMachines(3, 0).get(0);
+		for (Map.Entry<Integer, int[][]> job : child.getProcessTimes().entrySet())
+			if (job.getKey() == 3)
+				job.getValue()[0][machine] = 77;
+		for (int[][] job : sibling.getProcessTimes().values())
+			job[0][0] = -1;
+		assertEquals(77, child.getProcessTimes().get(3)[0][machine]);
+		assertEquals(-1, sibling.getProcessTimes().get(3)[0][0]);
+		assertEquals(original.getProcessTimes().get(3)[0][machine], parent.getProcessTimes().get(3)[0][machine]);
+		assertEquals(original.getProcessTimes().get(3)[0][0], parent.getProcessTimes().get(3)[0][0]);
+		assertFalse(child.getProcessTimes().get(3)[0][0] == -1);
+	}
+
+	@Test
+	public void plainMapsUntilCloned() {
+		Map<Integer, Integer> operations = new TreeMap<Integer, Integer>();
+		operations.put(0, 1);
+		Map<Integer, int[][]> processTimes = new TreeMap<Integer, int[][]>();
+		processTimes.put(0, new int[][] { { 3 } });
+		FJSSTTproblem problem = new FJSSTTproblem(operations, 1, 1, 10, new HashMap<String, List<Integer>>(), processTimes, null,
+				new TreeMap<Integer, Integer>(), Objective.TARDINESS, new TreeMap<Integer, Integer>());
+		assertSame(operations, problem.getOperations());
+		assertSame(processTimes, problem.getProcessTimes());
+
+		operations.put(1, 1);
+		assertEquals(2, problem.getOperations().size());
+		assertEquals(new ArrayList<Integer>(operations.keySet()), new ArrayList<Integer>(problem.getOperations().keySet()));
+
+		FJSSTTproblem copy = problem.cloneShared();
+		assertTrue(problem.getOperations() instanceof OverlayMap);
+		problem.removeJob(1);
+		assertEquals(1, problem.getOperations().size());
+		assertEquals(2, copy.getOperations().size());
+	}
+
+	@Test
+	public void largeProblem() {
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(10000, 20, 5, 3, 20, 1), null, null);
+		FJSSTTproblem shared = problem.cloneShared();
+		shared.removeJob(17);
+		assertEquals(10000, problem.getOperations().size());
+		assertEquals(9999, shared.getOperations().size());
+		// the copy shares the job data, it only keeps its changes
+		assertSame(problem.getTravelTimes(), shared.getTravelTimes());
+		for (Map<?, ?> map : new Map<?, ?>[] { shared.getOperations(), shared.getProcessTimes(), shared.getAltMachines(),
+				shared.getDueDates(), shared.getJobWeights() }) {
+			assertTrue(map instanceof OverlayMap);
+			assertTrue(((OverlayMap<?, ?>) map).getChanges() <= 5);
+		}
+		assertEquals(0, ((OverlayMap<?, ?>) problem.getOperations()).getChanges());
+	}
+}
@@ -0,0 +1,100 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.factory.ModelFactory;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.ProblemSet;
+import at.ngmpps.fjsstt.model.problem.CompiledProblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.ProblemView;
+
+public class CompiledProblemTest {
+
+	private FJSSTTproblem parseSrfg() {
+		ProblemSet srfg = ModelFactory.createSrfgProblemSet();
+		return ProblemParser.parseStrings(srfg.getFjs(), srfg.getProperties(), srfg.getTransport());
+	}
+
+	static void assertSameView(ProblemView expected, ProblemView actual) {
+		assertEquals(expected.getMachines(), actual.getMachines());
+		assertEquals(expected.getTimeSlots(), actual.getTimeSlots());
+		assertEquals(expected.getMaxOperations(), actual.getMaxOperations());
+		assertEquals(expected.getObjective(), actual.getObjective());
+		assertArrayEquals(expected.getJobIds(), actual.getJobIds());
+		for (int job : expected.getJobIds()) {
+			assertEquals(expected.getOperationCount(job), actual.getOperationCount(job));
+			assertEquals(expected.getDueDate(job), actual.getDueDate(job));
+			assertEquals(expected.getReleaseTime(job), actual.getReleaseTime(job));
+			assertEquals(expected.getJobWeight(job), actual.getJobWeight(job));
+			for (int op = 0; op < expected.getOperationCount(job); ++op) {
+				assertEquals(expected.getAltMachineCount(job, op), actual.getAltMachineCount(job, op));
+				for (int idx = 0; idx < expected.getAltMachineCount(job, op); ++idx)
+					assertEquals(expected.getAltMachine(job, op, idx), actual.getAltMachine(job, op, idx));
+				for (int m = 0; m < expected.getMachines(); ++m)
+					assertEquals(expected.getProcessTime(job, op, m), actual.getProcessTime(job, op, m));
+			}
+		}
+		for (int from = 0; from < expected.getMachines(); ++from)
+			for (int to = 0; to < expected.getMachines(); ++to)
+				assertEquals(expected.getTravelTime(from, to), actual.getTravelTime(from, to));
+	}
+
+	@Test
+	public void compiledViewEqualsProblem() throws URISyntaxException, IOException {
+		for (FJSSTTproblem problem : new FJSSTTproblem[] { ProblemFixtures.parseWT1(), parseSrfg() }) {
+			CompiledProblem compiled = problem.compile();
+			assertSameView(problem, compiled);
+			for (int job : problem.getJobIds())
+				assertEquals(problem.calcMinJobCompletionTime(job), compiled.calcMinJobCompletionTime(job));
+		}
+	}
+
+	@Test
+	public void compiledViewWithoutRemovedJob() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		problem.removeJob(3);
+		CompiledProblem compiled = problem.compile();
+		assertEquals(problem.getOperations().size(), compiled.getJobCount());
+		assertSameView(problem, compiled);
+	}
+
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void unknownJob() throws URISyntaxException, IOException {
+		ProblemFixtures.parseWT1().compile().getJobIndex(1000);
+	}
+
+	@Test
+	public void sameSentinelForOtherMachines() throws URISyntaxException, IOException {
+		FJSSTTproblem dense = ProblemFixtures.parseWT1();
+		FJSSTTproblem sparse = ProblemFixtures.parseWT1();
+		sparse.setSparseProcessTimes(true);
+		for (ProblemView view : new ProblemView[] { dense, sparse, dense.compile() })
+			for (int job : dense.getJobIds())
+				for (int op = 0; op < dense.getOperationCount(job); ++op)
+					for (int m = 0; m < dense.getMachines(); ++m) {
+						if (dense.getAltMachines(job, op).contains(m))
+							assertNotEquals(Integer.MAX_VALUE, view.getProcessTime(job, op, m));
+						else
+							assertEquals(Integer.MAX_VALUE, view.getProcessTime(job, op, m));
+					}
+	}
+
+	@Test
+	public void jobIdsAreCached() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		assertSame(problem.getJobIds(), problem.getJobIds());
+		problem.removeJob(3);
+		assertArrayEquals(new int[] { 0, 1, 2, 4, 5, 6, 7, 8, 9 }, problem.getJobIds());
+		CompiledProblem compiled = problem.compile();
+		assertSame(compiled.getJobIds(), compiled.getJobIds());
+	}
+}
@@ -0,0 +1,149 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.SubgradientKernel;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.ConcurrentMultiplierStore;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemEngine;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverType;
+
+public class ConcurrentMultiplierStoreTest {
+
+	private final FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(40, 5, 4, 3, 9, 11), null,
+			ProblemGenerator.createTransport(5, 3, 11));
+
+	private SubproblemEngine engine() {
+		return new SubproblemEngine(new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming), 4, false);
+	}
+
+	@Test
+	public void concurrentAddsAreNotLost() throws InterruptedException {
+		final ConcurrentMultiplierStore store = new ConcurrentMultiplierStore(2, 3);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					for (int k = 0; k < 10000; k++)
+						store.add(1, 2, 0.5);
+				}
+			});
+		}
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		assertEquals(20000, store.get(1, 2), 0);
+		// projected to >= 0
+		assertEquals(0, store.add(0, 0, -1), 0);
+	}
+
+	@Test
+	public void stepLikeMultiplierTable() {
+		Map<Integer, Bid> bids;
+		try (SubproblemEngine engine = engine()) {
+			bids = engine.solve(problem);
+		}
+		ConcurrentMultiplierStore store = new ConcurrentMultiplierStore(problem.getMachines(), problem.getTimeSlots());
+		for (Bid bid : bids.values())
+			store.putBid(bid);
+		// replacing a bid by itself keeps the usage
+		Bid first = bids.values().iterator().next();
+		assertSame(first, store.putBid(first));
+
+		int[][] subgradients = new SubgradientKernel(problem).calcSubgradients(bids.values());
+		MultiplierTable expected = new MultiplierTable(problem.getMachines(), problem.getTimeSlots());
+		for (int step = 1; step <= 3; step++) {
+			expected.applySubgradientStep(subgradients, 0.5 / step);
+			assertEquals(step, store.applySubgradientStep(0.5 / step));
+		}
+		for (int m = 0; m < problem.getMachines(); m++) {
+			for (int t = 0; t < problem.getTimeSlots(); t++)
+				assertEquals(subgradients[m][t], store.getSubgradient(m, t));
+			assertArrayEquals(expected.getMultipliers()[m], store.toArray()[m], 1e-12);
+		}
+	}
+
+	@Test
+	public void viewsRefreshAndReportStaleness() {
+		ConcurrentMultiplierStore store = new ConcurrentMultiplierStore(new double[][] { { 1, 2 }, { 3, 4 } });
+		ConcurrentMultiplierStore.View view = store.newView();
+		MultiplierTable table = view.refresh();
+		assertEquals(3, table.sum(1, 0, 0), 0);
+		store.add(1, 0, 1);
+		store.applySubgradientStep(new int[][] { { 0, 0 }, { 0, 0 } }, 1);
+		store.applySubgradientStep(new int[][] { { 1, 0 }, { 0, 0 } }, 1);
+		assertEquals(2, view.getStaleness());
+		assertEquals(2, view.submit(new Bid(0, 0, new int[] { 0 }, new int[] { 0 }, new int[][] { { 1, 1 } }, 1)));
+		assertEquals(0, store.getSubgradient(0, 0));
+		assertSame(table, view.refresh());
+		assertEquals(0, view.getStaleness());
+		assertEquals(2, table.get(0, 0), 0);
+		assertEquals(4, table.get(1, 0), 0);
+		assertEquals(2, store.getMaxStaleness());
+	}
+
+	@Test
+	public void oneRowVersionPerStep() {
+		ConcurrentMultiplierStore store = new ConcurrentMultiplierStore(new double[][] { { 1, 2, 3 }, { 0, 0, 0 } });
+		store.applySubgradientStep(new int[][] { { 1, 1, 1 }, { -1, -1, -1 } }, 1);
+		assertEquals(1, store.getRowVersion(0));
+		// still 0, nothing changed
+		assertEquals(0, store.getRowVersion(1));
+		store.putBid(new Bid(0, 0, new int[] { 0 }, new int[] { 0 }, new int[][] { { 1, 1 } }, 1));
+		store.applySubgradientStep(1);
+		assertEquals(2, store.getRowVersion(0));
+		assertEquals(0, store.getRowVersion(1));
+		assertArrayEquals(new double[] { 2, 2, 3 }, store.toArray()[0], 0);
+		store.add(0, 1, 1);
+		assertEquals(3, store.getRowVersion(0));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void bidsAreReadOnly() {
+		ConcurrentMultiplierStore store = new ConcurrentMultiplierStore(1, 2);
+		store.putBid(new Bid(0, 0, new int[] { 0 }, new int[] { 0 }, new int[][] { { 1 } }, 1));
+		assertEquals(1, store.getBids().size());
+		store.getBids().clear();
+	}
+
+	@Test
+	public void asyncSearch() {
+		ConcurrentMultiplierStore store = new ConcurrentMultiplierStore(problem.getMachines(), problem.getTimeSlots());
+		Map<Integer, Bid> bids;
+		try (SubproblemEngine engine = engine()) {
+			bids = engine.solveAsync(problem.createSubproblems(), store, 5, 0.5);
+		}
+		assertEquals(problem.getOperations().size(), bids.size());
+		assertEquals(5, store.getVersion());
+		long submits = 0;
+		for (ConcurrentMultiplierStore.View view : store.getViews())
+			submits += view.getSubmits();
+		assertEquals(5 * problem.getOperations().size(), submits);
+		assertTrue(store.getMeanStaleness() >= 0 && store.getMeanStaleness() <= store.getMaxStaleness());
+		// usage of the store is the usage of the last bids
+		int[][] subgradients = new SubgradientKernel(problem).calcSubgradients(bids.values());
+		for (int m = 0; m < problem.getMachines(); m++)
+			for (int t = 0; t < problem.getTimeSlots(); t++) {
+				assertEquals(subgradients[m][t], store.getSubgradient(m, t));
+				assertTrue(store.get(m, t) >= 0);
+			}
+		assertNotSame(store.getBids(), bids);
+	}
+}
@@ -0,0 +1,120 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.DP_subproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+
+public class DP_subproblemTest {
+
+	static SubproblemInstance randomSubproblem(Random rng, int ops, int machines, int slots, Objective objective) {
+		Map<Integer, List<Integer>> alt = new HashMap<Integer, List<Integer>>();
+		int[][] processTimes = new int[ops][machines];
+		for (int op = 0; op < ops; op++) {
+			List<Integer> opMachines = new ArrayList<Integer>();
+			for (int m = 0; m < machines; m++)
+				if (rng.nextBoolean() || (m == machines - 1 && opMachines.isEmpty())) {
+					opMachines.add(m);
+					processTimes[op][m] = 1 + rng.nextInt(3);
+				}
+			alt.put(op, opMachines);
+		}
+		int[][] travel = new int[machines][machines];
+		for (int i = 0; i < machines; i++)
+			for (int j = 0; j < machines; j++)
+				travel[i][j] = i == j ? 0 : rng.nextInt(3);
+		SubproblemInstance sub = new SubproblemInstance(0, ops, machines, slots, alt, processTimes, travel, 6, rng.nextInt(3), 2,
+				objective);
+		sub.calcRandomMultipliers(rng.nextInt());
+		return sub;
+	}
+
+	/**
+	 * enumerates all machines and begin times
+	 */
+	static double bruteForce(SubproblemInstance sub, MultiplierTable table, int op, int[] machines, int[] begins) {
+		if (op == sub.getOperations())
+			return sub.calcCost(sub.getObjective(), new Bid(0, 0, machines, begins), table);
+		double best = Double.POSITIVE_INFINITY;
+		for (int m : sub.getAltMachines().get(op)) {
+			int earliest = sub.getHorizonStart();
+			if (op > 0)
+				earliest = begins[op - 1] + sub.getProcessTimes()[op - 1][machines[op - 1]] + sub.getTravelTimes()[machines[op - 1]][m];
+			for (int t = earliest; t < sub.getTimeSlots(); t++) {
+				machines[op] = m;
+				begins[op] = t;
+				best = Math.min(best, bruteForce(sub, table, op + 1, machines, begins));
+			}
+		}
+		return best;
+	}
+
+	static void assertFeasible(SubproblemInstance sub, Bid bid) {
+		assertTrue(bid.getOptimumBeginTimes()[0] >= sub.getHorizonStart());
+		for (int op = 1; op < sub.getOperations(); op++) {
+			int previous = bid.getOptimumMachines()[op - 1];
+			assertTrue(bid.getOptimumBeginTimes()[op] >= bid.getOptimumBeginTimes()[op - 1] + sub.getProcessTimes()[op - 1][previous]
+					+ sub.getTravelTimes()[previous][bid.getOptimumMachines()[op]]);
+		}
+		for (int op = 0; op < sub.getOperations(); op++)
+			assertTrue(sub.getAltMachines().get(op).contains(bid.getOptimumMachines()[op]));
+	}
+
+	@Test
+	public void optimalOnSmallSubproblems() {
+		Random rng = new Random(9);
+		DP_subproblem solver = new DP_subproblem();
+		for (int run = 0; run < 40; run++) {
+			Objective objective = run % 2 == 0 ? Objective.TARDINESS : Objective.COMPLETION_TIME;
+			SubproblemInstance sub = randomSubproblem(rng, 1 + rng.nextInt(3), 3, 14, objective);
+			MultiplierTable table = new MultiplierTable(sub.getMultipliers());
+			double expected = bruteForce(sub, table, 0, new int[sub.getOperations()], new int[sub.getOperations()]);
+			Bid bid = solver.solve(sub, table);
+			if (expected == Double.POSITIVE_INFINITY) {
+				assertNull(bid);
+				continue;
+			}
+			assertNotNull(bid);
+			assertFeasible(sub, bid);
+			assertEquals(expected, bid.getPrice(), 1e-9);
+			assertEquals(expected, sub.calcCost(objective, bid, table), 1e-9);
+		}
+	}
+
+	@Test
+	public void solvesParsedSubproblems() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		DP_subproblem solver = new DP_subproblem();
+		for (int job : problem.getJobIds()) {
+			SubproblemInstance sub = problem.createSubproblem(job);
+			// without prices the best solution has the minimum tardiness
+			Bid bid = solver.solve(sub);
+			assertNotNull(bid);
+			assertFeasible(sub, bid);
+			if (sub.getHorizonStart() == 0)
+				assertEquals(Math.max(0, problem.calcMinJobCompletionTime(job) - sub.getDueDate()) * sub.getJobWeight(), bid.getPrice(),
+						1e-9);
+			sub.calcRandomMultipliers(job);
+			bid = solver.solve(sub);
+			assertFeasible(sub, bid);
+			assertEquals(sub.calcCost(sub.getObjective(), bid, sub.getMultipliers()), bid.getPrice(), 1e-9);
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.model.problem.ElitePool;
+import at.ngmpps.fjsstt.model.problem.ElitePool.Entry;
+import at.ngmpps.fjsstt.model.problem.Solution;
+
+public class ElitePoolTest {
+
+	/**
+	 * one job with one operation at the given begin
+	 */
+	private static Solution solution(double objectiveValue, int begin) {
+		Map<Integer, int[]> begins = new HashMap<Integer, int[]>();
+		Map<Integer, int[]> machines = new HashMap<Integer, int[]>();
+		begins.put(0, new int[] { begin });
+		machines.put(0, new int[] { 1 });
+		begins.put(1, new int[] { 0, begin % 7 });
+		machines.put(1, new int[] { 0, 2 });
+		return new Solution(objectiveValue, begins, machines);
+	}
+
+	@Test
+	public void keepsBestDistinctSolutions() {
+		ElitePool pool = new ElitePool(3);
+		assertNull(pool.getBest());
+		assertEquals(Double.POSITIVE_INFINITY, pool.getUpperBound(), 0);
+		assertTrue(pool.offer(solution(10, 1)));
+		assertFalse(pool.offer(solution(10, 1)));
+		assertTrue(pool.offer(solution(10, 2)));
+		assertTrue(pool.offer(solution(5, 3)));
+		assertEquals(10, pool.getThreshold(), 0);
+		assertFalse(pool.offer(solution(10, 4)));
+		assertTrue(pool.offer(solution(7, 4)));
+		assertEquals(3, pool.size());
+		assertEquals(5, pool.getUpperBound(), 0);
+		List<Entry> entries = pool.getEntries();
+		assertEquals(5, entries.get(0).getObjectiveValue(), 0);
+		assertEquals(7, entries.get(1).getObjectiveValue(), 0);
+		assertEquals(10, entries.get(2).getObjectiveValue(), 0);
+
+		// a copy is kept
+		Solution offered = solution(1, 5);
+		pool.offer(offered);
+		assertNotSame(offered, pool.getBest());
+		assertTrue(offered.equals(pool.getBest()));
+		offered.setOperationsBeginTimes(0, 0, 99);
+		assertEquals(5, pool.getBest().getOperationsBeginTimes().get(0)[0]);
+	}
+
+	@Test
+	public void fingerprintDependsOnValuesOnly() {
+		assertEquals(ElitePool.fingerprint(solution(1, 3)), ElitePool.fingerprint(solution(2, 3)));
+		assertNotEquals(ElitePool.fingerprint(solution(1, 3)), ElitePool.fingerprint(solution(1, 4)));
+		Solution swapped = solution(1, 3);
+		int[] m = swapped.getOperationsMachineAssignments().get(0);
+		swapped.getOperationsMachineAssignments().put(0, swapped.getOperationsMachineAssignments().get(1));
+		swapped.getOperationsMachineAssignments().put(1, m);
+		assertNotEquals(ElitePool.fingerprint(solution(1, 3)), ElitePool.fingerprint(swapped));
+	}
+
+	@Test
+	public void tracksLowerBound() {
+		ElitePool pool = new ElitePool(1);
+		assertEquals(Double.NEGATIVE_INFINITY, pool.getLowerBound(), 0);
+		assertTrue(pool.offerLowerBound(solution(3, 0)));
+		assertFalse(pool.offerLowerBound(solution(2, 0)));
+		assertTrue(pool.offerLowerBound(solution(4, 0)));
+		assertEquals(4, pool.getLowerBound(), 0);
+	}
+
+	@Test
+	public void concurrentOffers() throws Exception {
+		final ElitePool pool = new ElitePool(10);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int w = 0; w < 4; w++) {
+				final int worker = w;
+				futures.add(executor.submit(() -> {
+					for (int i = 0; i < 2000; i++) {
+						int begin = (i * 31 + worker * 7) % 500;
+						pool.offer(solution(begin, begin));
+						pool.offerLowerBound(solution(-begin, 0));
+					}
+				}));
+			}
+			for (Future<?> f : futures)
+				f.get();
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(10, pool.size());
+		Set<Long> fingerprints = new HashSet<Long>();
+		for (int i = 0; i < 10; i++) {
+			assertEquals(i, pool.getEntries().get(i).getObjectiveValue(), 0);
+			fingerprints.add(pool.getEntries().get(i).getFingerprint());
+		}
+		assertEquals(10, fingerprints.size());
+		assertEquals(0, pool.getLowerBound(), 0);
+	}
+}
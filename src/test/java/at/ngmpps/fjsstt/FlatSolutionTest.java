@@ -0,0 +1,116 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.model.problem.CompiledProblem;
+import at.ngmpps.fjsstt.model.problem.ElitePool;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.FlatSolution;
+import at.ngmpps.fjsstt.model.problem.ListScheduling;
+import at.ngmpps.fjsstt.model.problem.Solution;
+
+public class FlatSolutionTest {
+
+	private CompiledProblem problem;
+
+	private Solution solution;
+
+	@Before
+	public void setUp() throws URISyntaxException, IOException {
+		FJSSTTproblem wt1 = ProblemFixtures.parseWT1();
+		problem = new CompiledProblem(wt1);
+		solution = new ListScheduling(problem).repair(new HashMap<Integer, int[]>(), new HashMap<Integer, int[]>());
+		solution.setIteration(7);
+	}
+
+	@Test
+	public void convertsLosslessly() {
+		FlatSolution flat = new FlatSolution(problem, solution);
+		Solution back = flat.toSolution();
+		assertTrue(solution.equals(back) && back.equals(solution));
+		assertEquals(solution.getOperationsBeginTimes().keySet(), back.getOperationsBeginTimes().keySet());
+		assertEquals(solution.getObjectiveValue(), back.getObjectiveValue(), 0);
+		assertEquals(7, back.getIteration());
+		assertEquals(flat, new FlatSolution(problem, back));
+
+		// missing jobs stay missing
+		Map<Integer, int[]> begins = new HashMap<Integer, int[]>(solution.getOperationsBeginTimes());
+		Map<Integer, int[]> machines = new HashMap<Integer, int[]>(solution.getOperationsMachineAssignments());
+		begins.remove(3);
+		machines.remove(3);
+		Solution partial = new FlatSolution(problem, new Solution(0, begins, machines)).toSolution();
+		assertEquals(begins.keySet(), partial.getOperationsBeginTimes().keySet());
+		assertEquals(FlatSolution.UNSET, new FlatSolution(problem, new Solution(0, begins, machines)).getMachine(problem.getOperationIndex(3, 0)));
+	}
+
+	@Test
+	public void fingerprintOfSolutionIsTheSame() {
+		FlatSolution flat = new FlatSolution(problem, solution);
+		assertEquals(ElitePool.fingerprint(solution), flat.getFingerprint());
+		flat.set(3, 1, 40, flat.getMachine(problem.getOperationIndex(3, 1)));
+		assertEquals(ElitePool.fingerprint(flat.toSolution()), flat.getFingerprint());
+		// a partly scheduled job
+		flat.setMachine(problem.getOperationIndex(3, 0), FlatSolution.UNSET);
+		assertEquals(ElitePool.fingerprint(flat.toSolution()), flat.getFingerprint());
+
+		// the pool keys both forms the same
+		ElitePool pool = new ElitePool(4);
+		assertTrue(pool.offer(new FlatSolution(problem, solution)));
+		assertFalse(pool.offer(solution));
+		assertFalse(pool.offer(new FlatSolution(problem, solution)));
+		assertTrue(pool.offer(flat));
+		assertFalse(pool.offer(flat.toSolution()));
+		assertEquals(2, pool.size());
+		assertEquals(ElitePool.fingerprint(pool.getEntries().get(0).getSolution()), pool.getEntries().get(0).getFingerprint());
+	}
+
+	@Test
+	public void fingerprintFollowsChanges() {
+		FlatSolution flat = new FlatSolution(problem, solution);
+		FlatSolution copy = flat.copy();
+		assertEquals(flat, copy);
+		assertEquals(flat.hashCode(), copy.hashCode());
+
+		long before = flat.getFingerprint();
+		int o = problem.getOperationIndex(2, 1);
+		int begin = flat.getBeginTime(o);
+		flat.setBeginTime(o, begin + 1);
+		assertNotEquals(before, flat.getFingerprint());
+		assertEquals(flat.calcFingerprint(), flat.getFingerprint());
+		assertFalse(flat.equals(copy));
+		flat.setBeginTime(o, begin);
+		assertEquals(before, flat.getFingerprint());
+		assertEquals(flat, copy);
+
+		// the same values at other operations give another fingerprint
+		int a = problem.getOperationIndex(0, 0), b = problem.getOperationIndex(1, 0);
+		flat.set(a, 1, 0);
+		flat.set(b, 2, 1);
+		copy.set(a, 2, 1);
+		copy.set(b, 1, 0);
+		assertNotEquals(flat.getFingerprint(), copy.getFingerprint());
+
+		copy.copyFrom(flat);
+		assertEquals(flat, copy);
+		assertArrayEquals(flat.getBeginTimes(), copy.getBeginTimes());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsWrongLength() {
+		Map<Integer, int[]> begins = new HashMap<Integer, int[]>(solution.getOperationsBeginTimes());
+		begins.put(0, new int[begins.get(0).length + 1]);
+		new FlatSolution(problem, new Solution(0, begins, solution.getOperationsMachineAssignments()));
+	}
+}
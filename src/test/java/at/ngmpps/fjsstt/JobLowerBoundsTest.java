@@ -0,0 +1,87 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.CompiledProblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.JobLowerBounds;
+
+public class JobLowerBoundsTest {
+
+	private static Map<Integer, Integer> averageMaxSlacks(FJSSTTproblem problem) {
+		Map<Integer, Integer> result = new HashMap<Integer, Integer>();
+		for (Integer job : problem.getOperations().keySet()) {
+			int jobSlack = Math.max(0, problem.getDueDates().get(job) - problem.calcMinJobCompletionTime(job));
+			result.put(job, (int) ((double) jobSlack / problem.getOperations().get(job)));
+		}
+		return result;
+	}
+
+	@Test
+	public void sameAsDynamicProgramming() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		CompiledProblem compiled = problem.compile();
+		Map<Integer, Integer> completionTimes = problem.getLowerBounds().getMinJobCompletionTimes();
+		assertEquals(problem.getOperations().size(), completionTimes.size());
+		for (int job : problem.getJobIds())
+			assertEquals(compiled.calcMinJobCompletionTime(job), (int) completionTimes.get(job));
+		assertEquals(averageMaxSlacks(problem), problem.calcAverageMaxSlacks());
+	}
+
+	@Test
+	public void parallelOnLargeProblem() {
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(500, 40, 10, 5, 20, 11),
+				null, ProblemGenerator.createTransport(40, 5, 11));
+		JobLowerBounds bounds = problem.getLowerBounds();
+		Map<Integer, Integer> completionTimes = bounds.getMinJobCompletionTimes();
+		assertEquals(500, bounds.size());
+		for (int job : problem.getJobIds())
+			assertEquals(problem.calcMinJobCompletionTime(job), (int) completionTimes.get(job));
+		for (Map.Entry<Integer, Integer> slack : bounds.getSlacks().entrySet())
+			assertEquals(Math.max(0, problem.getDueDates().get(slack.getKey()) - completionTimes.get(slack.getKey())), (int) slack.getValue());
+	}
+
+	@Test
+	public void invalidatedOnJobChanges() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		FJSSTTproblem original = ProblemFixtures.parseWT1();
+		JobLowerBounds bounds = problem.getLowerBounds();
+		bounds.getMinJobCompletionTimes();
+		assertEquals(10, bounds.size());
+
+		problem.removeJob(4);
+		assertEquals(9, bounds.size());
+		assertEquals(9, bounds.getMinJobCompletionTimes().size());
+
+		problem.restoreJob(4, original);
+		assertEquals(9, bounds.size());
+		assertEquals(original.calcMinJobCompletionTime(4), bounds.getMinJobCompletionTime(4));
+
+		// replace job 4 by one with doubled process times
+		int[][] processTimes = original.getProcessTimes().get(4);
+		int[][] doubled = new int[processTimes.length][];
+		for (int op = 0; op < doubled.length; ++op) {
+			doubled[op] = processTimes[op].clone();
+			for (int m = 0; m < doubled[op].length; ++m)
+				doubled[op][m] *= 2;
+		}
+		problem.addJob(4, original.getOperations().get(4), doubled, original.getAltMachines(4), original.getDueDates().get(4),
+				original.getJobWeights().get(4));
+		assertNotEquals(original.calcMinJobCompletionTime(4), bounds.getMinJobCompletionTime(4));
+		assertEquals(problem.calcMinJobCompletionTime(4), bounds.getMinJobCompletionTime(4));
+		assertEquals(original.calcMinJobCompletionTime(3), bounds.getMinJobCompletionTime(3));
+
+		problem.setTravelTimes(problem.getTravelTimes());
+		assertEquals(0, bounds.size());
+	}
+}
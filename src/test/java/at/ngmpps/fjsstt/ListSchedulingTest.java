@@ -0,0 +1,134 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.CompiledProblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.ListScheduling;
+import at.ngmpps.fjsstt.model.problem.MachineTimeline;
+import at.ngmpps.fjsstt.model.problem.Solution;
+import at.ngmpps.fjsstt.model.problem.SurrogateSearch;
+import at.ngmpps.fjsstt.model.problem.SurrogateSearch.SearchType;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverType;
+
+public class ListSchedulingTest {
+
+	private FJSSTTproblem wt1;
+
+	@Before
+	public void setUp() throws URISyntaxException, IOException {
+		wt1 = ProblemFixtures.parseWT1();
+	}
+
+	@Test
+	public void timelineFillsGaps() {
+		MachineTimeline timeline = new MachineTimeline();
+		timeline.occupy(5, 3);
+		assertEquals(2, timeline.getGaps());
+		assertEquals(0, timeline.earliestStart(0, 5));
+		assertEquals(8, timeline.earliestStart(0, 6));
+		assertEquals(8, timeline.earliestStart(6, 1));
+		timeline.occupy(0, 5);
+		assertEquals(1, timeline.getGaps());
+		assertFalse(timeline.isIdle(7, 1));
+		assertTrue(timeline.isIdle(8, 100));
+		assertEquals(8, timeline.earliestStart(2, 1));
+	}
+
+	@Test
+	public void timelineFirstFitLikeScan() {
+		Random rng = new Random(17);
+		int horizon = 4000;
+		boolean[] busy = new boolean[horizon];
+		MachineTimeline timeline = new MachineTimeline();
+		// many short gaps
+		for (int i = 0; i < 1500; i++) {
+			int begin = rng.nextInt(horizon - 3);
+			int length = 1 + rng.nextInt(3);
+			if (!timeline.isIdle(begin, length))
+				continue;
+			timeline.occupy(begin, length);
+			for (int t = begin; t < begin + length; t++)
+				busy[t] = true;
+		}
+		assertTrue(timeline.getGaps() > 500);
+		for (int i = 0; i < 2000; i++) {
+			int ready = rng.nextInt(horizon);
+			int length = 1 + rng.nextInt(i % 2 == 0 ? 4 : 40);
+			// scan: the candidate begins after the last busy slot seen
+			int expected = ready;
+			for (int t = ready; t < expected + length && t < horizon; t++)
+				if (busy[t])
+					expected = t + 1;
+			assertEquals(expected, timeline.earliestStart(ready, length));
+		}
+		// the gap tree agrees slot by slot
+		for (int t = 0; t < horizon; t++)
+			assertEquals(!busy[t], timeline.isIdle(t, 1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void timelineRejectsOverlap() {
+		MachineTimeline timeline = new MachineTimeline();
+		timeline.occupy(5, 3);
+		timeline.occupy(7, 1);
+	}
+
+	@Test
+	public void repairsRelaxedSolution() {
+		SurrogateSearch search = new SurrogateSearch(wt1, new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming),
+				SearchType.SurrogateSubgradientSearch, 3, 0.1, 20, 0.2);
+		search.run(5);
+		Solution relaxed = search.getSolution();
+		Solution repaired = new ListScheduling(wt1).repair(relaxed);
+		assertEquals(0, ListScheduling.countViolations(wt1, repaired.getOperationsBeginTimes(), repaired.getOperationsMachineAssignments()));
+		assertEquals(ListScheduling.calcObjectiveValue(wt1, repaired.getOperationsBeginTimes(), repaired.getOperationsMachineAssignments()),
+				repaired.getObjectiveValue(), 0);
+		assertEquals(relaxed.getIteration(), repaired.getIteration());
+		// relaxed machines are kept
+		for (Integer job : relaxed.getOperationsMachineAssignments().keySet())
+			for (int op = 0; op < wt1.getOperations().get(job); op++)
+				assertEquals(relaxed.getOperationsMachineAssignments().get(job)[op], repaired.getOperationsMachineAssignments().get(job)[op]);
+		// the repaired schedule is an upper bound
+		assertTrue(repaired.getObjectiveValue() >= search.getLowerBound());
+	}
+
+	@Test
+	public void schedulesJobsWithoutRelaxedSolution() {
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(200, 8, 5, 3, 9, 22), null,
+				ProblemGenerator.createTransport(8, 4, 22));
+		CompiledProblem compiled = new CompiledProblem(problem);
+		ListScheduling scheduling = new ListScheduling(compiled);
+		Solution empty = scheduling.repair(new HashMap<Integer, int[]>(), new HashMap<Integer, int[]>());
+		Map<Integer, int[]> begins = empty.getOperationsBeginTimes();
+		Map<Integer, int[]> machines = empty.getOperationsMachineAssignments();
+		assertEquals(200, begins.size());
+		assertEquals(0, ListScheduling.countViolations(problem, begins, machines));
+
+		// everything at time 0 on the same machines: heavily overloaded
+		Map<Integer, int[]> zero = new HashMap<Integer, int[]>();
+		for (Integer job : begins.keySet())
+			zero.put(job, new int[begins.get(job).length]);
+		assertTrue(ListScheduling.countViolations(problem, zero, machines) > 0);
+		Solution repaired = scheduling.repair(zero, machines);
+		assertEquals(0, ListScheduling.countViolations(problem, repaired.getOperationsBeginTimes(), repaired.getOperationsMachineAssignments()));
+
+		scheduling.setReassignMachines(true);
+		repaired = scheduling.repair(zero, machines);
+		assertEquals(0, ListScheduling.countViolations(problem, repaired.getOperationsBeginTimes(), repaired.getOperationsMachineAssignments()));
+	}
+}
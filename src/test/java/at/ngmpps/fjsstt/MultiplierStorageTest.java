@@ -0,0 +1,130 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.DoubleMultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.FloatMultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.SparseMultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemEngine;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverType;
+
+public class MultiplierStorageTest {
+
+	/**
+	 * mostly zero, values exact in float
+	 */
+	private static double[][] randomMultipliers(Random rng, int machines, int slots) {
+		double[][] multipliers = new double[machines][slots];
+		for (int m = 0; m < machines; m++)
+			for (int t = 0; t < slots; t++)
+				if (rng.nextInt(10) == 0)
+					multipliers[m][t] = rng.nextInt(64) / 8.0;
+		return multipliers;
+	}
+
+	@Test
+	public void variantsAgree() {
+		Random rng = new Random(3);
+		double[][] expected = randomMultipliers(rng, 4, 50);
+		MultiplierStorage[] storages = { new DoubleMultiplierStorage(expected), new FloatMultiplierStorage(expected),
+				new SparseMultiplierStorage(expected) };
+		MultiplierTable table = new MultiplierTable(expected);
+		for (MultiplierStorage storage : storages) {
+			assertEquals(4, storage.getMachines());
+			assertEquals(50, storage.getTimeSlots());
+			for (int m = 0; m < 4; m++) {
+				assertArrayEquals(expected[m], storage.toArray()[m], 0);
+				for (int from = -2; from < 52; from += 3)
+					for (int pt = 1; pt < 12; pt += 2)
+						assertEquals(table.price(m, from, pt), storage.price(m, from, pt), 1e-9);
+				assertEquals(table.price(m, 3, Integer.MAX_VALUE), storage.price(m, 3, Integer.MAX_VALUE), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void sparseSetInsertsAndRemoves() {
+		SparseMultiplierStorage sparse = new SparseMultiplierStorage(2, 20);
+		double[][] expected = new double[2][20];
+		Random rng = new Random(5);
+		for (int i = 0; i < 500; i++) {
+			int m = rng.nextInt(2);
+			int t = rng.nextInt(20);
+			double value = rng.nextInt(3) == 0 ? 0 : rng.nextInt(9);
+			sparse.set(m, t, value);
+			expected[m][t] = value;
+			assertEquals(expected[m][t], sparse.get(m, t), 0);
+		}
+		int nonZeros = 0;
+		for (int m = 0; m < 2; m++) {
+			assertArrayEquals(expected[m], sparse.toArray()[m], 0);
+			for (double value : expected[m])
+				nonZeros += value != 0 ? 1 : 0;
+		}
+		assertEquals(nonZeros, sparse.getNonZeros());
+	}
+
+	@Test
+	public void memory() {
+		double[][] multipliers = randomMultipliers(new Random(7), 50, 2000);
+		long dense = new DoubleMultiplierStorage(multipliers).estimateBytes();
+		assertTrue(new FloatMultiplierStorage(multipliers).estimateBytes() < dense * 0.6);
+		assertTrue(new SparseMultiplierStorage(multipliers).estimateBytes() < dense * 0.3);
+	}
+
+	@Test
+	public void subproblemsShareStorage() {
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(20, 5, 4, 3, 9, 8), null,
+				ProblemGenerator.createTransport(5, 3, 8));
+		double[][] multipliers = randomMultipliers(new Random(9), problem.getMachines(), problem.getTimeSlots());
+		SparseMultiplierStorage shared = new SparseMultiplierStorage(multipliers);
+		SubproblemInstance[] subproblems = problem.createSubproblems(shared);
+		MultiplierTable table = new MultiplierTable(multipliers);
+		Map<Integer, Bid> bids;
+		try (SubproblemEngine engine = new SubproblemEngine(new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming))) {
+			bids = engine.solve(subproblems, table);
+		}
+		for (SubproblemInstance sub : subproblems) {
+			assertSame(shared, sub.getMultiplierStorage());
+			Bid bid = bids.get(sub.getJobID());
+			assertEquals(bid.getPrice(), sub.calcCost(sub.getObjective(), bid, shared), 1e-9);
+			// pricing with a table keeps the shared storage
+			assertEquals(bid.getPrice(), sub.calcCost(sub.getObjective(), bid, table), 1e-9);
+			sub.calcAugmentedCost(sub.getObjective(), bid, table);
+			assertSame(shared, sub.getMultiplierStorage());
+			// no array that could be changed
+			try {
+				sub.getMultipliers();
+				fail();
+			} catch (UnsupportedOperationException e) {
+				// expected
+			}
+			// pricing with an array sets it
+			assertEquals(bid.getPrice(), sub.calcCost(sub.getObjective(), bid, multipliers), 1e-9);
+			assertSame(multipliers, sub.getMultipliers());
+			sub.setMultiplierStorage(shared);
+			sub.calcAugmentedCost(sub.getObjective(), bid, multipliers);
+			assertSame(multipliers, sub.getMultipliers());
+		}
+		// own array on first use
+		SubproblemInstance own = problem.createSubproblem(0);
+		assertSame(own.getMultipliers(), ((DoubleMultiplierStorage) own.getMultiplierStorage()).getMultipliers());
+	}
+}
@@ -0,0 +1,94 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+
+public class MultiplierTableTest {
+
+	private static double naiveSum(double[][] multipliers, int machine, int from, int to) {
+		double sum = 0;
+		for (int k = Math.max(0, from); k <= to && k < multipliers[machine].length; k++)
+			sum += multipliers[machine][k];
+		return sum;
+	}
+
+	private static double[][] random(Random rng, int machines, int slots) {
+		double[][] result = new double[machines][slots];
+		for (double[] row : result)
+			for (int k = 0; k < row.length; k++)
+				row[k] = rng.nextDouble() * 5;
+		return result;
+	}
+
+	private static void assertSums(MultiplierTable table, Random rng) {
+		for (int i = 0; i < 1000; i++) {
+			int machine = rng.nextInt(table.getMachines());
+			int from = rng.nextInt(table.getTimeSlots() + 10) - 5;
+			int to = from + rng.nextInt(50) - 2;
+			assertEquals(naiveSum(table.getMultipliers(), machine, from, to), table.sum(machine, from, to), 1e-9);
+		}
+	}
+
+	@Test
+	public void intervalSums() {
+		Random rng = new Random(1);
+		MultiplierTable table = new MultiplierTable(random(rng, 5, 200));
+		assertSums(table, rng);
+
+		table.set(3, 17, 100);
+		assertEquals(100, table.get(3, 17), 0);
+		table.set(1, 50, new double[] { 1, 2, 3 });
+		assertSums(table, rng);
+
+		int[][] subgradients = new int[5][200];
+		for (int[] row : subgradients)
+			for (int k = 0; k < row.length; k += 7)
+				row[k] = rng.nextInt(5) - 3;
+		double[][] expected = new double[5][];
+		for (int m = 0; m < 5; m++) {
+			expected[m] = table.getMultipliers()[m].clone();
+			for (int k = 0; k < 200; k++)
+				expected[m][k] = Math.max(0, expected[m][k] + 0.7 * subgradients[m][k]);
+		}
+		table.applySubgradientStep(subgradients, 0.7);
+		for (int m = 0; m < 5; m++)
+			for (int k = 0; k < 200; k++)
+				assertEquals(expected[m][k], table.get(m, k), 0);
+		assertSums(table, rng);
+	}
+
+	@Test
+	public void sameCostAsArrays() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		Random rng = new Random(2);
+		double[][] multipliers = random(rng, problem.getMachines(), problem.getTimeSlots());
+		MultiplierTable table = new MultiplierTable(multipliers);
+		for (int job : problem.getJobIds()) {
+			SubproblemInstance sub = problem.createSubproblem(job);
+			sub.setTimezoneLength(3);
+			sub.setTimezoneFactor(0.5);
+			int[] machines = new int[sub.getOperations()];
+			int[] begins = new int[sub.getOperations()];
+			for (int op = 0; op < sub.getOperations(); op++) {
+				List<Integer> alt = sub.getAltMachines().get(op);
+				machines[op] = alt.get(rng.nextInt(alt.size()));
+				begins[op] = rng.nextInt(problem.getTimeSlots());
+			}
+			Bid bid = new Bid(job, 0, machines, begins);
+			assertEquals(sub.calcCost(problem.getObjective(), bid, multipliers), sub.calcCost(problem.getObjective(), bid, table), 1e-9);
+			assertEquals(sub.calcAugmentedCost(problem.getObjective(), bid, multipliers),
+					sub.calcAugmentedCost(problem.getObjective(), bid, table), 1e-9);
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierUpdateKernel;
+
+public class MultiplierUpdateKernelTest {
+
+	private static final int MACHINES = 20;
+
+	private static final int SLOTS = 60;
+
+	private static List<Bid> randomBids(Random rng, int jobs) {
+		List<Bid> bids = new ArrayList<Bid>();
+		for (int job = 0; job < jobs; job++) {
+			int ops = 1 + rng.nextInt(4);
+			int[] machines = new int[ops];
+			int[] begins = new int[ops];
+			int[][] processTimes = new int[ops][MACHINES];
+			for (int op = 0; op < ops; op++) {
+				machines[op] = rng.nextInt(MACHINES);
+				begins[op] = rng.nextInt(SLOTS);
+				// may end after the horizon
+				processTimes[op][machines[op]] = 1 + rng.nextInt(8);
+			}
+			bids.add(new Bid(job, 0, machines, begins, processTimes, ops));
+		}
+		return bids;
+	}
+
+	private static int[][] subgradients(List<Bid> bids) {
+		int[][] g = new int[MACHINES][SLOTS];
+		for (int[] row : g)
+			Arrays.fill(row, -1);
+		for (Bid bid : bids)
+			for (int[] slot : bid.getOccupiedTimeSlots())
+				if (slot[1] < SLOTS)
+					g[slot[0]][slot[1]]++;
+		return g;
+	}
+
+	@Test
+	public void sameAsDenseStep() {
+		Random rng = new Random(12);
+		MultiplierTable expected = new MultiplierTable(MACHINES, SLOTS);
+		MultiplierTable table = new MultiplierTable(MACHINES, SLOTS);
+		MultiplierUpdateKernel kernel = new MultiplierUpdateKernel(table);
+		int machinesPerTask = MultiplierUpdateKernel.MACHINES_PER_TASK;
+		try {
+			// parallel with several tasks
+			MultiplierUpdateKernel.MACHINES_PER_TASK = 3;
+			for (int step = 1; step <= 30; step++) {
+				List<Bid> bids = randomBids(rng, 30);
+				int changed = expected.applySubgradientStep(subgradients(bids), 1.0 / step);
+				assertEquals(changed, kernel.applySubgradientStep(bids, 1.0 / step));
+				int active = 0;
+				for (int m = 0; m < MACHINES; m++) {
+					assertArrayEquals(expected.getMultipliers()[m], table.getMultipliers()[m], 1e-12);
+					for (int t = 0; t < SLOTS; t++) {
+						active += table.get(m, t) > 0 ? 1 : 0;
+						assertEquals(expected.sum(m, 0, t), table.sum(m, 0, t), 1e-9);
+					}
+				}
+				assertEquals(active, kernel.getActiveSlotCount());
+			}
+		} finally {
+			MultiplierUpdateKernel.MACHINES_PER_TASK = machinesPerTask;
+		}
+	}
+
+	@Test
+	public void incrementalSameAsDenseStep() {
+		Random rng = new Random(13);
+		MultiplierTable expected = new MultiplierTable(MACHINES, SLOTS);
+		MultiplierTable table = new MultiplierTable(MACHINES, SLOTS);
+		MultiplierUpdateKernel kernel = new MultiplierUpdateKernel(table);
+		List<Bid> bids = randomBids(rng, 30);
+		int[][] usage = new int[MACHINES][SLOTS];
+		int[] overloadedMachines = new int[MACHINES * SLOTS];
+		int[] overloadedSlots = new int[MACHINES * SLOTS];
+		int count = 0;
+		for (int step = 1; step <= 30; step++) {
+			// replace some bids, the caller tracks the slots that became overloaded
+			for (int job = 0; job < bids.size(); job++) {
+				if (step > 1 && rng.nextInt(4) != 0)
+					continue;
+				if (step > 1)
+					for (int[] slot : bids.get(job).getOccupiedTimeSlots())
+						if (slot[1] < SLOTS)
+							usage[slot[0]][slot[1]]--;
+				Bid bid = randomBids(rng, 1).get(0);
+				bids.set(job, bid);
+				for (int[] slot : bid.getOccupiedTimeSlots())
+					if (slot[1] < SLOTS && ++usage[slot[0]][slot[1]] == 2) {
+						overloadedMachines[count] = slot[0];
+						overloadedSlots[count++] = slot[1];
+					}
+			}
+			int[][] g = subgradients(bids);
+			for (int m = 0; m < MACHINES; m++)
+				for (int t = 0; t < SLOTS; t++)
+					assertEquals(g[m][t], usage[m][t] - 1);
+			int changed = expected.applySubgradientStep(g, 1.0 / step);
+			assertEquals(changed, kernel.applySubgradientStep(usage, overloadedMachines, overloadedSlots, count, 1.0 / step));
+			count = 0;
+			int active = 0;
+			for (int m = 0; m < MACHINES; m++) {
+				assertArrayEquals(expected.getMultipliers()[m], table.getMultipliers()[m], 1e-12);
+				for (int t = 0; t < SLOTS; t++) {
+					active += table.get(m, t) > 0 ? 1 : 0;
+					assertEquals(expected.sum(m, 0, t), table.sum(m, 0, t), 1e-9);
+				}
+			}
+			assertEquals(active, kernel.getActiveSlotCount());
+		}
+	}
+
+	@Test
+	public void startsFromGivenMultipliers() {
+		double[][] multipliers = new double[MACHINES][SLOTS];
+		multipliers[2][5] = 0.5;
+		multipliers[3][7] = 2;
+		MultiplierUpdateKernel kernel = new MultiplierUpdateKernel(multipliers);
+		assertEquals(2, kernel.getActiveSlotCount());
+		// no bids: all slots idle
+		assertEquals(2, kernel.applySubgradientStep(Collections.<Bid> emptyList(), 1));
+		assertEquals(0, multipliers[2][5], 0);
+		assertEquals(1, multipliers[3][7], 0);
+		assertEquals(0, kernel.getActiveSlotCount(2));
+		assertEquals(1, kernel.getActiveSlotCount(3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsBidsWithoutIntervals() {
+		new MultiplierUpdateKernel(new double[MACHINES][SLOTS])
+				.applySubgradientStep(Collections.singletonList(new Bid(0, 0, new int[] { 0 }, new int[] { 0 })), 1);
+	}
+}
@@ -0,0 +1,101 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.factory.ModelFactory;
+import at.ngmpps.fjsstt.factory.ProblemCache;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.ProblemSet;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+
+public class ProblemCacheTest {
+
+	private String fjs;
+	private String transport;
+	private String properties;
+
+	@Before
+	public void setUp() throws Exception {
+		fjs = ProblemFixtures.read(ProblemFixtures.WT1_FJS);
+		transport = ProblemFixtures.read(ProblemFixtures.WT1_TRANSPORT);
+		properties = ProblemFixtures.read(ProblemFixtures.WT1_PROPERTIES);
+	}
+
+	@Test
+	public void hitsReturnIndependentCopies() {
+		ProblemCache cache = new ProblemCache(1 << 20);
+		FJSSTTproblem first = cache.parseStrings(fjs, properties, transport);
+		first.removeJob(0);
+		FJSSTTproblem second = cache.parseStrings(fjs, properties, transport);
+		assertNotSame(first, second);
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+		assertEquals(10, second.getJobs());
+		FJSSTTproblem parsed = ProblemParser.parseStrings(fjs, properties, transport);
+		ProblemParserTest.assertSameProblem(parsed, second);
+		// in the order of the parsed maps
+		assertEquals(new ArrayList<Integer>(parsed.getOperations().keySet()), new ArrayList<Integer>(second.getOperations().keySet()));
+	}
+
+	@Test
+	public void filesAndStringsShareEntries() throws URISyntaxException, IOException {
+		ProblemCache cache = new ProblemCache(1 << 20);
+		cache.parseStrings(fjs, properties, transport);
+		FJSSTTproblem fromFiles = cache.parseFiles(ProblemFixtures.path(ProblemFixtures.WT1_FJS), ProblemFixtures.path(ProblemFixtures.WT1_PROPERTIES),
+				ProblemFixtures.path(ProblemFixtures.WT1_TRANSPORT));
+		assertEquals(1, cache.getHits());
+		assertEquals(10, fromFiles.getJobs());
+	}
+
+	@Test
+	public void evictsByRetainedBytes() {
+		long size = ProblemCache.estimateBytes(ProblemParser.parseStrings(fjs, properties, transport));
+		ProblemCache cache = new ProblemCache(size * 2 + size / 2);
+		ProblemSet srfg = ModelFactory.createSrfgProblemSet();
+		cache.parseStrings(fjs, properties, transport);
+		cache.parseStrings(fjs, properties, "");
+		assertEquals(2, cache.size());
+		assertEquals(0, cache.getEvictions());
+		// larger than the two others together
+		cache.parse(srfg);
+		assertTrue(cache.getEvictions() >= 1);
+		assertTrue(cache.getRetainedBytes() <= cache.getMaxBytes());
+	}
+
+	@Test
+	public void parserEntryPointsShareCachedProblem() throws URISyntaxException, IOException {
+		ProblemCache shared = ProblemParser.getCache();
+		long hits = shared.getHits();
+		FJSSTTproblem first = ProblemParser.parseStrings(fjs, properties, transport, true);
+		FJSSTTproblem second = ProblemParser.parseStrings(fjs, properties, transport, true);
+		assertNotSame(first, second);
+		// each copy reads its own process time arrays
+		first.getProcessTimes().get(0)[0][0] = -1;
+		assertEquals(ProblemParser.parseStrings(fjs, properties, transport).getProcessTimes().get(0)[0][0],
+				second.getProcessTimes().get(0)[0][0]);
+		assertSame(first.getTravelTimes(), second.getTravelTimes());
+		assertTrue(shared.getHits() > hits);
+
+		boolean useCache = ProblemParser.USE_CACHE;
+		ProblemParser.USE_CACHE = true;
+		try {
+			FJSSTTproblem fromFiles = ProblemParser.parseFiles(ProblemFixtures.path(ProblemFixtures.WT1_FJS),
+					ProblemFixtures.path(ProblemFixtures.WT1_PROPERTIES), ProblemFixtures.path(ProblemFixtures.WT1_TRANSPORT));
+			assertSame(first.getTravelTimes(), fromFiles.getTravelTimes());
+		} finally {
+			ProblemParser.USE_CACHE = useCache;
+		}
+		// not cached by default
+		assertNotSame(first.getTravelTimes(), ProblemParser.parseStrings(fjs, properties, transport).getTravelTimes());
+	}
+}
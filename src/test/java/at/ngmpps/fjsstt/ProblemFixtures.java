@@ -0,0 +1,43 @@
+package at.ngmpps.fjsstt;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+
+/**
+ * The problems of the test resources, shared by the tests.
+ */
+public class ProblemFixtures {
+
+	public static final String WT1_FJS = "/problems/p1/WT1.fjs";
+
+	public static final String WT1_PROPERTIES = "/problems/p1/WT1A.PROPERTIES";
+
+	public static final String WT1_TRANSPORT = "/problems/p1/WT1A.TRANSPORT";
+
+	/**
+	 * @return the file system path of a test resource
+	 */
+	public static String path(String resource) throws URISyntaxException {
+		return ProblemFixtures.class.getResource(resource).toURI().getPath();
+	}
+
+	/**
+	 * @return the content of a test resource
+	 */
+	public static String read(String resource) throws URISyntaxException, IOException {
+		return new String(Files.readAllBytes(Paths.get(ProblemFixtures.class.getResource(resource).toURI())), "UTF-8");
+	}
+
+	/**
+	 * @return a new instance of the WT1 problem with the WT1A properties and
+	 *         transport times
+	 */
+	public static FJSSTTproblem parseWT1() throws URISyntaxException, IOException {
+		return ProblemParser.parseFiles(path(WT1_FJS), path(WT1_PROPERTIES), path(WT1_TRANSPORT));
+	}
+}
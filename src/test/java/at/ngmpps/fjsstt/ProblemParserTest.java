@@ -0,0 +1,144 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.factory.IntLineTokenizer;
+import at.ngmpps.fjsstt.factory.JobStreamParser;
+import at.ngmpps.fjsstt.factory.ModelFactory;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.ProblemSet;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+
+public class ProblemParserTest {
+
+	private String FJSfile = "/problems/p1/WT1.fjs";
+	private String PropertiesFile = "/problems/p1/WT1A.PROPERTIES";
+	private String TransportFile = "/problems/p1/WT1A.TRANSPORT";
+
+	private String fjs;
+	private String transport;
+	private String properties;
+
+	@Before
+	public void setUp() throws Exception {
+		fjs = readFile(FJSfile);
+		transport = readFile(TransportFile);
+		properties = readFile(PropertiesFile);
+	}
+
+	private String readFile(String name) throws IOException, URISyntaxException {
+		return new String(Files.readAllBytes(Paths.get(this.getClass().getResource(name).toURI())), "UTF-8");
+	}
+
+	public static void assertSameProblem(FJSSTTproblem expected, FJSSTTproblem actual) {
+		assertEquals(expected.getMachines(), actual.getMachines());
+		assertEquals(expected.getMaxOperations(), actual.getMaxOperations());
+		assertEquals(expected.getTimeSlots(), actual.getTimeSlots());
+		assertEquals(expected.getOperations(), actual.getOperations());
+		assertEquals(expected.getAltMachines(), actual.getAltMachines());
+		assertEquals(expected.getDueDates(), actual.getDueDates());
+		assertEquals(expected.getReleaseTimes(), actual.getReleaseTimes());
+		assertEquals(expected.getJobWeights(), actual.getJobWeights());
+		assertEquals(expected.getObjective(), actual.getObjective());
+		assertEquals(expected.getProcessTimes().keySet(), actual.getProcessTimes().keySet());
+		for (Integer job : expected.getProcessTimes().keySet())
+			assertArrayEquals(expected.getProcessTimes().get(job), actual.getProcessTimes().get(job));
+		assertArrayEquals(expected.getTravelTimes(), actual.getTravelTimes());
+	}
+
+	private FJSSTTproblem parseStrings(String fjs, String transport, String properties, boolean tokenizer) throws IOException {
+		ProblemParser parser = new ProblemParser();
+		parser.setUseTokenizer(tokenizer);
+		parser.parseProblem(fjs);
+		parser.parseConfiguration(properties);
+		parser.parseTransportTimesString(transport);
+		return parser.getProblem();
+	}
+
+	@Test
+	public void tokenizerParsesSameProblem() throws IOException {
+		assertSameProblem(parseStrings(fjs, transport, properties, false), parseStrings(fjs, transport, properties, true));
+		// space separated and without trailing line break
+		ProblemSet srfg = ModelFactory.createSrfgProblemSet();
+		assertSameProblem(parseStrings(srfg.getFjs(), srfg.getTransport(), srfg.getProperties(), false),
+				parseStrings(srfg.getFjs(), srfg.getTransport(), srfg.getProperties(), true));
+		// windows line breaks
+		String crlf = fjs.replace("\n", "\r\n");
+		assertSameProblem(parseStrings(crlf, transport, properties, false), parseStrings(crlf, transport, properties, true));
+	}
+
+	@Test
+	public void tokenizerParsesSameProblemFile() throws IOException, URISyntaxException {
+		File file = new File(this.getClass().getResource(FJSfile).toURI());
+		ProblemParser regex = new ProblemParser().parseProblemFileOnly(file);
+		ProblemParser mapped = new ProblemParser();
+		mapped.setUseTokenizer(true);
+		mapped.parseProblemFileOnly(file);
+		assertSameProblem(regex.getProblem(), mapped.getProblem());
+	}
+
+	@Test
+	public void streamedJobsGiveSameProblem() throws IOException, URISyntaxException {
+		FJSSTTproblem expected = new ProblemParser().parseProblemFileOnly(new File(this.getClass().getResource(FJSfile).toURI()))
+				.getProblem();
+		JobStreamParser jobs = ProblemParser.streamJobs(new File(this.getClass().getResource(FJSfile).toURI()));
+		assertEquals(10, jobs.getJobs());
+		final FJSSTTproblem streamed = jobs.createProblem();
+		jobs.forEachRemaining(job -> job.addTo(streamed));
+		streamed.setTimeSlots(expected.getTimeSlots());
+		assertSameProblem(expected, streamed);
+
+		assertEquals(10, JobStreamParser.of(fjs).stream().parallel().mapToInt(job -> job.getOperations()).count());
+	}
+
+	@Test(expected = IOException.class)
+	public void tokenizerRejectsIncompleteJob() throws IOException {
+		ProblemParser parser = new ProblemParser();
+		parser.setUseTokenizer(true);
+		parser.parseProblem("1 2\n2 1 1 5 0 10 1\n");
+	}
+
+	@Test
+	public void tokenizerStopsOnEmptyRead() throws IOException {
+		// a channel that delivers one line and then no bytes, but never -1
+		ReadableByteChannel channel = new ReadableByteChannel() {
+			boolean read = false;
+
+			@Override
+			public int read(ByteBuffer dst) {
+				if (read)
+					return 0;
+				read = true;
+				dst.put("1 2\n".getBytes());
+				return 4;
+			}
+
+			@Override
+			public boolean isOpen() {
+				return true;
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+		IntLineTokenizer tokens = new IntLineTokenizer(channel);
+		assertTrue(tokens.nextLine());
+		assertEquals(2, tokens.count());
+		assertFalse(tokens.nextLine());
+	}
+}
@@ -0,0 +1,140 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import at.ngmpps.fjsstt.factory.MappedProblem;
+import at.ngmpps.fjsstt.factory.ProblemSnapshot;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+import at.ngmpps.fjsstt.model.problem.SparseProcessTimesMap;
+
+public class ProblemSnapshotTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void writeAndMapFile() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		File file = folder.newFile("WT1." + ProblemSnapshot.SNAPSHOT_FILE_EXTENSION);
+		ProblemSnapshot.write(problem, file);
+		FJSSTTproblem loaded = ProblemSnapshot.read(file);
+		ProblemParserTest.assertSameProblem(problem, loaded);
+		assertEquals(problem.getConfigurations(), loaded.getConfigurations());
+		assertEquals(problem.getProblemId(), loaded.getProblemId());
+	}
+
+	@Test
+	public void keepsOtherProcessTimes() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		// a process time of a machine that is no alternative machine
+		problem.getProcessTimes().get(0)[0][4] = Integer.MAX_VALUE;
+		FJSSTTproblem loaded = ProblemSnapshot.fromBytes(ProblemSnapshot.toBytes(problem));
+		ProblemParserTest.assertSameProblem(problem, loaded);
+	}
+
+	@Test
+	public void keepsSparseProcessTimes() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		problem.setSparseProcessTimes(true);
+		SparseProcessTimesMap processTimes = (SparseProcessTimesMap) problem.getProcessTimes();
+		long bytes = processTimes.estimateBytes();
+		FJSSTTproblem loaded = ProblemSnapshot.fromBytes(ProblemSnapshot.toBytes(problem));
+		// no dense arrays were created for the snapshot
+		assertEquals(bytes, processTimes.estimateBytes());
+		ProblemParserTest.assertSameProblem(problem, loaded);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsTooLargeProblem() {
+		// 40000 * 40000 travel times do not fit into one buffer (the rows of
+		// the problem itself are not allocated)
+		FJSSTTproblem problem = new FJSSTTproblem(new TreeMap<Integer, Integer>(), 0, 40000, 10, new HashMap<String, List<Integer>>(),
+				new TreeMap<Integer, int[][]>(), new int[40000][], new TreeMap<Integer, Integer>(), Objective.TARDINESS,
+				new TreeMap<Integer, Integer>());
+		ProblemSnapshot.toBytes(problem);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsOtherData() throws IOException {
+		ProblemSnapshot.fromBytes(ByteBuffer.wrap(new byte[128]));
+	}
+
+	@Test
+	public void mappedViewReadsInPlace() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		File file = folder.newFile("WT1." + ProblemSnapshot.SNAPSHOT_FILE_EXTENSION);
+		ProblemSnapshot.write(problem, file);
+		MappedProblem mapped = ProblemSnapshot.open(file);
+		mapped.validate();
+		assertEquals(ProblemSnapshot.VERSION, mapped.getVersion());
+		CompiledProblemTest.assertSameView(problem, mapped);
+		assertEquals(problem.getConfigurations(), mapped.getConfigurations());
+
+		// ids that are not 0 .. jobs-1 are found by binary search
+		problem.removeJob(0);
+		problem.removeJob(4);
+		CompiledProblemTest.assertSameView(problem, ProblemSnapshot.view(ProblemSnapshot.toBytes(problem)));
+	}
+
+	@Test
+	public void readsVersion1() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		ByteBuffer v2 = ProblemSnapshot.toBytes(problem).order(ByteOrder.LITTLE_ENDIAN);
+		int jobs = problem.getOperations().size();
+		// version 1 has no operation offsets after the 5 job columns
+		int before = (16 + 5 * jobs) * 4;
+		int offsets = (jobs + 1) * 4;
+		ByteBuffer v1 = ByteBuffer.allocate(v2.limit() - offsets).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < v2.limit(); i++)
+			if (i < before || i >= before + offsets)
+				v1.put(v2.get(i));
+		v1.putInt(4, 1);
+		v1.flip();
+		assertEquals(1, ProblemSnapshot.view(v1).getVersion());
+		ProblemParserTest.assertSameProblem(problem, ProblemSnapshot.fromBytes(v1));
+	}
+
+	private static void assertRejected(ByteBuffer bytes, String message) {
+		try {
+			ProblemSnapshot.fromBytes(bytes);
+			fail("corrupt snapshot was read");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains(message));
+		}
+	}
+
+	@Test
+	public void rejectsCorruptHeader() throws URISyntaxException, IOException {
+		ByteBuffer bytes = ProblemSnapshot.toBytes(ProblemFixtures.parseWT1()).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.putInt(3 * 4, 7);
+		assertRejected(bytes, "objective");
+
+		bytes = ProblemSnapshot.toBytes(ProblemFixtures.parseWT1()).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.putInt(7 * 4, 1 << 20);
+		assertRejected(bytes, "truncated");
+
+		bytes = ProblemSnapshot.toBytes(ProblemFixtures.parseWT1()).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.putInt(1 * 4, 99);
+		assertRejected(bytes, "version");
+
+		bytes = ProblemSnapshot.toBytes(ProblemFixtures.parseWT1()).order(ByteOrder.LITTLE_ENDIAN);
+		bytes.putInt(4 * 4, -1);
+		assertRejected(bytes, "negative");
+	}
+}
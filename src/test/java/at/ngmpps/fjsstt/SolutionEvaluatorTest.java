@@ -0,0 +1,131 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.CompiledProblem;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.ListScheduling;
+import at.ngmpps.fjsstt.model.problem.Solution;
+import at.ngmpps.fjsstt.model.problem.SolutionEvaluator;
+
+public class SolutionEvaluatorTest {
+
+	private FJSSTTproblem problem;
+
+	private CompiledProblem compiled;
+
+	private Solution feasible;
+
+	@Before
+	public void setUp() {
+		problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(40, 5, 5, 3, 9, 25), null, ProblemGenerator.createTransport(5, 4, 25));
+		compiled = new CompiledProblem(problem);
+		feasible = new ListScheduling(compiled).repair(new HashMap<Integer, int[]>(), new HashMap<Integer, int[]>());
+	}
+
+	private static void assertSameEvaluation(SolutionEvaluator expected, SolutionEvaluator actual) {
+		assertEquals(expected.getObjectiveValue(), actual.getObjectiveValue(), 1e-9);
+		assertEquals(expected.getMakespan(), actual.getMakespan());
+		assertEquals(expected.getPrecedenceViolations(), actual.getPrecedenceViolations());
+		assertEquals(expected.getCapacityViolations(), actual.getCapacityViolations());
+		assertEquals(expected.getFlatSolution().getFingerprint(), actual.getFlatSolution().getFingerprint());
+	}
+
+	@Test
+	public void evaluatesFeasibleSolution() {
+		SolutionEvaluator evaluator = new SolutionEvaluator(problem, feasible);
+		assertTrue(evaluator.isFeasible());
+		assertEquals(feasible.getObjectiveValue(), evaluator.getObjectiveValue(), 1e-9);
+		int makespan = 0;
+		for (int job : compiled.getJobIds())
+			for (int op = 0; op < compiled.getOperationCount(job); op++) {
+				int machine = feasible.getOperationsMachineAssignments().get(job)[op];
+				makespan = Math.max(makespan, feasible.getOperationsBeginTimes().get(job)[op] + compiled.getProcessTime(job, op, machine) - 1);
+			}
+		assertEquals(makespan, evaluator.getMakespan());
+	}
+
+	@Test
+	public void movesMatchFullEvaluation() {
+		SolutionEvaluator evaluator = new SolutionEvaluator(compiled, feasible);
+		Random rng = new Random(25);
+		for (int i = 0; i < 500; i++) {
+			int job = compiled.getJobIds()[rng.nextInt(compiled.getJobCount())];
+			int op = rng.nextInt(compiled.getOperationCount(job));
+			double before = evaluator.getObjectiveValue();
+			long fingerprint = evaluator.getFlatSolution().getFingerprint();
+			double delta;
+			switch (rng.nextInt(3)) {
+			case 0:
+				delta = evaluator.shift(job, op, rng.nextInt(evaluator.getMakespan() + 2));
+				break;
+			case 1:
+				delta = evaluator.reassign(job, op, compiled.getAltMachine(job, op, rng.nextInt(compiled.getAltMachineCount(job, op))));
+				break;
+			default:
+				int machine = evaluator.getFlatSolution().getMachine(compiled.getOperationIndex(job, op));
+				int other = rng.nextInt(compiled.getTotalOperations());
+				if (evaluator.getFlatSolution().getMachine(other) != machine || other == compiled.getOperationIndex(job, op))
+					continue;
+				int otherJob = 0;
+				while (compiled.getOpOffsets()[compiled.getJobIndex(compiled.getJobIds()[otherJob]) + 1] <= other)
+					otherJob++;
+				delta = evaluator.swap(job, op, compiled.getJobIds()[otherJob],
+						other - compiled.getOpOffsets()[compiled.getJobIndex(compiled.getJobIds()[otherJob])]);
+			}
+			assertEquals(before + delta, evaluator.getObjectiveValue(), 1e-9);
+			Solution current = evaluator.toSolution();
+			assertSameEvaluation(new SolutionEvaluator(compiled, current), evaluator);
+			assertEquals(ListScheduling.countViolations(compiled, current.getOperationsBeginTimes(), current.getOperationsMachineAssignments()) == 0,
+					evaluator.isFeasible());
+			if (rng.nextBoolean()) {
+				assertEquals(-delta, evaluator.undo(), 1e-9);
+				assertEquals(fingerprint, evaluator.getFlatSolution().getFingerprint());
+			}
+		}
+	}
+
+	@Test
+	public void countsViolations() {
+		SolutionEvaluator evaluator = new SolutionEvaluator(compiled, feasible);
+		int job = compiled.getJobIds()[0];
+		int o = compiled.getOperationIndex(job, 1);
+		// before the predecessor has completed
+		evaluator.shift(job, 1, evaluator.getFlatSolution().getBeginTime(o - 1));
+		assertFalse(evaluator.isFeasible());
+		assertTrue(evaluator.getPrecedenceViolations() > 0);
+		evaluator.undo();
+		assertTrue(evaluator.isFeasible());
+	}
+
+	@Test
+	public void rejectsOtherMachines() {
+		SolutionEvaluator evaluator = new SolutionEvaluator(compiled, feasible);
+		// operations have at most 3 of the 5 machines as alternatives
+		int job = compiled.getJobIds()[0];
+		int machine = -1;
+		for (int m = 0; m < compiled.getMachines() && machine < 0; m++)
+			if (compiled.getProcessTime(job, 0, m) == Integer.MAX_VALUE)
+				machine = m;
+		assertTrue("the fixture has a machine that is no alternative", machine >= 0);
+		double objectiveValue = evaluator.getObjectiveValue();
+		try {
+			evaluator.reassign(job, 0, machine);
+			fail("machine " + machine + " is no alternative");
+		} catch (IllegalArgumentException e) {
+			// the solution is unchanged
+			assertEquals(objectiveValue, evaluator.getObjectiveValue(), 0);
+		}
+	}
+}
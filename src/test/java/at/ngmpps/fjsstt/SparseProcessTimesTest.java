@@ -0,0 +1,140 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.SparseProcessTimes;
+import at.ngmpps.fjsstt.model.problem.SparseProcessTimesMap;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+
+public class SparseProcessTimesTest {
+
+	@Test
+	public void sparseGivesSameProcessTimes() throws URISyntaxException, IOException {
+		FJSSTTproblem dense = ProblemFixtures.parseWT1();
+		FJSSTTproblem sparse = ProblemFixtures.parseWT1();
+		sparse.setSparseProcessTimes(true);
+		assertTrue(sparse.isSparseProcessTimes());
+		assertFalse(dense.isSparseProcessTimes());
+
+		ProblemParserTest.assertSameProblem(dense, sparse);
+		for (int job : dense.getJobIds()) {
+			assertEquals(dense.calcMinJobCompletionTime(job), sparse.calcMinJobCompletionTime(job));
+			assertArrayEquals(dense.createSubproblem(job).getProcessTimes(), sparse.createSubproblem(job).getProcessTimes());
+			for (int op = 0; op < dense.getOperationCount(job); ++op)
+				for (int m = 0; m < dense.getMachines(); ++m) {
+					assertEquals(dense.getProcessTime(job, op, m), sparse.getProcessTime(job, op, m));
+					assertEquals(dense.getAltMachines(job, op).contains(m), sparse.getSparseProcessTimes(job).isAltMachine(op, m));
+				}
+		}
+		assertEquals(dense.calcLBmakespanFJSS(), sparse.calcLBmakespanFJSS());
+		CompiledProblemTest.assertSameView(dense.compile(), sparse.compile());
+
+		// copies stay sparse
+		assertTrue(sparse.clone().isSparseProcessTimes());
+		assertTrue(sparse.cloneMaps().isSparseProcessTimes());
+		ProblemParserTest.assertSameProblem(dense, sparse.clone());
+
+		sparse.setSparseProcessTimes(false);
+		assertFalse(sparse.isSparseProcessTimes());
+		ProblemParserTest.assertSameProblem(dense, sparse);
+	}
+
+	@Test
+	public void removeAndRestoreJob() throws URISyntaxException, IOException {
+		FJSSTTproblem dense = ProblemFixtures.parseWT1();
+		FJSSTTproblem sparse = ProblemFixtures.parseWT1();
+		sparse.setSparseProcessTimes(true);
+		sparse.removeJob(2);
+		assertFalse(sparse.getProcessTimes().containsKey(2));
+		sparse.restoreJob(2, dense);
+		assertTrue(sparse.isSparseProcessTimes());
+		ProblemParserTest.assertSameProblem(dense, sparse);
+	}
+
+	@Test
+	public void denseReadsKeepWrites() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		problem.setSparseProcessTimes(true);
+		int machine = problem.getAltMachines(1, 0).get(0);
+		int[][] times = problem.getProcessTimes().get(1);
+		assertSame(times, problem.getProcessTimes().get(1));
+		times[0][machine] += 5;
+		assertEquals(times[0][machine], problem.getProcessTime(1, 0, machine));
+		assertEquals(times[0][machine], problem.getSparseProcessTimes(1).get(0, machine));
+		for (Map.Entry<Integer, int[][]> job : problem.getProcessTimes().entrySet())
+			if (job.getKey() == 1)
+				assertSame(times, job.getValue());
+		assertEquals(times[0][machine], problem.clone().getProcessTime(1, 0, machine));
+		assertEquals(times[0][machine], problem.cloneMaps().getProcessTime(1, 0, machine));
+
+		// stored sparse again
+		problem.getProcessTimes().put(1, times);
+		assertNotSame(times, problem.getProcessTimes().get(1));
+		assertEquals(times[0][machine], problem.getProcessTime(1, 0, machine));
+	}
+
+	@Test
+	public void denseProblemCachesSparseForm() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		SparseProcessTimes sparse = problem.getSparseProcessTimes(1);
+		assertSame(sparse, problem.getSparseProcessTimes(1));
+		int lowerBound = problem.calcLBmakespanFJSS();
+		assertSame(sparse, problem.getSparseProcessTimes(1));
+
+		int machine = problem.getAltMachines(1, 0).get(0);
+		problem.getProcessTimes().get(1)[0][machine] += 1000;
+		assertEquals(problem.getProcessTimes().get(1)[0][machine], problem.getSparseProcessTimes(1).get(0, machine));
+		assertTrue(problem.calcLBmakespanFJSS() >= lowerBound);
+		problem.removeJob(1);
+		problem.restoreJob(1, ProblemFixtures.parseWT1());
+		assertEquals(lowerBound, problem.calcLBmakespanFJSS());
+	}
+
+	@Test
+	public void sparseNeedsLessMemory() {
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(50, 1000, 10, 5, 20, 7), null, null);
+		long denseBytes = 0;
+		for (int[][] jobProcessTimes : problem.getProcessTimes().values())
+			for (int[] row : jobProcessTimes)
+				denseBytes += 16 + 4L * row.length;
+		problem.setSparseProcessTimes(true);
+		assertTrue(((SparseProcessTimesMap) problem.getProcessTimes()).estimateBytes() * 10 < denseBytes);
+	}
+
+	@Test
+	public void costWithBadProcessTime() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		SubproblemInstance sub = problem.createSubproblem(0);
+		int machine = sub.getAltMachines().get(0).get(0);
+		sub.getProcessTimes()[0][machine] = Integer.MAX_VALUE;
+		int[] machines = new int[sub.getOperations()];
+		int[] begin = new int[sub.getOperations()];
+		machines[0] = machine;
+		for (int op = 1; op < sub.getOperations(); ++op) {
+			machines[op] = sub.getAltMachines().get(op).get(0);
+			begin[op] = op;
+		}
+		double[][] multipliers = new double[sub.getMachines()][sub.getTimeSlots()];
+		for (double[] row : multipliers)
+			Arrays.fill(row, 1);
+		// the bad operation occupies the machine until the end of the horizon
+		double cost = sub.calcCost(problem.getObjective(), new Bid(0, 0, machines, begin), multipliers);
+		assertTrue(cost >= sub.getTimeSlots());
+	}
+}
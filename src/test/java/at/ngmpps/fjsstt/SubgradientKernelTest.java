@@ -0,0 +1,71 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.SubgradientKernel;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemEngine;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverType;
+
+public class SubgradientKernelTest {
+
+	/**
+	 * counts the occupied time slots of the bids
+	 */
+	private static int[][] perSlot(FJSSTTproblem problem, Map<Integer, Bid> bids) {
+		int[][] result = new int[problem.getMachines()][problem.getTimeSlots()];
+		for (int[] row : result)
+			Arrays.fill(row, -1);
+		for (Bid bid : bids.values()) {
+			Bid withSlots = new Bid(bid.getJobID(), bid.getPrice(), bid.getOptimumMachines(), bid.getOptimumBeginTimes(),
+					problem.getProcessTimes().get(bid.getJobID()), bid.getOptimumMachines().length);
+			for (int[] slot : withSlots.getOccupiedTimeSlots())
+				if (slot[1] < problem.getTimeSlots())
+					result[slot[0]][slot[1]]++;
+		}
+		return result;
+	}
+
+	@Test
+	public void sameAsCountingSlots() {
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(300, 8, 5, 3, 9, 6), null,
+				ProblemGenerator.createTransport(8, 3, 6));
+		Map<Integer, Bid> bids;
+		try (SubproblemEngine engine = new SubproblemEngine(new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming))) {
+			bids = engine.solve(problem);
+		}
+		int[][] expected = perSlot(problem, bids);
+
+		SubgradientKernel kernel = new SubgradientKernel(problem);
+		assertArrayEquals(expected, kernel.calcSubgradients(bids.values()));
+		// bids without intervals: process times of the problem
+		List<Bid> withoutIntervals = new ArrayList<Bid>();
+		for (Bid bid : bids.values())
+			withoutIntervals.add(new Bid(bid.getJobID(), bid.getPrice(), bid.getOptimumMachines(), bid.getOptimumBeginTimes()));
+		assertArrayEquals(expected, kernel.calcSubgradients(withoutIntervals));
+		// compiled problem, more chunks than bids per chunk
+		SubgradientKernel compiled = new SubgradientKernel(problem.compile());
+		ForkJoinPool pool = new ForkJoinPool(7);
+		int minBids = SubgradientKernel.MIN_BIDS_PER_CHUNK;
+		try {
+			compiled.setPool(pool);
+			SubgradientKernel.MIN_BIDS_PER_CHUNK = 1;
+			assertArrayEquals(expected, compiled.calcSubgradients(bids.values()));
+		} finally {
+			SubgradientKernel.MIN_BIDS_PER_CHUNK = minBids;
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.DP_subproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.DoubleMultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemEngine;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverType;
+
+public class SubproblemEngineTest {
+
+	private FJSSTTproblem problem;
+
+	@Before
+	public void setUp() {
+		problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(60, 6, 5, 3, 9, 2), null,
+				ProblemGenerator.createTransport(6, 3, 2));
+	}
+
+	private void assertSameBids(Map<Integer, Bid> expected, Map<Integer, Bid> actual) {
+		assertEquals(expected.keySet(), actual.keySet());
+		for (Integer job : expected.keySet()) {
+			assertEquals(expected.get(job).getPrice(), actual.get(job).getPrice(), 1e-9);
+			assertArrayEquals(expected.get(job).getOptimumMachines(), actual.get(job).getOptimumMachines());
+			assertArrayEquals(expected.get(job).getOptimumBeginTimes(), actual.get(job).getOptimumBeginTimes());
+		}
+	}
+
+	@Test
+	public void sameBidsAsSerialLoop() {
+		SubproblemInstance[] subproblems = problem.createSubproblems();
+		subproblems[0].calcRandomMultipliers(4);
+		MultiplierTable table = new MultiplierTable(subproblems[0].getMultipliers());
+		DP_subproblem dp = new DP_subproblem();
+		HashMap<Integer, Bid> serial = new HashMap<Integer, Bid>();
+		for (SubproblemInstance sub : subproblems)
+			serial.put(sub.getJobID(), dp.solve(sub, table));
+
+		try (SubproblemEngine engine = new SubproblemEngine(new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming), 4,
+				false)) {
+			assertSameBids(serial, engine.solve(subproblems, table));
+			// the pool is reused
+			assertSameBids(serial, engine.solve(subproblems, table));
+		}
+		try (SubproblemEngine engine = new SubproblemEngine(new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming), 3,
+				true)) {
+			assertSameBids(serial, engine.solve(subproblems, table));
+			assertEquals(SubproblemEngine.isVirtualThreadsAvailable(), engine.usesVirtualThreads());
+		}
+	}
+
+	@Test
+	public void oneMultiplierTablePerStorage() {
+		SubproblemInstance[] shared = problem.createSubproblems(new DoubleMultiplierStorage(problem.getMachines(), problem.getTimeSlots()));
+		MultiplierTable[] tables = SubproblemEngine.multiplierTables(shared);
+		for (MultiplierTable table : tables)
+			assertSame(tables[0], table);
+
+		SubproblemInstance[] own = problem.createSubproblems();
+		tables = SubproblemEngine.multiplierTables(own);
+		assertNotSame(tables[0], tables[1]);
+		assertSame(own[1].getMultipliers(), tables[1].getMultipliers());
+	}
+
+	@Test
+	public void vnsBidsDoNotDependOnParallelism() {
+		SubproblemSolverConfig vns = new SubproblemSolverConfig(SubproblemSolverType.VariableNeighbourhoodSearch, 10, -1, 3, 3, 20, 5,
+				1);
+		try (SubproblemEngine serial = new SubproblemEngine(vns, 1, false); SubproblemEngine parallel = new SubproblemEngine(vns, 4, false)) {
+			Map<Integer, Bid> bids = serial.solve(problem);
+			assertEquals(problem.getOperations().size(), bids.size());
+			assertSameBids(bids, parallel.solve(problem));
+		}
+	}
+
+	@Test
+	public void largestJobsFirst() {
+		SubproblemInstance[] subproblems = problem.createSubproblems();
+		long previous = Long.MAX_VALUE;
+		for (SubproblemInstance sub : SubproblemEngine.largestFirst(subproblems)) {
+			long size = SubproblemEngine.size(sub);
+			assertTrue(size <= previous);
+			previous = size;
+		}
+	}
+}
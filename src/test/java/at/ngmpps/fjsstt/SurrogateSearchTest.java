@@ -0,0 +1,109 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.Solution;
+import at.ngmpps.fjsstt.model.problem.SubgradientKernel;
+import at.ngmpps.fjsstt.model.problem.SurrogateSearch;
+import at.ngmpps.fjsstt.model.problem.SurrogateSearch.SearchType;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverType;
+
+public class SurrogateSearchTest {
+
+	private FJSSTTproblem wt1;
+
+	@Before
+	public void setUp() throws URISyntaxException, IOException {
+		wt1 = ProblemFixtures.parseWT1();
+	}
+
+	private static void assertConsistent(FJSSTTproblem problem, SurrogateSearch search) {
+		Map<Integer, Bid> bids = search.getBids();
+		int[][] expected = new SubgradientKernel(problem).calcSubgradients(bids.values());
+		long norm = 0;
+		for (int m = 0; m < problem.getMachines(); m++)
+			for (int t = 0; t < problem.getTimeSlots(); t++) {
+				assertEquals(expected[m][t], search.getSubgradient(m, t));
+				norm += (long) expected[m][t] * expected[m][t];
+				assertTrue(search.getMultipliers().get(m, t) >= 0);
+			}
+		assertEquals(norm, search.getSubgradientNormSquare());
+	}
+
+	@Test
+	public void configuredFromProperties() {
+		SurrogateSearch search = new SurrogateSearch(wt1);
+		assertEquals(SearchType.SurrogateSubgradientSearch, search.getSearchType());
+		assertEquals(10, search.getNoSubproblems());
+		assertEquals(0.2, search.getStepsize(), 0);
+	}
+
+	@Test
+	public void surrogateIterationsSolveSubset() {
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(80, 6, 4, 3, 9, 21), null,
+				ProblemGenerator.createTransport(6, 3, 21));
+		SurrogateSearch search = new SurrogateSearch(problem, new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming),
+				SearchType.SurrogateSubgradientSearch, 7, 0.1, 20, 0.2);
+		assertEquals(80, search.iterate());
+		assertConsistent(problem, search);
+		for (int i = 0; i < 30; i++)
+			assertEquals(7, search.iterate());
+		assertConsistent(problem, search);
+		assertEquals(80 + 30 * 7, search.getSolvedSubproblems());
+		assertTrue(search.getStepsize() > 0 && search.getStepsize() < 0.2);
+
+		Solution solution = search.getSolution();
+		assertEquals(80, solution.getBids().size());
+		assertEquals(31, solution.getIteration());
+	}
+
+	@Test
+	public void fullIterationsGiveLowerBound() {
+		SurrogateSearch both = new SurrogateSearch(wt1, new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming),
+				SearchType.Both, 3, 0.1, 20, 0.2);
+		both.run(25);
+		assertConsistent(wt1, both);
+		assertTrue(both.getLowerBound() > Double.NEGATIVE_INFINITY);
+		// SimpleSearch.UpperBoundary of WT1A
+		assertTrue(both.getLowerBound() <= 138);
+
+		SurrogateSearch simple = new SurrogateSearch(wt1, new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming),
+				SearchType.SimpleSubgradientSearch, 3, 0.1, 20, 0.2);
+		simple.run(10);
+		assertEquals(100, simple.getSolvedSubproblems());
+		assertEquals(0.02, simple.getStepsize(), 1e-12);
+		assertTrue(simple.getLowerBound() <= 138);
+	}
+
+	@Test
+	public void lowerBoundIgnoresWindowSlack() {
+		SubproblemSolverConfig dp = new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming);
+		SurrogateSearch horizon = new SurrogateSearch(wt1, dp, SearchType.SimpleSubgradientSearch, 3, 0.1, 20, 2);
+		horizon.run(20);
+		wt1.getConfigurations().setProperty(SubproblemSolverConfig.WINDOW_SLACK_KEY, "0");
+		assertEquals(0, wt1.getWindowSlack());
+		// subproblems with these windows gave a "bound" of 113 instead of 4.5
+		SurrogateSearch tight = new SurrogateSearch(wt1, dp, SearchType.SimpleSubgradientSearch, 3, 0.1, 20, 2);
+		tight.run(20);
+		assertEquals(horizon.getLowerBound(), tight.getLowerBound(), 1e-9);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsMOfOne() {
+		new SurrogateSearch(wt1, new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming), SearchType.Both, 3, 0.1, 1,
+				0.2);
+	}
+}
@@ -0,0 +1,108 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.bench.ProblemGenerator;
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+
+public class TimeWindowsTest {
+
+	/**
+	 * every schedule that starts each operation as early as possible on random
+	 * machines begins inside the windows, if it completes in the horizon
+	 */
+	private void assertEarliestSchedulesInWindows(SubproblemInstance sub, Random rng) {
+		for (int run = 0; run < 100; ++run) {
+			int[] machines = new int[sub.getOperations()];
+			int[] begins = new int[sub.getOperations()];
+			long completion = sub.getHorizonStart() - 1;
+			for (int op = 0; op < sub.getOperations(); ++op) {
+				List<Integer> alt = sub.getAltMachines().get(op);
+				machines[op] = alt.get(rng.nextInt(alt.size()));
+				begins[op] = (int) (op == 0 ? sub.getHorizonStart() : completion + 1 + sub.getTravelTimes()[machines[op - 1]][machines[op]]);
+				completion = begins[op] + sub.getProcessTimes()[op][machines[op]] - 1;
+			}
+			if (completion < sub.getTimeSlots())
+				assertTrue(sub.isInTimeWindows(new Bid(sub.getJobID(), 0, machines, begins)));
+		}
+	}
+
+	@Test
+	public void windowsOfSubproblems() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		Random rng = new Random(3);
+		for (int job : problem.getJobIds()) {
+			SubproblemInstance sub = problem.createSubproblem(job);
+			assertEquals(problem.getReleaseTime(job), sub.getHorizonStart());
+			assertEquals(sub.getHorizonStart(), sub.getEarliestStart(0));
+			for (int op = 0; op < sub.getOperations(); ++op)
+				assertTrue(sub.getEarliestStart(op) <= sub.getLatestStart(op));
+			// the earliest completion is the minimum job completion time when
+			// released at 0
+			if (sub.getHorizonStart() == 0)
+				assertEquals(problem.calcMinJobCompletionTime(job), sub.calcTimeWindows(-1));
+			assertEarliestSchedulesInWindows(sub, rng);
+		}
+	}
+
+	@Test
+	public void slackShrinksWindows() {
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(20, 10, 8, 3, 20, 5), null,
+				ProblemGenerator.createTransport(10, 3, 5));
+		problem.setTimeSlots(800);
+		long horizonSlots = 0;
+		long windowSlots = 0;
+		problem.getConfigurations().setProperty(SubproblemSolverConfig.WINDOW_SLACK_KEY, "10");
+		for (int job : problem.getJobIds()) {
+			SubproblemInstance sub = problem.createSubproblem(job);
+			horizonSlots += (long) sub.getOperations() * sub.getTimeSlots();
+			windowSlots += sub.getTimeWindowSlots();
+			int earliestCompletion = sub.calcTimeWindows(10);
+			// the last operation can still complete slack slots after the due
+			// date (or the earliest completion)
+			int last = sub.getOperations() - 1;
+			assertTrue(sub.getLatestStart(last) >= sub.getEarliestStart(last));
+			assertTrue(sub.getLatestStart(last) <= Math.max(sub.getDueDate(), earliestCompletion) + 10);
+		}
+		assertTrue(windowSlots * 5 < horizonSlots);
+	}
+
+	@Test
+	public void defaultSlackKeepsHorizon() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		assertEquals(-1, problem.getWindowSlack());
+		for (int job : problem.getJobIds()) {
+			SubproblemInstance sub = problem.createSubproblem(job);
+			long windowSlots = sub.getTimeWindowSlots();
+			sub.calcTimeWindows(-1);
+			assertEquals(sub.getTimeWindowSlots(), windowSlots);
+		}
+	}
+
+	@Test
+	public void configuredSlackLimitsWindows() throws URISyntaxException, IOException {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		problem.getConfigurations().setProperty(SubproblemSolverConfig.WINDOW_SLACK_KEY, "50");
+		long horizonSlots = 0;
+		long windowSlots = 0;
+		for (int job : problem.getJobIds()) {
+			SubproblemInstance sub = problem.createSubproblem(job);
+			horizonSlots += (long) sub.getOperations() * (sub.getTimeSlots() - sub.getHorizonStart());
+			windowSlots += sub.getTimeWindowSlots();
+		}
+		// 23% with a slack of 50
+		assertTrue(windowSlots * 3 < horizonSlots);
+	}
+}
@@ -0,0 +1,100 @@
+package at.ngmpps.fjsstt;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem.Objective;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.DP_subproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverType;
+import at.ngmpps.fjsstt.model.problem.subproblem.VNS_subproblem;
+
+public class VNS_subproblemTest {
+
+	private static SubproblemSolverConfig iterations(int iterations) {
+		return new SubproblemSolverConfig(SubproblemSolverType.VariableNeighbourhoodSearch, iterations, -1, 3, 3, 30, 5, 2);
+	}
+
+	@Test
+	public void feasibleAndNotBetterThanOptimum() {
+		Random rng = new Random(5);
+		VNS_subproblem vns = new VNS_subproblem(iterations(30), 1);
+		DP_subproblem dp = new DP_subproblem();
+		for (int run = 0; run < 40; run++) {
+			Objective objective = run % 2 == 0 ? Objective.TARDINESS : Objective.COMPLETION_TIME;
+			SubproblemInstance sub = DP_subproblemTest.randomSubproblem(rng, 1 + rng.nextInt(3), 3, 20, objective);
+			MultiplierTable table = new MultiplierTable(sub.getMultipliers());
+			Bid optimum = dp.solve(sub, table);
+			Bid bid = vns.solve(sub, table);
+			if (optimum == null)
+				continue;
+			assertNotNull(bid);
+			DP_subproblemTest.assertFeasible(sub, bid);
+			assertEquals(sub.calcCost(objective, bid, table), bid.getPrice(), 1e-9);
+			assertTrue(bid.getPrice() >= optimum.getPrice() - 1e-9);
+		}
+	}
+
+	@Test
+	public void sameSeedSameBid() {
+		SubproblemInstance sub = DP_subproblemTest.randomSubproblem(new Random(3), 4, 4, 40, Objective.TARDINESS);
+		MultiplierTable table = new MultiplierTable(sub.getMultipliers());
+		Bid first = new VNS_subproblem(iterations(20), 7).solve(sub, table);
+		// a solver that solved another job before gives the same result
+		VNS_subproblem used = new VNS_subproblem(iterations(20), 7);
+		used.solve(DP_subproblemTest.randomSubproblem(new Random(4), 2, 4, 40, Objective.TARDINESS), table);
+		Bid second = used.solve(sub, table);
+		assertArrayEquals(first.getOptimumMachines(), second.getOptimumMachines());
+		assertArrayEquals(first.getOptimumBeginTimes(), second.getOptimumBeginTimes());
+		assertEquals(first.getPrice(), second.getPrice(), 0);
+	}
+
+	@Test
+	public void stopsAtExecutionTime() {
+		SubproblemInstance sub = DP_subproblemTest.randomSubproblem(new Random(8), 6, 5, 400, Objective.TARDINESS);
+		MultiplierTable table = new MultiplierTable(sub.getMultipliers());
+		// a huge number of iterations, but only 20 ms
+		VNS_subproblem vns = new VNS_subproblem(
+				new SubproblemSolverConfig(SubproblemSolverType.VariableNeighbourhoodSearch, Integer.MAX_VALUE, 20, 10, 3, 1000, 50, 3), 1);
+		long start = System.nanoTime();
+		Bid bid = vns.solve(sub, table);
+		long millis = (System.nanoTime() - start) / 1000000;
+		assertNotNull(bid);
+		DP_subproblemTest.assertFeasible(sub, bid);
+		// stopped by the clock, not by the iterations; the time only catches a
+		// search that does not stop at all
+		assertTrue(vns.isTimedOut());
+		assertTrue("took " + millis + " ms", millis < 20 + 10000);
+
+		vns = new VNS_subproblem(iterations(5), 1);
+		vns.solve(sub, table);
+		assertFalse(vns.isTimedOut());
+	}
+
+	@Test
+	public void staysInTightWindows() {
+		Random rng = new Random(11);
+		// up to 100 slots of slack between the operations of the initial solution
+		VNS_subproblem vns = new VNS_subproblem(
+				new SubproblemSolverConfig(SubproblemSolverType.VariableNeighbourhoodSearch, 10, -1, 100, 3, 30, 5, 2), 1);
+		for (int run = 0; run < 40; run++) {
+			SubproblemInstance sub = DP_subproblemTest.randomSubproblem(rng, 2 + rng.nextInt(3), 3, 200, Objective.TARDINESS);
+			// the job must end on time, or right after its earliest completion
+			sub.calcTimeWindows(0);
+			Bid bid = vns.solve(sub, new MultiplierTable(sub.getMultipliers()));
+			assertNotNull(bid);
+			DP_subproblemTest.assertFeasible(sub, bid);
+			assertTrue(sub.isInTimeWindows(bid));
+		}
+	}
+}
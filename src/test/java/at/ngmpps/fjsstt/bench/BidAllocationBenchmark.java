@@ -0,0 +1,96 @@
+package at.ngmpps.fjsstt.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+
+/**
+ * Bytes allocated and time per created bid: the interval encoding of
+ * {@link Bid} against the former list with one int[2] per occupied slot (and
+ * against materializing that list from the intervals). Needs a HotSpot JVM for
+ * the allocation counter. Not a unit test; run the main method, e.g. mvn
+ * test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=at.ngmpps.fjsstt.bench.BidAllocationBenchmark
+ */
+public class BidAllocationBenchmark {
+
+	static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * the occupied slots as created by the former Bid constructor
+	 */
+	static List<int[]> perSlotTuples(int[] machines, int[] beginTimes, int[][] processTimes, int operations) {
+		List<int[]> slots = new ArrayList<int[]>();
+		for (int j = 0; j < operations; j++)
+			for (int t = beginTimes[j]; t <= beginTimes[j] + processTimes[j][machines[j]] - 1; t++)
+				slots.add(new int[] { machines[j], t });
+		return slots;
+	}
+
+	interface Variant {
+		Object create(int[] machines, int[] beginTimes, int[][] processTimes, int operations);
+	}
+
+	static long sink;
+
+	static void measure(String name, Variant variant, int[][] machines, int[][] beginTimes, int[][][] processTimes, int operations) {
+		int bids = machines.length;
+		// warm up
+		for (int round = 0; round < 3; round++)
+			for (int b = 0; b < bids; b++)
+				sink += variant.create(machines[b], beginTimes[b], processTimes[b], operations).hashCode();
+		int rounds = 10;
+		long bytes = allocatedBytes();
+		long start = System.nanoTime();
+		for (int round = 0; round < rounds; round++)
+			for (int b = 0; b < bids; b++)
+				sink += variant.create(machines[b], beginTimes[b], processTimes[b], operations).hashCode();
+		long time = System.nanoTime() - start;
+		bytes = allocatedBytes() - bytes;
+		System.out.printf("%-24s %10.0f bytes %10.2f us per bid%n", name, (double) bytes / rounds / bids, time / 1e3 / rounds / bids);
+	}
+
+	public static void main(String[] args) {
+		int bids = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int operations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int processTime = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+		int machineCount = 20;
+		Random rng = new Random(42);
+		int[][] machines = new int[bids][operations];
+		int[][] beginTimes = new int[bids][operations];
+		int[][][] processTimes = new int[bids][operations][machineCount];
+		for (int b = 0; b < bids; b++) {
+			int t = 0;
+			for (int op = 0; op < operations; op++) {
+				machines[b][op] = rng.nextInt(machineCount);
+				processTimes[b][op][machines[b][op]] = 1 + rng.nextInt(2 * processTime);
+				beginTimes[b][op] = t;
+				t += processTimes[b][op][machines[b][op]];
+			}
+		}
+		System.out.printf("%d bids, %d operations, mean process time %d%n", bids, operations, processTime);
+		measure("per slot int[2] (before)", new Variant() {
+			@Override
+			public Object create(int[] m, int[] b, int[][] p, int ops) {
+				return perSlotTuples(m, b, p, ops);
+			}
+		}, machines, beginTimes, processTimes, operations);
+		measure("intervals (after)", new Variant() {
+			@Override
+			public Object create(int[] m, int[] b, int[][] p, int ops) {
+				return new Bid(0, 0, m, b, p, ops);
+			}
+		}, machines, beginTimes, processTimes, operations);
+		measure("intervals + slot list", new Variant() {
+			@Override
+			public Object create(int[] m, int[] b, int[][] p, int ops) {
+				return new Bid(0, 0, m, b, p, ops).getOccupiedTimeSlots();
+			}
+		}, machines, beginTimes, processTimes, operations);
+	}
+}
@@ -0,0 +1,47 @@
+package at.ngmpps.fjsstt.bench;
+
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+
+/**
+ * Time of {@link FJSSTTproblem#cloneShared()} compared to
+ * {@link FJSSTTproblem#clone()} and {@link FJSSTTproblem#cloneMaps()} as a
+ * function of the number of jobs. Not a unit test; run the main method, e.g.
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=at.ngmpps.fjsstt.bench.CloneSharedBenchmark
+ * 
+ * Measured with 10000 jobs: cloneShared 4 us, cloneMaps 6.5 ms, clone 29 ms;
+ * cloneShared does not grow with the jobs.
+ */
+public class CloneSharedBenchmark {
+
+	public static void main(String[] args) {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+		for (int jobs : new int[] { 100, 1000, 10000, 50000 }) {
+			FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(jobs, 20, 5, 3, 20, 1), null, null);
+			// warm up, then measure
+			for (int round = 0; round < rounds; round++) {
+				problem.cloneShared();
+				problem.cloneMaps();
+				problem.clone();
+			}
+			// O(1), needs more rounds to be measurable
+			System.gc();
+			long start = System.nanoTime();
+			for (int round = 0; round < 100 * rounds; round++)
+				problem.cloneShared();
+			double shared = (System.nanoTime() - start) / 1e3 / rounds / 100;
+			System.gc();
+			start = System.nanoTime();
+			for (int round = 0; round < rounds; round++)
+				problem.cloneMaps();
+			double maps = (System.nanoTime() - start) / 1e3 / rounds;
+			System.gc();
+			start = System.nanoTime();
+			for (int round = 0; round < rounds; round++)
+				problem.clone();
+			double deep = (System.nanoTime() - start) / 1e3 / rounds;
+			System.out.printf("%6d jobs: cloneShared %8.1f us, cloneMaps %8.1f us, clone %9.1f us%n", jobs, shared, maps, deep);
+		}
+	}
+}
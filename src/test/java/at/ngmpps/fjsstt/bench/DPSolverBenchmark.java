@@ -0,0 +1,43 @@
+package at.ngmpps.fjsstt.bench;
+
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.DP_subproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+
+/**
+ * Per job solve time of the dynamic programming subproblem solver as a
+ * function of the horizon length. Not a unit test; run the main method, e.g.
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=at.ngmpps.fjsstt.bench.DPSolverBenchmark
+ */
+public class DPSolverBenchmark {
+
+	public static void main(String[] args) {
+		int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+		int machines = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(jobs, machines, 10, 5, 20, 42), null,
+				ProblemGenerator.createTransport(machines, 5, 42));
+		DP_subproblem solver = new DP_subproblem();
+		for (int horizon : new int[] { 100, 200, 400, 800, 1600, 3200 }) {
+			problem.setTimeSlots(horizon);
+			SubproblemInstance[] subproblems = new SubproblemInstance[jobs];
+			for (int job = 0; job < jobs; job++) {
+				subproblems[job] = problem.createSubproblem(job);
+				subproblems[job].calcRandomMultipliers(job);
+			}
+			MultiplierTable table = new MultiplierTable(subproblems[0].getMultipliers());
+			// warm up, then measure
+			for (SubproblemInstance sub : subproblems)
+				solver.solve(sub, table);
+			long start = System.nanoTime();
+			int rounds = 5;
+			for (int round = 0; round < rounds; round++)
+				for (SubproblemInstance sub : subproblems)
+					solver.solve(sub, table);
+			double perJob = (System.nanoTime() - start) / 1e3 / rounds / jobs;
+			System.out.printf("horizon %5d: %8.1f us per job%n", horizon, perJob);
+		}
+	}
+}
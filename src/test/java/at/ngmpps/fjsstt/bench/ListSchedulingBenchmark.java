@@ -0,0 +1,56 @@
+package at.ngmpps.fjsstt.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.CompiledProblem;
+import at.ngmpps.fjsstt.model.problem.ListScheduling;
+import at.ngmpps.fjsstt.model.problem.Solution;
+
+/**
+ * Time to repair a relaxed schedule of about 100000 operations (20000 jobs, 50
+ * machines) with {@link ListScheduling}. The relaxed schedule puts every job
+ * at a random begin on random alternative machines, ignoring capacities. Not a
+ * unit test; run the main method, e.g. mvn test-compile exec:java
+ * -Dexec.classpathScope=test
+ * -Dexec.mainClass=at.ngmpps.fjsstt.bench.ListSchedulingBenchmark
+ */
+public class ListSchedulingBenchmark {
+
+	public static void main(String[] args) {
+		final int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		final int machines = 50;
+		CompiledProblem problem = new CompiledProblem(ProblemParser.parseStrings(ProblemGenerator.createFjs(jobs, machines, 9, 4, 20, 1),
+				null, ProblemGenerator.createTransport(machines, 5, 1)));
+		Random rng = new Random(1);
+		Map<Integer, int[]> begins = new HashMap<Integer, int[]>();
+		Map<Integer, int[]> assigned = new HashMap<Integer, int[]>();
+		for (int job : problem.getJobIds()) {
+			int ops = problem.getOperationCount(job);
+			int[] b = new int[ops];
+			int[] m = new int[ops];
+			int t = rng.nextInt(jobs / 10 + 1);
+			for (int op = 0; op < ops; op++) {
+				m[op] = problem.getAltMachine(job, op, rng.nextInt(problem.getAltMachineCount(job, op)));
+				b[op] = t;
+				t += problem.getProcessTime(job, op, m[op]) + 5;
+			}
+			begins.put(job, b);
+			assigned.put(job, m);
+		}
+		System.out.println("operations: " + problem.getTotalOperations());
+
+		ListScheduling scheduling = new ListScheduling(problem);
+		for (int round = 0; round < 5; round++) {
+			long start = System.nanoTime();
+			Solution solution = scheduling.repair(begins, assigned);
+			long nanos = System.nanoTime() - start;
+			System.out.printf("repair: %.1f ms, objective %.0f%n", nanos / 1e6, solution.getObjectiveValue());
+		}
+		Solution solution = scheduling.repair(begins, assigned);
+		System.out.println("violations relaxed: " + ListScheduling.countViolations(problem, begins, assigned) + ", repaired: "
+				+ ListScheduling.countViolations(problem, solution.getOperationsBeginTimes(), solution.getOperationsMachineAssignments()));
+	}
+}
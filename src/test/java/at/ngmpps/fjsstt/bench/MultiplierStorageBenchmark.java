@@ -0,0 +1,68 @@
+package at.ngmpps.fjsstt.bench;
+
+import java.util.Map;
+import java.util.Random;
+
+import at.ngmpps.fjsstt.factory.ProblemParser;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.DoubleMultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.FloatMultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierTable;
+import at.ngmpps.fjsstt.model.problem.subproblem.SparseMultiplierStorage;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemEngine;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverConfig;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemSolverType;
+
+/**
+ * Memory and cost evaluation time of the multiplier storages, for multipliers
+ * with a given share of non-zero values. Not a unit test; run the main method,
+ * e.g. mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=at.ngmpps.fjsstt.bench.MultiplierStorageBenchmark
+ */
+public class MultiplierStorageBenchmark {
+
+	static double sink;
+
+	public static void main(String[] args) {
+		int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+		int machines = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		int horizon = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+		FJSSTTproblem problem = ProblemParser.parseStrings(ProblemGenerator.createFjs(jobs, machines, 10, 5, 20, 42), null,
+				ProblemGenerator.createTransport(machines, 5, 42));
+		problem.setTimeSlots(horizon);
+		SubproblemInstance[] subproblems = problem.createSubproblems();
+		Map<Integer, Bid> bids;
+		try (SubproblemEngine engine = new SubproblemEngine(new SubproblemSolverConfig(SubproblemSolverType.DynamicProgramming))) {
+			bids = engine.solve(subproblems, new MultiplierTable(machines, horizon));
+		}
+		System.out.printf("%d jobs, %d machines x %d slots, %d subproblems%n", jobs, machines, horizon, subproblems.length);
+		System.out.printf("one own double array per subproblem: %d MB%n",
+				subproblems.length * new DoubleMultiplierStorage(machines, horizon).estimateBytes() >> 20);
+		for (double density : new double[] { 1, 0.1, 0.01 }) {
+			Random rng = new Random(1);
+			double[][] multipliers = new double[machines][horizon];
+			for (int m = 0; m < machines; m++)
+				for (int t = 0; t < horizon; t++)
+					if (rng.nextDouble() < density)
+						multipliers[m][t] = rng.nextDouble() * 5;
+			MultiplierStorage[] storages = { new DoubleMultiplierStorage(multipliers), new FloatMultiplierStorage(multipliers),
+					new SparseMultiplierStorage(multipliers) };
+			System.out.printf("non-zero share %.2f%n", density);
+			for (MultiplierStorage storage : storages) {
+				for (int pass = 0; pass < 2; pass++) {
+					long start = System.nanoTime();
+					int rounds = 20;
+					for (int round = 0; round < rounds; round++)
+						for (SubproblemInstance sub : subproblems)
+							sink += sub.calcCost(sub.getObjective(), bids.get(sub.getJobID()), storage);
+					if (pass > 0)
+						System.out.printf("  %-24s %8d KB %8.2f us per bid%n", storage.getClass().getSimpleName(), storage.estimateBytes() >> 10,
+								(System.nanoTime() - start) / 1e3 / rounds / subproblems.length);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package at.ngmpps.fjsstt.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import at.ngmpps.fjsstt.model.problem.subproblem.Bid;
+import at.ngmpps.fjsstt.model.problem.subproblem.MultiplierUpdateKernel;
+
+/**
+ * Time per subgradient step at 1000 machines x 10000 time slots: new dense
+ * arrays per step (as before), an in-place dense step, and the active-set
+ * {@link MultiplierUpdateKernel}. Each step uses other random bids. Not a unit
+ * test; run the main method with enough heap (-Xmx2g), e.g. mvn test-compile
+ * exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=at.ngmpps.fjsstt.bench.MultiplierUpdateBenchmark
+ */
+public class MultiplierUpdateBenchmark {
+
+	static List<Bid> randomBids(Random rng, int jobs, int operations, int machines, int slots, int maxProcessTime) {
+		List<Bid> bids = new ArrayList<Bid>(jobs);
+		for (int job = 0; job < jobs; job++) {
+			int[] m = new int[operations];
+			int[] begins = new int[operations];
+			int[][] processTimes = new int[operations][machines];
+			int t = rng.nextInt(slots / 2);
+			for (int op = 0; op < operations; op++) {
+				m[op] = rng.nextInt(machines);
+				begins[op] = t;
+				processTimes[op][m[op]] = 1 + rng.nextInt(maxProcessTime);
+				t += processTimes[op][m[op]];
+			}
+			bids.add(new Bid(job, 0, m, begins, processTimes, operations));
+		}
+		return bids;
+	}
+
+	/**
+	 * usage - 1 from the intervals
+	 */
+	static int[][] subgradients(List<Bid> bids, int machines, int slots) {
+		int[][] g = new int[machines][slots + 1];
+		for (Bid bid : bids) {
+			int[] intervals = bid.getIntervals();
+			for (int i = 0; i < intervals.length; i += 3) {
+				g[intervals[i]][intervals[i + 1]]++;
+				g[intervals[i]][Math.min(slots, intervals[i + 1] + intervals[i + 2])]--;
+			}
+		}
+		for (int[] row : g) {
+			int usage = 0;
+			for (int t = 0; t < slots; t++) {
+				usage += row[t];
+				row[t] = usage - 1;
+			}
+		}
+		return g;
+	}
+
+	public static void main(String[] args) {
+		int machines = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+		int slots = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int jobs = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+		int steps = 10;
+		Random rng = new Random(42);
+		List<List<Bid>> rounds = new ArrayList<List<Bid>>();
+		for (int s = 0; s < steps; s++)
+			rounds.add(randomBids(rng, jobs, 10, machines, slots, 40));
+		System.out.printf("%d machines x %d slots, %d jobs with 10 operations%n", machines, slots, jobs);
+
+		for (int pass = 0; pass < 2; pass++) {
+			// new arrays per step
+			double[][] multipliers = new double[machines][slots];
+			long start = System.nanoTime();
+			for (int s = 0; s < steps; s++) {
+				int[][] g = subgradients(rounds.get(s), machines, slots);
+				double[][] next = new double[machines][slots];
+				for (int m = 0; m < machines; m++)
+					for (int t = 0; t < slots; t++)
+						next[m][t] = Math.max(0, multipliers[m][t] + 1.0 / (s + 1) * g[m][t]);
+				multipliers = next;
+			}
+			long dense = System.nanoTime() - start;
+
+			// in place, dense
+			multipliers = new double[machines][slots];
+			start = System.nanoTime();
+			for (int s = 0; s < steps; s++) {
+				int[][] g = subgradients(rounds.get(s), machines, slots);
+				for (int m = 0; m < machines; m++)
+					for (int t = 0; t < slots; t++)
+						if (g[m][t] != 0)
+							multipliers[m][t] = Math.max(0, multipliers[m][t] + 1.0 / (s + 1) * g[m][t]);
+			}
+			long inPlace = System.nanoTime() - start;
+
+			// active set
+			multipliers = new double[machines][slots];
+			MultiplierUpdateKernel kernel = new MultiplierUpdateKernel(multipliers);
+			start = System.nanoTime();
+			for (int s = 0; s < steps; s++)
+				kernel.applySubgradientStep(rounds.get(s), 1.0 / (s + 1));
+			long active = System.nanoTime() - start;
+
+			if (pass > 0) {
+				System.out.printf("new arrays per step  %8.1f ms per step%n", dense / 1e6 / steps);
+				System.out.printf("in place, dense      %8.1f ms per step%n", inPlace / 1e6 / steps);
+				System.out.printf("active set kernel    %8.1f ms per step (%d active slots)%n", active / 1e6 / steps,
+						kernel.getActiveSlotCount());
+			}
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package at.ngmpps.fjsstt.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import at.ngmpps.fjsstt.factory.ProblemParser;
+
+/**
+ * Compares the regex parser with the tokenizer (memory mapped file) on a large
+ * random problem. Not a unit test; run the main method, e.g.
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=at.ngmpps.fjsstt.bench.ParserBenchmark
+ *
+ * Measured with the defaults (20000 jobs, 100 machines, 2.2 MB), OpenJDK 17:
+ * regex 346 - 1141 ms (first round), tokenizer 179 - 629 ms; after warm up
+ * the tokenizer parses 1.4x - 2.8x faster. Both fill the same maps, which
+ * now takes most of the time.
+ */
+public class ParserBenchmark {
+
+	public static void main(String[] args) throws IOException, URISyntaxException {
+		int jobs = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		File file = File.createTempFile("bench", "." + ProblemParser.PROBLEM_FILE_EXTENSION);
+		file.deleteOnExit();
+		Files.write(file.toPath(), ProblemGenerator.createFjs(jobs, 100, 10, 5, 20, 42).getBytes(StandardCharsets.US_ASCII));
+		System.out.println("jobs: " + jobs + ", file size: " + file.length() + " bytes");
+
+		for (int round = 0; round < rounds; ++round) {
+			long regex = time(file, false);
+			long tokenizer = time(file, true);
+			System.out.printf("round %d: regex %.1f ms, tokenizer %.1f ms, speedup %.1fx%n", round, regex / 1e6, tokenizer / 1e6,
+					(double) regex / tokenizer);
+		}
+	}
+
+	static long time(File file, boolean tokenizer) throws IOException, URISyntaxException {
+		ProblemParser parser = new ProblemParser();
+		parser.setUseTokenizer(tokenizer);
+		long start = System.nanoTime();
+		parser.parseProblemFileOnly(file);
+		if (parser.getProblem().getJobs() == 0)
+			throw new IllegalStateException("nothing parsed");
+		return System.nanoTime() - start;
+	}
+}
@@ -0,0 +1,49 @@
+package at.ngmpps.fjsstt.bench;
+
+import java.util.Random;
+
+/**
+ * Creates random problems in the .fjs / .transport text formats for the
+ * benchmarks. Same seed, same problem.
+ */
+public class ProblemGenerator {
+
+	public static String createFjs(int jobs, int machines, int maxOperations, int maxAltMachines, int maxProcessTime, long seed) {
+		Random rng = new Random(seed);
+		StringBuilder sb = new StringBuilder(jobs * maxOperations * maxAltMachines * 6);
+		sb.append(jobs).append('\t').append(machines).append('\n');
+		for (int j = 0; j < jobs; ++j) {
+			int ops = 1 + rng.nextInt(maxOperations);
+			sb.append(ops);
+			int total = 0;
+			for (int o = 0; o < ops; ++o) {
+				int alt = 1 + rng.nextInt(Math.min(maxAltMachines, machines));
+				sb.append('\t').append(alt);
+				// distinct machines: consecutive from a random start
+				int first = rng.nextInt(machines);
+				int max = 0;
+				for (int a = 0; a < alt; ++a) {
+					int time = 1 + rng.nextInt(maxProcessTime);
+					max = Math.max(max, time);
+					sb.append('\t').append((first + a) % machines + 1).append('\t').append(time);
+				}
+				total += max;
+			}
+			int release = rng.nextInt(5);
+			sb.append('\t').append(release).append('\t').append(release + total + rng.nextInt(total + 1)).append('\t')
+					.append(1 + rng.nextInt(3)).append('\n');
+		}
+		return sb.toString();
+	}
+
+	public static String createTransport(int machines, int maxTravelTime, long seed) {
+		Random rng = new Random(seed);
+		StringBuilder sb = new StringBuilder(machines * machines * 3);
+		for (int m = 0; m < machines; ++m) {
+			for (int o = 0; o < machines; ++o)
+				sb.append(m == o ? 0 : rng.nextInt(maxTravelTime + 1)).append(' ');
+			sb.append('\n');
+		}
+		return sb.toString();
+	}
+}
